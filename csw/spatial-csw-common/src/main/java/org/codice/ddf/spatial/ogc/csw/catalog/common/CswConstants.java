@@ -35,6 +35,8 @@ public interface CswConstants {
 
     String GET_RECORD_BY_ID_RESPONSE = "GetRecordByIdResponse";
 
+    String TRANSACTION = "Transaction";
+
     String CAPABILITIES = "Capabilities";
 
     String CSW = "CSW";
@@ -236,4 +238,10 @@ enum BinarySpatialOperand {
     String IS_LON_LAT_ORDER_PROPERTY = "isLonLatOrder";
 
     String OMIT_XML_DECLARATION = "OMIT_XML_DECLARATION";
+
+    /**
+     * Query request property listing the metacard attribute names a response will use. Sources
+     * may use it to avoid returning attributes, such as the metadata, that will not be written.
+     */
+    String ATTRIBUTE_PROJECTION = "attributeProjection";
 }
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import net.opengis.cat.csw.v_2_0_2.ElementSetType;
+
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordMetacardType;
+import org.codice.ddf.spatial.ogc.csw.catalog.converter.DefaultCswRecordMap;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+
+/**
+ * The metacard attributes needed to write a brief, summary or ElementName limited csw:Record.
+ * The attribute names are passed to the catalog as a query hint, and the results are reduced to
+ * those attributes before they are written, so the full metadata of each record is released as
+ * soon as the query returns rather than held until the response has been written.
+ */
+public class AttributeProjection {
+
+    private final Set<String> attributeNames;
+
+    private final boolean includeGeometries;
+
+    private AttributeProjection(Set<String> attributeNames, boolean includeGeometries) {
+        this.attributeNames = Collections.unmodifiableSet(attributeNames);
+        this.includeGeometries = includeGeometries;
+    }
+
+    /**
+     * @return the projection for the requested element set or element names, or null if the full
+     *         record is requested
+     */
+    public static AttributeProjection create(ElementSetType elementSetType,
+            List<QName> elementNames) {
+        List<QName> fields;
+        if (ElementSetType.BRIEF.equals(elementSetType)) {
+            fields = CswRecordMetacardType.BRIEF_CSW_RECORD_FIELDS;
+        } else if (ElementSetType.SUMMARY.equals(elementSetType)) {
+            fields = CswRecordMetacardType.SUMMARY_CSW_RECORD_FIELDS;
+        } else if (elementSetType == null && elementNames != null && !elementNames.isEmpty()) {
+            fields = elementNames;
+        } else {
+            return null;
+        }
+
+        Set<String> attributeNames = new LinkedHashSet<String>();
+        attributeNames.add(Metacard.ID);
+        boolean includeGeometries = false;
+        for (QName field : fields) {
+            if (field == null) {
+                continue;
+            }
+            if (isField(field, CswRecordMetacardType.OWS_BOUNDING_BOX_QNAME)) {
+                includeGeometries = true;
+            } else if (isField(field, CswRecordMetacardType.CSW_TEMPORAL_QNAME)) {
+                attributeNames.add(Metacard.EFFECTIVE);
+                attributeNames.add(Metacard.EXPIRATION);
+            } else {
+                attributeNames.add(DefaultCswRecordMap.getDefaultCswRecordMap()
+                        .getDefaultMetacardFieldFor(field));
+            }
+        }
+        return new AttributeProjection(attributeNames, includeGeometries);
+    }
+
+    private static boolean isField(QName field, QName cswField) {
+        return field.equals(cswField) || (field.getNamespaceURI().isEmpty() && field
+                .getLocalPart().equals(cswField.getLocalPart()));
+    }
+
+    /**
+     * @return the attribute names, not including geometries, that will be written
+     */
+    public Set<String> getAttributeNames() {
+        return attributeNames;
+    }
+
+    public boolean isIncludeGeometries() {
+        return includeGeometries;
+    }
+
+    /**
+     * @return the attribute names as a serializable list for the query request properties
+     */
+    public ArrayList<String> toHint() {
+        return new ArrayList<String>(attributeNames);
+    }
+
+    /**
+     * @return a response with the same request and hits whose metacards only hold the projected
+     *         attributes
+     */
+    public QueryResponse apply(QueryResponse response) {
+        if (response == null || response.getResults() == null) {
+            return response;
+        }
+        List<Result> projected = new ArrayList<Result>(response.getResults().size());
+        for (Result result : response.getResults()) {
+            ResultImpl projectedResult = new ResultImpl(apply(result.getMetacard()));
+            projectedResult.setRelevanceScore(result.getRelevanceScore());
+            projectedResult.setDistanceInMeters(result.getDistanceInMeters());
+            projected.add(projectedResult);
+        }
+        return new QueryResponseImpl(response.getRequest(), projected, response.getHits());
+    }
+
+    /**
+     * @return a copy of the metacard with only the projected attributes, keeping its type
+     */
+    public Metacard apply(Metacard metacard) {
+        if (metacard == null || metacard.getMetacardType() == null) {
+            return metacard;
+        }
+        MetacardImpl projected = new MetacardImpl(metacard.getMetacardType());
+        // The source ID is written as the publisher along with dc:source
+        projected.setSourceId(metacard.getSourceId());
+        for (String name : attributeNames) {
+            copy(metacard, projected, name);
+        }
+        if (includeGeometries) {
+            for (AttributeDescriptor descriptor : metacard.getMetacardType()
+                    .getAttributeDescriptors()) {
+                if (descriptor.getType() != null && AttributeFormat.GEOMETRY
+                        .equals(descriptor.getType().getAttributeFormat())) {
+                    copy(metacard, projected, descriptor.getName());
+                }
+            }
+        }
+        return projected;
+    }
+
+    private void copy(Metacard source, MetacardImpl target, String name) {
+        Attribute attribute = source.getAttribute(name);
+        if (attribute != null) {
+            target.setAttribute(attribute);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.geotools.filter.visitor.DefaultFilterVisitor;
+import org.opengis.filter.Filter;
+import org.opengis.filter.temporal.During;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Least recently used cache of parsed and mapped CQL constraints, so clients that repeat the same
+ * constraint while paging only pay for the CQL parser and {@link
+ * org.codice.ddf.spatial.ogc.csw.catalog.endpoint.mappings.CswRecordMapperFilterVisitor} once.
+ *
+ * Filters containing a During operator are not cached since the mapping of open ended temporal
+ * comparisons is relative to the time the filter was mapped.
+ */
+public class CqlFilterCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CqlFilterCache.class);
+
+    private static final long DEFAULT_MAX_SIZE = 256;
+
+    private final Cache<String, Filter> cache;
+
+    public CqlFilterCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public CqlFilterCache(long maxSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+    }
+
+    /**
+     * @param cqlText
+     *            - the CQL constraint
+     * @param typeNames
+     *            - the type names of the query, which determine how the filter is mapped
+     * @return the key for the constraint
+     */
+    public static String getKey(String cqlText, List<QName> typeNames) {
+        return typeNames + "|" + cqlText;
+    }
+
+    /**
+     * @return the cached filter, or null if the key is not cached
+     */
+    public Filter get(String key) {
+        Filter filter = cache.getIfPresent(key);
+        if (filter == null && LOGGER.isDebugEnabled()) {
+            LOGGER.debug("CQL filter cache miss, {}", cache.stats());
+        }
+        return filter;
+    }
+
+    /**
+     * Caches the filter unless it depends on the current time.
+     */
+    public void put(String key, Filter filter) {
+        if (isCacheable(filter)) {
+            cache.put(key, filter);
+        }
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private boolean isCacheable(Filter filter) {
+        TimeDependentFilterVisitor visitor = new TimeDependentFilterVisitor();
+        filter.accept(visitor, null);
+        return !visitor.isTimeDependent();
+    }
+
+    private static class TimeDependentFilterVisitor extends DefaultFilterVisitor {
+        private boolean timeDependent = false;
+
+        @Override
+        public Object visit(During during, Object data) {
+            timeDependent = true;
+            return super.visit(during, data);
+        }
+
+        public boolean isTimeDependent() {
+            return timeDependent;
+        }
+    }
+}
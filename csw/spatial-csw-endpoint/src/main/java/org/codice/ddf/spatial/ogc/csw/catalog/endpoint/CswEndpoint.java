@@ -18,8 +18,10 @@
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.math.BigInteger;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,6 +40,8 @@
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -56,10 +60,13 @@
 import net.opengis.cat.csw.v_2_0_2.GetRecordByIdType;
 import net.opengis.cat.csw.v_2_0_2.GetRecordsType;
 import net.opengis.cat.csw.v_2_0_2.ObjectFactory;
+import net.opengis.cat.csw.v_2_0_2.QueryConstraintType;
 import net.opengis.cat.csw.v_2_0_2.QueryType;
+import net.opengis.cat.csw.v_2_0_2.RecordPropertyType;
 import net.opengis.cat.csw.v_2_0_2.ResultType;
 import net.opengis.cat.csw.v_2_0_2.SchemaComponentType;
 import net.opengis.cat.csw.v_2_0_2.TransactionResponseType;
+import net.opengis.cat.csw.v_2_0_2.TransactionSummaryType;
 import net.opengis.cat.csw.v_2_0_2.TransactionType;
 import net.opengis.filter.v_1_1_0.ComparisonOperatorType;
 import net.opengis.filter.v_1_1_0.ComparisonOperatorsType;
@@ -90,6 +97,12 @@
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.cxf.io.CachedOutputStream;
+import org.codice.ddf.spatial.ogc.catalog.common.AdmissionController;
+import org.codice.ddf.spatial.ogc.catalog.common.AdmissionException;
+import org.codice.ddf.spatial.ogc.catalog.common.CachedCapabilities;
+import org.codice.ddf.spatial.ogc.catalog.common.CapabilitiesCache;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.Csw;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
@@ -99,6 +112,7 @@
 import org.codice.ddf.spatial.ogc.csw.catalog.common.GetCapabilitiesRequest;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.GetRecordByIdRequest;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.GetRecordsRequest;
+import org.codice.ddf.spatial.ogc.csw.catalog.converter.CswRecordConverter;
 import org.codice.ddf.spatial.ogc.csw.catalog.converter.DefaultCswRecordMap;
 import org.codice.ddf.spatial.ogc.csw.catalog.endpoint.mappings.CswRecordMapperFilterVisitor;
 import org.codice.ddf.spatial.ogc.csw.catalog.transformer.TransformerManager;
@@ -112,24 +126,36 @@
 import org.opengis.filter.FilterVisitor;
 import org.opengis.filter.expression.PropertyName;
 import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
 import org.osgi.framework.BundleContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
 import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.FilterBuilder;
 import ddf.catalog.filter.FilterDelegate;
 import ddf.catalog.filter.impl.SortByImpl;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.CreateRequestImpl;
+import ddf.catalog.operation.impl.DeleteRequestImpl;
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.UpdateRequestImpl;
+import ddf.catalog.source.IngestException;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
 
@@ -146,11 +172,29 @@ public class CswEndpoint implements Csw {
 
     private FilterBuilder builder;
 
+    private final FilterTypeConverter filterTypeConverter = new FilterTypeConverter();
+
+    private CqlFilterCache cqlFilterCache = new CqlFilterCache();
+
+    private final CswRecordConverter recordConverter = new CswRecordConverter();
+
+    private int transactionBatchSize = DEFAULT_TRANSACTION_BATCH_SIZE;
+
+    private ResultWindowCache resultWindowCache;
+
+    private boolean resultCursorsEnabled = false;
+
+    private RecordByIdCache recordByIdCache;
+
+    private boolean recordCacheEnabled = false;
+
     private BundleContext context;
 
     private CatalogFramework framework;
 
-    private CapabilitiesType capabilitiesType;
+    private CapabilitiesCache capabilitiesCache = new CapabilitiesCache();
+
+    private AdmissionController admissionController;
 
     protected static final String SERVICE_TITLE = "Catalog Service for the Web";
 
@@ -193,15 +237,21 @@ public class CswEndpoint implements Csw {
 
     private static Map<String, Element> documentElements = new HashMap<String, Element>();
 
-    private static JAXBContext jaxBContext;
-
     private static final Configuration PARSER_CONFIG = new org.geotools.filter.v1_1.OGCConfiguration();
 
     private static final String DEFAULT_OUTPUT_FORMAT = MediaType.APPLICATION_XML;
 
+    private static final int DEFAULT_TRANSACTION_BATCH_SIZE = 100;
+
+    private static final SortBy TRANSACTION_ID_SORT = new SortByImpl(Metacard.ID,
+            SortOrder.ASCENDING);
+
     @Context
     private UriInfo uri;
 
+    @Context
+    private Request httpRequest;
+
     /**
      * JAX-RS Server that represents a CSW v2.0.2 Server.
      */
@@ -221,12 +271,67 @@ public CswEndpoint(BundleContext context, CatalogFramework ddf, FilterBuilder fi
         this.uri = uri;
     }
 
-    public static synchronized JAXBContext getJaxBContext() throws JAXBException {
-        if (jaxBContext == null) {
-            jaxBContext = JAXBContext.newInstance("net.opengis.cat.csw.v_2_0_2:" +  
-                    "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:net.opengis.ows.v_1_0_0");
+    public void setCapabilitiesCache(CapabilitiesCache capabilitiesCache) {
+        this.capabilitiesCache = capabilitiesCache;
+    }
+
+    public void setCqlFilterCache(CqlFilterCache cqlFilterCache) {
+        this.cqlFilterCache = cqlFilterCache;
+    }
+
+    public void setRecordByIdCache(RecordByIdCache recordByIdCache) {
+        this.recordByIdCache = recordByIdCache;
+    }
+
+    /**
+     * When enabled, GetRecordById is answered from records recently returned to the same subject
+     * before querying the catalog.
+     */
+    public void setRecordCacheEnabled(boolean recordCacheEnabled) {
+        this.recordCacheEnabled = recordCacheEnabled;
+    }
+
+    /**
+     * Sets the number of records sent to the catalog in each create, update or delete request of
+     * a Transaction.
+     */
+    public void setTransactionBatchSize(int transactionBatchSize) {
+        this.transactionBatchSize = Math.max(transactionBatchSize, 1);
+    }
+
+    /**
+     * Sets the controller that admits GetRecords, GetRecordById and Transaction requests, or null
+     * to admit every request.
+     */
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    public void setResultWindowCache(ResultWindowCache resultWindowCache) {
+        this.resultWindowCache = resultWindowCache;
+    }
+
+    /**
+     * When enabled, GetRecords pages are served from server side result windows rather than
+     * querying the catalog for every page.
+     */
+    public void setResultCursorsEnabled(boolean resultCursorsEnabled) {
+        this.resultCursorsEnabled = resultCursorsEnabled;
+    }
+
+    public static JAXBContext getJaxBContext() throws JAXBException {
+        return JaxbContextRegistry.getContext(StringUtils.join(new String[] {
+            CswConstants.OGC_CSW_PACKAGE, CswConstants.OGC_FILTER_PACKAGE,
+            CswConstants.OGC_GML_PACKAGE, CswConstants.OGC_OWS_PACKAGE}, ":"),
+                CswEndpoint.class.getClassLoader());
+    }
+
+    public void init() {
+        try {
+            JaxbContextRegistry.warm(getJaxBContext());
+        } catch (JAXBException e) {
+            LOGGER.error("Failed to initialize JAXBContext", e);
         }
-        return jaxBContext;
     }
     
     @Override
@@ -236,8 +341,6 @@ public static synchronized JAXBContext getJaxBContext() throws JAXBException {
     public CapabilitiesType getCapabilities(@QueryParam("")
         GetCapabilitiesRequest request) throws CswException {
 
-        capabilitiesType = buildCapabilitiesType();
-
         if (request.getAcceptVersions() != null) {
             validateVersion(request.getAcceptVersions());
         }
@@ -248,7 +351,9 @@ public CapabilitiesType getCapabilities(@QueryParam("")
             sectionList = Arrays.asList(sections);
         }
 
-        return buildCapabilitiesType(sectionList);
+        CachedCapabilities<CapabilitiesType> capabilities = getCachedCapabilities(sectionList);
+        capabilities.evaluatePreconditions(httpRequest);
+        return capabilities.getDocument();
     }
 
     @Override
@@ -256,8 +361,6 @@ public CapabilitiesType getCapabilities(@QueryParam("")
     @Consumes({ "text/xml", "application/xml" })
     @Produces({ "text/xml", "application/xml" })
     public CapabilitiesType getCapabilities(GetCapabilitiesType request) throws CswException {
-        capabilitiesType = buildCapabilitiesType();
-
         if (request.getAcceptVersions() != null) {
             validateVersion(request.getAcceptVersions().toString());
         }
@@ -267,7 +370,7 @@ public CapabilitiesType getCapabilities(GetCapabilitiesType request) throws CswE
             sectionList = request.getSections().getSection();
         }
 
-        return buildCapabilitiesType(sectionList);
+        return getCachedCapabilities(sectionList).getDocument();
     }
 
     @Override
@@ -432,8 +535,76 @@ public CswRecordCollection getRecordById(GetRecordByIdType request) throws CswEx
     @Consumes({ "text/xml", "application/xml" })
     @Produces({ "text/xml", "application/xml" })
     public TransactionResponseType transaction(TransactionType request) throws CswException {
-        notImplemented("Transaction_POST");
-        return null;
+        if (request == null) {
+            throw new CswException("TransactionRequest request is null");
+        }
+
+        long totalInserted = 0;
+        long totalUpdated = 0;
+        long totalDeleted = 0;
+        String requestId = request.getRequestId();
+
+        InputStream body = null;
+        TransactionRequestReader reader = null;
+        AdmissionController.Permit permit = null;
+        try {
+            permit = admit(CswConstants.TRANSACTION, transactionBatchSize);
+            body = getTransactionBody(request);
+            reader = new TransactionRequestReader(body, recordConverter, getJaxBContext(),
+                    transactionBatchSize);
+            if (requestId == null) {
+                requestId = reader.getRequestId();
+            }
+
+            TransactionRequestReader.TransactionAction action;
+            while ((action = reader.next()) != null) {
+                switch (action.getType()) {
+                case INSERT:
+                    totalInserted += insert(action.getMetacards());
+                    break;
+                case UPDATE:
+                    totalUpdated += update(action);
+                    break;
+                case DELETE:
+                    totalDeleted += delete(action);
+                    break;
+                default:
+                    break;
+                }
+            }
+        } catch (JAXBException e) {
+            throw new CswException("Unable to read Transaction request: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new CswException("Unable to read Transaction request: " + e.getMessage(), e);
+        } catch (IngestException e) {
+            LOGGER.warn("Unable to complete transaction", e);
+            throw new CswException(e, CswConstants.NO_APPLICABLE_CODE, CswConstants.TRANSACTION);
+        } catch (SourceUnavailableException e) {
+            LOGGER.warn("Unable to complete transaction", e);
+            throw new CswException(e, CswConstants.NO_APPLICABLE_CODE, CswConstants.TRANSACTION);
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
+            if (reader != null) {
+                reader.close();
+            }
+            IOUtils.closeQuietly(body);
+            if (request instanceof CswTransactionRequest) {
+                ((CswTransactionRequest) request).close();
+            }
+        }
+
+        TransactionSummaryType summary = new TransactionSummaryType();
+        summary.setTotalInserted(BigInteger.valueOf(totalInserted));
+        summary.setTotalUpdated(BigInteger.valueOf(totalUpdated));
+        summary.setTotalDeleted(BigInteger.valueOf(totalDeleted));
+        summary.setRequestId(requestId);
+
+        TransactionResponseType response = new TransactionResponseType();
+        response.setTransactionSummary(summary);
+        response.setVersion(CswConstants.VERSION_2_0_2);
+        return response;
     }
 
     @GET
@@ -598,14 +769,17 @@ private CswRecordCollection queryCsw(GetRecordsType request) throws CswException
         if (LOGGER.isDebugEnabled()) {
             try {
                 Writer writer = new StringWriter();
+                Marshaller marshaller = null;
                 try {
-                    Marshaller marshaller = getJaxBContext().createMarshaller();
+                    marshaller = JaxbContextRegistry.acquireMarshaller(getJaxBContext());
                     marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
 
                     JAXBElement<GetRecordsType> jaxbElement = new ObjectFactory().createGetRecords(request);
                     marshaller.marshal(jaxbElement, writer);
                 } catch (JAXBException e) {
                     LOGGER.debug("Unable to marshall {} to XML.  Exception {}", GetRecordsType.class, e);
+                } finally {
+                    releaseMarshaller(marshaller);
                 }
                 LOGGER.debug(writer.toString());
             } catch (Exception e) {
@@ -640,10 +814,42 @@ private CswRecordCollection queryCsw(GetRecordsType request) throws CswException
             }
             boolean federated = (request.getDistributedSearch() != null)
                     && (request.getDistributedSearch().getHopCount().longValue() > 1);
-
+            AttributeProjection projection = getAttributeProjection(request, query);
+            boolean resultWindows = useResultWindows(request);
+            String constraintKey = resultWindows ? getConstraintKey(query) : null;
+
+            // A page served from a result window may read the whole window from the catalog
+            int cost = resultWindows ? resultWindowCache.getFetchSize(constraintKey,
+                    frameworkQuery.getStartIndex(), frameworkQuery.getPageSize()) : frameworkQuery
+                    .getPageSize();
+            AdmissionController.Permit permit = admit(CswConstants.GET_RECORDS, cost);
             try {
-                QueryResponse queryResponse = framework
-                        .query(new QueryRequestImpl(frameworkQuery, federated));
+                QueryResponse queryResponse;
+                boolean partialResults = false;
+                long cacheGeneration = isRecordCacheEnabled() ? recordByIdCache.getGeneration()
+                        : 0;
+                if (resultWindows) {
+                    queryResponse = resultWindowCache.query(framework, frameworkQuery.getFilter(),
+                            constraintKey, frameworkQuery.getSortBy(),
+                            frameworkQuery.getStartIndex(), frameworkQuery.getPageSize(),
+                            federated);
+                } else {
+                    Map<String, Serializable> properties = new HashMap<String, Serializable>();
+                    if (projection != null) {
+                        properties.put(CswConstants.ATTRIBUTE_PROJECTION, projection.toHint());
+                        partialResults = true;
+                    }
+                    queryResponse = framework.query(new QueryRequestImpl(frameworkQuery,
+                            federated, null, properties));
+                }
+                // Sources that honor the projection hint return partial metacards, which must
+                // not be served later as full records by GetRecordById
+                if (isRecordCacheEnabled() && !federated && !partialResults) {
+                    recordByIdCache.putAll(queryResponse.getResults(), cacheGeneration);
+                }
+                if (projection != null) {
+                    queryResponse = projection.apply(queryResponse);
+                }
                 response.setSourceResponse(queryResponse);
             } catch (UnsupportedQueryException e) {
                 LOGGER.warn("Unable to query", e);
@@ -654,13 +860,86 @@ private CswRecordCollection queryCsw(GetRecordsType request) throws CswException
             } catch (FederationException e) {
                 LOGGER.warn("Unable to query", e);
                 throw new CswException(e);
+            } finally {
+                if (permit != null) {
+                    permit.release();
+                }
             }
         }
         
         return response;
     }
 
+    /**
+     * @return the attributes needed to write the requested csw:Record elements, or null if the
+     *         full records are needed because of the element set, schema or output format
+     */
+    private AttributeProjection getAttributeProjection(GetRecordsType request, QueryType query) {
+        if (!ResultType.RESULTS.equals(request.getResultType())) {
+            return null;
+        }
+        if (StringUtils.isNotBlank(request.getOutputSchema())
+                && !CswConstants.CSW_OUTPUT_SCHEMA.equals(request.getOutputSchema())) {
+            return null;
+        }
+        if (StringUtils.isNotBlank(request.getOutputFormat())
+                && !MediaType.APPLICATION_XML.equals(request.getOutputFormat())
+                && !MediaType.TEXT_XML.equals(request.getOutputFormat())) {
+            return null;
+        }
+        return AttributeProjection.create((query.getElementSetName() != null) ? query
+                .getElementSetName().getValue() : null, query.getElementName());
+    }
+
+    private boolean useResultWindows(GetRecordsType request) {
+        return resultCursorsEnabled && resultWindowCache != null
+                && ResultType.RESULTS.equals(request.getResultType())
+                && request.getMaxRecords().intValue() > 0;
+    }
+
+    /**
+     * @return the type names and constraint the query's filter is built from, which identify the
+     *         filter for the result windows, or null if the constraint could not be encoded
+     */
+    private String getConstraintKey(QueryType query) {
+        StringBuilder key = new StringBuilder(String.valueOf(query.getTypeNames())).append('|');
+        QueryConstraintType constraint = query.getConstraint();
+        if (constraint == null) {
+            return key.toString();
+        }
+        if (constraint.isSetCqlText()) {
+            return key.append("cql|").append(constraint.getCqlText()).toString();
+        }
+        if (constraint.isSetFilter()) {
+            Writer writer = new StringWriter();
+            Marshaller marshaller = null;
+            try {
+                marshaller = JaxbContextRegistry.acquireMarshaller(getJaxBContext());
+                marshaller.marshal(new net.opengis.filter.v_1_1_0.ObjectFactory()
+                        .createFilter(constraint.getFilter()), writer);
+            } catch (JAXBException e) {
+                LOGGER.debug("Unable to encode the query constraint, it will not use result "
+                        + "windows.", e);
+                return null;
+            } finally {
+                releaseMarshaller(marshaller);
+            }
+            return key.append("filter|").append(writer).toString();
+        }
+        return key.toString();
+    }
+
     private Filter buildFilter(QueryType query) throws CswException {
+        String cacheKey = null;
+        if (query.getConstraint() != null && query.getConstraint().isSetCqlText()) {
+            cacheKey = CqlFilterCache.getKey(query.getConstraint().getCqlText(),
+                    query.getTypeNames());
+            Filter cached = cqlFilterCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         Filter filter = null;
         if (query.getConstraint() != null) {
             if (query.getConstraint().isSetCqlText()) {
@@ -692,6 +971,10 @@ private Filter buildFilter(QueryType query) throws CswException {
                 throw new CswException(ose.getMessage(), CswConstants.INVALID_PARAMETER_VALUE, null);
             }
         }
+
+        if (cacheKey != null) {
+            cqlFilterCache.put(cacheKey, filter);
+        }
         return filter;
     }
     
@@ -774,6 +1057,42 @@ private Element loadDocElementFromResourcePath(String resourcePath) throws CswEx
         return doc.getDocumentElement();
     }
 
+    /**
+     * Returns the cached GetCapabilities response for the requested sections, building it if the
+     * cache has been invalidated since it was last built.
+     *
+     * @param sections
+     *            The list of desired sections for the GetCapabilities response
+     *
+     * @return The cached CapabilitiesType, containing only the user-specified sections
+     */
+    private CachedCapabilities<CapabilitiesType> getCachedCapabilities(
+            final List<String> sections) {
+        // The operation URLs depend on the base URI the request came in on
+        StringBuilder key = new StringBuilder(uri.getBaseUri().toASCIIString());
+        if (sections == null || sections.size() == 0) {
+            key.append("|ALL");
+        } else {
+            key.append("|");
+            for (String param : GET_CAPABILITIES_PARAMS) {
+                for (String section : sections) {
+                    if (param.equalsIgnoreCase(section)) {
+                        key.append(param).append(",");
+                        break;
+                    }
+                }
+            }
+        }
+
+        return capabilitiesCache.get(key.toString(),
+                new CapabilitiesCache.Builder<CapabilitiesType>() {
+                    @Override
+                    public CapabilitiesType build() {
+                        return buildCapabilitiesType(sections);
+                    }
+                });
+    }
+
     /**
      * Creates a CapabilitiesType object with only specified sections to be returned as a
      * GetCapabilities response.
@@ -784,6 +1103,7 @@ private Element loadDocElementFromResourcePath(String resourcePath) throws CswEx
      * @return The constructed CapabilitiesType object, containing only the user-specified sections
      */
     private CapabilitiesType buildCapabilitiesType(List<String> sections) {
+        CapabilitiesType capabilitiesType = buildCapabilitiesType();
 
         // If no sections are specified, return them all
         if (sections == null || sections.size() == 0) {
@@ -793,7 +1113,7 @@ private CapabilitiesType buildCapabilitiesType(List<String> sections) {
         CapabilitiesType cswCapabilities = new CapabilitiesType();
         cswCapabilities.setVersion(capabilitiesType.getVersion());
 
-        // Grab the desired sections from the global capabilitiesType variable
+        // Grab the desired sections from the full capabilitiesType
         for (String section : sections) {
             if (section.equalsIgnoreCase(SERVICE_IDENTIFICATION)) {
                 cswCapabilities.setServiceIdentification(capabilitiesType
@@ -817,18 +1137,13 @@ private CapabilitiesType buildCapabilitiesType(List<String> sections) {
      * @return The constructed CapabilitiesType object
      */
     private CapabilitiesType buildCapabilitiesType() {
-        if (capabilitiesType == null) {
-            CapabilitiesType cswCapabilities = new CapabilitiesType();
-            cswCapabilities.setVersion(CswConstants.VERSION_2_0_2);
-            cswCapabilities.setServiceIdentification(buildServiceIdentification());
-            cswCapabilities.setServiceProvider(buildServiceProvider());
-            cswCapabilities.setOperationsMetadata(buildOperationsMetadata());
-            cswCapabilities.setFilterCapabilities(buildFilterCapabilities());
-            return cswCapabilities;
-        } else {
-            capabilitiesType.setOperationsMetadata(buildOperationsMetadata());
-            return capabilitiesType;
-        }
+        CapabilitiesType cswCapabilities = new CapabilitiesType();
+        cswCapabilities.setVersion(CswConstants.VERSION_2_0_2);
+        cswCapabilities.setServiceIdentification(buildServiceIdentification());
+        cswCapabilities.setServiceProvider(buildServiceProvider());
+        cswCapabilities.setOperationsMetadata(buildOperationsMetadata());
+        cswCapabilities.setFilterCapabilities(buildFilterCapabilities());
+        return cswCapabilities;
     }
 
     /**
@@ -935,8 +1250,14 @@ private OperationsMetadata buildOperationsMetadata() {
         addOperationParameter(CswConstants.ELEMENT_SET_NAME_PARAMETER,
                 Arrays.asList("brief", "summary", "full"), getRecordByIdOp);
 
+        // Builds Transaction operation metadata
+        Operation transactionOp = buildOperation(CswConstants.TRANSACTION,
+                Arrays.asList(CswConstants.POST));
+        addOperationParameter(CswConstants.TYPE_NAME_PARAMETER,
+                Arrays.asList(CswConstants.CSW_RECORD), transactionOp);
+
         List<Operation> ops = Arrays.asList(getCapabilitiesOp, describeRecordOp, getRecordsOp,
-                getRecordByIdOp);
+                getRecordByIdOp, transactionOp);
         om.setOperation(ops);
 
         om.getParameter().add(createDomainType(CswConstants.SERVICE, CswConstants.CSW));
@@ -1102,10 +1423,6 @@ private void validateSchemaLanguage(String schemaLanguage) throws CswException {
         }
     }
 
-    private void notImplemented(final String methodName) throws CswException {
-        throw new CswException("The method " + methodName + " is not yet implemented.");
-    }
-
     private CswException createUnknownTypeException(final String type) {
         return new CswException("The type '" + type + "' is not known to this service.",
                 CswConstants.INVALID_PARAMETER_VALUE, null);
@@ -1118,19 +1435,37 @@ private CswException createUnknownSchemaException(final String schema) {
 
     private InputStream marshalJaxB(JAXBElement<?> filterElement) throws JAXBException {
         ByteArrayOutputStream os = new ByteArrayOutputStream();
-        getJaxBContext().createMarshaller().marshal(filterElement, os);
+        Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(getJaxBContext());
+        try {
+            marshaller.marshal(filterElement, os);
+        } finally {
+            releaseMarshaller(marshaller);
+        }
         ByteArrayInputStream input = new ByteArrayInputStream(os.toByteArray());
         IOUtils.closeQuietly(os);
 
         return input;
     }
 
+    private void releaseMarshaller(Marshaller marshaller) {
+        try {
+            JaxbContextRegistry.releaseMarshaller(getJaxBContext(), marshaller);
+        } catch (JAXBException e) {
+            LOGGER.debug("Unable to release marshaller.", e);
+        }
+    }
+
     private Filter parseFilter(FilterType filterType) throws CswException {
         if (!filterType.isSetComparisonOps() && !filterType.isSetId()
                 && !filterType.isSetLogicOps() && !filterType.isSetSpatialOps()) {
             throw new CswException("Empty Filter provided. Unable to preform query.",
                     CswConstants.INVALID_PARAMETER_VALUE, "Filter");
         }
+        Filter filter = filterTypeConverter.toFilter(filterType);
+        if (filter != null) {
+            return filter;
+        }
+
         JAXBElement<FilterType> filterElement = new net.opengis.filter.v_1_1_0.ObjectFactory()
                 .createFilter(filterType);
 
@@ -1138,6 +1473,11 @@ private Filter parseFilter(FilterType filterType) throws CswException {
     }
 
     private SortBy[] parseSortBy(SortByType sortByType) throws CswException {
+        SortBy[] sortBy = filterTypeConverter.toSortBy(sortByType);
+        if (sortBy != null) {
+            return sortBy;
+        }
+
         JAXBElement<SortByType> sortByElement = new net.opengis.filter.v_1_1_0.ObjectFactory()
                 .createSortBy(sortByType);
 
@@ -1169,22 +1509,230 @@ private Object parseJaxB(JAXBElement<?> element) throws CswException {
         }
     }
     
+    /**
+     * Requests read by the {@link org.codice.ddf.spatial.ogc.csw.catalog.endpoint.reader.TransactionMessageBodyReader}
+     * are streamed from their cached body, any other request is marshalled so both are read the
+     * same way.
+     */
+    private InputStream getTransactionBody(TransactionType request) throws IOException,
+        JAXBException {
+        if (request instanceof CswTransactionRequest) {
+            return ((CswTransactionRequest) request).getInputStream();
+        }
+
+        CachedOutputStream os = new CachedOutputStream();
+        Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(getJaxBContext());
+        try {
+            marshaller.marshal(new ObjectFactory().createTransaction(request), os);
+            os.flush();
+            return os.getInputStream();
+        } finally {
+            releaseMarshaller(marshaller);
+            IOUtils.closeQuietly(os);
+        }
+    }
+
+    private long insert(List<Metacard> metacards) throws IngestException,
+        SourceUnavailableException {
+        CreateResponse createResponse = framework.create(new CreateRequestImpl(metacards));
+        return createResponse.getCreatedMetacards().size();
+    }
+
+    private long update(TransactionRequestReader.TransactionAction action) throws CswException,
+        IngestException, SourceUnavailableException {
+        if (!action.getMetacards().isEmpty()) {
+            Metacard record = action.getMetacards().get(0);
+            if (StringUtils.isBlank(record.getId())) {
+                throw new CswException("An updated record must contain an identifier",
+                        CswConstants.MISSING_PARAMETER_VALUE, "dc:identifier");
+            }
+            UpdateResponse updateResponse = framework.update(new UpdateRequestImpl(
+                    record.getId(), record));
+            return updateResponse.getUpdatedMetacards().size();
+        }
+
+        // Updated records can stop matching the constraint, so every matching record is found
+        // before any of them is updated
+        List<String> matchingIds = queryTransactionIds(buildTransactionFilter(action
+                .getConstraint()));
+        long updated = 0;
+        for (int start = 0; start < matchingIds.size(); start += transactionBatchSize) {
+            List<Metacard> metacards = queryTransactionRecords(matchingIds.subList(start,
+                    Math.min(start + transactionBatchSize, matchingIds.size())));
+            if (metacards.isEmpty()) {
+                continue;
+            }
+            String[] ids = new String[metacards.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Metacard metacard = metacards.get(i);
+                ids[i] = metacard.getId();
+                for (RecordPropertyType recordProperty : action.getRecordProperties()) {
+                    metacard.setAttribute(getRecordPropertyAttribute(metacard, recordProperty));
+                }
+            }
+            UpdateResponse updateResponse = framework.update(new UpdateRequestImpl(ids,
+                    metacards));
+            updated += updateResponse.getUpdatedMetacards().size();
+        }
+        return updated;
+    }
+
+    /**
+     * @return the IDs of every record matching the filter, read in pages sorted by ID so the
+     *         pages do not overlap or skip records
+     */
+    private List<String> queryTransactionIds(Filter filter) throws CswException {
+        List<String> ids = new ArrayList<String>();
+        int startIndex = 1;
+        List<Metacard> metacards = queryTransactionPage(filter, startIndex, TRANSACTION_ID_SORT);
+        while (!metacards.isEmpty()) {
+            for (Metacard metacard : metacards) {
+                ids.add(metacard.getId());
+            }
+            if (metacards.size() < transactionBatchSize) {
+                break;
+            }
+            startIndex += metacards.size();
+            metacards = queryTransactionPage(filter, startIndex, TRANSACTION_ID_SORT);
+        }
+        return ids;
+    }
+
+    private List<Metacard> queryTransactionRecords(List<String> ids) throws CswException {
+        List<Filter> filters = new ArrayList<Filter>(ids.size());
+        for (String id : ids) {
+            filters.add(builder.attribute(Metacard.ID).is().equalTo().text(id));
+        }
+        return queryTransactionPage(builder.anyOf(filters), 1, null);
+    }
+
+    private long delete(TransactionRequestReader.TransactionAction action) throws CswException,
+        IngestException, SourceUnavailableException {
+        if (action.getTypeName() != null
+                && !new QName(CswConstants.CSW_OUTPUT_SCHEMA, CswConstants.CSW_RECORD_LOCAL_NAME)
+                        .equals(action.getTypeName())) {
+            throw createUnknownTypeException(action.getTypeName().toString());
+        }
+
+        Filter filter = buildTransactionFilter(action.getConstraint());
+        long deleted = 0;
+        // Deleted records drop out of the results, so every page is read from the start
+        List<Metacard> metacards = queryTransactionPage(filter, 1, null);
+        while (!metacards.isEmpty()) {
+            String[] ids = new String[metacards.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = metacards.get(i).getId();
+            }
+            DeleteResponse deleteResponse = framework.delete(new DeleteRequestImpl(ids));
+            int count = deleteResponse.getDeletedMetacards().size();
+            deleted += count;
+
+            if (count < ids.length || ids.length < transactionBatchSize) {
+                break;
+            }
+            metacards = queryTransactionPage(filter, 1, null);
+        }
+        return deleted;
+    }
+
+    private Filter buildTransactionFilter(QueryConstraintType constraint) throws CswException {
+        QueryType query = new QueryType();
+        query.setConstraint(constraint);
+        query.setTypeNames(Arrays.asList(new QName(CswConstants.CSW_OUTPUT_SCHEMA,
+                CswConstants.CSW_RECORD_LOCAL_NAME, CswConstants.CSW_NAMESPACE_PREFIX)));
+        return buildFilter(query);
+    }
+
+    private List<Metacard> queryTransactionPage(Filter filter, int startIndex, SortBy sortBy)
+        throws CswException {
+        QueryImpl query = new QueryImpl(filter, startIndex, transactionBatchSize, sortBy, false,
+                0);
+        try {
+            QueryResponse queryResponse = framework.query(new QueryRequestImpl(query, false));
+            List<Metacard> metacards = new ArrayList<Metacard>(queryResponse.getResults().size());
+            for (Result result : queryResponse.getResults()) {
+                metacards.add(result.getMetacard());
+            }
+            return metacards;
+        } catch (UnsupportedQueryException e) {
+            throw new CswException(e);
+        } catch (SourceUnavailableException e) {
+            throw new CswException(e);
+        } catch (FederationException e) {
+            throw new CswException(e);
+        }
+    }
+
+    private Attribute getRecordPropertyAttribute(Metacard metacard,
+            RecordPropertyType recordProperty) throws CswException {
+        if (StringUtils.isBlank(recordProperty.getName())) {
+            throw new CswException("A RecordProperty must contain a Name",
+                    CswConstants.MISSING_PARAMETER_VALUE, "Name");
+        }
+        String name = DefaultCswRecordMap.getDefaultCswRecordMap()
+                .getDefaultMetacardFieldForPrefixedString(recordProperty.getName().trim());
+
+        Object value = recordProperty.getValue();
+        String text = (value instanceof Node) ? ((Node) value).getTextContent()
+                : ((value == null) ? null : value.toString());
+        if (text == null) {
+            return new AttributeImpl(name, (Serializable) null);
+        }
+
+        AttributeDescriptor descriptor = metacard.getMetacardType().getAttributeDescriptor(name);
+        if (descriptor == null) {
+            throw new CswException("Property " + recordProperty.getName()
+                    + " is not a valid record property", CswConstants.INVALID_PARAMETER_VALUE,
+                    recordProperty.getName());
+        }
+        return new AttributeImpl(name, CswRecordConverter.convertStringValueToMetacardValue(
+                descriptor.getType().getAttributeFormat(), text.trim()));
+    }
+
+    private boolean isRecordCacheEnabled() {
+        return recordCacheEnabled && recordByIdCache != null;
+    }
+
     private CswRecordCollection queryById(List<String> ids) throws CswException {
+        List<Metacard> metacards = new LinkedList<Metacard>();
+        List<String> uncachedIds = ids;
+        if (isRecordCacheEnabled()) {
+            uncachedIds = new ArrayList<String>(ids.size());
+            for (String id : ids) {
+                Metacard cached = recordByIdCache.get(id);
+                if (cached != null) {
+                    metacards.add(cached);
+                } else {
+                    uncachedIds.add(id);
+                }
+            }
+        }
+
+        CswRecordCollection response = new CswRecordCollection();
+        response.setById(true);
+        if (uncachedIds.isEmpty()) {
+            response.setCswRecords(metacards);
+            return response;
+        }
+
         List<Filter> filters = new ArrayList<Filter>();
-        for (String id : ids) {
+        for (String id : uncachedIds) {
             filters.add(builder.attribute(Metacard.ID).is().equalTo().text(id));
         }
 
         Filter anyOfFilter = builder.anyOf(filters);
         QueryRequest queryRequest = new QueryRequestImpl(new QueryImpl(anyOfFilter), false);
+        AdmissionController.Permit permit = admit(CswConstants.GET_RECORD_BY_ID,
+                uncachedIds.size());
         try {
-            CswRecordCollection response = new CswRecordCollection();
-            response.setById(true);
+            long cacheGeneration = isRecordCacheEnabled() ? recordByIdCache.getGeneration() : 0;
             QueryResponse queryResponse = framework.query(queryRequest);
-            List<Metacard> metacards = new LinkedList<Metacard>();
             for (Result result : queryResponse.getResults()) {
                 metacards.add(result.getMetacard());
             }
+            if (isRecordCacheEnabled()) {
+                recordByIdCache.putAll(queryResponse.getResults(), cacheGeneration);
+            }
             response.setCswRecords(metacards);
             return response;
         } catch (UnsupportedQueryException e) {
@@ -1193,6 +1741,26 @@ private CswRecordCollection queryById(List<String> ids) throws CswException {
             throw new CswException(e);
         } catch (FederationException e) {
             throw new CswException(e);
+        } finally {
+            if (permit != null) {
+                permit.release();
+            }
+        }
+    }
+
+    /**
+     * @return the permit for the request, or null if there is no admission controller
+     */
+    private AdmissionController.Permit admit(String operation, int cost) throws CswException {
+        if (admissionController == null) {
+            return null;
+        }
+        try {
+            return admissionController.admit(operation, cost);
+        } catch (AdmissionException e) {
+            throw new CswException(e.getMessage(),
+                    Response.Status.SERVICE_UNAVAILABLE.getStatusCode(),
+                    CswConstants.NO_APPLICABLE_CODE, operation);
         }
     }
 }
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.opengis.cat.csw.v_2_0_2.TransactionType;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.cxf.io.CachedOutputStream;
+
+/**
+ * A Transaction request whose Insert, Update and Delete actions have not been unmarshalled. The
+ * request body is held in a {@link CachedOutputStream}, which is written to a temporary file once
+ * it exceeds the CXF threshold, so large bulk loads are never held in memory. The actions are read
+ * from {@link #getInputStream()} by a {@link TransactionRequestReader}.
+ */
+public class CswTransactionRequest extends TransactionType implements Closeable {
+
+    private final CachedOutputStream body;
+
+    public CswTransactionRequest(CachedOutputStream body) {
+        this.body = body;
+    }
+
+    public InputStream getInputStream() throws IOException {
+        return body.getInputStream();
+    }
+
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(body);
+    }
+}
@@ -0,0 +1,459 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.xml.bind.JAXBElement;
+
+import net.opengis.filter.v_1_1_0.AbstractIdType;
+import net.opengis.filter.v_1_1_0.BBOXType;
+import net.opengis.filter.v_1_1_0.BinaryComparisonOpType;
+import net.opengis.filter.v_1_1_0.BinaryLogicOpType;
+import net.opengis.filter.v_1_1_0.BinarySpatialOpType;
+import net.opengis.filter.v_1_1_0.DistanceBufferType;
+import net.opengis.filter.v_1_1_0.FeatureIdType;
+import net.opengis.filter.v_1_1_0.FilterType;
+import net.opengis.filter.v_1_1_0.GmlObjectIdType;
+import net.opengis.filter.v_1_1_0.LiteralType;
+import net.opengis.filter.v_1_1_0.PropertyIsBetweenType;
+import net.opengis.filter.v_1_1_0.PropertyIsLikeType;
+import net.opengis.filter.v_1_1_0.PropertyIsNullType;
+import net.opengis.filter.v_1_1_0.PropertyNameType;
+import net.opengis.filter.v_1_1_0.SortByType;
+import net.opengis.filter.v_1_1_0.SortOrderType;
+import net.opengis.filter.v_1_1_0.SortPropertyType;
+import net.opengis.filter.v_1_1_0.UnaryLogicOpType;
+import net.opengis.gml.v_3_1_1.AbstractGeometryType;
+import net.opengis.gml.v_3_1_1.AbstractRingPropertyType;
+import net.opengis.gml.v_3_1_1.CoordType;
+import net.opengis.gml.v_3_1_1.DirectPositionListType;
+import net.opengis.gml.v_3_1_1.DirectPositionType;
+import net.opengis.gml.v_3_1_1.EnvelopeType;
+import net.opengis.gml.v_3_1_1.LineStringType;
+import net.opengis.gml.v_3_1_1.LinearRingType;
+import net.opengis.gml.v_3_1_1.PointType;
+import net.opengis.gml.v_3_1_1.PolygonType;
+
+import org.apache.commons.lang.StringUtils;
+import org.geotools.filter.FilterFactoryImpl;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.expression.Expression;
+import org.opengis.filter.identity.Identifier;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LinearRing;
+
+/**
+ * Converts unmarshalled OGC Filter 1.1.0 {@link FilterType}s and {@link SortByType}s directly to
+ * GeoTools {@link Filter}s and {@link SortBy}s, producing the same objects the GeoTools OGC parser
+ * would without marshalling the JAXB objects back to XML first.
+ *
+ * Only the commonly used parts of the schema are handled: logical, comparison, spatial and id
+ * operators on property names and literals, with point, line, polygon and envelope geometries.
+ * When a filter uses anything else, e.g. functions, arithmetic or multi-geometries, null is
+ * returned and the caller should fall back to the GeoTools parser.
+ */
+public class FilterTypeConverter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FilterTypeConverter.class);
+
+    private static final FilterFactory2 FILTER_FACTORY = new FilterFactoryImpl();
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    /**
+     * Thrown internally when part of a filter can't be converted directly.
+     */
+    private static class UnsupportedFilterException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedFilterException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @param filterType
+     *            - the filter to convert
+     * @return the equivalent {@link Filter}, or null if the filter can't be converted directly
+     */
+    public Filter toFilter(FilterType filterType) {
+        try {
+            if (filterType.isSetComparisonOps()) {
+                return toFilter(filterType.getComparisonOps());
+            } else if (filterType.isSetSpatialOps()) {
+                return toFilter(filterType.getSpatialOps());
+            } else if (filterType.isSetLogicOps()) {
+                return toFilter(filterType.getLogicOps());
+            } else if (filterType.isSetId()) {
+                return toIdFilter(filterType.getId());
+            }
+        } catch (UnsupportedFilterException e) {
+            LOGGER.debug("Unable to convert filter directly: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to convert filter directly.", e);
+        }
+        return null;
+    }
+
+    /**
+     * @param sortByType
+     *            - the sort criteria to convert
+     * @return the equivalent {@link SortBy}s, or null if the criteria can't be converted directly
+     */
+    public SortBy[] toSortBy(SortByType sortByType) {
+        List<SortBy> sortBys = new ArrayList<SortBy>();
+        for (SortPropertyType sortProperty : sortByType.getSortProperty()) {
+            if (sortProperty.getPropertyName() == null) {
+                return null;
+            }
+            String name = getPropertyName(sortProperty.getPropertyName());
+            if (name == null) {
+                return null;
+            }
+            SortOrder order = SortOrderType.DESC.equals(sortProperty.getSortOrder())
+                    ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            sortBys.add(FILTER_FACTORY.sort(name, order));
+        }
+        return sortBys.toArray(new SortBy[sortBys.size()]);
+    }
+
+    private Filter toFilter(JAXBElement<?> element) {
+        Object value = element.getValue();
+        String name = element.getName().getLocalPart();
+
+        if (value instanceof BinaryLogicOpType) {
+            return toLogicFilter(name, (BinaryLogicOpType) value);
+        } else if (value instanceof UnaryLogicOpType) {
+            return FILTER_FACTORY.not(toNotChild((UnaryLogicOpType) value));
+        } else if (value instanceof BinaryComparisonOpType) {
+            return toComparisonFilter(name, (BinaryComparisonOpType) value);
+        } else if (value instanceof PropertyIsLikeType) {
+            PropertyIsLikeType like = (PropertyIsLikeType) value;
+            return FILTER_FACTORY.like(toProperty(like.getPropertyName()),
+                    getLiteralText(like.getLiteral()), like.getWildCard(), like.getSingleChar(),
+                    like.getEscapeChar());
+        } else if (value instanceof PropertyIsNullType) {
+            return FILTER_FACTORY.isNull(toProperty(((PropertyIsNullType) value)
+                    .getPropertyName()));
+        } else if (value instanceof PropertyIsBetweenType) {
+            PropertyIsBetweenType between = (PropertyIsBetweenType) value;
+            return FILTER_FACTORY.between(toExpression(between.getExpression()),
+                    toExpression(between.getLowerBoundary().getExpression()),
+                    toExpression(between.getUpperBoundary().getExpression()));
+        } else if (value instanceof BBOXType) {
+            return toBBoxFilter((BBOXType) value);
+        } else if (value instanceof DistanceBufferType) {
+            return toDistanceFilter(name, (DistanceBufferType) value);
+        } else if (value instanceof BinarySpatialOpType) {
+            return toSpatialFilter(name, (BinarySpatialOpType) value);
+        }
+        throw new UnsupportedFilterException("Unsupported operator " + name);
+    }
+
+    private Filter toLogicFilter(String name, BinaryLogicOpType logicOp) {
+        List<Filter> filters = new ArrayList<Filter>();
+        for (JAXBElement<?> child : logicOp.getComparisonOpsOrSpatialOpsOrLogicOps()) {
+            filters.add(toFilter(child));
+        }
+        if ("And".equals(name)) {
+            return FILTER_FACTORY.and(filters);
+        } else if ("Or".equals(name)) {
+            return FILTER_FACTORY.or(filters);
+        }
+        throw new UnsupportedFilterException("Unsupported logical operator " + name);
+    }
+
+    private Filter toNotChild(UnaryLogicOpType not) {
+        if (not.isSetComparisonOps()) {
+            return toFilter(not.getComparisonOps());
+        } else if (not.isSetSpatialOps()) {
+            return toFilter(not.getSpatialOps());
+        } else if (not.isSetLogicOps()) {
+            return toFilter(not.getLogicOps());
+        }
+        throw new UnsupportedFilterException("Unsupported Not operand");
+    }
+
+    private Filter toComparisonFilter(String name, BinaryComparisonOpType comparison) {
+        List<JAXBElement<?>> expressions = comparison.getExpression();
+        if (expressions.size() != 2) {
+            throw new UnsupportedFilterException(name + " requires two expressions");
+        }
+        Expression expr1 = toExpression(expressions.get(0));
+        Expression expr2 = toExpression(expressions.get(1));
+        boolean matchCase = comparison.isMatchCase();
+
+        if ("PropertyIsEqualTo".equals(name)) {
+            return FILTER_FACTORY.equal(expr1, expr2, matchCase);
+        } else if ("PropertyIsNotEqualTo".equals(name)) {
+            return FILTER_FACTORY.notEqual(expr1, expr2, matchCase);
+        } else if ("PropertyIsLessThan".equals(name)) {
+            return FILTER_FACTORY.less(expr1, expr2, matchCase);
+        } else if ("PropertyIsLessThanOrEqualTo".equals(name)) {
+            return FILTER_FACTORY.lessOrEqual(expr1, expr2, matchCase);
+        } else if ("PropertyIsGreaterThan".equals(name)) {
+            return FILTER_FACTORY.greater(expr1, expr2, matchCase);
+        } else if ("PropertyIsGreaterThanOrEqualTo".equals(name)) {
+            return FILTER_FACTORY.greaterOrEqual(expr1, expr2, matchCase);
+        }
+        throw new UnsupportedFilterException("Unsupported comparison operator " + name);
+    }
+
+    private Filter toSpatialFilter(String name, BinarySpatialOpType spatialOp) {
+        Expression property = toProperty(spatialOp.getPropertyName());
+        Geometry geometry;
+        if (spatialOp.getGeometry() != null) {
+            geometry = toGeometry(spatialOp.getGeometry().getValue());
+        } else if (spatialOp.getEnvelope() != null) {
+            geometry = GEOMETRY_FACTORY.toGeometry(toEnvelope(spatialOp.getEnvelope().getValue()));
+        } else {
+            throw new UnsupportedFilterException(name + " requires a geometry");
+        }
+        Expression literal = FILTER_FACTORY.literal(geometry);
+
+        if ("Equals".equals(name)) {
+            return FILTER_FACTORY.equal(property, literal);
+        } else if ("Disjoint".equals(name)) {
+            return FILTER_FACTORY.disjoint(property, literal);
+        } else if ("Touches".equals(name)) {
+            return FILTER_FACTORY.touches(property, literal);
+        } else if ("Within".equals(name)) {
+            return FILTER_FACTORY.within(property, literal);
+        } else if ("Overlaps".equals(name)) {
+            return FILTER_FACTORY.overlaps(property, literal);
+        } else if ("Crosses".equals(name)) {
+            return FILTER_FACTORY.crosses(property, literal);
+        } else if ("Intersects".equals(name)) {
+            return FILTER_FACTORY.intersects(property, literal);
+        } else if ("Contains".equals(name)) {
+            return FILTER_FACTORY.contains(property, literal);
+        }
+        throw new UnsupportedFilterException("Unsupported spatial operator " + name);
+    }
+
+    private Filter toDistanceFilter(String name, DistanceBufferType distanceBuffer) {
+        if (distanceBuffer.getGeometry() == null || distanceBuffer.getDistance() == null) {
+            throw new UnsupportedFilterException(name + " requires a geometry and distance");
+        }
+        Expression property = toProperty(distanceBuffer.getPropertyName());
+        Expression literal = FILTER_FACTORY.literal(toGeometry(distanceBuffer.getGeometry()
+                .getValue()));
+        double distance = Double.parseDouble(distanceBuffer.getDistance().getContent().trim());
+        String units = distanceBuffer.getDistance().getUnits();
+
+        if ("DWithin".equals(name)) {
+            return FILTER_FACTORY.dwithin(property, literal, distance, units);
+        } else if ("Beyond".equals(name)) {
+            return FILTER_FACTORY.beyond(property, literal, distance, units);
+        }
+        throw new UnsupportedFilterException("Unsupported distance operator " + name);
+    }
+
+    private Filter toBBoxFilter(BBOXType bbox) {
+        if (bbox.getEnvelope() == null) {
+            throw new UnsupportedFilterException("BBOX requires an envelope");
+        }
+        EnvelopeType envelopeType = bbox.getEnvelope().getValue();
+        Envelope envelope = toEnvelope(envelopeType);
+        return FILTER_FACTORY.bbox(toProperty(bbox.getPropertyName()), envelope.getMinX(),
+                envelope.getMinY(), envelope.getMaxX(), envelope.getMaxY(),
+                envelopeType.getSrsName());
+    }
+
+    private Filter toIdFilter(List<JAXBElement<? extends AbstractIdType>> ids) {
+        Set<Identifier> identifiers = new HashSet<Identifier>();
+        for (JAXBElement<? extends AbstractIdType> id : ids) {
+            AbstractIdType idType = id.getValue();
+            if (idType instanceof FeatureIdType) {
+                identifiers.add(FILTER_FACTORY.featureId(((FeatureIdType) idType).getFid()));
+            } else if (idType instanceof GmlObjectIdType) {
+                identifiers.add(FILTER_FACTORY.gmlObjectId(((GmlObjectIdType) idType).getId()));
+            } else {
+                throw new UnsupportedFilterException("Unsupported id " + id.getName());
+            }
+        }
+        return FILTER_FACTORY.id(identifiers);
+    }
+
+    private Expression toExpression(JAXBElement<?> element) {
+        if (element == null) {
+            throw new UnsupportedFilterException("Missing expression");
+        }
+        Object value = element.getValue();
+        if (value instanceof PropertyNameType) {
+            return toProperty((PropertyNameType) value);
+        } else if (value instanceof LiteralType) {
+            return FILTER_FACTORY.literal(getLiteralText((LiteralType) value));
+        }
+        throw new UnsupportedFilterException("Unsupported expression " + element.getName());
+    }
+
+    private Expression toProperty(PropertyNameType propertyName) {
+        String name = getPropertyName(propertyName);
+        if (name == null) {
+            throw new UnsupportedFilterException("Missing property name");
+        }
+        return FILTER_FACTORY.property(name);
+    }
+
+    private String getPropertyName(PropertyNameType propertyName) {
+        return StringUtils.trimToNull(getText(propertyName.getContent()));
+    }
+
+    private String getLiteralText(LiteralType literal) {
+        if (literal == null) {
+            throw new UnsupportedFilterException("Missing literal");
+        }
+        return getText(literal.getContent());
+    }
+
+    private String getText(List<Object> content) {
+        StringBuilder text = new StringBuilder();
+        for (Object item : content) {
+            if (!(item instanceof String)) {
+                // e.g. a geometry literal
+                throw new UnsupportedFilterException("Unsupported content " + item.getClass());
+            }
+            text.append((String) item);
+        }
+        return text.toString();
+    }
+
+    private Geometry toGeometry(AbstractGeometryType geometry) {
+        if (geometry instanceof PointType) {
+            PointType point = (PointType) geometry;
+            Coordinate coordinate;
+            if (point.getPos() != null) {
+                coordinate = toCoordinate(point.getPos());
+            } else if (point.getCoord() != null) {
+                coordinate = toCoordinate(point.getCoord());
+            } else {
+                throw new UnsupportedFilterException("Unsupported Point");
+            }
+            return GEOMETRY_FACTORY.createPoint(coordinate);
+        } else if (geometry instanceof LineStringType) {
+            LineStringType lineString = (LineStringType) geometry;
+            return GEOMETRY_FACTORY.createLineString(toCoordinates(lineString.getPosList(),
+                    lineString.getPosOrPointPropertyOrPointRep(),
+                    Collections.<CoordType> emptyList()));
+        } else if (geometry instanceof LinearRingType) {
+            return toLinearRing((LinearRingType) geometry);
+        } else if (geometry instanceof PolygonType) {
+            PolygonType polygon = (PolygonType) geometry;
+            if (polygon.getExterior() == null) {
+                throw new UnsupportedFilterException("Polygon without an exterior");
+            }
+            LinearRing shell = toLinearRing(polygon.getExterior().getValue());
+            List<LinearRing> holes = new ArrayList<LinearRing>();
+            for (JAXBElement<AbstractRingPropertyType> interior : polygon.getInterior()) {
+                holes.add(toLinearRing(interior.getValue()));
+            }
+            return GEOMETRY_FACTORY.createPolygon(shell, holes.toArray(new LinearRing[holes
+                    .size()]));
+        }
+        throw new UnsupportedFilterException("Unsupported geometry "
+                + (geometry == null ? null : geometry.getClass()));
+    }
+
+    private LinearRing toLinearRing(AbstractRingPropertyType ringProperty) {
+        if (ringProperty.getRing() == null
+                || !(ringProperty.getRing().getValue() instanceof LinearRingType)) {
+            throw new UnsupportedFilterException("Unsupported ring");
+        }
+        return toLinearRing((LinearRingType) ringProperty.getRing().getValue());
+    }
+
+    private LinearRing toLinearRing(LinearRingType ring) {
+        return GEOMETRY_FACTORY.createLinearRing(toCoordinates(ring.getPosList(),
+                ring.getPosOrPointPropertyOrPointRep(), ring.getCoord()));
+    }
+
+    private Coordinate[] toCoordinates(DirectPositionListType posList,
+            List<JAXBElement<?>> positions, List<CoordType> coords) {
+        List<Coordinate> coordinates = new ArrayList<Coordinate>();
+        if (posList != null) {
+            int dimension = (posList.getSrsDimension() == null) ? 2 : posList
+                    .getSrsDimension().intValue();
+            List<Double> values = posList.getValue();
+            if (dimension < 2 || values.size() % dimension != 0) {
+                throw new UnsupportedFilterException("Unsupported posList");
+            }
+            for (int i = 0; i < values.size(); i += dimension) {
+                coordinates.add(dimension > 2 ? new Coordinate(values.get(i), values.get(i + 1),
+                        values.get(i + 2)) : new Coordinate(values.get(i), values.get(i + 1)));
+            }
+        } else if (!positions.isEmpty()) {
+            for (JAXBElement<?> position : positions) {
+                if (position.getValue() instanceof DirectPositionType) {
+                    coordinates.add(toCoordinate((DirectPositionType) position.getValue()));
+                } else if (position.getValue() instanceof CoordType) {
+                    coordinates.add(toCoordinate((CoordType) position.getValue()));
+                } else {
+                    throw new UnsupportedFilterException("Unsupported position "
+                            + position.getName());
+                }
+            }
+        } else if (!coords.isEmpty()) {
+            for (CoordType coord : coords) {
+                coordinates.add(toCoordinate(coord));
+            }
+        } else {
+            throw new UnsupportedFilterException("Unsupported coordinates");
+        }
+        return coordinates.toArray(new Coordinate[coordinates.size()]);
+    }
+
+    private Coordinate toCoordinate(DirectPositionType position) {
+        List<Double> values = position.getValue();
+        if (values.size() == 2) {
+            return new Coordinate(values.get(0), values.get(1));
+        } else if (values.size() == 3) {
+            return new Coordinate(values.get(0), values.get(1), values.get(2));
+        }
+        throw new UnsupportedFilterException("Unsupported position");
+    }
+
+    private Coordinate toCoordinate(CoordType coord) {
+        BigDecimal z = coord.getZ();
+        if (z != null) {
+            return new Coordinate(coord.getX().doubleValue(), coord.getY().doubleValue(),
+                    z.doubleValue());
+        }
+        return new Coordinate(coord.getX().doubleValue(), coord.getY().doubleValue());
+    }
+
+    private Envelope toEnvelope(EnvelopeType envelope) {
+        if (envelope.getLowerCorner() == null || envelope.getUpperCorner() == null) {
+            throw new UnsupportedFilterException("Unsupported Envelope");
+        }
+        return new Envelope(toCoordinate(envelope.getLowerCorner()),
+                toCoordinate(envelope.getUpperCorner()));
+    }
+}
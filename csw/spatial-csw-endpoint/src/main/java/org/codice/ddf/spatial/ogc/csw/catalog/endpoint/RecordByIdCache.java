@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.SubjectKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.Update;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PostIngestPlugin;
+
+/**
+ * Cache of recently returned local records by ID, used to answer GetRecordById without querying
+ * the catalog. Records are only served back to the subject they were retrieved for, since the
+ * catalog may filter records based on the subject's access. The size bound counts records, so an
+ * ID retrieved by several subjects counts once for each of them.
+ *
+ * The cache is filled from local GetRecords results and registered as a {@link PostIngestPlugin}
+ * so updated and deleted records are evicted as soon as the catalog changes. Results of a query
+ * that was running while records were evicted are not cached, since they may hold the records as
+ * they were before the change; see {@link #getGeneration()}.
+ */
+public class RecordByIdCache implements PostIngestPlugin {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RecordByIdCache.class);
+
+    public static final long DEFAULT_MAX_RECORDS = 5000;
+
+    public static final long DEFAULT_EXPIRATION_SECONDS = 300;
+
+    public static final String MAX_RECORDS_PROPERTY = "maxRecords";
+
+    public static final String EXPIRATION_SECONDS_PROPERTY = "expirationSeconds";
+
+    private static final Weigher<String, Map<String, Metacard>> RECORD_COUNT = new Weigher<String, Map<String, Metacard>>() {
+        @Override
+        public int weigh(String id, Map<String, Metacard> bySubject) {
+            return bySubject.size();
+        }
+    };
+
+    /**
+     * Counts evictions, so results of a query that overlapped one are not cached.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Held shared while results are cached and exclusively while records are evicted, so an
+     * eviction cannot fall between checking the generation and caching the results.
+     */
+    private final ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+
+    private long maxRecords;
+
+    private long expirationSeconds;
+
+    /**
+     * Records keyed by ID, then by the subject they were retrieved for. The maps of subjects are
+     * never modified once cached, they are replaced, so each is weighed again as it changes.
+     */
+    private volatile Cache<String, Map<String, Metacard>> records;
+
+    public RecordByIdCache() {
+        this(DEFAULT_MAX_RECORDS, DEFAULT_EXPIRATION_SECONDS);
+    }
+
+    /**
+     * @param maxRecords
+     *            - the maximum number of records held, counting a record once for every subject
+     *            it was retrieved for
+     * @param expirationSeconds
+     *            - the number of seconds a record is served after it is retrieved
+     */
+    public RecordByIdCache(long maxRecords, long expirationSeconds) {
+        this.maxRecords = maxRecords;
+        this.expirationSeconds = expirationSeconds;
+        this.records = buildCache(maxRecords, expirationSeconds);
+    }
+
+    /**
+     * Applies new settings. Settings missing from the configuration keep their current value.
+     * Every cached record is discarded.
+     *
+     * @param configuration
+     *            - the maximum records and expiration in seconds
+     */
+    public synchronized void refresh(Map<String, Object> configuration) {
+        if (configuration == null) {
+            return;
+        }
+        Long newMaxRecords = (Long) configuration.get(MAX_RECORDS_PROPERTY);
+        Long newExpirationSeconds = (Long) configuration.get(EXPIRATION_SECONDS_PROPERTY);
+        long max = (newMaxRecords != null) ? newMaxRecords : maxRecords;
+        long expiration = (newExpirationSeconds != null) ? newExpirationSeconds
+                : expirationSeconds;
+        try {
+            records = buildCache(max, expiration);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid record cache settings, keeping the current settings.", e);
+            return;
+        }
+        maxRecords = max;
+        expirationSeconds = expiration;
+        LOGGER.debug("Caching at most {} records for {} seconds.", maxRecords, expirationSeconds);
+    }
+
+    private static Cache<String, Map<String, Metacard>> buildCache(long maxRecords,
+            long expirationSeconds) {
+        return CacheBuilder.newBuilder().maximumWeight(maxRecords).weigher(RECORD_COUNT)
+                .expireAfterWrite(expirationSeconds, TimeUnit.SECONDS).recordStats().build();
+    }
+
+    /**
+     * @return the cached record for the current subject, or null if it is not cached
+     */
+    public Metacard get(String id) {
+        Map<String, Metacard> bySubject = records.getIfPresent(id);
+        return (bySubject == null) ? null : bySubject.get(SubjectKeys.getCurrentKey());
+    }
+
+    /**
+     * @return the current generation, to be read before querying the catalog and passed to
+     *         {@link #putAll(List, long)} with the results
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the results of a query for the current subject, unless records were evicted since
+     * the query started.
+     *
+     * @param generation
+     *            - the generation read before the query was sent
+     */
+    public void putAll(List<Result> results, long generation) {
+        if (results == null) {
+            return;
+        }
+        evictionLock.readLock().lock();
+        try {
+            if (this.generation.get() != generation) {
+                LOGGER.debug("Records were evicted during the query, not caching its results.");
+                return;
+            }
+            for (Result result : results) {
+                put(result.getMetacard());
+            }
+        } finally {
+            evictionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Caches a record for the current subject. Query results should be cached with
+     * {@link #putAll(List, long)} instead, so a record evicted while the query ran is not cached.
+     */
+    public void put(Metacard metacard) {
+        if (metacard == null || StringUtils.isBlank(metacard.getId())) {
+            return;
+        }
+        String subject = SubjectKeys.getCurrentKey();
+        ConcurrentMap<String, Map<String, Metacard>> map = records.asMap();
+        while (true) {
+            Map<String, Metacard> bySubject = map.get(metacard.getId());
+            if (bySubject == null) {
+                if (map.putIfAbsent(metacard.getId(),
+                        Collections.singletonMap(subject, metacard)) == null) {
+                    return;
+                }
+            } else {
+                Map<String, Metacard> replacement = new HashMap<String, Metacard>(bySubject);
+                replacement.put(subject, metacard);
+                if (map.replace(metacard.getId(), bySubject,
+                        Collections.unmodifiableMap(replacement))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        evictionLock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            records.invalidate(id);
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            records.invalidateAll();
+        } finally {
+            evictionLock.writeLock().unlock();
+        }
+    }
+
+    public CacheStats getStats() {
+        return records.stats();
+    }
+
+    @Override
+    public CreateResponse process(CreateResponse input) throws PluginExecutionException {
+        return input;
+    }
+
+    @Override
+    public UpdateResponse process(UpdateResponse input) throws PluginExecutionException {
+        if (input != null && input.getUpdatedMetacards() != null) {
+            for (Update update : input.getUpdatedMetacards()) {
+                if (update.getOldMetacard() != null) {
+                    invalidate(update.getOldMetacard().getId());
+                }
+                if (update.getNewMetacard() != null) {
+                    invalidate(update.getNewMetacard().getId());
+                }
+            }
+        }
+        return input;
+    }
+
+    @Override
+    public DeleteResponse process(DeleteResponse input) throws PluginExecutionException {
+        if (input != null && input.getDeletedMetacards() != null) {
+            for (Metacard metacard : input.getDeletedMetacards()) {
+                invalidate(metacard.getId());
+            }
+        }
+        return input;
+    }
+}
@@ -0,0 +1,596 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.SubjectKeys;
+import org.opengis.filter.Filter;
+import org.opengis.filter.sort.SortBy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.federation.FederationException;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.QueryImpl;
+import ddf.catalog.operation.impl.QueryRequestImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.plugin.PluginExecutionException;
+import ddf.catalog.plugin.PostIngestPlugin;
+import ddf.catalog.source.SourceUnavailableException;
+import ddf.catalog.source.UnsupportedQueryException;
+
+/**
+ * Server side result windows for deep GetRecords paging. Rather than running a new query for every
+ * page, the catalog is queried for a whole window of results and subsequent pages that fall inside
+ * that window are served from it.
+ *
+ * Windows are keyed on the requesting subject, a key identifying the filter, the sort and whether
+ * the query is federated. The number of windows held in memory is bounded and every window expires
+ * a fixed time after it was retrieved. When a spill directory is configured, windows evicted from
+ * memory because of the size bound are serialized to that directory until they expire.
+ *
+ * The cache is registered as a {@link PostIngestPlugin} so every window is discarded as soon as
+ * the catalog changes. Its settings can be changed with {@link #refresh(Map)}, which discards
+ * every window held under the previous settings.
+ */
+public class ResultWindowCache implements PostIngestPlugin {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResultWindowCache.class);
+
+    public static final int DEFAULT_WINDOW_SIZE = 1000;
+
+    public static final long DEFAULT_MAX_WINDOWS = 20;
+
+    public static final long DEFAULT_EXPIRATION_SECONDS = 300;
+
+    public static final String WINDOW_SIZE_PROPERTY = "windowSize";
+
+    public static final String MAX_WINDOWS_PROPERTY = "maxWindows";
+
+    public static final String EXPIRATION_SECONDS_PROPERTY = "expirationSeconds";
+
+    public static final String SPILL_DIRECTORY_PROPERTY = "spillDirectory";
+
+    private static final String SPILL_FILE_PREFIX = "csw-window-";
+
+    private static final String SPILL_FILE_SUFFIX = ".ser";
+
+    private volatile Settings settings;
+
+    private final ConcurrentMap<String, SpilledWindow> spilledWindows = new ConcurrentHashMap<String, SpilledWindow>();
+
+    public ResultWindowCache() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MAX_WINDOWS, DEFAULT_EXPIRATION_SECONDS, null);
+    }
+
+    /**
+     * @param windowSize
+     *            - the number of results retrieved for each window
+     * @param maxWindows
+     *            - the maximum number of windows held in memory
+     * @param expirationSeconds
+     *            - the number of seconds a window is served after it is retrieved
+     * @param spillDirectory
+     *            - the directory evicted windows are written to, or blank to discard them
+     */
+    public ResultWindowCache(int windowSize, long maxWindows, long expirationSeconds,
+            String spillDirectory) {
+        this.settings = new Settings(windowSize, maxWindows, expirationSeconds, spillDirectory);
+    }
+
+    /**
+     * Applies new settings. Settings missing from the configuration keep their current value.
+     * Every window held under the previous settings is discarded.
+     *
+     * @param configuration
+     *            - the window size, maximum windows, expiration in seconds and spill directory
+     */
+    public synchronized void refresh(Map<String, Object> configuration) {
+        if (configuration == null) {
+            return;
+        }
+        Settings current = settings;
+        Integer windowSize = (Integer) configuration.get(WINDOW_SIZE_PROPERTY);
+        Long maxWindows = (Long) configuration.get(MAX_WINDOWS_PROPERTY);
+        Long expirationSeconds = (Long) configuration.get(EXPIRATION_SECONDS_PROPERTY);
+        String spillDirectory = current.spillPath;
+        if (configuration.containsKey(SPILL_DIRECTORY_PROPERTY)) {
+            spillDirectory = (String) configuration.get(SPILL_DIRECTORY_PROPERTY);
+        }
+
+        try {
+            settings = new Settings(windowSize != null ? windowSize : current.windowSize,
+                    maxWindows != null ? maxWindows : current.maxWindows,
+                    expirationSeconds != null ? expirationSeconds : TimeUnit.MILLISECONDS
+                            .toSeconds(current.expirationMillis), spillDirectory);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn("Invalid result window settings, keeping the current settings.", e);
+            return;
+        }
+        LOGGER.debug("Result windows of {} results, at most {} held for {} seconds.",
+                settings.windowSize, settings.maxWindows,
+                TimeUnit.MILLISECONDS.toSeconds(settings.expirationMillis));
+        current.windows.invalidateAll();
+        removeSpills();
+    }
+
+    public int getWindowSize() {
+        return settings.windowSize;
+    }
+
+    /**
+     * @return the number of results a GetRecords request for the page may read from the catalog:
+     *         a whole window if the page is served from one, or the page size otherwise
+     */
+    public int getFetchSize(String filterKey, int startIndex, int pageSize) {
+        Settings current = settings;
+        return isWindowed(current, filterKey, startIndex, pageSize) ? current.windowSize
+                : pageSize;
+    }
+
+    /**
+     * Returns the requested page of results, retrieving the window containing it from the catalog
+     * if it is not already held. Pages larger than a window or spanning two windows, and queries
+     * without a filter key, are queried directly.
+     *
+     * @param filterKey
+     *            - a canonical encoding of the filter, such as the request constraint it was built
+     *            from, which is equal for two filters only if they match the same records; or null
+     *            if the filter cannot be identified
+     */
+    public QueryResponse query(final CatalogFramework framework, final Filter filter,
+            String filterKey, final SortBy sortBy, int startIndex, int pageSize,
+            final boolean federated) throws UnsupportedQueryException,
+        SourceUnavailableException, FederationException {
+        QueryImpl pageQuery = new QueryImpl(filter, startIndex, pageSize, sortBy, true, 0);
+        QueryRequestImpl pageRequest = new QueryRequestImpl(pageQuery, federated);
+
+        final Settings current = settings;
+        if (!isWindowed(current, filterKey, startIndex, pageSize)) {
+            return framework.query(pageRequest);
+        }
+        final int windowStart = getWindowStart(current, startIndex);
+
+        removeExpiredSpills(current.expirationMillis);
+
+        final String key = getKey(SubjectKeys.getCurrentKey(), filterKey, sortBy, federated,
+                windowStart);
+        ResultWindow window;
+        try {
+            window = current.windows.get(key, new Callable<ResultWindow>() {
+                @Override
+                public ResultWindow call() throws Exception {
+                    ResultWindow spilled = readSpilledWindow(key, current.expirationMillis);
+                    if (spilled != null) {
+                        return spilled;
+                    }
+                    LOGGER.debug("Retrieving result window starting at {}", windowStart);
+                    QueryResponse response = framework.query(new QueryRequestImpl(new QueryImpl(
+                            filter, windowStart, current.windowSize, sortBy, true, 0),
+                            federated));
+                    return new ResultWindow(response.getResults(), response.getHits());
+                }
+            });
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+
+        return new QueryResponseImpl(pageRequest, window.getResults(startIndex - windowStart,
+                pageSize), window.hits);
+    }
+
+    /**
+     * Discards every window, including any spilled to disk.
+     */
+    public void invalidateAll() {
+        settings.windows.invalidateAll();
+        removeSpills();
+    }
+
+    private void removeSpills() {
+        for (String key : spilledWindows.keySet()) {
+            SpilledWindow spilled = spilledWindows.remove(key);
+            if (spilled != null) {
+                deleteSpillFile(spilled.file);
+            }
+        }
+    }
+
+    @Override
+    public CreateResponse process(CreateResponse input) throws PluginExecutionException {
+        if (input != null && input.getCreatedMetacards() != null
+                && !input.getCreatedMetacards().isEmpty()) {
+            invalidateAll();
+        }
+        return input;
+    }
+
+    @Override
+    public UpdateResponse process(UpdateResponse input) throws PluginExecutionException {
+        if (input != null && input.getUpdatedMetacards() != null
+                && !input.getUpdatedMetacards().isEmpty()) {
+            invalidateAll();
+        }
+        return input;
+    }
+
+    @Override
+    public DeleteResponse process(DeleteResponse input) throws PluginExecutionException {
+        if (input != null && input.getDeletedMetacards() != null
+                && !input.getDeletedMetacards().isEmpty()) {
+            invalidateAll();
+        }
+        return input;
+    }
+
+    long getWindowCount() {
+        Cache<String, ResultWindow> windows = settings.windows;
+        windows.cleanUp();
+        return windows.size();
+    }
+
+    int getSpilledWindowCount() {
+        return spilledWindows.size();
+    }
+
+    static String getKey(String subject, String filterKey, SortBy sortBy, boolean federated,
+            int windowStart) {
+        StringBuilder key = new StringBuilder(subject).append('|').append(federated).append('|');
+        if (sortBy != null && sortBy.getPropertyName() != null) {
+            key.append(sortBy.getPropertyName().getPropertyName()).append(' ')
+                    .append(sortBy.getSortOrder());
+        }
+        return key.append('|').append(windowStart).append('|').append(filterKey).toString();
+    }
+
+    private static boolean isWindowed(Settings settings, String filterKey, int startIndex,
+            int pageSize) {
+        return filterKey != null && startIndex >= 1
+                && startIndex + pageSize <= getWindowStart(settings, startIndex)
+                        + settings.windowSize;
+    }
+
+    private static int getWindowStart(Settings settings, int startIndex) {
+        return ((startIndex - 1) / settings.windowSize) * settings.windowSize + 1;
+    }
+
+    private static File initSpillDirectory(String path) {
+        if (StringUtils.isBlank(path)) {
+            return null;
+        }
+        File directory = new File(path);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            LOGGER.warn("Unable to create result window spill directory {}, evicted windows "
+                    + "will be discarded.", path);
+            return null;
+        }
+        return directory;
+    }
+
+    private RuntimeException rethrow(Throwable cause) throws UnsupportedQueryException,
+        SourceUnavailableException, FederationException {
+        if (cause instanceof UnsupportedQueryException) {
+            throw (UnsupportedQueryException) cause;
+        } else if (cause instanceof SourceUnavailableException) {
+            throw (SourceUnavailableException) cause;
+        } else if (cause instanceof FederationException) {
+            throw (FederationException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        throw new UnsupportedQueryException("Unable to retrieve result window: "
+                + cause.getMessage());
+    }
+
+    private void spill(String key, ResultWindow window, long maxWindows, File spillDirectory) {
+        if (spilledWindows.size() >= maxWindows * 10) {
+            LOGGER.debug("Result window spill limit reached, discarding evicted window.");
+            return;
+        }
+        File file = null;
+        ObjectOutputStream out = null;
+        boolean written = false;
+        try {
+            file = File.createTempFile(SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX, spillDirectory);
+            file.deleteOnExit();
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeObject(window);
+            out.flush();
+            written = true;
+        } catch (IOException e) {
+            LOGGER.debug("Unable to spill result window to disk, discarding it.", e);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+
+        if (written) {
+            spilledWindows.put(key, new SpilledWindow(file, window.created,
+                    window.getClassLoaders()));
+        } else {
+            deleteSpillFile(file);
+        }
+    }
+
+    private ResultWindow readSpilledWindow(String key, long expirationMillis) {
+        SpilledWindow spilled = spilledWindows.remove(key);
+        if (spilled == null) {
+            return null;
+        }
+        if (spilled.isExpired(expirationMillis)) {
+            deleteSpillFile(spilled.file);
+            return null;
+        }
+        ObjectInputStream in = null;
+        try {
+            in = new SpillInputStream(new BufferedInputStream(new FileInputStream(spilled.file)),
+                    spilled.classLoaders);
+            return (ResultWindow) in.readObject();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to read spilled result window.", e);
+        } catch (ClassNotFoundException e) {
+            LOGGER.debug("Unable to read spilled result window.", e);
+        } finally {
+            IOUtils.closeQuietly(in);
+            deleteSpillFile(spilled.file);
+        }
+        return null;
+    }
+
+    private void removeExpiredSpills(long expirationMillis) {
+        Iterator<Map.Entry<String, SpilledWindow>> iterator = spilledWindows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            SpilledWindow spilled = iterator.next().getValue();
+            if (spilled.isExpired(expirationMillis)) {
+                iterator.remove();
+                deleteSpillFile(spilled.file);
+            }
+        }
+    }
+
+    private void deleteSpillFile(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            LOGGER.debug("Unable to delete spilled result window {}", file);
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Settings of the cache together with the windows held in memory under them, so both are
+     * replaced at once when the cache is refreshed.
+     */
+    private class Settings {
+        private final int windowSize;
+
+        private final long maxWindows;
+
+        private final long expirationMillis;
+
+        private final String spillPath;
+
+        private final File spillDirectory;
+
+        private final Cache<String, ResultWindow> windows;
+
+        Settings(int windowSize, long maxWindows, long expirationSeconds, String spillPath) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("Window size must be greater than zero.");
+            }
+            this.windowSize = windowSize;
+            this.maxWindows = maxWindows;
+            this.expirationMillis = TimeUnit.SECONDS.toMillis(expirationSeconds);
+            this.spillPath = spillPath;
+            this.spillDirectory = initSpillDirectory(spillPath);
+
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                    .maximumSize(maxWindows).expireAfterWrite(expirationSeconds, TimeUnit.SECONDS);
+            if (spillDirectory != null) {
+                windows = builder.removalListener(new SpillListener(maxWindows, spillDirectory))
+                        .build();
+            } else {
+                windows = builder.build();
+            }
+        }
+    }
+
+    private class SpillListener implements RemovalListener<String, ResultWindow> {
+        private final long maxWindows;
+
+        private final File spillDirectory;
+
+        SpillListener(long maxWindows, File spillDirectory) {
+            this.maxWindows = maxWindows;
+            this.spillDirectory = spillDirectory;
+        }
+
+        @Override
+        public void onRemoval(RemovalNotification<String, ResultWindow> notification) {
+            if (RemovalCause.SIZE.equals(notification.getCause())
+                    && notification.getKey() != null && notification.getValue() != null) {
+                spill(notification.getKey(), notification.getValue(), maxWindows, spillDirectory);
+            }
+        }
+    }
+
+    private static class SpilledWindow {
+        private final File file;
+
+        private final long created;
+
+        private final Collection<ClassLoader> classLoaders;
+
+        SpilledWindow(File file, long created, Collection<ClassLoader> classLoaders) {
+            this.file = file;
+            this.created = created;
+            this.classLoaders = classLoaders;
+        }
+
+        boolean isExpired(long expirationMillis) {
+            return System.currentTimeMillis() - created >= expirationMillis;
+        }
+    }
+
+    /**
+     * Resolves the classes of a spilled window with the class loaders of the objects that were
+     * written. Metacards and their attribute values can come from other bundles, whose classes are
+     * not visible to this bundle's class loader.
+     */
+    static class SpillInputStream extends ObjectInputStream {
+
+        private final Collection<ClassLoader> classLoaders;
+
+        SpillInputStream(InputStream in, Collection<ClassLoader> classLoaders) throws IOException {
+            super(in);
+            this.classLoaders = classLoaders;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException,
+            ClassNotFoundException {
+            for (ClassLoader classLoader : classLoaders) {
+                try {
+                    return Class.forName(desc.getName(), false, classLoader);
+                } catch (ClassNotFoundException e) {
+                    LOGGER.trace("{} is not visible to {}", desc.getName(), classLoader);
+                }
+            }
+            return super.resolveClass(desc);
+        }
+    }
+
+    /**
+     * The results of a single window. Results are stored as their metacards and scores so the
+     * window can be serialized when it is spilled.
+     */
+    static class ResultWindow implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<Metacard> metacards;
+
+        private final ArrayList<Double> relevanceScores;
+
+        private final ArrayList<Double> distances;
+
+        private final long hits;
+
+        private final long created = System.currentTimeMillis();
+
+        ResultWindow(List<Result> results, long hits) {
+            int size = (results == null) ? 0 : results.size();
+            this.metacards = new ArrayList<Metacard>(size);
+            this.relevanceScores = new ArrayList<Double>(size);
+            this.distances = new ArrayList<Double>(size);
+            this.hits = hits;
+            if (results != null) {
+                for (Result result : results) {
+                    metacards.add(result.getMetacard());
+                    relevanceScores.add(result.getRelevanceScore());
+                    distances.add(result.getDistanceInMeters());
+                }
+            }
+        }
+
+        /**
+         * @return the class loaders of the metacards, their types and their attribute values,
+         *         followed by this class's class loader
+         */
+        Collection<ClassLoader> getClassLoaders() {
+            Collection<ClassLoader> classLoaders = new LinkedHashSet<ClassLoader>();
+            for (Metacard metacard : metacards) {
+                if (metacard == null) {
+                    continue;
+                }
+                addClassLoader(classLoaders, metacard);
+                if (metacard.getMetacardType() == null) {
+                    continue;
+                }
+                addClassLoader(classLoaders, metacard.getMetacardType());
+                for (AttributeDescriptor descriptor : metacard.getMetacardType()
+                        .getAttributeDescriptors()) {
+                    addClassLoader(classLoaders, descriptor);
+                    addClassLoader(classLoaders, descriptor.getType());
+                    Attribute attribute = metacard.getAttribute(descriptor.getName());
+                    if (attribute != null && attribute.getValues() != null) {
+                        for (Serializable value : attribute.getValues()) {
+                            addClassLoader(classLoaders, value);
+                        }
+                    }
+                }
+            }
+            addClassLoader(classLoaders, this);
+            return classLoaders;
+        }
+
+        private void addClassLoader(Collection<ClassLoader> classLoaders, Object object) {
+            if (object != null && object.getClass().getClassLoader() != null) {
+                classLoaders.add(object.getClass().getClassLoader());
+            }
+        }
+
+        List<Result> getResults(int offset, int count) {
+            int end = Math.min(offset + count, metacards.size());
+            List<Result> results = new ArrayList<Result>(Math.max(end - offset, 0));
+            for (int i = offset; i < end; i++) {
+                ResultImpl result = new ResultImpl(metacards.get(i));
+                result.setRelevanceScore(relevanceScores.get(i));
+                result.setDistanceInMeters(distances.get(i));
+                results.add(result);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import net.opengis.cat.csw.v_2_0_2.QueryConstraintType;
+import net.opengis.cat.csw.v_2_0_2.RecordPropertyType;
+
+import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
+import org.codice.ddf.spatial.ogc.csw.catalog.converter.CswRecordConverter;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.transform.CatalogTransformerException;
+
+/**
+ * Pull parser for CSW Transaction requests. Insert actions are returned in batches of converted
+ * {@link Metacard}s, each record being copied out of the request and converted by the {@link
+ * CswRecordConverter} on its own, so only one batch of records is held in memory at a time.
+ * Update and Delete actions are small and are returned whole.
+ */
+public class TransactionRequestReader implements Closeable {
+
+    static final String TRANSACTION = "Transaction";
+
+    static final String INSERT = "Insert";
+
+    static final String UPDATE = "Update";
+
+    static final String DELETE = "Delete";
+
+    static final String RECORD_PROPERTY = "RecordProperty";
+
+    static final String CONSTRAINT = "Constraint";
+
+    static final String TYPE_NAME = "typeName";
+
+    static final String REQUEST_ID = "requestId";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                Boolean.FALSE);
+    }
+
+    private final XMLStreamReader reader;
+
+    private final CswRecordConverter converter;
+
+    private final JAXBContext jaxbContext;
+
+    private final int batchSize;
+
+    private final Map<String, String> transactionNamespaces;
+
+    private final String requestId;
+
+    private Map<String, String> insertNamespaces;
+
+    private boolean inInsert = false;
+
+    private boolean positionedAfterElement = false;
+
+    /**
+     * @param inputStream
+     *            - the Transaction request
+     * @param converter
+     *            - converts the inserted and updated records
+     * @param jaxbContext
+     *            - the CSW JAXB context used for RecordProperty and Constraint elements
+     * @param batchSize
+     *            - the maximum number of records returned for each Insert action
+     */
+    public TransactionRequestReader(InputStream inputStream, CswRecordConverter converter,
+            JAXBContext jaxbContext, int batchSize) throws CswException {
+        this.converter = converter;
+        this.jaxbContext = jaxbContext;
+        this.batchSize = Math.max(batchSize, 1);
+        try {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            reader.nextTag();
+        } catch (XMLStreamException e) {
+            throw new CswException("Unable to parse Transaction request: " + e.getMessage(), e);
+        }
+        if (!isCswElement(TRANSACTION)) {
+            throw new CswException("Expected a Transaction request but found "
+                    + reader.getLocalName(), CswConstants.INVALID_PARAMETER_VALUE, null);
+        }
+        transactionNamespaces = getNamespaces(Collections.<String, String> emptyMap());
+        requestId = reader.getAttributeValue(null, REQUEST_ID);
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return the next action of the transaction, or null once all actions have been read
+     */
+    public TransactionAction next() throws CswException {
+        try {
+            if (inInsert) {
+                List<Metacard> batch = readInsertBatch();
+                if (batch != null) {
+                    return TransactionAction.insert(batch);
+                }
+            }
+
+            while (nextTag() == XMLStreamConstants.START_ELEMENT) {
+                if (isCswElement(INSERT)) {
+                    insertNamespaces = getNamespaces(transactionNamespaces);
+                    inInsert = true;
+                    List<Metacard> batch = readInsertBatch();
+                    if (batch != null) {
+                        return TransactionAction.insert(batch);
+                    }
+                } else if (isCswElement(UPDATE)) {
+                    return readUpdate();
+                } else if (isCswElement(DELETE)) {
+                    return readDelete();
+                } else {
+                    throw new CswException("Unknown Transaction action " + reader.getLocalName(),
+                            CswConstants.INVALID_PARAMETER_VALUE, reader.getLocalName());
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new CswException("Unable to parse Transaction request: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // the underlying stream is closed by the caller
+        }
+    }
+
+    private List<Metacard> readInsertBatch() throws XMLStreamException, CswException {
+        List<Metacard> batch = new ArrayList<Metacard>(batchSize);
+        while (batch.size() < batchSize) {
+            if (nextTag() == XMLStreamConstants.END_ELEMENT) {
+                inInsert = false;
+                break;
+            }
+            batch.add(readRecord(insertNamespaces));
+        }
+        return batch.isEmpty() ? null : batch;
+    }
+
+    private TransactionAction readUpdate() throws XMLStreamException, CswException {
+        Map<String, String> namespaces = getNamespaces(transactionNamespaces);
+        Metacard record = null;
+        List<RecordPropertyType> recordProperties = new ArrayList<RecordPropertyType>();
+        QueryConstraintType constraint = null;
+
+        while (nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (isCswElement(RECORD_PROPERTY)) {
+                recordProperties.add(unmarshal(RecordPropertyType.class));
+            } else if (isCswElement(CONSTRAINT)) {
+                constraint = unmarshal(QueryConstraintType.class);
+            } else {
+                record = readRecord(namespaces);
+            }
+        }
+
+        if (record == null && (recordProperties.isEmpty() || constraint == null)) {
+            throw new CswException(
+                    "An Update must contain a record or RecordProperty elements and a Constraint",
+                    CswConstants.MISSING_PARAMETER_VALUE, UPDATE);
+        }
+        return TransactionAction.update(record, recordProperties, constraint);
+    }
+
+    private TransactionAction readDelete() throws XMLStreamException, CswException {
+        QName typeName = resolveTypeName(reader.getAttributeValue(null, TYPE_NAME));
+        QueryConstraintType constraint = null;
+
+        while (nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (isCswElement(CONSTRAINT)) {
+                constraint = unmarshal(QueryConstraintType.class);
+            } else {
+                skipElement();
+            }
+        }
+
+        if (constraint == null) {
+            throw new CswException("A Delete must contain a Constraint",
+                    CswConstants.MISSING_PARAMETER_VALUE, CONSTRAINT);
+        }
+        return TransactionAction.delete(typeName, constraint);
+    }
+
+    /**
+     * @return the type name with its prefix resolved against the namespaces in scope, or null if
+     *         there is no type name
+     */
+    private QName resolveTypeName(String typeName) {
+        if (StringUtils.isBlank(typeName)) {
+            return null;
+        }
+        String prefix = XMLConstants.DEFAULT_NS_PREFIX;
+        String localPart = typeName.trim();
+        if (localPart.contains(":")) {
+            prefix = StringUtils.substringBefore(localPart, ":");
+            localPart = StringUtils.substringAfter(localPart, ":");
+        }
+        String namespace = reader.getNamespaceURI(prefix);
+        return new QName(StringUtils.defaultString(namespace), localPart, prefix);
+    }
+
+    /**
+     * Copies the record at the current element into a standalone document, declaring every
+     * namespace in scope on its root, and converts it. The root is always written as csw:Record
+     * since that is the name the {@link CswRecordConverter} is aliased to.
+     */
+    private Metacard readRecord(Map<String, String> inScopeNamespaces) throws XMLStreamException,
+        CswException {
+        if (!isCswElement(CswConstants.CSW_RECORD_LOCAL_NAME)) {
+            throw new CswException("Unsupported record type " + reader.getName(),
+                    CswConstants.INVALID_PARAMETER_VALUE, reader.getLocalName());
+        }
+
+        StringWriter recordWriter = new StringWriter();
+        XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(recordWriter);
+        int depth = 0;
+        do {
+            switch (reader.getEventType()) {
+            case XMLStreamConstants.START_ELEMENT:
+                if (depth == 0) {
+                    writer.writeStartElement(CswConstants.CSW_NAMESPACE_PREFIX,
+                            CswConstants.CSW_RECORD_LOCAL_NAME, CswConstants.CSW_OUTPUT_SCHEMA);
+                    Map<String, String> namespaces = getNamespaces(inScopeNamespaces);
+                    namespaces.put(CswConstants.CSW_NAMESPACE_PREFIX,
+                            CswConstants.CSW_OUTPUT_SCHEMA);
+                    writeNamespaces(writer, namespaces);
+                } else {
+                    writer.writeStartElement(StringUtils.defaultString(reader.getPrefix()),
+                            reader.getLocalName(),
+                            StringUtils.defaultString(reader.getNamespaceURI()));
+                    writeNamespaces(writer, getNamespaces(Collections.<String, String> emptyMap()));
+                }
+                writeAttributes(writer);
+                depth++;
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                writer.writeEndElement();
+                depth--;
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+            case XMLStreamConstants.CDATA:
+                writer.writeCharacters(reader.getText());
+                break;
+            default:
+                break;
+            }
+            if (depth > 0) {
+                reader.next();
+            }
+        } while (depth > 0);
+        writer.flush();
+        writer.close();
+
+        try {
+            return converter.transform(new ByteArrayInputStream(recordWriter.toString().getBytes(
+                    UTF_8)));
+        } catch (IOException e) {
+            throw new CswException("Unable to convert record: " + e.getMessage(), e);
+        } catch (CatalogTransformerException e) {
+            throw new CswException("Unable to convert record: " + e.getMessage(), e,
+                    CswConstants.INVALID_PARAMETER_VALUE, CswConstants.CSW_RECORD);
+        }
+    }
+
+    private <T> T unmarshal(Class<T> type) throws CswException {
+        Unmarshaller unmarshaller = null;
+        try {
+            unmarshaller = JaxbContextRegistry.acquireUnmarshaller(jaxbContext);
+            T value = unmarshaller.unmarshal(reader, type).getValue();
+            positionedAfterElement = true;
+            return value;
+        } catch (JAXBException e) {
+            throw new CswException("Unable to parse " + type.getSimpleName() + ": "
+                    + e.getMessage(), e);
+        } finally {
+            if (unmarshaller != null) {
+                JaxbContextRegistry.releaseUnmarshaller(jaxbContext, unmarshaller);
+            }
+        }
+    }
+
+    /**
+     * Moves to the next start or end tag. JAXB leaves the reader on the event following the
+     * element it unmarshalled, which may already be the next tag.
+     */
+    private int nextTag() throws XMLStreamException {
+        if (positionedAfterElement) {
+            positionedAfterElement = false;
+            int event = reader.getEventType();
+            if (event == XMLStreamConstants.START_ELEMENT
+                    || event == XMLStreamConstants.END_ELEMENT) {
+                return event;
+            }
+        }
+        return reader.nextTag();
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private boolean isCswElement(String localName) {
+        return CswConstants.CSW_OUTPUT_SCHEMA.equals(reader.getNamespaceURI())
+                && localName.equals(reader.getLocalName());
+    }
+
+    private Map<String, String> getNamespaces(Map<String, String> inherited) {
+        Map<String, String> namespaces = new HashMap<String, String>(inherited);
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            namespaces.put(StringUtils.defaultString(reader.getNamespacePrefix(i)),
+                    reader.getNamespaceURI(i));
+        }
+        return namespaces;
+    }
+
+    private void writeNamespaces(XMLStreamWriter writer, Map<String, String> namespaces)
+        throws XMLStreamException {
+        for (Map.Entry<String, String> namespace : namespaces.entrySet()) {
+            if (namespace.getKey().isEmpty()) {
+                writer.writeDefaultNamespace(namespace.getValue());
+            } else {
+                writer.writeNamespace(namespace.getKey(), namespace.getValue());
+            }
+        }
+    }
+
+    private void writeAttributes(XMLStreamWriter writer) throws XMLStreamException {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespace = reader.getAttributeNamespace(i);
+            if (StringUtils.isEmpty(namespace)) {
+                writer.writeAttribute(reader.getAttributeLocalName(i),
+                        reader.getAttributeValue(i));
+            } else {
+                writer.writeAttribute(StringUtils.defaultString(reader.getAttributePrefix(i)),
+                        namespace, reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    /**
+     * A single action of a Transaction. Insert actions hold a batch of converted records; a
+     * single Insert element may be returned as several actions.
+     */
+    public static final class TransactionAction {
+
+        public enum Type {
+            INSERT, UPDATE, DELETE
+        }
+
+        private final Type type;
+
+        private final List<Metacard> metacards;
+
+        private final List<RecordPropertyType> recordProperties;
+
+        private final QueryConstraintType constraint;
+
+        private final QName typeName;
+
+        private TransactionAction(Type type, List<Metacard> metacards,
+                List<RecordPropertyType> recordProperties, QueryConstraintType constraint,
+                QName typeName) {
+            this.type = type;
+            this.metacards = metacards;
+            this.recordProperties = recordProperties;
+            this.constraint = constraint;
+            this.typeName = typeName;
+        }
+
+        static TransactionAction insert(List<Metacard> metacards) {
+            return new TransactionAction(Type.INSERT, metacards,
+                    Collections.<RecordPropertyType> emptyList(), null, null);
+        }
+
+        static TransactionAction update(Metacard record,
+                List<RecordPropertyType> recordProperties, QueryConstraintType constraint) {
+            List<Metacard> metacards = (record == null) ? Collections.<Metacard> emptyList()
+                    : Collections.singletonList(record);
+            return new TransactionAction(Type.UPDATE, metacards, recordProperties, constraint,
+                    null);
+        }
+
+        static TransactionAction delete(QName typeName, QueryConstraintType constraint) {
+            return new TransactionAction(Type.DELETE, Collections.<Metacard> emptyList(),
+                    Collections.<RecordPropertyType> emptyList(), constraint, typeName);
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return the inserted records, or the replacement record of an Update
+         */
+        public List<Metacard> getMetacards() {
+            return metacards;
+        }
+
+        public List<RecordPropertyType> getRecordProperties() {
+            return recordProperties;
+        }
+
+        public QueryConstraintType getConstraint() {
+            return constraint;
+        }
+
+        /**
+         * @return the type of the records a Delete removes, or null if the Delete did not name
+         *         one
+         */
+        public QName getTypeName() {
+            return typeName;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+
+import net.opengis.cat.csw.v_2_0_2.TransactionType;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.cxf.io.CachedOutputStream;
+import org.codice.ddf.spatial.ogc.csw.catalog.endpoint.CswTransactionRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads a CSW Transaction request without unmarshalling it. The body is copied into a {@link
+ * CachedOutputStream} and returned as a {@link CswTransactionRequest}, so the endpoint can convert
+ * and ingest the records one at a time rather than holding the whole request as JAXB objects.
+ */
+@Provider
+@Consumes({MediaType.TEXT_XML, MediaType.APPLICATION_XML})
+public class TransactionMessageBodyReader implements MessageBodyReader<TransactionType> {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(TransactionMessageBodyReader.class);
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return TransactionType.class.equals(type);
+    }
+
+    @Override
+    public TransactionType readFrom(Class<TransactionType> type, Type genericType,
+            Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders, InputStream inStream) throws IOException,
+        WebApplicationException {
+        CachedOutputStream body = new CachedOutputStream();
+        try {
+            IOUtils.copy(inStream, body);
+            body.flush();
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read Transaction request.", e);
+            IOUtils.closeQuietly(body);
+            throw e;
+        }
+        return new CswTransactionRequest(body);
+    }
+}
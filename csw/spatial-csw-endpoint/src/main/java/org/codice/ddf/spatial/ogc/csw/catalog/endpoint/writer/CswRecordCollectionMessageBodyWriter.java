@@ -27,11 +27,13 @@
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
@@ -89,6 +91,10 @@ public void writeTo(CswRecordCollection recordCollection, Class<?> type, Type ge
                 .isNotBlank(mimeType) && !XML_MIME_TYPES.contains(mimeType)) {
             transformer = transformerManager
                     .getTransformerByMimeType(mimeType);
+            // Responses such as GeoJSON are not XML, so report the format actually written
+            if (httpHeaders != null) {
+                httpHeaders.putSingle(HttpHeaders.CONTENT_TYPE, mimeType);
+            }
         } else {
             transformer = transformerManager.getCswQueryResponseTransformer();
             if (recordCollection.getElementName() != null) {
@@ -116,7 +122,12 @@ public void writeTo(CswRecordCollection recordCollection, Class<?> type, Type ge
         }
 
         if (content != null) {
-            IOUtils.copy(content.getInputStream(), outStream);
+            InputStream inputStream = content.getInputStream();
+            try {
+                IOUtils.copy(inputStream, outStream);
+            } finally {
+                IOUtils.closeQuietly(inputStream);
+            }
         } else {
             throw new WebApplicationException(
                     new CatalogTransformerException("Transformer returned null."));
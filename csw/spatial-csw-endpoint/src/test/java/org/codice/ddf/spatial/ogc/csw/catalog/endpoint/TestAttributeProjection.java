@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.xml.namespace.QName;
+
+import net.opengis.cat.csw.v_2_0_2.ElementSetType;
+
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordMetacardType;
+import org.junit.Test;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class TestAttributeProjection {
+
+    @Test
+    public void testFullRecordIsNotProjected() {
+        assertThat(AttributeProjection.create(ElementSetType.FULL, null), nullValue());
+        assertThat(AttributeProjection.create(null, null), nullValue());
+    }
+
+    @Test
+    public void testBrief() {
+        AttributeProjection projection = AttributeProjection.create(ElementSetType.BRIEF, null);
+
+        assertThat(projection.getAttributeNames(), containsInAnyOrder(Metacard.ID,
+                Metacard.TITLE, Metacard.CONTENT_TYPE));
+        assertThat(projection.isIncludeGeometries(), is(true));
+    }
+
+    @Test
+    public void testElementNames() {
+        AttributeProjection projection = AttributeProjection.create(null, Arrays.asList(
+                CswRecordMetacardType.CSW_TITLE_QNAME, CswRecordMetacardType.CSW_TEMPORAL_QNAME));
+
+        assertThat(projection.getAttributeNames(), containsInAnyOrder(Metacard.ID,
+                Metacard.TITLE, Metacard.EFFECTIVE, Metacard.EXPIRATION));
+        assertThat(projection.isIncludeGeometries(), is(false));
+    }
+
+    @Test
+    public void testMetacardIsProjected() {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId("id");
+        metacard.setTitle("title");
+        metacard.setModifiedDate(new Date());
+        metacard.setLocation("POINT (1 2)");
+        metacard.setMetadata("<metadata/>");
+        metacard.setSourceId("source");
+
+        Metacard projected = AttributeProjection.create(null,
+                Arrays.asList(new QName("title"))).apply(metacard);
+
+        assertThat(projected.getId(), is("id"));
+        assertThat(projected.getTitle(), is("title"));
+        assertThat(projected.getSourceId(), is("source"));
+        assertThat(projected.getMetacardType(), is(metacard.getMetacardType()));
+        assertThat(projected.getModifiedDate(), nullValue());
+        assertThat(projected.getLocation(), nullValue());
+        assertThat(projected.getMetadata(), nullValue());
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import javax.xml.namespace.QName;
+
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
+import org.geotools.filter.FilterFactoryImpl;
+import org.geotools.filter.text.cql2.CQL;
+import org.geotools.temporal.object.DefaultInstant;
+import org.geotools.temporal.object.DefaultPeriod;
+import org.geotools.temporal.object.DefaultPosition;
+import org.junit.Test;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+
+public class TestCqlFilterCache {
+
+    private static final FilterFactory2 FILTER_FACTORY = new FilterFactoryImpl();
+
+    private static final String CQL_TEXT = "title like 'test'";
+
+    @Test
+    public void testCachedFilter() throws Exception {
+        CqlFilterCache cache = new CqlFilterCache();
+        String key = CqlFilterCache.getKey(CQL_TEXT, Collections.<QName> emptyList());
+        Filter filter = CQL.toFilter(CQL_TEXT);
+
+        assertThat(cache.get(key), nullValue());
+        cache.put(key, filter);
+
+        assertThat(cache.get(key), sameInstance(filter));
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void testKeyIncludesTypeNames() {
+        String key = CqlFilterCache.getKey(CQL_TEXT, Collections.<QName> emptyList());
+        String recordKey = CqlFilterCache.getKey(CQL_TEXT, Arrays.asList(new QName(
+                CswConstants.CSW_OUTPUT_SCHEMA, CswConstants.CSW_RECORD_LOCAL_NAME)));
+
+        assertThat(recordKey, not(key));
+    }
+
+    @Test
+    public void testDuringFilterIsNotCached() {
+        CqlFilterCache cache = new CqlFilterCache();
+        String key = CqlFilterCache.getKey(CQL_TEXT, Collections.<QName> emptyList());
+        DefaultPeriod period = new DefaultPeriod(new DefaultInstant(new DefaultPosition(new Date(0))),
+                new DefaultInstant(new DefaultPosition(new Date())));
+        Filter during = FILTER_FACTORY.during(FILTER_FACTORY.property("created"),
+                FILTER_FACTORY.literal(period));
+
+        cache.put(key, FILTER_FACTORY.and(during, Filter.INCLUDE));
+
+        assertThat(cache.get(key), nullValue());
+    }
+}
@@ -29,9 +29,13 @@
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.isNotNull;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.Serializable;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -40,8 +44,12 @@
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
@@ -64,6 +72,7 @@
 import net.opengis.cat.csw.v_2_0_2.QueryType;
 import net.opengis.cat.csw.v_2_0_2.ResultType;
 import net.opengis.cat.csw.v_2_0_2.SchemaComponentType;
+import net.opengis.cat.csw.v_2_0_2.TransactionResponseType;
 import net.opengis.filter.v_1_1_0.BinaryComparisonOpType;
 import net.opengis.filter.v_1_1_0.BinarySpatialOpType;
 import net.opengis.filter.v_1_1_0.ComparisonOperatorType;
@@ -90,6 +99,9 @@
 import net.opengis.ows.v_1_0_0.ServiceProvider;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.cxf.io.CachedOutputStream;
+import org.codice.ddf.spatial.ogc.catalog.common.AdmissionController;
+import org.codice.ddf.spatial.ogc.catalog.common.AdmissionException;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
@@ -107,6 +119,8 @@
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.opengis.filter.Filter;
 import org.opengis.filter.Or;
 import org.opengis.filter.PropertyIsLike;
@@ -144,15 +158,27 @@
 import ddf.catalog.CatalogFramework;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.federation.FederationException;
 import ddf.catalog.filter.AttributeBuilder;
 import ddf.catalog.filter.ContextualExpressionBuilder;
 import ddf.catalog.filter.ExpressionBuilder;
 import ddf.catalog.filter.FilterBuilder;
+import ddf.catalog.operation.CreateRequest;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.DeleteRequest;
+import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.Update;
+import ddf.catalog.operation.UpdateRequest;
+import ddf.catalog.operation.UpdateResponse;
+import ddf.catalog.operation.impl.CreateResponseImpl;
 import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.QueryResponseImpl;
+import ddf.catalog.operation.impl.UpdateImpl;
+import ddf.catalog.operation.impl.UpdateResponseImpl;
 import ddf.catalog.source.SourceUnavailableException;
 import ddf.catalog.source.UnsupportedQueryException;
 
@@ -1352,6 +1378,177 @@ public void testPostGetRecordsResults() throws CswException,
         assertThat(collection.getElementSetType(), is(ElementSetType.SUMMARY));
     }
 
+    @Test
+    public void testPostGetRecordsBriefIsProjected() throws CswException,
+        UnsupportedQueryException, SourceUnavailableException, FederationException {
+        GetRecordsType grr = createDefaultPostRecordsRequest();
+
+        grr.setResultType(ResultType.RESULTS);
+        QueryType query = new QueryType();
+        List<QName> typeNames = new ArrayList<QName>();
+        typeNames.add(new QName(CswConstants.CSW_OUTPUT_SCHEMA, VALID_TYPE, VALID_PREFIX));
+        query.setTypeNames(typeNames);
+        QueryConstraintType constraint = new QueryConstraintType();
+        constraint.setCqlText(CQL_CONTEXTUAL_LIKE_QUERY);
+        query.setConstraint(constraint);
+        ElementSetNameType esnt = new ElementSetNameType();
+        esnt.setValue(ElementSetType.BRIEF);
+        query.setElementSetName(esnt);
+        grr.setAbstractQuery(new JAXBElement<QueryType>(new QName(
+                "http://www.opengis.net/cat/csw/2.0.2"), QueryType.class, query));
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId("projected");
+        metacard.setTitle("Projected Title");
+        metacard.setLocation("POINT (1 2)");
+        metacard.setMetadata("<metadata/>");
+        List<Result> results = new LinkedList<Result>();
+        results.add(new ResultImpl(metacard));
+
+        CatalogFramework framework = mock(CatalogFramework.class);
+        ArgumentCaptor<QueryRequest> argument = ArgumentCaptor.forClass(QueryRequest.class);
+        when(framework.query(argument.capture())).thenReturn(
+                new QueryResponseImpl(null, results, 1));
+
+        CswEndpoint cswEndpoint = new CswEndpoint(mockContext, framework, filterBuilder,
+                mockUriInfo, mockMimeTypeManager, mockSchemaManager);
+
+        CswRecordCollection collection = cswEndpoint.getRecords(grr);
+
+        List<String> hint = (List<String>) argument.getValue().getPropertyValue(
+                CswConstants.ATTRIBUTE_PROJECTION);
+        assertTrue(hint.contains(Metacard.TITLE));
+        assertThat(hint.contains(Metacard.METADATA), is(false));
+
+        Metacard written = collection.getSourceResponse().getResults().get(0).getMetacard();
+        assertThat(written.getId(), is("projected"));
+        assertThat(written.getTitle(), is("Projected Title"));
+        assertThat(written.getLocation(), is("POINT (1 2)"));
+        assertThat(written.getMetadata(), nullValue());
+    }
+
+    @Test
+    public void testPostGetRecordsProjectedResultsAreNotCached() throws CswException,
+        UnsupportedQueryException, SourceUnavailableException, FederationException {
+        GetRecordsType grr = createDefaultPostRecordsRequest();
+        grr.setResultType(ResultType.RESULTS);
+        QueryType query = new QueryType();
+        List<QName> typeNames = new ArrayList<QName>();
+        typeNames.add(new QName(CswConstants.CSW_OUTPUT_SCHEMA, VALID_TYPE, VALID_PREFIX));
+        query.setTypeNames(typeNames);
+        QueryConstraintType constraint = new QueryConstraintType();
+        constraint.setCqlText(CQL_CONTEXTUAL_LIKE_QUERY);
+        query.setConstraint(constraint);
+        ElementSetNameType esnt = new ElementSetNameType();
+        esnt.setValue(ElementSetType.BRIEF);
+        query.setElementSetName(esnt);
+        grr.setAbstractQuery(new JAXBElement<QueryType>(new QName(
+                "http://www.opengis.net/cat/csw/2.0.2"), QueryType.class, query));
+
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId("partial");
+        metacard.setTitle("Partial Title");
+        List<Result> results = new LinkedList<Result>();
+        results.add(new ResultImpl(metacard));
+
+        CatalogFramework framework = mock(CatalogFramework.class);
+        when(framework.query(any(QueryRequest.class))).thenReturn(
+                new QueryResponseImpl(null, results, 1));
+
+        CswEndpoint cswEndpoint = new CswEndpoint(mockContext, framework, filterBuilder,
+                mockUriInfo, mockMimeTypeManager, mockSchemaManager);
+        RecordByIdCache recordByIdCache = new RecordByIdCache();
+        cswEndpoint.setRecordByIdCache(recordByIdCache);
+        cswEndpoint.setRecordCacheEnabled(true);
+
+        cswEndpoint.getRecords(grr);
+
+        assertThat(recordByIdCache.get("partial"), nullValue());
+    }
+
+    @Test
+    public void testPostGetRecordsReleasesAdmission() throws Exception {
+        GetRecordsType grr = createDefaultPostRecordsRequest();
+        grr.setResultType(ResultType.RESULTS);
+        grr.setMaxRecords(BigInteger.valueOf(25));
+        grr.setAbstractQuery(createContextualQuery());
+
+        CatalogFramework framework = mock(CatalogFramework.class);
+        when(framework.query(any(QueryRequest.class))).thenReturn(
+                new QueryResponseImpl(null, new LinkedList<Result>(), 0));
+        AdmissionController.Permit permit = mock(AdmissionController.Permit.class);
+        AdmissionController admissionController = mock(AdmissionController.class);
+        when(admissionController.admit(CswConstants.GET_RECORDS, 25)).thenReturn(permit);
+
+        CswEndpoint cswEndpoint = new CswEndpoint(mockContext, framework, filterBuilder,
+                mockUriInfo, mockMimeTypeManager, mockSchemaManager);
+        cswEndpoint.setAdmissionController(admissionController);
+        cswEndpoint.getRecords(grr);
+
+        verify(permit).release();
+    }
+
+    @Test
+    public void testPostGetRecordsAdmissionChargesResultWindow() throws Exception {
+        GetRecordsType grr = createDefaultPostRecordsRequest();
+        grr.setResultType(ResultType.RESULTS);
+        grr.setMaxRecords(BigInteger.valueOf(25));
+        grr.setAbstractQuery(createContextualQuery());
+
+        CatalogFramework framework = mock(CatalogFramework.class);
+        when(framework.query(any(QueryRequest.class))).thenReturn(
+                new QueryResponseImpl(null, new LinkedList<Result>(), 0));
+        AdmissionController.Permit permit = mock(AdmissionController.Permit.class);
+        AdmissionController admissionController = mock(AdmissionController.class);
+        when(admissionController.admit(CswConstants.GET_RECORDS, 100)).thenReturn(permit);
+
+        CswEndpoint cswEndpoint = new CswEndpoint(mockContext, framework, filterBuilder,
+                mockUriInfo, mockMimeTypeManager, mockSchemaManager);
+        cswEndpoint.setAdmissionController(admissionController);
+        cswEndpoint.setResultWindowCache(new ResultWindowCache(100, 5, 60, null));
+        cswEndpoint.setResultCursorsEnabled(true);
+        cswEndpoint.getRecords(grr);
+
+        verify(admissionController).admit(CswConstants.GET_RECORDS, 100);
+        verify(permit).release();
+    }
+
+    @Test
+    public void testPostGetRecordsNotAdmitted() throws Exception {
+        GetRecordsType grr = createDefaultPostRecordsRequest();
+        grr.setResultType(ResultType.RESULTS);
+        grr.setAbstractQuery(createContextualQuery());
+
+        CatalogFramework framework = mock(CatalogFramework.class);
+        AdmissionController admissionController = mock(AdmissionController.class);
+        when(admissionController.admit(Matchers.eq(CswConstants.GET_RECORDS),
+                Matchers.anyInt())).thenThrow(new AdmissionException("busy"));
+
+        CswEndpoint cswEndpoint = new CswEndpoint(mockContext, framework, filterBuilder,
+                mockUriInfo, mockMimeTypeManager, mockSchemaManager);
+        cswEndpoint.setAdmissionController(admissionController);
+        try {
+            cswEndpoint.getRecords(grr);
+            fail("GetRecords should not have been admitted");
+        } catch (CswException e) {
+            assertThat(e.getHttpStatus(), is(503));
+            assertThat(e.getExceptionCode(), is(CswConstants.NO_APPLICABLE_CODE));
+        }
+        verify(framework, times(0)).query(any(QueryRequest.class));
+    }
+
+    private JAXBElement<QueryType> createContextualQuery() {
+        QueryType query = new QueryType();
+        List<QName> typeNames = new ArrayList<QName>();
+        typeNames.add(new QName(CswConstants.CSW_OUTPUT_SCHEMA, VALID_TYPE, VALID_PREFIX));
+        query.setTypeNames(typeNames);
+        QueryConstraintType constraint = new QueryConstraintType();
+        constraint.setCqlText(CQL_CONTEXTUAL_LIKE_QUERY);
+        query.setConstraint(constraint);
+        return new JAXBElement<QueryType>(new QName("http://www.opengis.net/cat/csw/2.0.2"),
+                QueryType.class, query);
+    }
+
 
 
     @Test
@@ -1783,6 +1980,164 @@ public void testPostUnknownOperation() throws CswException {
         csw.unknownOperation();
     }
 
+    @Test
+    public void testTransactionInsertIsBatched() throws Exception {
+        when(catalogFramework.create(any(CreateRequest.class))).thenAnswer(
+                new Answer<CreateResponse>() {
+                    @Override
+                    public CreateResponse answer(InvocationOnMock invocation) {
+                        CreateRequest request = (CreateRequest) invocation.getArguments()[0];
+                        return new CreateResponseImpl(request, null, request.getMetacards());
+                    }
+                });
+
+        StringBuilder xml = new StringBuilder("<csw:Transaction service=\"CSW\" version=\"2.0.2\" "
+                + "xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\" "
+                + "xmlns:dc=\"http://purl.org/dc/elements/1.1/\"><csw:Insert>");
+        for (int i = 0; i < 5; i++) {
+            xml.append("<csw:Record><dc:identifier>id-").append(i)
+                    .append("</dc:identifier></csw:Record>");
+        }
+        xml.append("</csw:Insert></csw:Transaction>");
+        CachedOutputStream body = new CachedOutputStream();
+        body.write(xml.toString().getBytes("UTF-8"));
+
+        csw.setTransactionBatchSize(2);
+        TransactionResponseType response;
+        try {
+            response = csw.transaction(new CswTransactionRequest(body));
+        } finally {
+            csw.setTransactionBatchSize(100);
+        }
+
+        assertThat(response.getTransactionSummary().getTotalInserted(),
+                is(BigInteger.valueOf(5)));
+        assertThat(response.getTransactionSummary().getTotalDeleted(), is(BigInteger.ZERO));
+        ArgumentCaptor<CreateRequest> captor = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(catalogFramework, times(3)).create(captor.capture());
+        assertThat(captor.getAllValues().get(0).getMetacards().size(), is(2));
+        assertThat(captor.getAllValues().get(2).getMetacards().get(0).getId(), is("id-4"));
+    }
+
+    @Test
+    public void testTransactionDeleteOfUnknownType() throws Exception {
+        String xml = "<csw:Transaction service=\"CSW\" version=\"2.0.2\" "
+                + "xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\" "
+                + "xmlns:ex=\"http://example.com\"><csw:Delete typeName=\"ex:Record\">"
+                + "<csw:Constraint version=\"1.1.0\"><csw:CqlText>title = 'old'</csw:CqlText>"
+                + "</csw:Constraint></csw:Delete></csw:Transaction>";
+        CachedOutputStream body = new CachedOutputStream();
+        body.write(xml.getBytes("UTF-8"));
+
+        try {
+            csw.transaction(new CswTransactionRequest(body));
+            fail("A Delete of an unknown type should be rejected");
+        } catch (CswException e) {
+            assertThat(e.getExceptionCode(), is(CswConstants.INVALID_PARAMETER_VALUE));
+        }
+        verify(catalogFramework, times(0)).delete(any(DeleteRequest.class));
+    }
+
+    @Test
+    public void testTransactionUpdateOfConstrainedAttributeIsBatched() throws Exception {
+        final Map<String, Metacard> records = new TreeMap<String, Metacard>();
+        for (int i = 0; i < 5; i++) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId("id-" + i);
+            metacard.setTitle("old");
+            records.put(metacard.getId(), metacard);
+        }
+
+        // ID filters are recorded so the catalog can tell them from the constraint
+        final Map<Filter, List<String>> idFilters = new HashMap<Filter, List<String>>();
+        FilterBuilder idFilterBuilder = mock(FilterBuilder.class, RETURNS_DEEP_STUBS);
+        when(idFilterBuilder.attribute(Metacard.ID).is().equalTo().text(Matchers.anyString()))
+                .thenAnswer(new Answer<Filter>() {
+                    @Override
+                    public Filter answer(InvocationOnMock invocation) {
+                        Filter filter = mock(Filter.class);
+                        idFilters.put(filter, Arrays.asList((String) invocation.getArguments()[0]));
+                        return filter;
+                    }
+                });
+        when(idFilterBuilder.anyOf(Matchers.anyListOf(Filter.class))).thenAnswer(
+                new Answer<Filter>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Filter answer(InvocationOnMock invocation) {
+                        List<String> ids = new ArrayList<String>();
+                        for (Filter filter : (List<Filter>) invocation.getArguments()[0]) {
+                            ids.addAll(idFilters.get(filter));
+                        }
+                        Filter filter = mock(Filter.class);
+                        idFilters.put(filter, ids);
+                        return filter;
+                    }
+                });
+
+        CatalogFramework framework = mock(CatalogFramework.class);
+        when(framework.query(any(QueryRequest.class))).thenAnswer(new Answer<QueryResponse>() {
+            @Override
+            public QueryResponse answer(InvocationOnMock invocation) {
+                QueryRequest request = (QueryRequest) invocation.getArguments()[0];
+                Query query = request.getQuery();
+                List<Result> results = new ArrayList<Result>();
+                List<String> ids = idFilters.get(((QueryImpl) query).getFilter());
+                if (ids != null) {
+                    for (String id : ids) {
+                        results.add(new ResultImpl(new MetacardImpl(records.get(id))));
+                    }
+                } else {
+                    // The constraint matches the records that still have the old title
+                    List<Metacard> matching = new ArrayList<Metacard>();
+                    for (Metacard metacard : records.values()) {
+                        if ("old".equals(metacard.getTitle())) {
+                            matching.add(metacard);
+                        }
+                    }
+                    int end = Math.min(query.getStartIndex() - 1 + query.getPageSize(),
+                            matching.size());
+                    for (int i = query.getStartIndex() - 1; i < end; i++) {
+                        results.add(new ResultImpl(new MetacardImpl(matching.get(i))));
+                    }
+                }
+                return new QueryResponseImpl(request, results, results.size());
+            }
+        });
+        when(framework.update(any(UpdateRequest.class))).thenAnswer(new Answer<UpdateResponse>() {
+            @Override
+            public UpdateResponse answer(InvocationOnMock invocation) {
+                UpdateRequest request = (UpdateRequest) invocation.getArguments()[0];
+                List<Update> updates = new ArrayList<Update>();
+                for (Entry<Serializable, Metacard> entry : request.getUpdates()) {
+                    Metacard old = records.put(entry.getKey().toString(), entry.getValue());
+                    updates.add(new UpdateImpl(entry.getValue(), old));
+                }
+                return new UpdateResponseImpl(request, null, updates);
+            }
+        });
+
+        String xml = "<csw:Transaction service=\"CSW\" version=\"2.0.2\" "
+                + "xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\"><csw:Update>"
+                + "<csw:RecordProperty><csw:Name>dc:title</csw:Name>"
+                + "<csw:Value>new</csw:Value></csw:RecordProperty>"
+                + "<csw:Constraint version=\"1.1.0\"><csw:CqlText>title = 'old'</csw:CqlText>"
+                + "</csw:Constraint></csw:Update></csw:Transaction>";
+        CachedOutputStream body = new CachedOutputStream();
+        body.write(xml.getBytes("UTF-8"));
+
+        CswEndpoint endpoint = new CswEndpoint(mockContext, framework, idFilterBuilder,
+                mockUriInfo, mockMimeTypeManager, mockSchemaManager);
+        endpoint.setTransactionBatchSize(2);
+        TransactionResponseType response = endpoint.transaction(new CswTransactionRequest(body));
+
+        assertThat(response.getTransactionSummary().getTotalUpdated(), is(BigInteger.valueOf(5)));
+        for (Metacard metacard : records.values()) {
+            assertThat(metacard.getTitle(), is("new"));
+        }
+        verify(framework, times(3)).update(any(UpdateRequest.class));
+    }
+
     /**
      * Tests to see that JAXB configuration is working
      */
@@ -2441,6 +2796,7 @@ private void verifyOperationsMetadata(CapabilitiesType ct) {
         assertTrue(opNames.contains(CswConstants.DESCRIBE_RECORD));
         assertTrue(opNames.contains(CswConstants.GET_RECORDS));
         assertTrue(opNames.contains(CswConstants.GET_RECORD_BY_ID));
+        assertTrue(opNames.contains(CswConstants.TRANSACTION));
     }
 
     /**
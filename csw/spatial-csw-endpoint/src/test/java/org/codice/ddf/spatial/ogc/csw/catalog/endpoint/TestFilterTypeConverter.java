@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import javax.xml.bind.JAXBElement;
+import javax.xml.namespace.QName;
+
+import net.opengis.filter.v_1_1_0.BBOXType;
+import net.opengis.filter.v_1_1_0.BinaryComparisonOpType;
+import net.opengis.filter.v_1_1_0.BinaryLogicOpType;
+import net.opengis.filter.v_1_1_0.BinaryOperatorType;
+import net.opengis.filter.v_1_1_0.BinarySpatialOpType;
+import net.opengis.filter.v_1_1_0.FilterType;
+import net.opengis.filter.v_1_1_0.LiteralType;
+import net.opengis.filter.v_1_1_0.ObjectFactory;
+import net.opengis.filter.v_1_1_0.PropertyIsLikeType;
+import net.opengis.filter.v_1_1_0.PropertyNameType;
+import net.opengis.filter.v_1_1_0.SortByType;
+import net.opengis.filter.v_1_1_0.SortOrderType;
+import net.opengis.filter.v_1_1_0.SortPropertyType;
+import net.opengis.gml.v_3_1_1.AbstractGeometryType;
+import net.opengis.gml.v_3_1_1.AbstractRingPropertyType;
+import net.opengis.gml.v_3_1_1.DirectPositionType;
+import net.opengis.gml.v_3_1_1.EnvelopeType;
+import net.opengis.gml.v_3_1_1.LinearRingType;
+import net.opengis.gml.v_3_1_1.PolygonType;
+
+import org.geotools.filter.LiteralExpressionImpl;
+import org.junit.Test;
+import org.opengis.filter.And;
+import org.opengis.filter.Filter;
+import org.opengis.filter.PropertyIsEqualTo;
+import org.opengis.filter.PropertyIsLike;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+import org.opengis.filter.spatial.BBOX;
+import org.opengis.filter.spatial.Intersects;
+
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.WKTReader;
+
+public class TestFilterTypeConverter {
+
+    private static final ObjectFactory FILTER_OBJECT_FACTORY = new ObjectFactory();
+
+    private static final net.opengis.gml.v_3_1_1.ObjectFactory GML_OBJECT_FACTORY = new net.opengis.gml.v_3_1_1.ObjectFactory();
+
+    private static final String TITLE = "dc:title";
+
+    private FilterTypeConverter converter = new FilterTypeConverter();
+
+    @Test
+    public void testPropertyIsEqualTo() {
+        FilterType filter = new FilterType();
+        filter.setComparisonOps(FILTER_OBJECT_FACTORY
+                .createPropertyIsEqualTo(createComparison("test")));
+
+        Filter result = converter.toFilter(filter);
+
+        assertThat(result, instanceOf(PropertyIsEqualTo.class));
+        PropertyIsEqualTo equalTo = (PropertyIsEqualTo) result;
+        assertThat(((PropertyName) equalTo.getExpression1()).getPropertyName(), is(TITLE));
+        assertThat((String) ((LiteralExpressionImpl) equalTo.getExpression2()).getValue(),
+                is("test"));
+        assertThat(equalTo.isMatchingCase(), is(true));
+    }
+
+    @Test
+    public void testAndOfLikeAndBBox() {
+        PropertyIsLikeType like = new PropertyIsLikeType();
+        like.setPropertyName(createPropertyName(TITLE));
+        like.setLiteral(createLiteral("te*t"));
+        like.setWildCard("*");
+        like.setSingleChar("#");
+        like.setEscapeChar("!");
+
+        BBOXType bbox = new BBOXType();
+        bbox.setPropertyName(createPropertyName("ows:BoundingBox"));
+        EnvelopeType envelope = new EnvelopeType();
+        envelope.setLowerCorner(createPosition(10.0, 20.0));
+        envelope.setUpperCorner(createPosition(30.0, 40.0));
+        bbox.setEnvelope(GML_OBJECT_FACTORY.createEnvelope(envelope));
+
+        BinaryLogicOpType and = new BinaryLogicOpType();
+        and.getComparisonOpsOrSpatialOpsOrLogicOps().add(
+                FILTER_OBJECT_FACTORY.createPropertyIsLike(like));
+        and.getComparisonOpsOrSpatialOpsOrLogicOps().add(FILTER_OBJECT_FACTORY.createBBOX(bbox));
+        FilterType filter = new FilterType();
+        filter.setLogicOps(FILTER_OBJECT_FACTORY.createAnd(and));
+
+        Filter result = converter.toFilter(filter);
+
+        assertThat(result, instanceOf(And.class));
+        And andFilter = (And) result;
+        assertThat(andFilter.getChildren().size(), is(2));
+        assertThat(andFilter.getChildren().get(0), instanceOf(PropertyIsLike.class));
+        assertThat(((PropertyIsLike) andFilter.getChildren().get(0)).getLiteral(), is("te*t"));
+        assertThat(andFilter.getChildren().get(1), instanceOf(BBOX.class));
+        BBOX bboxFilter = (BBOX) andFilter.getChildren().get(1);
+        assertThat(bboxFilter.getMinX(), is(10.0));
+        assertThat(bboxFilter.getMaxY(), is(40.0));
+    }
+
+    @Test
+    public void testIntersectsPolygon() throws Exception {
+        Polygon expected = (Polygon) new WKTReader()
+                .read("POLYGON ((10 10, 10 25, 40 25, 40 10, 10 10))");
+
+        LinearRingType ring = new LinearRingType();
+        for (double[] pos : new double[][] { {10, 10}, {10, 25}, {40, 25}, {40, 10}, {10, 10}}) {
+            ring.getPosOrPointPropertyOrPointRep().add(
+                    GML_OBJECT_FACTORY.createPos(createPosition(pos[0], pos[1])));
+        }
+        AbstractRingPropertyType exterior = new AbstractRingPropertyType();
+        exterior.setRing(GML_OBJECT_FACTORY.createLinearRing(ring));
+        PolygonType polygon = new PolygonType();
+        polygon.setExterior(GML_OBJECT_FACTORY.createExterior(exterior));
+
+        BinarySpatialOpType intersects = new BinarySpatialOpType();
+        intersects.setPropertyName(createPropertyName("ows:BoundingBox"));
+        intersects.setGeometry(new JAXBElement<AbstractGeometryType>(new QName(
+                "http://www.opengis.net/gml", "Polygon"), AbstractGeometryType.class, polygon));
+        FilterType filter = new FilterType();
+        filter.setSpatialOps(FILTER_OBJECT_FACTORY.createIntersects(intersects));
+
+        Filter result = converter.toFilter(filter);
+
+        assertThat(result, instanceOf(Intersects.class));
+        Intersects intersectsFilter = (Intersects) result;
+        assertThat((Polygon) ((LiteralExpressionImpl) intersectsFilter.getExpression2())
+                .getValue(), is(expected));
+    }
+
+    @Test
+    public void testUnsupportedExpressionReturnsNull() {
+        BinaryComparisonOpType comparison = new BinaryComparisonOpType();
+        comparison.getExpression().add(
+                FILTER_OBJECT_FACTORY.createPropertyName(createPropertyName(TITLE)));
+        comparison.getExpression().add(FILTER_OBJECT_FACTORY.createAdd(new BinaryOperatorType()));
+        FilterType filter = new FilterType();
+        filter.setComparisonOps(FILTER_OBJECT_FACTORY.createPropertyIsEqualTo(comparison));
+
+        assertThat(converter.toFilter(filter), nullValue());
+    }
+
+    @Test
+    public void testSortBy() {
+        SortPropertyType sortProperty = new SortPropertyType();
+        sortProperty.setPropertyName(createPropertyName(TITLE));
+        sortProperty.setSortOrder(SortOrderType.DESC);
+        SortByType sortByType = new SortByType();
+        sortByType.getSortProperty().add(sortProperty);
+
+        SortBy[] sortBy = converter.toSortBy(sortByType);
+
+        assertThat(sortBy.length, is(1));
+        assertThat(sortBy[0].getPropertyName().getPropertyName(), is(TITLE));
+        assertThat(sortBy[0].getSortOrder(), is(SortOrder.DESCENDING));
+    }
+
+    private BinaryComparisonOpType createComparison(String literal) {
+        BinaryComparisonOpType comparison = new BinaryComparisonOpType();
+        comparison.getExpression().add(
+                FILTER_OBJECT_FACTORY.createPropertyName(createPropertyName(TITLE)));
+        comparison.getExpression().add(FILTER_OBJECT_FACTORY.createLiteral(createLiteral(literal)));
+        return comparison;
+    }
+
+    private PropertyNameType createPropertyName(String name) {
+        PropertyNameType propertyName = new PropertyNameType();
+        propertyName.setContent(Arrays.asList((Object) name));
+        return propertyName;
+    }
+
+    private LiteralType createLiteral(String value) {
+        LiteralType literal = new LiteralType();
+        literal.getContent().add(value);
+        return literal;
+    }
+
+    private DirectPositionType createPosition(double x, double y) {
+        DirectPositionType position = new DirectPositionType();
+        position.setValue(Arrays.asList(x, y));
+        return position;
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.DeleteResponse;
+import ddf.catalog.operation.Update;
+import ddf.catalog.operation.UpdateResponse;
+
+public class TestRecordByIdCache {
+
+    @Test
+    public void testFilledFromResults() {
+        RecordByIdCache cache = new RecordByIdCache();
+        Metacard first = createMetacard("first");
+        Metacard second = createMetacard("second");
+
+        cache.putAll(Arrays.<Result> asList(new ResultImpl(first), new ResultImpl(second)),
+                cache.getGeneration());
+
+        assertThat(cache.get("first"), sameInstance(first));
+        assertThat(cache.get("second"), sameInstance(second));
+        assertThat(cache.get("third"), nullValue());
+    }
+
+    @Test
+    public void testUpdateEvictsRecord() throws Exception {
+        RecordByIdCache cache = new RecordByIdCache();
+        Metacard metacard = createMetacard("updated");
+        cache.put(metacard);
+
+        Update update = mock(Update.class);
+        when(update.getOldMetacard()).thenReturn(metacard);
+        when(update.getNewMetacard()).thenReturn(createMetacard("updated"));
+        UpdateResponse response = mock(UpdateResponse.class);
+        when(response.getUpdatedMetacards()).thenReturn(Collections.singletonList(update));
+
+        assertThat(cache.process(response), sameInstance(response));
+        assertThat(cache.get("updated"), nullValue());
+    }
+
+    @Test
+    public void testDeleteEvictsRecord() throws Exception {
+        RecordByIdCache cache = new RecordByIdCache();
+        Metacard metacard = createMetacard("deleted");
+        cache.put(metacard);
+        cache.put(createMetacard("kept"));
+
+        DeleteResponse response = mock(DeleteResponse.class);
+        when(response.getDeletedMetacards()).thenReturn(Collections.singletonList(metacard));
+        cache.process(response);
+
+        assertThat(cache.get("deleted"), nullValue());
+        assertThat(cache.get("kept").getId(), is("kept"));
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        RecordByIdCache cache = new RecordByIdCache(1, 60);
+        cache.put(createMetacard("first"));
+        cache.put(createMetacard("second"));
+
+        assertThat(cache.get("first"), nullValue());
+        assertThat(cache.get("second").getId(), is("second"));
+    }
+
+    @Test
+    public void testResultsOfQueryOverlappingEvictionAreNotCached() {
+        RecordByIdCache cache = new RecordByIdCache();
+        long generation = cache.getGeneration();
+
+        // The record is updated while the query that returned its old version is running
+        cache.invalidate("stale");
+        cache.putAll(Arrays.<Result> asList(new ResultImpl(createMetacard("stale"))), generation);
+
+        assertThat(cache.get("stale"), nullValue());
+    }
+
+    @Test
+    public void testRefreshDiscardsRecords() {
+        RecordByIdCache cache = new RecordByIdCache();
+        cache.put(createMetacard("first"));
+
+        Map<String, Object> configuration = new HashMap<String, Object>();
+        configuration.put(RecordByIdCache.MAX_RECORDS_PROPERTY, 1L);
+        cache.refresh(configuration);
+        cache.put(createMetacard("second"));
+        cache.put(createMetacard("third"));
+
+        assertThat(cache.get("first"), nullValue());
+        assertThat(cache.get("second"), nullValue());
+        assertThat(cache.get("third").getId(), is("third"));
+    }
+
+    private Metacard createMetacard(String id) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        return metacard;
+    }
+}
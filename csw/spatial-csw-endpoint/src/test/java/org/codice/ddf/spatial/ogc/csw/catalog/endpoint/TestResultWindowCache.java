@@ -0,0 +1,312 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.opengis.filter.Filter;
+
+import ddf.catalog.CatalogFramework;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.AttributeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.data.impl.ResultImpl;
+import ddf.catalog.operation.CreateResponse;
+import ddf.catalog.operation.Query;
+import ddf.catalog.operation.QueryRequest;
+import ddf.catalog.operation.QueryResponse;
+import ddf.catalog.operation.impl.CreateResponseImpl;
+import ddf.catalog.operation.impl.QueryResponseImpl;
+
+public class TestResultWindowCache {
+
+    private static final long TOTAL_HITS = 100;
+
+    private static final String FILTER_KEY = "filter";
+
+    private CatalogFramework framework;
+
+    private File spillDirectory;
+
+    @Before
+    public void setUp() throws Exception {
+        framework = mock(CatalogFramework.class);
+        when(framework.query(any(QueryRequest.class))).thenAnswer(new Answer<QueryResponse>() {
+            @Override
+            public QueryResponse answer(InvocationOnMock invocation) {
+                QueryRequest request = (QueryRequest) invocation.getArguments()[0];
+                Query query = request.getQuery();
+                List<Result> results = new ArrayList<Result>();
+                int end = (int) Math.min(query.getStartIndex() + query.getPageSize() - 1,
+                        TOTAL_HITS);
+                for (int i = query.getStartIndex(); i <= end; i++) {
+                    MetacardImpl metacard = new MetacardImpl();
+                    metacard.setId(String.valueOf(i));
+                    results.add(new ResultImpl(metacard));
+                }
+                return new QueryResponseImpl(request, results, TOTAL_HITS);
+            }
+        });
+        spillDirectory = new File(System.getProperty("java.io.tmpdir"), "csw-window-test-"
+                + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteQuietly(spillDirectory);
+    }
+
+    @Test
+    public void testPagesServedFromWindow() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+
+        QueryResponse first = cache.query(framework, Filter.INCLUDE, FILTER_KEY,
+                null, 1, 10, false);
+        QueryResponse second = cache.query(framework, Filter.INCLUDE, FILTER_KEY,
+                null, 11, 10, false);
+
+        assertThat(first.getResults().get(0).getMetacard().getId(), is("1"));
+        assertThat(second.getResults().size(), is(10));
+        assertThat(second.getResults().get(0).getMetacard().getId(), is("11"));
+        assertThat(second.getHits(), is(TOTAL_HITS));
+        assertThat(second.getRequest().getQuery().getStartIndex(), is(11));
+
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(framework, times(1)).query(captor.capture());
+        assertThat(captor.getValue().getQuery().getPageSize(), is(50));
+    }
+
+    @Test
+    public void testPageSpanningWindowsIsQueriedDirectly() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+
+        QueryResponse response = cache.query(framework, Filter.INCLUDE, FILTER_KEY,
+                null, 45, 10, false);
+
+        assertThat(response.getResults().size(), is(10));
+        assertThat(cache.getWindowCount(), is(0L));
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(framework).query(captor.capture());
+        assertThat(captor.getValue().getQuery().getStartIndex(), is(45));
+    }
+
+    @Test
+    public void testFetchSize() {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+
+        assertThat(cache.getFetchSize(FILTER_KEY, 11, 10), is(50));
+        assertThat(cache.getFetchSize(FILTER_KEY, 45, 10), is(10));
+        assertThat(cache.getFetchSize(null, 11, 10), is(10));
+    }
+
+    @Test
+    public void testRefreshDiscardsWindows() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 1, 10, false);
+
+        Map<String, Object> configuration = new HashMap<String, Object>();
+        configuration.put(ResultWindowCache.WINDOW_SIZE_PROPERTY, 20);
+        cache.refresh(configuration);
+
+        assertThat(cache.getWindowCount(), is(0L));
+        assertThat(cache.getWindowSize(), is(20));
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 11, 10, false);
+        ArgumentCaptor<QueryRequest> captor = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(framework, times(2)).query(captor.capture());
+        assertThat(captor.getValue().getQuery().getPageSize(), is(20));
+    }
+
+    @Test
+    public void testRefreshKeepsSettingsOnInvalidWindowSize() {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+
+        Map<String, Object> configuration = new HashMap<String, Object>();
+        configuration.put(ResultWindowCache.WINDOW_SIZE_PROPERTY, 0);
+        cache.refresh(configuration);
+
+        assertThat(cache.getWindowSize(), is(50));
+    }
+
+    @Test
+    public void testLastWindowIsPartial() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(40, 5, 60, null);
+
+        QueryResponse response = cache.query(framework, Filter.INCLUDE, FILTER_KEY,
+                null, 91, 10, false);
+
+        assertThat(response.getResults().size(), is(10));
+        assertThat(response.getResults().get(9).getMetacard().getId(), is("100"));
+    }
+
+    @Test
+    public void testEvictedWindowIsSpilled() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(10, 1, 60,
+                spillDirectory.getAbsolutePath());
+
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 1, 10, false);
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 11, 10, false);
+        assertThat(cache.getSpilledWindowCount(), is(1));
+
+        QueryResponse response = cache.query(framework, Filter.INCLUDE, FILTER_KEY,
+                null, 1, 5, false);
+
+        assertThat(response.getResults().get(4).getMetacard().getId(), is("5"));
+        verify(framework, times(2)).query(any(QueryRequest.class));
+
+        cache.invalidateAll();
+        assertThat(cache.getSpilledWindowCount(), is(0));
+    }
+
+    @Test
+    public void testFiltersWithDifferentKeysDoNotShareWindows() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 1, 10, false);
+        cache.query(framework, Filter.INCLUDE, "other", null, 11, 10, false);
+
+        verify(framework, times(2)).query(any(QueryRequest.class));
+        assertThat(cache.getWindowCount(), is(2L));
+    }
+
+    @Test
+    public void testQueryWithoutFilterKeyIsQueriedDirectly() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+
+        cache.query(framework, Filter.INCLUDE, null, null, 1, 10, false);
+
+        assertThat(cache.getWindowCount(), is(0L));
+    }
+
+    @Test
+    public void testWindowsAreInvalidatedWhenCatalogChanges() throws Exception {
+        ResultWindowCache cache = new ResultWindowCache(50, 5, 60, null);
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 1, 10, false);
+
+        CreateResponse created = new CreateResponseImpl(null, null,
+                Collections.<Metacard> singletonList(new MetacardImpl()));
+        assertThat(cache.process(created), sameInstance(created));
+
+        assertThat(cache.getWindowCount(), is(0L));
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 11, 10, false);
+        verify(framework, times(2)).query(any(QueryRequest.class));
+    }
+
+    @Test
+    public void testSpilledWindowWithMetacardsFromAnotherClassLoader() throws Exception {
+        final ClassLoader bundleClassLoader = new IsolatingClassLoader(BundleMetacard.class
+                .getName());
+        final Class<?> metacardClass = bundleClassLoader.loadClass(BundleMetacard.class
+                .getName());
+        doAnswer(new Answer<QueryResponse>() {
+            @Override
+            public QueryResponse answer(InvocationOnMock invocation) throws Exception {
+                QueryRequest request = (QueryRequest) invocation.getArguments()[0];
+                Query query = request.getQuery();
+                List<Result> results = new ArrayList<Result>();
+                for (int i = query.getStartIndex(); i < query.getStartIndex()
+                        + query.getPageSize(); i++) {
+                    Metacard metacard = (Metacard) metacardClass.newInstance();
+                    metacard.setAttribute(new AttributeImpl(Metacard.ID, String.valueOf(i)));
+                    results.add(new ResultImpl(metacard));
+                }
+                return new QueryResponseImpl(request, results, TOTAL_HITS);
+            }
+        }).when(framework).query(any(QueryRequest.class));
+        ResultWindowCache cache = new ResultWindowCache(10, 1, 60,
+                spillDirectory.getAbsolutePath());
+
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 1, 10, false);
+        cache.query(framework, Filter.INCLUDE, FILTER_KEY, null, 11, 10, false);
+        assertThat(cache.getSpilledWindowCount(), is(1));
+
+        QueryResponse response = cache.query(framework, Filter.INCLUDE, FILTER_KEY,
+                null, 1, 5, false);
+
+        verify(framework, times(2)).query(any(QueryRequest.class));
+        Metacard metacard = response.getResults().get(4).getMetacard();
+        assertThat(metacard.getId(), is("5"));
+        assertThat(metacard.getClass(), sameInstance((Object) metacardClass));
+    }
+
+    /**
+     * A metacard whose class is defined by a class loader other than the endpoint's, like a
+     * metacard from another bundle.
+     */
+    public static class BundleMetacard extends MetacardImpl {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Defines its own copy of a single class, so that class cannot be resolved by name through
+     * the test class loader.
+     */
+    private static class IsolatingClassLoader extends ClassLoader {
+
+        private final String isolatedClassName;
+
+        IsolatingClassLoader(String isolatedClassName) {
+            super(TestResultWindowCache.class.getClassLoader());
+            this.isolatedClassName = isolatedClassName;
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve)
+            throws ClassNotFoundException {
+            if (!isolatedClassName.equals(name)) {
+                return super.loadClass(name, resolve);
+            }
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                InputStream in = getParent().getResourceAsStream(name.replace('.', '/')
+                        + ".class");
+                try {
+                    byte[] bytes = IOUtils.toByteArray(in);
+                    loaded = defineClass(name, bytes, 0, bytes.length);
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                } finally {
+                    IOUtils.closeQuietly(in);
+                }
+            }
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.endpoint;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import javax.xml.namespace.QName;
+
+import org.apache.commons.io.IOUtils;
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswException;
+import org.codice.ddf.spatial.ogc.csw.catalog.converter.CswRecordConverter;
+import org.codice.ddf.spatial.ogc.csw.catalog.endpoint.TransactionRequestReader.TransactionAction;
+import org.junit.Test;
+
+public class TestTransactionRequestReader {
+
+    private static final String TRANSACTION_START = "<csw:Transaction service=\"CSW\" version=\"2.0.2\" "
+            + "requestId=\"request-1\" xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\" "
+            + "xmlns:dc=\"http://purl.org/dc/elements/1.1/\" "
+            + "xmlns:ogc=\"http://www.opengis.net/ogc\">";
+
+    private static final String TRANSACTION_END = "</csw:Transaction>";
+
+    private final CswRecordConverter converter = new CswRecordConverter();
+
+    @Test
+    public void testInsertIsReadInBatches() throws Exception {
+        StringBuilder request = new StringBuilder(TRANSACTION_START).append("<csw:Insert>");
+        for (int i = 0; i < 5; i++) {
+            request.append(getRecord("id-" + i));
+        }
+        request.append("</csw:Insert>").append(TRANSACTION_END);
+
+        TransactionRequestReader reader = createReader(request.toString(), 2);
+
+        assertThat(reader.getRequestId(), is("request-1"));
+        TransactionAction first = reader.next();
+        assertThat(first.getType(), is(TransactionAction.Type.INSERT));
+        assertThat(first.getMetacards().size(), is(2));
+        assertThat(first.getMetacards().get(0).getId(), is("id-0"));
+        assertThat(reader.next().getMetacards().size(), is(2));
+        TransactionAction last = reader.next();
+        assertThat(last.getMetacards().size(), is(1));
+        assertThat(last.getMetacards().get(0).getId(), is("id-4"));
+        assertThat(reader.next(), nullValue());
+    }
+
+    @Test
+    public void testUpdateAndDelete() throws Exception {
+        String request = TRANSACTION_START
+                + "<csw:Update><csw:RecordProperty><csw:Name>dc:title</csw:Name>"
+                + "<csw:Value>New Title</csw:Value></csw:RecordProperty>"
+                + getConstraint() + "</csw:Update>"
+                + "<csw:Delete typeName=\"csw:Record\">" + getConstraint() + "</csw:Delete>"
+                + "<csw:Update>" + getRecord("replaced") + "</csw:Update>"
+                + TRANSACTION_END;
+
+        TransactionRequestReader reader = createReader(request, 10);
+
+        TransactionAction update = reader.next();
+        assertThat(update.getType(), is(TransactionAction.Type.UPDATE));
+        assertThat(update.getRecordProperties().size(), is(1));
+        assertThat(update.getRecordProperties().get(0).getName(), is("dc:title"));
+        assertThat(update.getConstraint().getCqlText(), is("dc:identifier = 'id-1'"));
+
+        TransactionAction delete = reader.next();
+        assertThat(delete.getType(), is(TransactionAction.Type.DELETE));
+        assertThat(delete.getTypeName(), is(new QName(CswConstants.CSW_OUTPUT_SCHEMA,
+                CswConstants.CSW_RECORD_LOCAL_NAME)));
+        assertThat(delete.getConstraint(), notNullValue());
+
+        TransactionAction replace = reader.next();
+        assertThat(replace.getType(), is(TransactionAction.Type.UPDATE));
+        assertThat(replace.getMetacards().get(0).getId(), is("replaced"));
+        assertThat(reader.next(), nullValue());
+    }
+
+    @Test(expected = CswException.class)
+    public void testDeleteWithoutConstraint() throws Exception {
+        createReader(TRANSACTION_START + "<csw:Delete/>" + TRANSACTION_END, 10).next();
+    }
+
+    @Test(expected = CswException.class)
+    public void testNotATransaction() throws Exception {
+        createReader("<csw:GetRecords xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\"/>", 10);
+    }
+
+    private TransactionRequestReader createReader(String request, int batchSize)
+        throws Exception {
+        return new TransactionRequestReader(IOUtils.toInputStream(request, "UTF-8"), converter,
+                CswEndpoint.getJaxBContext(), batchSize);
+    }
+
+    private String getRecord(String id) {
+        return "<csw:Record><dc:identifier>" + id + "</dc:identifier><dc:title>Title " + id
+                + "</dc:title></csw:Record>";
+    }
+
+    private String getConstraint() {
+        return "<csw:Constraint version=\"1.1.0\"><csw:CqlText>dc:identifier = 'id-1'"
+                + "</csw:CqlText></csw:Constraint>";
+    }
+}
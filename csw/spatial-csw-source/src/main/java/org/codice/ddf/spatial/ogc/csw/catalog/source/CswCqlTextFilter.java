@@ -27,6 +27,9 @@
 
 import net.opengis.filter.v_1_1_0.FilterType;
 
+import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
+import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.geotools.filter.text.ecql.ECQL;
 import org.geotools.filter.v1_1.OGCConfiguration;
 import org.geotools.xml.Parser;
@@ -43,11 +46,11 @@
  */
 public final class CswCqlTextFilter {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(CswCqlTextFilter.class);
+
     private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
     
     private static CswCqlTextFilter instance;
-    
-    private static final Logger LOGGER = LoggerFactory.getLogger(CswCqlTextFilter.class);
 
     private static final org.geotools.xml.Configuration PARSER_CONFIG = new org.geotools.filter.v1_1.OGCConfiguration();
 
@@ -90,9 +93,13 @@ private static JAXBContext initJaxbContext() {
 
         JAXBContext jaxbContext = null;
 
+        String contextPath = StringUtils.join(new String[] {CswConstants.OGC_CSW_PACKAGE,
+            CswConstants.OGC_FILTER_PACKAGE, CswConstants.OGC_GML_PACKAGE,
+            CswConstants.OGC_OWS_PACKAGE}, ":");
+
         try {
-            jaxbContext = JAXBContext.newInstance(
-                    "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:net.opengis.ows.v_1_0_0",
+            // Shares the context created by CswSource
+            jaxbContext = JaxbContextRegistry.getContext(contextPath,
                     CswSource.class.getClassLoader());
         } catch (JAXBException e) {
             LOGGER.error("Failed to initialize JAXBContext", e);
@@ -102,11 +109,15 @@ private static JAXBContext initJaxbContext() {
     }
 
     private String marshalFilterType(FilterType filterType) throws JAXBException {
-        Marshaller marshaller = JAXB_CONTEXT.createMarshaller();
         JAXBElement<FilterType> filterTypeJaxbElement = new JAXBElement<FilterType>(new QName(
                 "http://www.opengis.net/ogc", "Filter"), FilterType.class, filterType);
         StringWriter writer = new StringWriter();
-        marshaller.marshal(filterTypeJaxbElement, writer);
+        Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(JAXB_CONTEXT);
+        try {
+            marshaller.marshal(filterTypeJaxbElement, writer);
+        } finally {
+            JaxbContextRegistry.releaseMarshaller(JAXB_CONTEXT, marshaller);
+        }
         LOGGER.debug("Filter as XML => {}", writer.toString());
         return writer.toString();
     }
@@ -59,6 +59,7 @@
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.common.util.CollectionUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants.BinarySpatialOperand;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswJAXBElementProvider;
@@ -459,16 +460,26 @@ private JAXBElement<? extends AbstractGeometryType> convertGeometry(Geometry geo
             JTSToGML311GeometryConverter converter = 
                     new CswJTSToGML311GeometryConverter(geoConverterProps);
             
-            Marshaller marshaller = new MarshallerImpl(JAXB_CONTEXT.createMarshaller(), converter);
             StringWriter writer = new StringWriter();
-            marshaller.marshal(geometry, writer);
+            Marshaller pooledMarshaller = JaxbContextRegistry.acquireMarshaller(JAXB_CONTEXT);
+            try {
+                Marshaller marshaller = new MarshallerImpl(pooledMarshaller, converter);
+                marshaller.marshal(geometry, writer);
+            } finally {
+                JaxbContextRegistry.releaseMarshaller(JAXB_CONTEXT, pooledMarshaller);
+            }
             String xmlGeo = writer.toString();
             LOGGER.debug("Geometry as XML: {}", xmlGeo);
 
             Reader reader = new StringReader(xmlGeo);
 
-            Unmarshaller unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-            Object object = unmarshaller.unmarshal(reader);
+            Object object;
+            Unmarshaller unmarshaller = JaxbContextRegistry.acquireUnmarshaller(JAXB_CONTEXT);
+            try {
+                object = unmarshaller.unmarshal(reader);
+            } finally {
+                JaxbContextRegistry.releaseUnmarshaller(JAXB_CONTEXT, unmarshaller);
+            }
             LOGGER.debug("Unmarshalled as => {}", object);
             if (object instanceof JAXBElement) {
                 abstractGeometry = (JAXBElement<? extends AbstractGeometryType>) object;
@@ -764,9 +775,10 @@ private static JAXBContext initJaxbContext() {
 
         try {
             LOGGER.debug("Creating JAXB context with context path: {}.", contextPath);
-            jaxbContext = JAXBContext.newInstance(contextPath,
+            jaxbContext = JaxbContextRegistry.getContext(contextPath,
                     CswJAXBElementProvider.class.getClassLoader());
             LOGGER.debug(jaxbContext.toString());
+            JaxbContextRegistry.warm(jaxbContext);
         } catch (JAXBException e) {
             LOGGER.error("Unable to create JAXB context using contextPath: {}.", contextPath, e);
         }
@@ -72,6 +72,7 @@
 import org.codice.ddf.spatial.ogc.catalog.MetadataTransformer;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityCommand;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityTask;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
 import org.codice.ddf.spatial.ogc.catalog.common.TrustedRemoteSource;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.Csw;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
@@ -1010,8 +1011,9 @@ protected MetadataTransformer lookupMetadataTransformer(String transformerId) {
 
     private String getGetRecordsTypeAsXml(GetRecordsType getRecordsType) {
         Writer writer = new StringWriter();
+        Marshaller marshaller = null;
         try {
-            Marshaller marshaller = JAXB_CONTEXT.createMarshaller();
+            marshaller = JaxbContextRegistry.acquireMarshaller(JAXB_CONTEXT);
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
 
             JAXBElement<GetRecordsType> jaxbElement = new JAXBElement<GetRecordsType>(new QName(
@@ -1021,6 +1023,8 @@ private String getGetRecordsTypeAsXml(GetRecordsType getRecordsType) {
         } catch (JAXBException e) {
             LOGGER.error("{}: Unable to marshall {} to XML.", cswSourceConfiguration.getId(),
                     GetRecordsType.class, e);
+        } finally {
+            JaxbContextRegistry.releaseMarshaller(JAXB_CONTEXT, marshaller);
         }
         return writer.toString();
     }
@@ -1400,8 +1404,9 @@ private static JAXBContext initJaxbContext() {
             CswConstants.OGC_OWS_PACKAGE}, ":");
 
         try {
-            jaxbContext = JAXBContext.newInstance(contextPath,
+            jaxbContext = JaxbContextRegistry.getContext(contextPath,
                     CswSource.class.getClassLoader());
+            JaxbContextRegistry.warm(jaxbContext);
         } catch (JAXBException e) {
             LOGGER.error("Failed to initialize JAXBContext", e);
         }
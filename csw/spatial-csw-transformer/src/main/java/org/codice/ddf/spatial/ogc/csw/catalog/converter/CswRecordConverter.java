@@ -31,9 +31,6 @@
 import com.thoughtworks.xstream.io.xml.XppDriver;
 import com.thoughtworks.xstream.io.xml.XppReader;
 import com.vividsolutions.jts.geom.Envelope;
-import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.geom.GeometryCollection;
-import com.vividsolutions.jts.geom.GeometryFactory;
 
 import ddf.catalog.data.Attribute;
 import ddf.catalog.data.AttributeDescriptor;
@@ -53,7 +50,8 @@
 import org.apache.commons.collections.map.CaseInsensitiveMap;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
-import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.BoundsAccumulator;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GeometryAttribute;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.BoundingBoxReader;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordMetacardType;
@@ -87,7 +85,6 @@
 import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -100,7 +97,8 @@
  * @author rodgersh
  */
 
-public class CswRecordConverter implements Converter, MetacardTransformer, InputTransformer {
+public class CswRecordConverter implements Converter, MetacardTransformer, InputTransformer,
+        StreamingMetacardTransformer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CswRecordConverter.class);
 
@@ -171,7 +169,9 @@ public void marshal(Object source, HierarchicalStreamWriter writer,
                     CswConstants.OWS_NAMESPACE);
         }
 
-        MetacardImpl metacard = new MetacardImpl((Metacard) source);
+        // Read the metacard in place, copying it would copy every attribute including the
+        // metadata even when only a few fields are written
+        Metacard metacard = (Metacard) source;
 
         List<QName> fieldsToWrite = (List<QName>) arguments.get(CswConstants.ELEMENT_NAMES);
 
@@ -276,7 +276,7 @@ private Map<String, Object> getArguments(MarshallingContext context) {
     private void writeBoundingBox(HierarchicalStreamWriter writer, MarshallingContext context,
             Metacard metacard) {
         Set<AttributeDescriptor> attrDescs = metacard.getMetacardType().getAttributeDescriptors();
-        List<Geometry> geometries = new LinkedList<Geometry>();
+        BoundsAccumulator bounds = new BoundsAccumulator();
 
         for (AttributeDescriptor ad : attrDescs) {
             if (ad.getType() != null && AttributeFormat.GEOMETRY
@@ -286,32 +286,30 @@ private void writeBoundingBox(HierarchicalStreamWriter writer, MarshallingContex
                 if (attr != null) {
                     if (ad.isMultiValued()) {
                         for (Serializable value : attr.getValues()) {
-                            geometries.add(XmlNode.readGeometry((String) value));
+                            bounds.add(GeometryAttribute.getGeometry(attr, value));
                         }
                     } else {
-                        geometries.add(XmlNode.readGeometry((String) attr.getValue()));
+                        bounds.add(GeometryAttribute.getGeometry(attr));
                     }
                 }
             }
         }
 
-        Geometry allGeometry = new GeometryCollection(geometries.toArray(new Geometry[geometries
-                .size()]), new GeometryFactory());
-        Envelope bounds = allGeometry.getEnvelopeInternal();
-        if (!bounds.isNull()) {
+        if (!bounds.isEmpty()) {
             String bbox = CswConstants.OWS_NAMESPACE_PREFIX + CswConstants.NAMESPACE_DELIMITER
                     + CswRecordMetacardType.OWS_BOUNDING_BOX;
             String lower = CswConstants.OWS_NAMESPACE_PREFIX + CswConstants.NAMESPACE_DELIMITER
                     + CswConstants.OWS_LOWER_CORNER;
             String upper = CswConstants.OWS_NAMESPACE_PREFIX + CswConstants.NAMESPACE_DELIMITER
                     + CswConstants.OWS_UPPER_CORNER;
+            Envelope envelope = bounds.getBounds();
             writer.startNode(bbox);
             writer.addAttribute(CswConstants.CRS, CswConstants.SRS_URL);
             writer.startNode(lower);
-            writer.setValue(bounds.getMinX() + " " + bounds.getMinY());
+            writer.setValue(envelope.getMinX() + " " + envelope.getMinY());
             writer.endNode();
             writer.startNode(upper);
-            writer.setValue(bounds.getMaxX() + " " + bounds.getMaxY());
+            writer.setValue(envelope.getMaxX() + " " + envelope.getMaxY());
             writer.endNode();
 
             writer.endNode();
@@ -549,13 +547,16 @@ protected MetacardImpl createMetacardFromCswRecord(HierarchicalStreamReader hrea
                     } else {
                         attributes.put(name, new AttributeImpl(name, value));
                     }
+                } else if (BasicTypes.GEO_TYPE.getAttributeFormat().equals(
+                        attributeDescriptor.getType().getAttributeFormat())) {
+                    attributes.put(name, new GeometryAttribute(name, (String) value));
                 } else {
                     attributes.put(name, new AttributeImpl(name, value));
                 }
 
                 if (BasicTypes.GEO_TYPE.getAttributeFormat().equals(
                         attributeDescriptor.getType().getAttributeFormat())) {
-                    mc.setLocation((String) value);
+                    mc.setAttribute(new GeometryAttribute(Metacard.GEOGRAPHY, (String) value));
                 }
             }
 
@@ -847,11 +848,7 @@ protected Serializable convertRecordPropertyToMetacardAttribute(
             stringWriter.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
         }
         PrettyPrintWriter writer = new PrettyPrintWriter(stringWriter);
-        MarshallingContext context = new TreeMarshaller(writer, null, null);
-        context.put(CswConstants.WRITE_NAMESPACES, true);
-        copyArgumentsToContext(context, arguments);
-
-        this.marshal(metacard, writer, context);
+        transform(metacard, writer, arguments);
 
         BinaryContent transformedContent = null;
 
@@ -860,6 +857,16 @@ protected Serializable convertRecordPropertyToMetacardAttribute(
         return transformedContent;
     }
 
+    @Override
+    public void transform(Metacard metacard, HierarchicalStreamWriter writer,
+            Map<String, Serializable> arguments) throws CatalogTransformerException {
+        MarshallingContext context = new TreeMarshaller(writer, null, null);
+        context.put(CswConstants.WRITE_NAMESPACES, true);
+        copyArgumentsToContext(context, arguments);
+
+        this.marshal(metacard, writer, context);
+    }
+
     private void copyArgumentsToContext(MarshallingContext context,
             Map<String, Serializable> arguments) {
         if (context == null || arguments == null) {
@@ -70,7 +70,9 @@ public CswTransformProvider(TransformerManager metacardTransformers,
 
     /**
      * Marshals Metacards to an xml. This method is not typically be called directly, instead it is
-     * called by another XStream Converter using MarshallingContext.convertAnother();
+     * called by another XStream Converter using MarshallingContext.convertAnother(); If the
+     * transformer is a {@link StreamingMetacardTransformer} it writes directly to the writer,
+     * otherwise its output is copied into the writer.
      *
      * @param o       - metacard to transform.
      * @param writer  - writes the XML.
@@ -101,14 +103,17 @@ public CswTransformProvider(TransformerManager metacardTransformers,
                     "Unable to locate a transformer for output schema: " + arg);
         }
 
-        BinaryContent content = null;
         try {
-            content = transformer.transform(metacard, getArguments(context));
+            if (transformer instanceof StreamingMetacardTransformer) {
+                ((StreamingMetacardTransformer) transformer)
+                        .transform(metacard, writer, getArguments(context));
+            } else {
+                BinaryContent content = transformer.transform(metacard, getArguments(context));
+                writeXml(content, writer);
+            }
         } catch (CatalogTransformerException e) {
             throw new ConversionException("Unable to transform Metacard", e);
         }
-
-        writeXml(content, writer);
     }
 
     private void writeXml(BinaryContent content, HierarchicalStreamWriter writer) {
@@ -0,0 +1,45 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.converter;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.transform.CatalogTransformerException;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Optional interface for {@link ddf.catalog.transform.MetacardTransformer}s that can write a
+ * Metacard directly to a {@link HierarchicalStreamWriter} instead of producing a
+ * {@link ddf.catalog.data.BinaryContent}. {@link CswTransformProvider} will use this when it is
+ * available so the transformed XML does not have to be serialized, re-parsed and copied into the
+ * response. An {@link javax.xml.stream.XMLStreamWriter} can be used by wrapping it in a
+ * {@link com.thoughtworks.xstream.io.xml.StaxWriter}.
+ */
+public interface StreamingMetacardTransformer {
+
+    /**
+     * Writes the Metacard to the given writer. No XML declaration is written.
+     *
+     * @param metacard  - metacard to transform.
+     * @param writer    - the writer to output the XML to.
+     * @param arguments - transformer arguments, the same as would be passed to
+     *                  {@link ddf.catalog.transform.MetacardTransformer#transform(Metacard, Map)}
+     * @throws CatalogTransformerException if the Metacard could not be written
+     */
+    void transform(Metacard metacard, HierarchicalStreamWriter writer,
+            Map<String, Serializable> arguments) throws CatalogTransformerException;
+}
@@ -31,6 +31,7 @@
 import net.opengis.cat.csw.v_2_0_2.ObjectFactory;
 import net.opengis.cat.csw.v_2_0_2.ResultType;
 import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswConstants;
 import org.codice.ddf.spatial.ogc.csw.catalog.common.CswRecordCollection;
 import org.codice.ddf.spatial.ogc.csw.catalog.converter.GetRecordsResponseConverter;
@@ -64,6 +65,8 @@ public class CswQueryResponseTransformer implements QueryResponseTransformer {
     private static final Logger LOGGER = LoggerFactory
             .getLogger(CswQueryResponseTransformer.class);
 
+    private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
+
     private XStream xstreamGetRecordsResponse;
 
     private XStream xstreamGetRecordByIdResponse;
@@ -194,10 +197,12 @@ private XStream initXstream(final String elementName, GetRecordsResponseConverte
 
     private void writeAcknowledgement(GetRecordsType request, OutputStream outStream)
             throws IOException {
+        if (JAXB_CONTEXT == null) {
+            throw new IOException("JAXBContext is not available.");
+        }
+        Marshaller marshaller = null;
         try {
-            JAXBContext jaxBContext = JAXBContext.newInstance("net.opengis.cat.csw.v_2_0_2:" +
-                    "net.opengis.filter.v_1_1_0:net.opengis.gml.v_3_1_1:net.opengis.ows.v_1_0_0");
-            Marshaller marshaller = jaxBContext.createMarshaller();
+            marshaller = JaxbContextRegistry.acquireMarshaller(JAXB_CONTEXT);
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
 
             AcknowledgementType ack = new AcknowledgementType();
@@ -218,6 +223,24 @@ private void writeAcknowledgement(GetRecordsType request, OutputStream outStream
             marshaller.marshal(jaxBAck, outStream);
         } catch (JAXBException e) {
             throw new IOException(e);
+        } finally {
+            JaxbContextRegistry.releaseMarshaller(JAXB_CONTEXT, marshaller);
+        }
+    }
+
+    private static JAXBContext initJaxbContext() {
+        String contextPath = StringUtils.join(new String[] {CswConstants.OGC_CSW_PACKAGE,
+            CswConstants.OGC_FILTER_PACKAGE, CswConstants.OGC_GML_PACKAGE,
+            CswConstants.OGC_OWS_PACKAGE}, ":");
+
+        JAXBContext jaxbContext = null;
+        try {
+            jaxbContext = JaxbContextRegistry.getContext(contextPath,
+                    CswQueryResponseTransformer.class.getClassLoader());
+            JaxbContextRegistry.warm(jaxbContext);
+        } catch (JAXBException e) {
+            LOGGER.error("Failed to initialize JAXBContext", e);
         }
+        return jaxbContext;
     }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.csw.catalog.transformer;
+
+import ddf.catalog.data.BinaryContent;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.BinaryContentImpl;
+import ddf.catalog.operation.SourceResponse;
+import ddf.catalog.transform.CatalogTransformerException;
+import ddf.catalog.transform.QueryResponseTransformer;
+import org.codice.ddf.spatial.ogc.catalog.common.GeoJsonInputStream;
+import org.codice.ddf.spatial.ogc.catalog.common.GeoJsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.activation.MimeType;
+import javax.activation.MimeTypeParseException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of {@link ddf.catalog.transform.QueryResponseTransformer} that writes the results
+ * as a GeoJSON FeatureCollection. The returned content is generated one feature at a time as it is
+ * read, so the CSW endpoint streams it to the client without building the document first.
+ */
+public class GeoJsonQueryResponseTransformer implements QueryResponseTransformer {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(GeoJsonQueryResponseTransformer.class);
+
+    @Override
+    public BinaryContent transform(SourceResponse sourceResponse,
+            Map<String, Serializable> arguments) throws CatalogTransformerException {
+        if (sourceResponse == null) {
+            throw new CatalogTransformerException("Unable to transform a null response.");
+        }
+        List<Result> results = sourceResponse.getResults();
+        if (results == null) {
+            results = Collections.emptyList();
+        }
+        LOGGER.debug("Transforming {} results to GeoJSON", results.size());
+
+        try {
+            return new BinaryContentImpl(new GeoJsonInputStream(new MetacardIterator(
+                    results.iterator()), sourceResponse.getHits()), new MimeType(
+                    GeoJsonWriter.MIME_TYPE));
+        } catch (MimeTypeParseException e) {
+            throw new CatalogTransformerException(e);
+        }
+    }
+
+    private static class MetacardIterator implements Iterator<Metacard> {
+
+        private final Iterator<Result> results;
+
+        MetacardIterator(Iterator<Result> results) {
+            this.results = results;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return results.hasNext();
+        }
+
+        @Override
+        public Metacard next() {
+            return results.next().getMetacard();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
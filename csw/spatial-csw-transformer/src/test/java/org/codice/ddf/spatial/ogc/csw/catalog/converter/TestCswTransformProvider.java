@@ -49,7 +49,9 @@
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -91,6 +93,24 @@ public void testMarshalCswRecord() throws Exception {
         assertThat(outputSchema, is(CswConstants.CSW_OUTPUT_SCHEMA));
     }
 
+    @Test
+    public void testMarshalStreamingTransformer() throws Exception {
+        when(mockMetacardManager.getTransformerBySchema(CswConstants.CSW_OUTPUT_SCHEMA)).thenReturn(
+                mockCswRecordConverter);
+
+        StringWriter stringWriter = new StringWriter();
+        HierarchicalStreamWriter writer = new WstxDriver().createWriter(stringWriter);
+        CswTransformProvider provider = new CswTransformProvider(mockMetacardManager, null);
+        MarshallingContext context = new TreeMarshaller(writer, null, null);
+
+        provider.marshal(getMetacard(), writer, context);
+
+        // Verify the transformer wrote directly to the writer instead of returning BinaryContent
+        verify(mockCswRecordConverter, times(1)).transform(any(Metacard.class), eq(writer),
+                any(Map.class));
+        verify(mockCswRecordConverter, never()).transform(any(Metacard.class), any(Map.class));
+    }
+
     @Test
     public void testMarshalOtherSchema() throws Exception {
         final String OTHER_SCHEMA = "http://example.com/scheam.xsd";
@@ -31,6 +31,8 @@
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
@@ -98,6 +100,8 @@ public class KMLTransformerImpl implements KMLTransformer {
 
     private static final String CLOSE_PARENTHESIS = ")";
 
+    private static final int MARSHALLER_POOL_SIZE = 16;
+
     private static final String TEMPLATE_DIRECTORY = "/templates";
 
     private static final String TEMPLATE_SUFFIX = ".hbt";
@@ -110,6 +114,10 @@ public class KMLTransformerImpl implements KMLTransformer {
 
     private JAXBContext jaxbContext;
 
+    // Marshallers are not thread safe, so they are borrowed from this pool for each transform
+    private final BlockingQueue<Marshaller> marshallers = new ArrayBlockingQueue<Marshaller>(
+            MARSHALLER_POOL_SIZE);
+
     private static final Logger LOGGER = LoggerFactory.getLogger(KMLTransformerImpl.class);
 
     private ClassPathTemplateLoader templateLoader;
@@ -140,6 +148,7 @@ public KMLTransformerImpl(BundleContext bundleContext, String defaultStylingName
         try {
             this.jaxbContext = JAXBContext.newInstance(Kml.class);
             unmarshaller = jaxbContext.createUnmarshaller();
+            marshallers.offer(createMarshaller());
         } catch (JAXBException e) {
             LOGGER.error("Unable to create JAXB Context.  Setting to null.");
             this.jaxbContext = null;
@@ -466,17 +475,29 @@ private String marshalKml(Kml kmlResult) {
         String kmlResultString = null;
         StringWriter writer = new StringWriter();
 
+        Marshaller marshaller = marshallers.poll();
         try {
-            Marshaller marshaller = jaxbContext.createMarshaller();
-            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
-            marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8);
+            if (marshaller == null) {
+                marshaller = createMarshaller();
+            }
             marshaller.marshal(kmlResult, writer);
         } catch (JAXBException e) {
             LOGGER.warn("Failed to marshal KML: ", e);
+        } finally {
+            if (marshaller != null) {
+                marshallers.offer(marshaller);
+            }
         }
 
         kmlResultString = writer.toString();
 
         return kmlResultString;
     }
+
+    private Marshaller createMarshaller() throws JAXBException {
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8);
+        return marshaller;
+    }
 }
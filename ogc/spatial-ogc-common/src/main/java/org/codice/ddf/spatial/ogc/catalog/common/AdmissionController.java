@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+/**
+ * Decides whether an endpoint operation may run now. Endpoints ask for a {@link Permit} before
+ * doing the work of an operation and release it when they are done, so an implementation can
+ * bound how much work runs at once and reject requests that would exceed it. Permits cover the work
+ * of answering a request, not writing the response: endpoints release them before the response is
+ * serialized.
+ */
+public interface AdmissionController {
+
+    /**
+     * Held by an admitted request until its work is done.
+     */
+    interface Permit {
+        /**
+         * Returns the capacity held by this permit. Releasing a permit more than once has no
+         * effect.
+         */
+        void release();
+    }
+
+    /**
+     * Admits a request for the current client, waiting for capacity if the implementation allows
+     * it.
+     *
+     * @param operation
+     *            the name of the operation, e.g. GetRecords
+     * @param cost
+     *            estimate of the work of the request, typically the number of records or features
+     *            it may return
+     * @return the permit to release once the request is done
+     * @throws AdmissionException
+     *             if the request can not be admitted
+     */
+    Permit admit(String operation, int cost) throws AdmissionException;
+}
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.transport.http.AbstractHTTPDestination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link AdmissionController} that gives each configured operation a budget of cost that may be in
+ * use at once, and limits how many requests a single client may have running.
+ *
+ * A request takes as much of its operation's budget as its cost, at least 1 and at most the whole
+ * budget, and waits in arrival order up to {@code maxWaitMillis} for it to become available.
+ * Requests from a client that already has {@code maxRequestsPerClient} requests running are
+ * rejected immediately. Operations without a budget, such as GetCapabilities, are always admitted,
+ * so expensive queries can never hold them up. A disabled controller admits every request.
+ *
+ * A client is the subject of the request together with the address it was sent from, so callers
+ * without a principal, or sharing a guest principal, are still limited per address. Endpoints
+ * release their permit once the catalog has answered, before the response is serialized, so the
+ * budgets bound the querying and not the time spent writing large responses to slow clients.
+ */
+public class BoundedAdmissionController implements AdmissionController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedAdmissionController.class);
+
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 5000;
+
+    private static final int DEFAULT_MAX_REQUESTS_PER_CLIENT = 4;
+
+    private static final Permit UNLIMITED = new Permit() {
+        @Override
+        public void release() {
+        }
+    };
+
+    private volatile Map<String, Budget> budgets = new HashMap<String, Budget>();
+
+    private final ConcurrentMap<String, AtomicInteger> clients = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private volatile boolean enabled = true;
+
+    private volatile long maxWaitMillis = DEFAULT_MAX_WAIT_MILLIS;
+
+    private volatile int maxRequestsPerClient = DEFAULT_MAX_REQUESTS_PER_CLIENT;
+
+    /**
+     * Sets the cost budget of each limited operation, keyed on the operation name. Requests that
+     * are running keep the capacity of the budget they were admitted with.
+     */
+    public void setOperationBudgets(Map<String, Integer> operationBudgets) {
+        Map<String, Budget> newBudgets = new HashMap<String, Budget>();
+        if (operationBudgets != null) {
+            for (Map.Entry<String, Integer> entry : operationBudgets.entrySet()) {
+                if (entry.getValue() != null && entry.getValue() > 0) {
+                    newBudgets.put(entry.getKey(), new Budget(entry.getValue()));
+                }
+            }
+        }
+        LOGGER.debug("Admission budgets set to {}", operationBudgets);
+        this.budgets = newBudgets;
+    }
+
+    /**
+     * Sets the cost budgets from configuration, each entry in the form {@code Operation=budget}.
+     * Entries that can not be parsed are ignored.
+     */
+    public void setBudgets(String[] budgets) {
+        Map<String, Integer> operationBudgets = new HashMap<String, Integer>();
+        if (budgets != null) {
+            for (String entry : budgets) {
+                String operation = StringUtils.trimToEmpty(StringUtils.substringBefore(entry, "="));
+                int budget = NumberUtils.toInt(
+                        StringUtils.trimToEmpty(StringUtils.substringAfter(entry, "=")), 0);
+                if (StringUtils.isEmpty(operation) || budget < 1) {
+                    LOGGER.warn("Ignoring invalid admission budget {}", entry);
+                } else {
+                    operationBudgets.put(operation, budget);
+                }
+            }
+        }
+        setOperationBudgets(operationBudgets);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether requests are limited at all. A disabled controller admits every request.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Sets how long a request may wait for its operation's budget before it is rejected. A value
+     * of 0 rejects requests that can not be admitted right away.
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = Math.max(maxWaitMillis, 0);
+    }
+
+    /**
+     * Sets how many limited requests a single client may have running, or 0 for no limit.
+     */
+    public void setMaxRequestsPerClient(int maxRequestsPerClient) {
+        this.maxRequestsPerClient = Math.max(maxRequestsPerClient, 0);
+    }
+
+    @Override
+    public Permit admit(String operation, int cost) throws AdmissionException {
+        return admit(operation, getCurrentClient(), cost);
+    }
+
+    /**
+     * Admits a request for the given client.
+     *
+     * @param client
+     *            key of the client, or null or blank if it is not known, in which case the per
+     *            client limit does not apply
+     */
+    public Permit admit(String operation, String client, int cost) throws AdmissionException {
+        Budget budget = budgets.get(operation);
+        if (!enabled || budget == null) {
+            return UNLIMITED;
+        }
+
+        AtomicInteger clientCount = null;
+        if (StringUtils.isNotBlank(client) && maxRequestsPerClient > 0) {
+            clientCount = acquireClient(client);
+            if (clientCount == null) {
+                LOGGER.debug("Rejecting {} request, client {} has too many requests running",
+                        operation, client);
+                throw new AdmissionException("Too many concurrent requests from this client, "
+                        + operation + " request rejected.");
+            }
+        }
+
+        int permits = Math.min(Math.max(cost, 1), budget.size);
+        boolean acquired = false;
+        try {
+            acquired = budget.semaphore.tryAcquire(permits, maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!acquired) {
+                releaseClient(client, clientCount);
+            }
+        }
+
+        if (!acquired) {
+            LOGGER.debug("Rejecting {} request with cost {}, budget not available within {} ms",
+                    operation, permits, maxWaitMillis);
+            throw new AdmissionException("Server is busy, " + operation
+                    + " request could not be admitted. Try again later.");
+        }
+        return new BudgetPermit(budget, permits, client, clientCount);
+    }
+
+    /**
+     * @return the subject key and remote address of the current request, or null if neither is
+     *         known
+     */
+    static String getCurrentClient() {
+        String subject = SubjectKeys.getCurrentKey();
+        String address = getRemoteAddress();
+        if (StringUtils.isBlank(address)) {
+            return StringUtils.isBlank(subject) ? null : subject;
+        }
+        return subject + "@" + address;
+    }
+
+    private static String getRemoteAddress() {
+        Message message = PhaseInterceptorChain.getCurrentMessage();
+        if (message != null) {
+            Object request = message.get(AbstractHTTPDestination.HTTP_REQUEST);
+            if (request instanceof ServletRequest) {
+                return ((ServletRequest) request).getRemoteAddr();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the running request count of the client after adding this request, or null if the
+     *         client is at its limit
+     */
+    private AtomicInteger acquireClient(String client) {
+        while (true) {
+            AtomicInteger count = clients.get(client);
+            if (count == null) {
+                count = new AtomicInteger(1);
+                if (clients.putIfAbsent(client, count) == null) {
+                    return count;
+                }
+                continue;
+            }
+            int current = count.get();
+            if (current == 0) {
+                // The count is being removed by the last request of the client to finish
+                clients.remove(client, count);
+            } else if (current >= maxRequestsPerClient) {
+                return null;
+            } else if (count.compareAndSet(current, current + 1)) {
+                return count;
+            }
+        }
+    }
+
+    private void releaseClient(String client, AtomicInteger count) {
+        if (count != null && count.decrementAndGet() == 0) {
+            clients.remove(client, count);
+        }
+    }
+
+    private static class Budget {
+
+        private final int size;
+
+        private final Semaphore semaphore;
+
+        Budget(int size) {
+            this.size = size;
+            this.semaphore = new Semaphore(size, true);
+        }
+    }
+
+    private class BudgetPermit implements Permit {
+
+        private final Budget budget;
+
+        private final int permits;
+
+        private final String client;
+
+        private final AtomicInteger clientCount;
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        BudgetPermit(Budget budget, int permits, String client, AtomicInteger clientCount) {
+            this.budget = budget;
+            this.permits = permits;
+            this.client = client;
+            this.clientCount = clientCount;
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                budget.semaphore.release(permits);
+                releaseClient(client, clientCount);
+            }
+        }
+    }
+}
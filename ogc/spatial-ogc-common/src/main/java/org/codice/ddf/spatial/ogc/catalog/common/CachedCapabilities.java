@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.util.Date;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response.ResponseBuilder;
+
+/**
+ * A GetCapabilities document held by the {@link CapabilitiesCache}, along with its validators and,
+ * once it has been written, its serialized form.
+ */
+public class CachedCapabilities<T> {
+
+    private final T document;
+
+    private final EntityTag entityTag;
+
+    private final Date lastModified;
+
+    private volatile byte[] content;
+
+    CachedCapabilities(T document, String entityTag, long lastModified) {
+        this.document = document;
+        this.entityTag = new EntityTag(entityTag);
+        this.lastModified = new Date(lastModified);
+    }
+
+    public T getDocument() {
+        return document;
+    }
+
+    public EntityTag getEntityTag() {
+        return entityTag;
+    }
+
+    public Date getLastModified() {
+        return new Date(lastModified.getTime());
+    }
+
+    /**
+     * @return the serialized document, or null if it has not been written yet
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    void setContent(byte[] content) {
+        this.content = content;
+    }
+
+    /**
+     * Evaluates the request's conditional headers against this document.
+     *
+     * @param request
+     *            - the current request, may be null
+     * @throws WebApplicationException
+     *             containing a 304 Not Modified response if the client's copy is current
+     */
+    public void evaluatePreconditions(Request request) {
+        if (request == null) {
+            return;
+        }
+        ResponseBuilder builder = request.evaluatePreconditions(lastModified, entityTag);
+        if (builder != null) {
+            throw new WebApplicationException(builder.tag(entityTag).lastModified(lastModified)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches built GetCapabilities documents so they are only rebuilt when the transformers, types or
+ * sources they describe change. Documents are keyed by the caller, typically on the base URI of the
+ * request and the requested sections.
+ *
+ * This class can be registered as a blueprint reference-listener, in which case any bind or unbind
+ * of a service invalidates all cached documents.
+ */
+public class CapabilitiesCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CapabilitiesCache.class);
+
+    private static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private final int maxEntries;
+
+    private final ConcurrentMap<String, CachedCapabilities<?>> entries = new ConcurrentHashMap<String, CachedCapabilities<?>>();
+
+    private final Map<Object, CachedCapabilities<?>> documents = Collections
+            .synchronizedMap(new IdentityHashMap<Object, CachedCapabilities<?>>());
+
+    private final Set<Class<?>> documentTypes = new CopyOnWriteArraySet<Class<?>>();
+
+    private volatile long lastModified = currentTimeSeconds();
+
+    /**
+     * Builds a capabilities document on a cache miss.
+     */
+    public interface Builder<T> {
+        T build();
+    }
+
+    public CapabilitiesCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public CapabilitiesCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached document for the key, building it if it is not cached.
+     *
+     * @param key
+     *            - identifies the variant of the document, e.g. base URI and sections
+     * @param builder
+     *            - builds the document if it is not cached
+     * @return the cached document
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CachedCapabilities<T> get(String key, Builder<T> builder) {
+        CachedCapabilities<T> cached = (CachedCapabilities<T>) entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long modified = lastModified;
+        T document = builder.build();
+        cached = new CachedCapabilities<T>(document, Long.toHexString(modified) + "-"
+                + Integer.toHexString(key.hashCode()), modified);
+
+        if (entries.size() >= maxEntries) {
+            LOGGER.debug("Capabilities cache is full, clearing {} entries.", entries.size());
+            clear();
+        }
+
+        CachedCapabilities<T> existing = (CachedCapabilities<T>) entries.putIfAbsent(key, cached);
+        if (existing != null) {
+            return existing;
+        }
+        documents.put(document, cached);
+        documentTypes.add(document.getClass());
+
+        // Don't keep a document that was built while the cache was being invalidated
+        if (modified != lastModified) {
+            entries.remove(key, cached);
+            documents.remove(document);
+        }
+        return cached;
+    }
+
+    /**
+     * Returns the cache entry for a document previously returned by this cache.
+     *
+     * @param document
+     *            - the document
+     * @return the cache entry or null if the document is no longer cached
+     */
+    public CachedCapabilities<?> getCached(Object document) {
+        return documents.get(document);
+    }
+
+    /**
+     * @return true if documents of this type have been cached
+     */
+    public boolean isCachedType(Class<?> type) {
+        return documentTypes.contains(type);
+    }
+
+    /**
+     * Discards all cached documents. The next request will rebuild them.
+     */
+    public void invalidate() {
+        LOGGER.debug("Invalidating cached capabilities.");
+        long now = currentTimeSeconds();
+        // Ensure the entity tags always change, even within the same second.
+        lastModified = (now > lastModified) ? now : lastModified + 1000;
+        clear();
+    }
+
+    public void bind(Object service) {
+        invalidate();
+    }
+
+    public void unbind(Object service) {
+        invalidate();
+    }
+
+    private void clear() {
+        entries.clear();
+        documents.clear();
+    }
+
+    // HTTP dates have a resolution of seconds
+    private static long currentTimeSeconds() {
+        return (System.currentTimeMillis() / 1000) * 1000;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes GetCapabilities documents held by a {@link CapabilitiesCache}. The first time a document
+ * is written it is serialized by the delegate writer and the bytes are kept with the cache entry,
+ * later responses write those bytes directly. ETag and Last-Modified headers are added so clients
+ * can revalidate with conditional requests.
+ */
+@Produces({MediaType.TEXT_XML, MediaType.APPLICATION_XML})
+public class CapabilitiesMessageBodyWriter implements MessageBodyWriter<Object> {
+
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(CapabilitiesMessageBodyWriter.class);
+
+    private static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private final CapabilitiesCache cache;
+
+    private final MessageBodyWriter<Object> delegate;
+
+    public CapabilitiesMessageBodyWriter(CapabilitiesCache cache,
+            MessageBodyWriter<Object> delegate) {
+        this.cache = cache;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        return cache.isCachedType(type)
+                && delegate.isWriteable(type, genericType, annotations, mediaType);
+    }
+
+    @Override
+    public long getSize(Object t, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType) {
+        CachedCapabilities<?> cached = cache.getCached(t);
+        if (cached != null && cached.getContent() != null) {
+            return cached.getContent().length;
+        }
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object t, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+            OutputStream entityStream) throws IOException, WebApplicationException {
+        CachedCapabilities<?> cached = cache.getCached(t);
+        if (cached == null) {
+            // Invalidated since it was returned by the endpoint
+            delegate.writeTo(t, type, genericType, annotations, mediaType, httpHeaders,
+                    entityStream);
+            return;
+        }
+
+        httpHeaders.putSingle(HttpHeaders.ETAG, cached.getEntityTag().toString());
+        httpHeaders.putSingle(HttpHeaders.LAST_MODIFIED, formatHttpDate(cached));
+
+        byte[] content = cached.getContent();
+        if (content == null) {
+            LOGGER.debug("Serializing capabilities document {}", cached.getEntityTag());
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            delegate.writeTo(t, type, genericType, annotations, mediaType, httpHeaders, bytes);
+            content = bytes.toByteArray();
+            cached.setContent(content);
+        }
+        entityStream.write(content);
+    }
+
+    private String formatHttpDate(CachedCapabilities<?> cached) {
+        SimpleDateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(cached.getLastModified());
+    }
+}
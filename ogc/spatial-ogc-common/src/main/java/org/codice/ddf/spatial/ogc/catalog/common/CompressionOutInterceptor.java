@@ -0,0 +1,337 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
+import org.apache.cxf.phase.AbstractPhaseInterceptor;
+import org.apache.cxf.phase.Phase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compresses endpoint responses with gzip or deflate when the client allows it through the
+ * Accept-Encoding header. The response stream is wrapped rather than buffered: the first {@link
+ * #getThreshold()} bytes are held back, and only once a response grows past them is the
+ * Content-Encoding header set and the rest compressed as the message body writers produce it.
+ * Smaller responses are written unchanged.
+ * <p>
+ * On the server side the transport only opens the response stream in {@link
+ * MessageSenderInterceptor}, so this interceptor is ordered after it; run any earlier and there is
+ * no stream to wrap.
+ */
+public class CompressionOutInterceptor extends AbstractPhaseInterceptor<Message> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressionOutInterceptor.class);
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    public static final int DEFAULT_THRESHOLD = 2048;
+
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private static final String VARY = "Vary";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Settings are changed by configuration updates while responses are being sent
+    private volatile int threshold = DEFAULT_THRESHOLD;
+
+    private volatile int level = Deflater.DEFAULT_COMPRESSION;
+
+    private volatile boolean enabled = true;
+
+    public CompressionOutInterceptor() {
+        super(Phase.PREPARE_SEND);
+        addAfter(MessageSenderInterceptor.class.getName());
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param threshold
+     *            minimum response size in bytes before a response is compressed
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = Math.max(0, threshold);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @param level
+     *            deflater compression level, 1 (fastest) to 9 (smallest), or -1 for the default
+     */
+    public void setLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            LOGGER.warn("Invalid compression level {}, using the default level.", level);
+            this.level = Deflater.DEFAULT_COMPRESSION;
+        } else {
+            this.level = level;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void handleMessage(Message message) throws Fault {
+        if (!enabled || MessageUtils.isRequestor(message) || message.getExchange() == null) {
+            return;
+        }
+        OutputStream os = message.getContent(OutputStream.class);
+        if (os == null) {
+            LOGGER.debug("No response stream to compress.");
+            return;
+        }
+
+        Map<String, List<String>> responseHeaders = getHeaders(message);
+        if (getHeader(responseHeaders, CONTENT_ENCODING) != null) {
+            // The writer has already encoded the body
+            return;
+        }
+        addHeader(responseHeaders, VARY, ACCEPT_ENCODING);
+
+        Message inMessage = message.getExchange().getInMessage();
+        if (inMessage == null) {
+            return;
+        }
+        String encoding = selectEncoding(getHeader(getHeaders(inMessage), ACCEPT_ENCODING));
+        if (encoding != null) {
+            LOGGER.debug("Compressing response with {} above {} bytes.", encoding, threshold);
+            message.setContent(OutputStream.class, new CompressingOutputStream(os, message,
+                    encoding));
+        }
+    }
+
+    /**
+     * Chooses the supported encoding with the highest quality value in an Accept-Encoding header.
+     *
+     * @return {@link #GZIP}, {@link #DEFLATE}, or null if the response should not be compressed
+     */
+    static String selectEncoding(String acceptEncoding) {
+        if (StringUtils.isBlank(acceptEncoding)) {
+            return null;
+        }
+        String selected = null;
+        float selectedQuality = 0;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ENGLISH);
+            float quality = getQuality(parts);
+
+            String candidate = null;
+            if (GZIP.equals(name) || "x-gzip".equals(name) || "*".equals(name)) {
+                candidate = GZIP;
+            } else if (DEFLATE.equals(name)) {
+                candidate = DEFLATE;
+            }
+            // Prefer gzip when both are equally acceptable since it is more widely supported
+            if (candidate != null && quality > 0
+                    && (quality > selectedQuality || (quality == selectedQuality && GZIP
+                            .equals(candidate)))) {
+                selected = candidate;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    private static float getQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Float.parseFloat(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    LOGGER.debug("Invalid quality value in Accept-Encoding: {}", param);
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> getHeaders(Message message) {
+        Map<String, List<String>> headers = (Map<String, List<String>>) message
+                .get(Message.PROTOCOL_HEADERS);
+        if (headers == null) {
+            headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+            message.put(Message.PROTOCOL_HEADERS, headers);
+        }
+        return headers;
+    }
+
+    private static String getHeader(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && header.getValue() != null
+                    && !header.getValue().isEmpty()) {
+                return StringUtils.join(header.getValue(), ",");
+            }
+        }
+        return null;
+    }
+
+    private static void addHeader(Map<String, List<String>> headers, String name, String value) {
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                List<String> values = new ArrayList<String>();
+                if (header.getValue() != null) {
+                    values.addAll(header.getValue());
+                }
+                if (!values.contains(value)) {
+                    values.add(value);
+                }
+                header.setValue(values);
+                return;
+            }
+        }
+        headers.put(name, Collections.singletonList(value));
+    }
+
+    private static void removeHeader(Map<String, List<String>> headers, String name) {
+        for (String key : new ArrayList<String>(headers.keySet())) {
+            if (name.equalsIgnoreCase(key)) {
+                headers.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Holds back the first bytes of a response until it is known whether the response is large
+     * enough to compress. The headers are updated before anything reaches the underlying stream,
+     * since the first write to it commits them.
+     */
+    private class CompressingOutputStream extends OutputStream {
+
+        private final OutputStream wrapped;
+
+        private final Message message;
+
+        private final String encoding;
+
+        private ByteArrayOutputStream pending;
+
+        private OutputStream out;
+
+        private Deflater deflater;
+
+        private boolean closed = false;
+
+        CompressingOutputStream(OutputStream wrapped, Message message, String encoding) {
+            this.wrapped = wrapped;
+            this.message = message;
+            this.encoding = encoding;
+            this.pending = new ByteArrayOutputStream(Math.min(threshold, BUFFER_SIZE) + 1);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out == null) {
+                if (pending.size() + len <= threshold) {
+                    pending.write(b, off, len);
+                    return;
+                }
+                startCompressing();
+            }
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            // Holding back a small response is what keeps it uncompressed, so only flush once the
+            // encoding is decided
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (out == null) {
+                    out = wrapped;
+                    pending.writeTo(wrapped);
+                    pending = null;
+                }
+                out.close();
+            } finally {
+                if (deflater != null) {
+                    deflater.end();
+                }
+            }
+        }
+
+        private void startCompressing() throws IOException {
+            Map<String, List<String>> headers = getHeaders(message);
+            removeHeader(headers, CONTENT_LENGTH);
+            headers.put(CONTENT_ENCODING, Collections.singletonList(encoding));
+
+            if (GZIP.equals(encoding)) {
+                out = new GZIPOutputStream(wrapped, BUFFER_SIZE) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            } else {
+                deflater = new Deflater(level);
+                out = new DeflaterOutputStream(wrapped, deflater, BUFFER_SIZE);
+            }
+            pending.writeTo(out);
+            pending = null;
+        }
+    }
+}
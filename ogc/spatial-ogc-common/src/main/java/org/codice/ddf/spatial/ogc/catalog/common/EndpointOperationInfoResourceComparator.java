@@ -14,18 +14,15 @@
  **/
 package org.codice.ddf.spatial.ogc.catalog.common;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map.Entry;
 
 import javax.ws.rs.core.MultivaluedMap;
+import javax.xml.stream.XMLStreamException;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
-import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.jaxrs.ext.ResourceComparator;
-import org.apache.cxf.jaxrs.ext.xml.XMLSource;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfoComparator;
@@ -62,6 +59,9 @@ public class EndpointOperationInfoResourceComparator extends OperationResourceIn
     private static final Logger LOGGER = LoggerFactory
             .getLogger(EndpointOperationInfoResourceComparator.class);
 
+    private static final String REQUEST_INFO_KEY = EndpointOperationInfoResourceComparator.class
+            .getName() + ".requestInfo";
+
     private String serviceName;
     
     public EndpointOperationInfoResourceComparator() {
@@ -88,77 +88,103 @@ public int compare(OperationResourceInfo oper1, OperationResourceInfo oper2, Mes
             LOGGER.warn("Found NULL parameters in the compare method.");
             return 0;
         }
+
+        RequestInfo requestInfo = getRequestInfo(message);
+        if (requestInfo == null || StringUtils.isEmpty(requestInfo.requestName)) {
+            return 0;
+        }
+
+        int op1Rank = getOperationRank(oper1, requestInfo.requestName,
+                requestInfo.requestedService);
+        int op2Rank = getOperationRank(oper2, requestInfo.requestName,
+                requestInfo.requestedService);
+
+        return (op1Rank == op2Rank) ? 0 : (op1Rank < op2Rank) ? 1 : -1;
+    }
+
+    /**
+     * CXF compares operations several times per request while sorting them, so the request name
+     * and service are only determined on the first compare and kept on the message for the rest.
+     *
+     * @return the request name and service, or null if the HTTP method is not supported
+     */
+    private RequestInfo getRequestInfo(Message message) {
+        Object cached = message.get(REQUEST_INFO_KEY);
+        if (cached instanceof RequestInfo) {
+            return (RequestInfo) cached;
+        }
+
         String httpMethod = (String) message.get(Message.HTTP_REQUEST_METHOD);
         LOGGER.debug("HTTP METHOD = {}", httpMethod);
 
-        String requestName = null;
-        String requestedService = null;
-
+        RequestInfo requestInfo;
         if (HTTP_GET.equalsIgnoreCase(httpMethod)) {
-            String queryString = (String) message.get(Message.QUERY_STRING);
-            if (StringUtils.isNotEmpty(queryString)) {
-
-                MultivaluedMap<String, String> allQueryParams = JAXRSUtils.getStructuredParams(
-                        queryString, QUERY_PARAM_DELIMITER, false, false);
-                // Loop through the keys and do a case insensitive check
-                for (Entry<String, List<String>> queryParam : allQueryParams.entrySet()) {
-                    if ((REQUEST_PARAM.equalsIgnoreCase(queryParam.getKey()))
-                            && (!queryParam.getValue().isEmpty()) && requestName == null) {
-                        // We should never have more than one "request" query
-                        // param so ignore them if we do
-                        requestName = queryParam.getValue().get(0);
-                        LOGGER.debug("Request Query Param = {}", requestName);
-                    }
-                    if ((SERVICE_PARAM.equalsIgnoreCase(queryParam.getKey()))
-                            && (!queryParam.getValue().isEmpty()) && requestedService == null) {
-                        // We should never have more than one "service" query
-                        // param so ignore them if we do
-                        requestedService = queryParam.getValue().get(0);
-                        LOGGER.debug("Service Query Param = {}", requestedService);
-                    }
-                }
-            }
+            requestInfo = readQueryString((String) message.get(Message.QUERY_STRING));
         } else if (HTTP_POST.equalsIgnoreCase(httpMethod)) {
-            // Get the payload
-            try (InputStream is = message.getContent(InputStream.class)) {
-                if (is != null) {
-
-                    CachedOutputStream bos = new CachedOutputStream();
-                    // We need to make a copy and put it back for later
-                    // processing
-                    IOUtils.copy(is, bos);
-                    bos.flush();
-                    is.close();
-                    message.setContent(InputStream.class, bos.getInputStream());
-                    XMLSource xml = new XMLSource(bos.getInputStream());
-                    xml.setBuffering();
-                    // The request name will be the root node name
-
-                    requestName = xml.getValue("local-name(/*)");
-                    requestedService = xml.getValue("/*/@service");
-
-                    LOGGER.debug("ROOT NODE = {}", requestName);
-                    LOGGER.debug("Service Name = {}", requestedService);
-                    bos.close();
-                }
-            } catch (IOException ioe) {
-                LOGGER.warn("Unable to read message contents", ioe);
-            }
-
+            requestInfo = readRootElement(message);
         } else {
             LOGGER.warn("Got unknown HTTP Method {}", httpMethod);
-            return 0;
+            return null;
         }
 
-        if (StringUtils.isEmpty(requestName)) {
+        if (StringUtils.isEmpty(requestInfo.requestName)) {
             LOGGER.warn("Unable to determine the request name");
-            return 0;
         }
+        message.put(REQUEST_INFO_KEY, requestInfo);
+        return requestInfo;
+    }
 
-        int op1Rank = getOperationRank(oper1, requestName, requestedService);
-        int op2Rank = getOperationRank(oper2, requestName, requestedService);
+    private RequestInfo readQueryString(String queryString) {
+        String requestName = null;
+        String requestedService = null;
 
-        return (op1Rank == op2Rank) ? 0 : (op1Rank < op2Rank) ? 1 : -1;
+        if (StringUtils.isNotEmpty(queryString)) {
+            MultivaluedMap<String, String> allQueryParams = JAXRSUtils.getStructuredParams(
+                    queryString, QUERY_PARAM_DELIMITER, false, false);
+            // Loop through the keys and do a case insensitive check
+            for (Entry<String, List<String>> queryParam : allQueryParams.entrySet()) {
+                if ((REQUEST_PARAM.equalsIgnoreCase(queryParam.getKey()))
+                        && (!queryParam.getValue().isEmpty()) && requestName == null) {
+                    // We should never have more than one "request" query
+                    // param so ignore them if we do
+                    requestName = queryParam.getValue().get(0);
+                    LOGGER.debug("Request Query Param = {}", requestName);
+                }
+                if ((SERVICE_PARAM.equalsIgnoreCase(queryParam.getKey()))
+                        && (!queryParam.getValue().isEmpty()) && requestedService == null) {
+                    // We should never have more than one "service" query
+                    // param so ignore them if we do
+                    requestedService = queryParam.getValue().get(0);
+                    LOGGER.debug("Service Query Param = {}", requestedService);
+                }
+            }
+        }
+        return new RequestInfo(requestName, requestedService);
+    }
+
+    /**
+     * Reads the payload up to its root element, whose name is the request name, and puts the bytes
+     * read back in front of the rest of the payload for later processing.
+     */
+    private RequestInfo readRootElement(Message message) {
+        InputStream is = message.getContent(InputStream.class);
+        if (is == null) {
+            return new RequestInfo(null, null);
+        }
+
+        RootElement rootElement = new RootElement(is);
+        try {
+            rootElement.read();
+            LOGGER.debug("ROOT NODE = {}", rootElement.getLocalName());
+            LOGGER.debug("Service Name = {}", rootElement.getAttribute(SERVICE_PARAM));
+        } catch (XMLStreamException e) {
+            LOGGER.warn("Unable to read message contents", e);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Unable to read message contents", e);
+        } finally {
+            message.setContent(InputStream.class, rootElement.getInputStream());
+        }
+        return new RequestInfo(rootElement.getLocalName(), rootElement.getAttribute(SERVICE_PARAM));
     }
 
     private int getOperationRank(OperationResourceInfo operation, String requestName,
@@ -173,4 +199,15 @@ private int getOperationRank(OperationResourceInfo operation, String requestName
                         : -1);
     }
 
+    private static class RequestInfo {
+
+        private final String requestName;
+
+        private final String requestedService;
+
+        RequestInfo(String requestName, String requestedService) {
+            this.requestName = requestName;
+            this.requestedService = requestedService;
+        }
+    }
 }
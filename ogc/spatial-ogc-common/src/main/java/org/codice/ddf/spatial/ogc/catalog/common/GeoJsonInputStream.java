@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * Reads a GeoJSON FeatureCollection that is generated one feature at a time as the stream is
+ * consumed. This lets a {@link ddf.catalog.data.BinaryContent} carry a GeoJSON response without
+ * the whole document being written up front.
+ */
+public class GeoJsonInputStream extends InputStream {
+
+    private final Iterator<Metacard> metacards;
+
+    private final Long numberMatched;
+
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+
+    private final GeoJsonWriter writer = new GeoJsonWriter(chunk);
+
+    private byte[] buffer = new byte[0];
+
+    private int position = 0;
+
+    private boolean started = false;
+
+    private boolean ended = false;
+
+    /**
+     * @param metacards
+     *            the features to write
+     * @param numberMatched
+     *            total number of matching features, or null if it is not known
+     */
+    public GeoJsonInputStream(Iterator<Metacard> metacards, Long numberMatched) {
+        this.metacards = metacards;
+        this.numberMatched = numberMatched;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(len, buffer.length - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.length - position;
+    }
+
+    /**
+     * Writes the next part of the document once the current one has been read.
+     *
+     * @return false once the whole document has been read
+     */
+    private boolean fill() throws IOException {
+        while (position >= buffer.length) {
+            if (ended) {
+                return false;
+            }
+            chunk.reset();
+            if (!started) {
+                writer.startFeatureCollection(numberMatched);
+                started = true;
+            } else if (metacards.hasNext()) {
+                writer.writeFeature(metacards.next());
+            } else {
+                writer.endFeatureCollection();
+                ended = true;
+            }
+            writer.flush();
+            buffer = chunk.toByteArray();
+            position = 0;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,383 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.apache.commons.lang.StringUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GeometryAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.Metacard;
+
+/**
+ * Writes metacards as a GeoJSON FeatureCollection directly to a stream. Each feature is written
+ * from the metacard's attributes as soon as it is passed in, so a response never has to be held in
+ * memory or built up as XML first.
+ *
+ * The metacard's location becomes the feature geometry and the remaining attributes are written as
+ * properties. XML and binary attributes, such as the metadata and thumbnail, are left out since
+ * GeoJSON clients can not make use of them.
+ */
+public class GeoJsonWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeoJsonWriter.class);
+
+    public static final String MIME_TYPE = "application/geo+json";
+
+    private static final List<String> FORMAT_NAMES = Collections.unmodifiableList(Arrays.asList(
+            MIME_TYPE, "application/vnd.geo+json", "application/json", "geojson", "json"));
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private final Writer writer;
+
+    private final WKTReader wktReader = new WKTReader();
+
+    private boolean firstFeature = true;
+
+    private long featureCount = 0;
+
+    public GeoJsonWriter(OutputStream outputStream) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, UTF_8));
+    }
+
+    /**
+     * @return true if the output format names GeoJSON, either by mime type or by name
+     */
+    public static boolean isGeoJsonFormat(String format) {
+        if (StringUtils.isBlank(format)) {
+            return false;
+        }
+        String mimeType = StringUtils.substringBefore(format, ";").trim()
+                .toLowerCase(Locale.ENGLISH);
+        return FORMAT_NAMES.contains(mimeType);
+    }
+
+    /**
+     * Starts the FeatureCollection.
+     *
+     * @param numberMatched
+     *            total number of matching features, or null if it is not known
+     */
+    public void startFeatureCollection(Long numberMatched) throws IOException {
+        writer.write("{\"type\":\"FeatureCollection\"");
+        if (numberMatched != null) {
+            writer.write(",\"numberMatched\":");
+            writer.write(String.valueOf(numberMatched));
+        }
+        writer.write(",\"features\":[");
+    }
+
+    public void writeFeature(Metacard metacard) throws IOException {
+        if (metacard == null) {
+            return;
+        }
+        if (!firstFeature) {
+            writer.write(',');
+        }
+        firstFeature = false;
+        featureCount++;
+
+        writer.write("{\"type\":\"Feature\",\"id\":");
+        writeString(metacard.getId());
+
+        String geometryAttribute = getGeometryAttributeName(metacard);
+        writer.write(",\"geometry\":");
+        writeGeometry(readGeometry(metacard, geometryAttribute));
+
+        writer.write(",\"properties\":{");
+        boolean firstProperty = true;
+        if (metacard.getMetacardType() != null) {
+            writeString("metacard-type");
+            writer.write(':');
+            writeString(metacard.getMetacardType().getName());
+            firstProperty = false;
+
+            for (AttributeDescriptor descriptor : metacard.getMetacardType()
+                    .getAttributeDescriptors()) {
+                if (descriptor.getName().equals(geometryAttribute) || !isWritten(descriptor)) {
+                    continue;
+                }
+                Attribute attribute = metacard.getAttribute(descriptor.getName());
+                if (attribute == null || attribute.getValue() == null) {
+                    continue;
+                }
+                if (!firstProperty) {
+                    writer.write(',');
+                }
+                firstProperty = false;
+                writeString(descriptor.getName());
+                writer.write(':');
+                writeAttribute(descriptor, attribute);
+            }
+        }
+        writer.write("}}");
+    }
+
+    /**
+     * Ends the FeatureCollection and flushes it to the underlying stream. The stream is not closed.
+     */
+    public void endFeatureCollection() throws IOException {
+        writer.write("],\"numberReturned\":");
+        writer.write(String.valueOf(featureCount));
+        writer.write('}');
+        writer.flush();
+    }
+
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private String getGeometryAttributeName(Metacard metacard) {
+        if (metacard.getMetacardType() == null) {
+            return Metacard.GEOGRAPHY;
+        }
+        if (metacard.getMetacardType().getAttributeDescriptor(Metacard.GEOGRAPHY) != null) {
+            return Metacard.GEOGRAPHY;
+        }
+        for (AttributeDescriptor descriptor : metacard.getMetacardType()
+                .getAttributeDescriptors()) {
+            if (descriptor.getType() != null
+                    && AttributeFormat.GEOMETRY
+                            .equals(descriptor.getType().getAttributeFormat())) {
+                return descriptor.getName();
+            }
+        }
+        return null;
+    }
+
+    private Geometry readGeometry(Metacard metacard, String attributeName) {
+        if (attributeName == null) {
+            return null;
+        }
+        Attribute attribute = metacard.getAttribute(attributeName);
+        if (attribute instanceof GeometryAttribute) {
+            return ((GeometryAttribute) attribute).getGeometry();
+        }
+        if (attribute == null || !(attribute.getValue() instanceof String)) {
+            return null;
+        }
+        try {
+            return wktReader.read((String) attribute.getValue());
+        } catch (ParseException e) {
+            LOGGER.debug("Unable to read geometry of metacard {}", metacard.getId(), e);
+            return null;
+        }
+    }
+
+    private boolean isWritten(AttributeDescriptor descriptor) {
+        if (descriptor.getType() == null) {
+            return false;
+        }
+        AttributeFormat format = descriptor.getType().getAttributeFormat();
+        return !(AttributeFormat.XML.equals(format) || AttributeFormat.BINARY.equals(format)
+                || AttributeFormat.OBJECT.equals(format));
+    }
+
+    private void writeAttribute(AttributeDescriptor descriptor, Attribute attribute)
+        throws IOException {
+        AttributeFormat format = descriptor.getType().getAttributeFormat();
+        if (descriptor.isMultiValued() && attribute.getValues() != null) {
+            writer.write('[');
+            boolean first = true;
+            for (Serializable value : attribute.getValues()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                first = false;
+                writeValue(format, value);
+            }
+            writer.write(']');
+        } else {
+            writeValue(format, attribute.getValue());
+        }
+    }
+
+    private void writeValue(AttributeFormat format, Serializable value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+        } else if (value instanceof Date) {
+            Calendar calendar = Calendar.getInstance(UTC);
+            calendar.setTime((Date) value);
+            writeString(DatatypeConverter.printDateTime(calendar));
+        } else if (value instanceof Boolean) {
+            writer.write(value.toString());
+        } else if (value instanceof Number) {
+            writeNumber((Number) value);
+        } else {
+            // Additional geometries are kept as WKT, GeoJSON only allows one per feature
+            writeString(value.toString());
+        }
+    }
+
+    private void writeNumber(Number number) throws IOException {
+        double value = number.doubleValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writer.write("null");
+        } else {
+            writer.write(number.toString());
+        }
+    }
+
+    private void writeGeometry(Geometry geometry) throws IOException {
+        if (geometry == null || geometry.isEmpty()) {
+            writer.write("null");
+            return;
+        }
+        writer.write("{\"type\":\"");
+        writer.write(geometry.getGeometryType());
+        writer.write('"');
+        if (geometry instanceof GeometryCollection && !(geometry instanceof MultiPoint)
+                && !(geometry instanceof MultiLineString) && !(geometry instanceof MultiPolygon)) {
+            writer.write(",\"geometries\":[");
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeGeometry(geometry.getGeometryN(i));
+            }
+            writer.write("]}");
+            return;
+        }
+        writer.write(",\"coordinates\":");
+        writeCoordinates(geometry);
+        writer.write('}');
+    }
+
+    private void writeCoordinates(Geometry geometry) throws IOException {
+        if (geometry instanceof Point) {
+            writeCoordinate(geometry.getCoordinate());
+        } else if (geometry instanceof LineString) {
+            writeCoordinates(geometry.getCoordinates());
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            writer.write('[');
+            writeCoordinates(polygon.getExteriorRing().getCoordinates());
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                writer.write(',');
+                writeCoordinates(polygon.getInteriorRingN(i).getCoordinates());
+            }
+            writer.write(']');
+        } else {
+            // MultiPoint, MultiLineString and MultiPolygon
+            writer.write('[');
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeCoordinates(geometry.getGeometryN(i));
+            }
+            writer.write(']');
+        }
+    }
+
+    private void writeCoordinates(Coordinate[] coordinates) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < coordinates.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCoordinate(coordinates[i]);
+        }
+        writer.write(']');
+    }
+
+    private void writeCoordinate(Coordinate coordinate) throws IOException {
+        writer.write('[');
+        writer.write(String.valueOf(coordinate.x));
+        writer.write(',');
+        writer.write(String.valueOf(coordinate.y));
+        if (!Double.isNaN(coordinate.z)) {
+            writer.write(',');
+            writer.write(String.valueOf(coordinate.z));
+        }
+        writer.write(']');
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            case '\b':
+                writer.write("\\b");
+                break;
+            case '\f':
+                writer.write("\\f");
+                break;
+            default:
+                if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares {@link JAXBContext}s and pools their {@link Marshaller}s and {@link Unmarshaller}s.
+ * Creating a context is expensive and contexts are thread safe, so only one is created for each
+ * context path and class loader. Marshallers and unmarshallers are not thread safe; they are
+ * borrowed with the acquire methods and must be handed back with the matching release method once
+ * the caller is done with them, typically in a finally block.
+ *
+ * Pooled marshallers have their standard properties reset when they are released. Callers that set
+ * vendor specific properties or event handlers should create their own marshaller instead.
+ *
+ * Contexts are keyed weakly, by identity, on their class loader, and pools weakly on their context.
+ * A context references its class loader and a pooled marshaller its context, so the values are only
+ * reached through soft references; nothing the registry holds strongly reaches a key, and once a
+ * bundle is refreshed its old class loader, contexts and pools can be collected. Lookups do not
+ * lock; a context is created under a lock of its own key only, so other contexts are not held up
+ * while it is built.
+ */
+public final class JaxbContextRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JaxbContextRegistry.class);
+
+    private static final int POOL_SIZE = 16;
+
+    private static final String DEFAULT_ENCODING = "UTF-8";
+
+    private static final String CLASS_KEY_SUFFIX = ".class";
+
+    /**
+     * Stands in for the bootstrap class loader, which cannot be referenced.
+     */
+    private static final Object BOOTSTRAP_CLASS_LOADER = new Object();
+
+    private static final WeakIdentityMap<Object, ConcurrentMap<String, ContextHolder>> CONTEXTS = new WeakIdentityMap<Object, ConcurrentMap<String, ContextHolder>>();
+
+    private static final WeakIdentityMap<JAXBContext, SoftReference<BlockingQueue<Marshaller>>> MARSHALLERS = new WeakIdentityMap<JAXBContext, SoftReference<BlockingQueue<Marshaller>>>();
+
+    private static final WeakIdentityMap<JAXBContext, SoftReference<BlockingQueue<Unmarshaller>>> UNMARSHALLERS = new WeakIdentityMap<JAXBContext, SoftReference<BlockingQueue<Unmarshaller>>>();
+
+    private JaxbContextRegistry() {
+    }
+
+    /**
+     * Returns the shared context for a context path, creating it on first use.
+     *
+     * @param contextPath
+     *            - colon separated list of packages
+     * @param classLoader
+     *            - class loader used to load the packages
+     * @return the shared context
+     * @throws JAXBException
+     *             if the context could not be created
+     */
+    public static JAXBContext getContext(final String contextPath, final ClassLoader classLoader)
+        throws JAXBException {
+        ContextHolder holder = getHolder(classLoader, contextPath);
+        JAXBContext context = holder.get();
+        if (context == null) {
+            synchronized (holder) {
+                context = holder.get();
+                if (context == null) {
+                    LOGGER.debug("Creating JAXBContext for {}", contextPath);
+                    context = holder.set(JAXBContext.newInstance(contextPath, classLoader));
+                }
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Returns the shared context for a single bound class, creating it on first use.
+     *
+     * @param clazz
+     *            - the class to be bound
+     * @return the shared context
+     * @throws JAXBException
+     *             if the context could not be created
+     */
+    public static JAXBContext getContext(Class<?> clazz) throws JAXBException {
+        ContextHolder holder = getHolder(clazz.getClassLoader(), clazz.getName()
+                + CLASS_KEY_SUFFIX);
+        JAXBContext context = holder.get();
+        if (context == null) {
+            synchronized (holder) {
+                context = holder.get();
+                if (context == null) {
+                    LOGGER.debug("Creating JAXBContext for {}", clazz);
+                    context = holder.set(JAXBContext.newInstance(clazz));
+                }
+            }
+        }
+        return context;
+    }
+
+    private static ContextHolder getHolder(ClassLoader classLoader, String key) {
+        Object classLoaderKey = classLoader == null ? BOOTSTRAP_CLASS_LOADER : classLoader;
+        ConcurrentMap<String, ContextHolder> contexts = CONTEXTS.get(classLoaderKey);
+        if (contexts == null) {
+            contexts = CONTEXTS.putIfAbsent(classLoaderKey,
+                    new ConcurrentHashMap<String, ContextHolder>());
+        }
+        ContextHolder holder = contexts.get(key);
+        if (holder == null) {
+            ContextHolder newHolder = new ContextHolder();
+            holder = contexts.putIfAbsent(key, newHolder);
+            if (holder == null) {
+                holder = newHolder;
+            }
+        }
+        return holder;
+    }
+
+    /**
+     * Creates a marshaller and an unmarshaller for the context and adds them to the pools, so the
+     * first request does not pay for JAXB initialization.
+     *
+     * @param context
+     *            - the context to warm, may be null
+     */
+    public static void warm(JAXBContext context) {
+        if (context == null) {
+            return;
+        }
+        try {
+            releaseMarshaller(context, acquireMarshaller(context));
+            releaseUnmarshaller(context, acquireUnmarshaller(context));
+        } catch (JAXBException e) {
+            LOGGER.warn("Unable to warm JAXBContext.", e);
+        }
+    }
+
+    public static Marshaller acquireMarshaller(JAXBContext context) throws JAXBException {
+        Marshaller marshaller = getPool(MARSHALLERS, context).poll();
+        if (marshaller == null) {
+            marshaller = context.createMarshaller();
+        }
+        return marshaller;
+    }
+
+    public static void releaseMarshaller(JAXBContext context, Marshaller marshaller) {
+        if (marshaller == null) {
+            return;
+        }
+        try {
+            marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.FALSE);
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+            marshaller.setProperty(Marshaller.JAXB_ENCODING, DEFAULT_ENCODING);
+            marshaller.setSchema(null);
+            marshaller.setListener(null);
+        } catch (JAXBException e) {
+            LOGGER.debug("Unable to reset marshaller, discarding it.", e);
+            return;
+        }
+        getPool(MARSHALLERS, context).offer(marshaller);
+    }
+
+    public static Unmarshaller acquireUnmarshaller(JAXBContext context) throws JAXBException {
+        Unmarshaller unmarshaller = getPool(UNMARSHALLERS, context).poll();
+        if (unmarshaller == null) {
+            unmarshaller = context.createUnmarshaller();
+        }
+        return unmarshaller;
+    }
+
+    public static void releaseUnmarshaller(JAXBContext context, Unmarshaller unmarshaller) {
+        if (unmarshaller == null) {
+            return;
+        }
+        unmarshaller.setSchema(null);
+        unmarshaller.setListener(null);
+        getPool(UNMARSHALLERS, context).offer(unmarshaller);
+    }
+
+    private static <T> BlockingQueue<T> getPool(
+            WeakIdentityMap<JAXBContext, SoftReference<BlockingQueue<T>>> pools,
+            JAXBContext context) {
+        SoftReference<BlockingQueue<T>> reference = pools.get(context);
+        BlockingQueue<T> pool = reference == null ? null : reference.get();
+        while (pool == null) {
+            BlockingQueue<T> newPool = new ArrayBlockingQueue<T>(POOL_SIZE);
+            SoftReference<BlockingQueue<T>> newReference = new SoftReference<BlockingQueue<T>>(
+                    newPool);
+            if (reference == null ? pools.putIfAbsent(context, newReference) == newReference
+                    : pools.replace(context, reference, newReference)) {
+                return newPool;
+            }
+            reference = pools.get(context);
+            pool = reference == null ? null : reference.get();
+        }
+        return pool;
+    }
+
+    /**
+     * Holds a context softly, so a context of a refreshed bundle does not keep its class loader
+     * from being collected. Its monitor is the lock the context is created under.
+     */
+    private static final class ContextHolder {
+
+        private volatile SoftReference<JAXBContext> reference;
+
+        JAXBContext get() {
+            SoftReference<JAXBContext> current = reference;
+            return current == null ? null : current.get();
+        }
+
+        JAXBContext set(JAXBContext context) {
+            reference = new SoftReference<JAXBContext>(context);
+            return context;
+        }
+    }
+
+    /**
+     * A concurrent map whose keys are compared by identity and held weakly. Entries of collected
+     * keys are removed as the map is used.
+     */
+    private static final class WeakIdentityMap<K, V> {
+
+        private final ConcurrentMap<IdentityWeakReference, V> map = new ConcurrentHashMap<IdentityWeakReference, V>();
+
+        private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+        V get(K key) {
+            expungeStaleEntries();
+            return map.get(new IdentityWeakReference(key, null));
+        }
+
+        /**
+         * @return the value already mapped to the key, or the given value once it has been mapped
+         */
+        V putIfAbsent(K key, V value) {
+            expungeStaleEntries();
+            V existing = map.putIfAbsent(new IdentityWeakReference(key, queue), value);
+            return existing == null ? value : existing;
+        }
+
+        boolean replace(K key, V oldValue, V newValue) {
+            return map.replace(new IdentityWeakReference(key, null), oldValue, newValue);
+        }
+
+        private void expungeStaleEntries() {
+            Reference<?> reference;
+            while ((reference = queue.poll()) != null) {
+                map.remove(reference);
+            }
+        }
+    }
+
+    private static final class IdentityWeakReference extends WeakReference<Object> {
+
+        private final int hashCode;
+
+        IdentityWeakReference(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hashCode = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof IdentityWeakReference)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityWeakReference) obj).get();
+        }
+    }
+}
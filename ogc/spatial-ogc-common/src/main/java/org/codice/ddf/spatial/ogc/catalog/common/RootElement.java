@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.cxf.staxutils.StaxUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the root element of an XML document without consuming the document. Only the bytes up to
+ * the root element are read and kept, and {@link #getInputStream()} returns them followed by the
+ * rest of the document, so the whole document can still be parsed afterwards.
+ */
+public class RootElement {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RootElement.class);
+
+    private final InputStream in;
+
+    private final RecordingInputStream recording;
+
+    private final Map<String, String> attributes = new HashMap<String, String>();
+
+    private String localName;
+
+    private String namespaceUri;
+
+    private boolean read = false;
+
+    public RootElement(InputStream in) {
+        this.in = in;
+        this.recording = new RecordingInputStream(in);
+    }
+
+    /**
+     * Reads the document up to and including the start of its root element.
+     *
+     * @return the local name of the root element, or null if the document has none
+     * @throws XMLStreamException
+     *             if the document can not be parsed before its root element
+     */
+    public String read() throws XMLStreamException {
+        if (read) {
+            return localName;
+        }
+        read = true;
+
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(recording);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    localName = reader.getLocalName();
+                    namespaceUri = reader.getNamespaceURI();
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        String attributeNamespace = reader.getAttributeNamespace(i);
+                        if (attributeNamespace == null || attributeNamespace.isEmpty()) {
+                            attributes.put(reader.getAttributeLocalName(i),
+                                    reader.getAttributeValue(i));
+                        }
+                    }
+                    break;
+                }
+            }
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                LOGGER.debug("Unable to close XML reader", e);
+            }
+        }
+        return localName;
+    }
+
+    /**
+     * @return the local name of the root element, or null if it has not been read
+     */
+    public String getLocalName() {
+        return localName;
+    }
+
+    public String getNamespaceUri() {
+        return namespaceUri;
+    }
+
+    /**
+     * @return the value of the unqualified attribute of the root element, or null if it is not
+     *         present
+     */
+    public String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    /**
+     * @return the whole document, including any part of it that was read to find the root element
+     */
+    public InputStream getInputStream() {
+        return new SequenceInputStream(new ByteArrayInputStream(recording.getRecorded()), in);
+    }
+
+    /**
+     * Keeps a copy of every byte read from the wrapped stream so they can be read again.
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+
+        private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+        RecordingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                recorded.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                recorded.write(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] skipped = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            int count = read(skipped, 0, skipped.length);
+            return Math.max(count, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // The wrapped stream is handed back by getInputStream
+        }
+
+        byte[] getRecorded() {
+            return recorded.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,555 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import java.util.Date;
+import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.io.ParseException;
+import com.vividsolutions.jts.io.WKTReader;
+
+import ddf.catalog.filter.FilterDelegate;
+
+/**
+ * Extracts the WGS84 extent that a matching feature must intersect from a filter. The extent of
+ * a filter without a spatial constraint, or whose spatial constraint does not limit where a match
+ * can be, is unbounded (see {@link #isUnbounded(Envelope)}), and the extent of a filter that
+ * cannot match anything is a null envelope.
+ */
+public class SpatialExtentFilterDelegate extends FilterDelegate<Envelope> {
+
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    /** Latitude above which a distance can wrap all the way around the pole */
+    private static final double MAX_EXPANDED_LATITUDE = 89.0;
+
+    /**
+     * @return true if the extent does not limit where a matching feature can be
+     */
+    public static boolean isUnbounded(Envelope extent) {
+        return extent.getMinX() == -Double.MAX_VALUE && extent.getMaxX() == Double.MAX_VALUE
+                && extent.getMinY() == -Double.MAX_VALUE && extent.getMaxY() == Double.MAX_VALUE;
+    }
+
+    // Logical operators
+    @Override
+    public Envelope include() {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope exclude() {
+        return new Envelope();
+    }
+
+    @Override
+    public Envelope not(Envelope operand) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope and(List<Envelope> operands) {
+        Envelope extent = unbounded();
+        for (Envelope operand : operands) {
+            extent = extent.intersection(operand);
+        }
+        return extent;
+    }
+
+    @Override
+    public Envelope or(List<Envelope> operands) {
+        Envelope extent = new Envelope();
+        for (Envelope operand : operands) {
+            extent.expandToInclude(operand);
+        }
+        return extent;
+    }
+
+    // PropertyIsNull
+    @Override
+    public Envelope propertyIsNull(String propertyName) {
+        return unbounded();
+    }
+
+    // PropertyIsLike
+    @Override
+    public Envelope propertyIsLike(String propertyName, String pattern,
+            boolean isCaseSensitive) {
+        return unbounded();
+    }
+
+    // PropertyIsFuzzy
+    @Override
+    public Envelope propertyIsFuzzy(String propertyName, String literal) {
+        return unbounded();
+    }
+
+    // PropertyIsEqualTo
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, String literal,
+            boolean isCaseSensitive) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, Date literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, Date startDate, Date endDate) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, int literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, short literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, long literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, double literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, float literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, byte[] literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, boolean literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsEqualTo(String propertyName, Object literal) {
+        return unbounded();
+    }
+
+    // PropertyIsNotEqualTo
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, String literal,
+            boolean isCaseSensitive) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, Date literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, Date startDate, Date endDate) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, int literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, short literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, long literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, double literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, float literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, byte[] literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, boolean literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsNotEqualTo(String propertyName, Object literal) {
+        return unbounded();
+    }
+
+    // PropertyIsGreaterThan
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, String literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, Date literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, int literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, short literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, long literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, double literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, float literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThan(String propertyName, Object literal) {
+        return unbounded();
+    }
+
+    // PropertyIsGreaterThanOrEqualTo
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, String literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, Date literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, int literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, short literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, long literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, double literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, float literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsGreaterThanOrEqualTo(String propertyName, Object literal) {
+        return unbounded();
+    }
+
+    // PropertyIsLessThan
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, String literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, Date literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, int literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, short literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, long literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, double literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, float literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThan(String propertyName, Object literal) {
+        return unbounded();
+    }
+
+    // PropertyIsLessThanOrEqualTo
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, String literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, Date literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, int literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, short literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, long literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, double literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, float literal) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsLessThanOrEqualTo(String propertyName, Object literal) {
+        return unbounded();
+    }
+
+    // PropertyIsBetween
+    @Override
+    public Envelope propertyIsBetween(String propertyName, String lowerBoundary,
+            String upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, Date lowerBoundary,
+            Date upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, int lowerBoundary,
+            int upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, short lowerBoundary,
+            short upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, long lowerBoundary,
+            long upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, float lowerBoundary,
+            float upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, double lowerBoundary,
+            double upperBoundary) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope propertyIsBetween(String propertyName, Object lowerBoundary,
+            Object upperBoundary) {
+        return unbounded();
+    }
+
+    // XpathExists
+    @Override
+    public Envelope xpathExists(String xpath) {
+        return unbounded();
+    }
+
+    // XpathIsLike
+    @Override
+    public Envelope xpathIsLike(String xpath, String pattern, boolean isCaseSensitive) {
+        return unbounded();
+    }
+
+    // XpathIsFuzzy
+    @Override
+    public Envelope xpathIsFuzzy(String xpath, String literal) {
+        return unbounded();
+    }
+
+    // Spatial filters
+    @Override
+    public Envelope beyond(String propertyName, String wkt, double distance) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope contains(String propertyName, String wkt) {
+        return envelope(wkt);
+    }
+
+    @Override
+    public Envelope dwithin(String propertyName, String wkt, double distance) {
+        return expand(envelope(wkt), distance);
+    }
+
+    @Override
+    public Envelope intersects(String propertyName, String wkt) {
+        return envelope(wkt);
+    }
+
+    @Override
+    public Envelope nearestNeighbor(String propertyName, String wkt) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope within(String propertyName, String wkt) {
+        return envelope(wkt);
+    }
+
+    @Override
+    public Envelope crosses(String propertyName, String wkt) {
+        return envelope(wkt);
+    }
+
+    @Override
+    public Envelope disjoint(String propertyName, String wkt) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope overlaps(String propertyName, String wkt) {
+        return envelope(wkt);
+    }
+
+    @Override
+    public Envelope touches(String propertyName, String wkt) {
+        return envelope(wkt);
+    }
+
+    // Temporal filters
+    @Override
+    public Envelope after(String propertyName, Date date) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope before(String propertyName, Date date) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope during(String propertyName, Date startDate, Date endDate) {
+        return unbounded();
+    }
+
+    @Override
+    public Envelope relative(String propertyName, long duration) {
+        return unbounded();
+    }
+
+    private Envelope unbounded() {
+        return new Envelope(-Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE,
+                Double.MAX_VALUE);
+    }
+
+    private Envelope envelope(String wkt) {
+        try {
+            return new WKTReader().read(wkt).getEnvelopeInternal();
+        } catch (ParseException e) {
+            throw new UnsupportedOperationException("Unable to parse WKT: " + wkt, e);
+        }
+    }
+
+    /**
+     * Expands the extent by a distance in meters, using the latitude furthest from the equator to
+     * convert the distance to degrees of longitude.
+     */
+    private Envelope expand(Envelope extent, double distance) {
+        if (extent.isNull()) {
+            return extent;
+        }
+        double latitudeDistance = distance / METERS_PER_DEGREE;
+        double maxLatitude = Math.max(Math.abs(extent.getMinY()), Math.abs(extent.getMaxY()))
+                + latitudeDistance;
+        if (maxLatitude >= MAX_EXPANDED_LATITUDE) {
+            return new Envelope(-180, 180, extent.getMinY() - latitudeDistance, extent.getMaxY()
+                    + latitudeDistance);
+        }
+        double longitudeDistance = distance
+                / (METERS_PER_DEGREE * Math.cos(Math.toRadians(maxLatitude)));
+        Envelope expanded = new Envelope(extent);
+        expanded.expandBy(longitudeDistance, latitudeDistance);
+        if (expanded.getMinX() < -180 || expanded.getMaxX() > 180) {
+            // The distance wraps around the antimeridian
+            return new Envelope(-180, 180, expanded.getMinY(), expanded.getMaxY());
+        }
+        return expanded;
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.ShiroException;
+import org.apache.shiro.subject.Subject;
+
+/**
+ * Derives a key for the subject bound to the current request, so results cached by an endpoint
+ * are only ever served back to the subject they were retrieved for, and work can be accounted to
+ * the subject that asked for it.
+ */
+public final class SubjectKeys {
+
+    public static final String ANONYMOUS = "";
+
+    private SubjectKeys() {
+    }
+
+    /**
+     * @return the principal of the subject bound to the current thread, or {@link #ANONYMOUS} if
+     *         there is no subject or security manager
+     */
+    public static String getCurrentKey() {
+        try {
+            Subject subject = SecurityUtils.getSubject();
+            if (subject != null && subject.getPrincipal() != null) {
+                return subject.getPrincipal().toString();
+            }
+        } catch (ShiroException e) {
+            // No security manager is available, treat the request as anonymous
+        }
+        return ANONYMOUS;
+    }
+}
@@ -195,6 +195,15 @@ protected <T> T createClientBean(Class<T> clazz, String url, String username, St
         return client;
     }
 
+    /**
+     * Whether the clients created by this source keep their request state per thread, so the
+     * source can send requests on several threads at once. Clients are not thread safe unless a
+     * subclass overrides this.
+     */
+    protected boolean isThreadSafeClient() {
+        return false;
+    }
+
     private JAXRSClientFactoryBean initClientBean(Class clazz, String url, ClassLoader classLoader,
             List<? extends Object> providers, String username, String password) {
         if (StringUtils.isEmpty(url)) {
@@ -209,6 +218,7 @@ private JAXRSClientFactoryBean initClientBean(Class clazz, String url, ClassLoad
         clientFactoryBean.setServiceClass(clazz);
         clientFactoryBean.setAddress(url);
         clientFactoryBean.setClassLoader(classLoader);
+        clientFactoryBean.setThreadSafe(isThreadSafeClient());
         clientFactoryBean.getInInterceptors().add(new LoggingInInterceptor());
         clientFactoryBean.getOutInterceptors().add(new LoggingOutInterceptor());
 
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common.converter;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * Computes the bounds of a set of geometries by expanding a single envelope as each one is added,
+ * without collecting the geometries first.
+ */
+public class BoundsAccumulator {
+
+    private final Envelope envelope = new Envelope();
+
+    /**
+     * Expands the bounds to include the location of the metacard, if it has one.
+     */
+    public void add(Metacard metacard) {
+        if (metacard != null) {
+            add(GeometryAttribute.getGeometry(metacard.getAttribute(Metacard.GEOGRAPHY)));
+        }
+    }
+
+    public void add(Geometry geometry) {
+        if (geometry != null && !geometry.isEmpty()) {
+            envelope.expandToInclude(geometry.getEnvelopeInternal());
+        }
+    }
+
+    public void add(Envelope bounds) {
+        if (bounds != null) {
+            envelope.expandToInclude(bounds);
+        }
+    }
+
+    public boolean isEmpty() {
+        return envelope.isNull();
+    }
+
+    /**
+     * @return a copy of the bounds, or null if nothing with a location has been added
+     */
+    public Envelope getBounds() {
+        return isEmpty() ? null : new Envelope(envelope);
+    }
+
+    /**
+     * @return the bounds of the locations of the metacards, or null if none have a location
+     */
+    public static Envelope getBounds(Iterable<? extends Metacard> metacards) {
+        BoundsAccumulator bounds = new BoundsAccumulator();
+        if (metacards != null) {
+            for (Metacard metacard : metacards) {
+                bounds.add(metacard);
+            }
+        }
+        return bounds.getBounds();
+    }
+}
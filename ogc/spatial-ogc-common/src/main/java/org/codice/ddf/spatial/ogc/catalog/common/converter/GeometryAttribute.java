@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common.converter;
+
+import java.io.Serializable;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKTWriter;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.impl.AttributeImpl;
+
+/**
+ * A geometry {@link Attribute} whose value is the WKT of the geometry, as for any other metacard
+ * geometry attribute, that also carries the parsed {@link Geometry}. When created from a geometry
+ * read from a response, the geometry is kept as is; when created from WKT, it is parsed the first
+ * time it is needed. Writers use {@link #getGeometry(Attribute)} so a metacard's geometry is
+ * parsed at most once however many times it is written.
+ *
+ * The geometry is shared by all callers and must not be modified.
+ */
+public class GeometryAttribute extends AttributeImpl {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient volatile Geometry geometry;
+
+    private transient volatile boolean parsed;
+
+    /**
+     * Creates an attribute whose geometry is parsed from the WKT when it is first requested.
+     */
+    public GeometryAttribute(String name, String wkt) {
+        super(name, wkt);
+    }
+
+    /**
+     * Creates an attribute for a geometry that has already been read.
+     */
+    public GeometryAttribute(String name, Geometry geometry) {
+        this(name, new WKTWriter().write(geometry), geometry);
+    }
+
+    /**
+     * Creates an attribute for a geometry that has already been read and written as WKT, e.g. to
+     * store the same geometry under several attribute names.
+     */
+    public GeometryAttribute(String name, String wkt, Geometry geometry) {
+        super(name, wkt);
+        this.geometry = geometry;
+        this.parsed = true;
+    }
+
+    /**
+     * @return the geometry, or null if the WKT can not be parsed
+     */
+    public Geometry getGeometry() {
+        if (!parsed) {
+            synchronized (this) {
+                if (!parsed) {
+                    geometry = readGeometry(getValue());
+                    parsed = true;
+                }
+            }
+        }
+        return geometry;
+    }
+
+    /**
+     * @return the geometry of the attribute, reusing the parsed geometry of a
+     *         {@link GeometryAttribute}, or null if the attribute has no valid WKT value
+     */
+    public static Geometry getGeometry(Attribute attribute) {
+        if (attribute == null) {
+            return null;
+        }
+        if (attribute instanceof GeometryAttribute) {
+            return ((GeometryAttribute) attribute).getGeometry();
+        }
+        return readGeometry(attribute.getValue());
+    }
+
+    /**
+     * @return the geometry of one of the values of the attribute, reusing the parsed geometry of
+     *         a {@link GeometryAttribute} when it is the attribute's value
+     */
+    public static Geometry getGeometry(Attribute attribute, Serializable value) {
+        if (attribute instanceof GeometryAttribute && value == attribute.getValue()) {
+            return ((GeometryAttribute) attribute).getGeometry();
+        }
+        return readGeometry(value);
+    }
+
+    /**
+     * Wraps a single valued WKT attribute so its geometry is parsed at most once while it is
+     * written. Other attributes are returned as is.
+     */
+    public static Attribute wrap(Attribute attribute) {
+        if (attribute == null || attribute instanceof GeometryAttribute
+                || !(attribute.getValue() instanceof String)
+                || attribute.getValues().size() != 1) {
+            return attribute;
+        }
+        return new GeometryAttribute(attribute.getName(), (String) attribute.getValue());
+    }
+
+    private static Geometry readGeometry(Serializable value) {
+        if (value instanceof String) {
+            return XmlNode.readGeometry((String) value);
+        }
+        return null;
+    }
+}
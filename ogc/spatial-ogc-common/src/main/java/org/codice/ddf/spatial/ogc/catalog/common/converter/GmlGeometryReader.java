@@ -0,0 +1,497 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common.converter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.LinearRing;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
+
+/**
+ * Builds JTS geometries directly from the events of a {@link HierarchicalStreamReader}, without
+ * serializing the GML back to a String first. Supports the GML 2.1.2 and GML 3.2.1 encodings of
+ * points, line strings, polygons, their multi geometries, geometry collections, boxes and
+ * envelopes, as well as curves made of line string segments and surfaces made of polygon patches.
+ * Element names are matched on their local part, so any namespace prefix is accepted.
+ *
+ * Instances are thread safe.
+ */
+public class GmlGeometryReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GmlGeometryReader.class);
+
+    private static final String ERROR_PARSING_MSG = "Error parsing Geometry from GML.";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final int DEFAULT_DIMENSION = 2;
+
+    private final GeometryFactory geometryFactory;
+
+    public GmlGeometryReader() {
+        this(new GeometryFactory());
+    }
+
+    public GmlGeometryReader(GeometryFactory geometryFactory) {
+        this.geometryFactory = geometryFactory;
+    }
+
+    /**
+     * Reads the geometry held by the property element the reader is positioned on, e.g. the
+     * {@code gml:Point} inside a {@code location} element. The reader is left on the property
+     * element.
+     *
+     * @return the geometry, or null if the property is empty or does not hold a supported geometry
+     */
+    public Geometry readGeometryProperty(HierarchicalStreamReader reader) {
+        if (!reader.hasMoreChildren()) {
+            return null;
+        }
+        reader.moveDown();
+        try {
+            return readGeometry(reader);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn(ERROR_PARSING_MSG, e);
+            return null;
+        } finally {
+            reader.moveUp();
+        }
+    }
+
+    /**
+     * Reads the GML geometry element the reader is positioned on.
+     *
+     * @throws IllegalArgumentException
+     *             if the geometry is not supported or its coordinates can not be parsed
+     */
+    public Geometry readGeometry(HierarchicalStreamReader reader) {
+        return readGeometry(reader, DEFAULT_DIMENSION);
+    }
+
+    /**
+     * Reads the envelope held by the element the reader is positioned on. This is either a
+     * {@code gml:Box} or {@code gml:Envelope} itself, or a property such as {@code gml:boundedBy}
+     * holding one.
+     *
+     * @return the envelope, or null if there is none or it can not be parsed
+     */
+    public Envelope readEnvelope(HierarchicalStreamReader reader) {
+        try {
+            if (isEnvelope(reader)) {
+                return readEnvelope(reader, DEFAULT_DIMENSION);
+            }
+            if (!reader.hasMoreChildren()) {
+                return null;
+            }
+            reader.moveDown();
+            try {
+                return isEnvelope(reader) ? readEnvelope(reader, DEFAULT_DIMENSION) : null;
+            } finally {
+                reader.moveUp();
+            }
+        } catch (IllegalArgumentException e) {
+            LOGGER.warn(ERROR_PARSING_MSG, e);
+            return null;
+        }
+    }
+
+    private boolean isEnvelope(HierarchicalStreamReader reader) {
+        String name = getLocalName(reader);
+        return "Box".equals(name) || "Envelope".equals(name);
+    }
+
+    private Geometry readGeometry(HierarchicalStreamReader reader, int parentDimension) {
+        int dimension = getDimension(reader, parentDimension);
+        String name = getLocalName(reader);
+        switch (name) {
+        case "Point":
+            return readPoint(reader, dimension);
+        case "LineString":
+            return geometryFactory.createLineString(readCoordinates(reader, dimension));
+        case "LinearRing":
+            return readLinearRing(reader, dimension);
+        case "Polygon":
+            return readPolygon(reader, dimension);
+        case "Curve":
+            return readCurve(reader, dimension);
+        case "Surface":
+            return readSurface(reader, dimension);
+        case "Box":
+        case "Envelope":
+            return geometryFactory.toGeometry(readEnvelope(reader, dimension));
+        case "MultiPoint":
+            return geometryFactory.createMultiPoint(readMembers(reader, dimension, Point.class)
+                    .toArray(new Point[0]));
+        case "MultiLineString":
+        case "MultiCurve":
+            return geometryFactory.createMultiLineString(readMembers(reader, dimension,
+                    LineString.class).toArray(new LineString[0]));
+        case "MultiPolygon":
+        case "MultiSurface":
+            return geometryFactory.createMultiPolygon(readMembers(reader, dimension,
+                    Polygon.class).toArray(new Polygon[0]));
+        case "MultiGeometry":
+        case "GeometryCollection":
+            return geometryFactory.createGeometryCollection(readMembers(reader, dimension,
+                    Geometry.class).toArray(new Geometry[0]));
+        default:
+            throw new IllegalArgumentException("Unsupported GML geometry: " + name);
+        }
+    }
+
+    private Point readPoint(HierarchicalStreamReader reader, int dimension) {
+        Coordinate[] coordinates = readCoordinates(reader, dimension);
+        if (coordinates.length > 1) {
+            throw new IllegalArgumentException("Point has more than one coordinate.");
+        }
+        return geometryFactory.createPoint(coordinates.length == 0 ? null : coordinates[0]);
+    }
+
+    private LinearRing readLinearRing(HierarchicalStreamReader reader, int dimension) {
+        if (!"LinearRing".equals(getLocalName(reader))) {
+            throw new IllegalArgumentException("Unsupported GML ring: " + getLocalName(reader));
+        }
+        return geometryFactory.createLinearRing(readCoordinates(reader, getDimension(reader,
+                dimension)));
+    }
+
+    private Polygon readPolygon(HierarchicalStreamReader reader, int dimension) {
+        LinearRing shell = null;
+        List<LinearRing> holes = new ArrayList<LinearRing>();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                String name = getLocalName(reader);
+                boolean exterior = "outerBoundaryIs".equals(name) || "exterior".equals(name);
+                boolean interior = "innerBoundaryIs".equals(name) || "interior".equals(name);
+                if ((exterior || interior) && reader.hasMoreChildren()) {
+                    reader.moveDown();
+                    try {
+                        LinearRing ring = readLinearRing(reader, dimension);
+                        if (exterior) {
+                            shell = ring;
+                        } else {
+                            holes.add(ring);
+                        }
+                    } finally {
+                        reader.moveUp();
+                    }
+                }
+            } finally {
+                reader.moveUp();
+            }
+        }
+        return geometryFactory.createPolygon(shell, holes.toArray(new LinearRing[0]));
+    }
+
+    /**
+     * Reads a {@code gml:Curve} as a single line string joining its segments. Only line string
+     * segments are supported, since arcs and splines can not be represented exactly.
+     */
+    private LineString readCurve(HierarchicalStreamReader reader, int dimension) {
+        List<Coordinate> coordinates = new ArrayList<Coordinate>();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                if ("segments".equals(getLocalName(reader))) {
+                    while (reader.hasMoreChildren()) {
+                        reader.moveDown();
+                        try {
+                            String name = getLocalName(reader);
+                            if (!"LineStringSegment".equals(name)) {
+                                throw new IllegalArgumentException(
+                                        "Unsupported GML curve segment: " + name);
+                            }
+                            Coordinate[] segment = readCoordinates(reader, getDimension(reader,
+                                    dimension));
+                            for (int i = 0; i < segment.length; i++) {
+                                // Each segment starts where the previous one ended
+                                if (i > 0 || coordinates.isEmpty()
+                                        || !segment[i].equals2D(coordinates
+                                                .get(coordinates.size() - 1))) {
+                                    coordinates.add(segment[i]);
+                                }
+                            }
+                        } finally {
+                            reader.moveUp();
+                        }
+                    }
+                }
+            } finally {
+                reader.moveUp();
+            }
+        }
+        return geometryFactory.createLineString(coordinates.toArray(new Coordinate[0]));
+    }
+
+    /**
+     * Reads a {@code gml:Surface} of polygon patches, as a polygon if it has a single patch and a
+     * multi polygon otherwise.
+     */
+    private Geometry readSurface(HierarchicalStreamReader reader, int dimension) {
+        List<Polygon> patches = new ArrayList<Polygon>();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                if ("patches".equals(getLocalName(reader))) {
+                    while (reader.hasMoreChildren()) {
+                        reader.moveDown();
+                        try {
+                            String name = getLocalName(reader);
+                            if (!"PolygonPatch".equals(name)) {
+                                throw new IllegalArgumentException(
+                                        "Unsupported GML surface patch: " + name);
+                            }
+                            patches.add(readPolygon(reader, getDimension(reader, dimension)));
+                        } finally {
+                            reader.moveUp();
+                        }
+                    }
+                }
+            } finally {
+                reader.moveUp();
+            }
+        }
+        if (patches.size() == 1) {
+            return patches.get(0);
+        }
+        return geometryFactory.createMultiPolygon(patches.toArray(new Polygon[0]));
+    }
+
+    /**
+     * Reads the members of a multi geometry, in either a member element per geometry (e.g.
+     * {@code pointMember}) or a single members element (e.g. {@code pointMembers}).
+     */
+    private <T extends Geometry> List<T> readMembers(HierarchicalStreamReader reader,
+            int dimension, Class<T> memberType) {
+        List<T> members = new ArrayList<T>();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                String name = getLocalName(reader);
+                if (name.endsWith("Member") || name.endsWith("Members")) {
+                    while (reader.hasMoreChildren()) {
+                        reader.moveDown();
+                        try {
+                            Geometry member = readGeometry(reader, dimension);
+                            if (!memberType.isInstance(member)) {
+                                throw new IllegalArgumentException("Unexpected "
+                                        + member.getGeometryType() + " member in "
+                                        + memberType.getSimpleName() + " collection.");
+                            }
+                            members.add(memberType.cast(member));
+                        } finally {
+                            reader.moveUp();
+                        }
+                    }
+                }
+            } finally {
+                reader.moveUp();
+            }
+        }
+        return members;
+    }
+
+    private Envelope readEnvelope(HierarchicalStreamReader reader, int dimension) {
+        Coordinate[] corners = readCoordinates(reader, getDimension(reader, dimension));
+        if (corners.length == 0) {
+            throw new IllegalArgumentException("Envelope has no corners.");
+        }
+        Envelope envelope = new Envelope(corners[0]);
+        for (Coordinate corner : corners) {
+            envelope.expandToInclude(corner);
+        }
+        return envelope;
+    }
+
+    /**
+     * Reads the coordinates of the children of the current element, which may be encoded as
+     * {@code coordinates}, {@code coord}, {@code pos}, {@code posList}, {@code lowerCorner} and
+     * {@code upperCorner} or {@code pointProperty} elements.
+     */
+    private Coordinate[] readCoordinates(HierarchicalStreamReader reader, int dimension) {
+        List<Coordinate> coordinates = new ArrayList<Coordinate>();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                String name = getLocalName(reader);
+                if ("coordinates".equals(name)) {
+                    readCoordinatesText(reader, coordinates);
+                } else if ("coord".equals(name)) {
+                    coordinates.add(readCoord(reader));
+                } else if ("pos".equals(name) || "lowerCorner".equals(name)
+                        || "upperCorner".equals(name)) {
+                    double[] ordinates = parseOrdinates(reader.getValue());
+                    if (ordinates.length > 0) {
+                        coordinates.add(createCoordinate(ordinates, 0, ordinates.length));
+                    }
+                } else if ("posList".equals(name)) {
+                    readPosList(reader, getDimension(reader, dimension), coordinates);
+                } else if (("pointProperty".equals(name) || "pointRep".equals(name))
+                        && reader.hasMoreChildren()) {
+                    reader.moveDown();
+                    try {
+                        Point point = readPoint(reader, getDimension(reader, dimension));
+                        if (!point.isEmpty()) {
+                            coordinates.add(point.getCoordinate());
+                        }
+                    } finally {
+                        reader.moveUp();
+                    }
+                }
+            } finally {
+                reader.moveUp();
+            }
+        }
+        return coordinates.toArray(new Coordinate[coordinates.size()]);
+    }
+
+    private void readCoordinatesText(HierarchicalStreamReader reader,
+            List<Coordinate> coordinates) {
+        String text = StringUtils.trimToEmpty(reader.getValue());
+        if (text.isEmpty()) {
+            return;
+        }
+        String decimal = StringUtils.defaultIfEmpty(reader.getAttribute("decimal"), ".");
+        String cs = StringUtils.defaultIfEmpty(reader.getAttribute("cs"), ",");
+        String ts = StringUtils.defaultIfEmpty(reader.getAttribute("ts"), " ");
+
+        if (!StringUtils.isWhitespace(cs)) {
+            // Tolerate whitespace around the coordinate separator, e.g. "1, 2 3, 4"
+            text = text.replaceAll("\\s*" + Pattern.quote(cs) + "\\s*", cs);
+        }
+        String[] tuples = StringUtils.isWhitespace(ts) ? WHITESPACE.split(text) : text
+                .split(Pattern.quote(ts));
+        for (String tuple : tuples) {
+            String trimmed = tuple.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            String[] values = StringUtils.isWhitespace(cs) ? WHITESPACE.split(trimmed) : trimmed
+                    .split(Pattern.quote(cs));
+            double[] ordinates = new double[values.length];
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i].trim();
+                if (!".".equals(decimal)) {
+                    value = value.replace(decimal, ".");
+                }
+                ordinates[i] = parseDouble(value);
+            }
+            coordinates.add(createCoordinate(ordinates, 0, ordinates.length));
+        }
+    }
+
+    private Coordinate readCoord(HierarchicalStreamReader reader) {
+        double x = Double.NaN;
+        double y = Double.NaN;
+        double z = Coordinate.NULL_ORDINATE;
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                String name = getLocalName(reader);
+                if ("X".equals(name)) {
+                    x = parseDouble(reader.getValue());
+                } else if ("Y".equals(name)) {
+                    y = parseDouble(reader.getValue());
+                } else if ("Z".equals(name)) {
+                    z = parseDouble(reader.getValue());
+                }
+            } finally {
+                reader.moveUp();
+            }
+        }
+        return new Coordinate(x, y, z);
+    }
+
+    private void readPosList(HierarchicalStreamReader reader, int dimension,
+            List<Coordinate> coordinates) {
+        double[] ordinates = parseOrdinates(reader.getValue());
+        if (ordinates.length % dimension != 0) {
+            throw new IllegalArgumentException("posList has " + ordinates.length
+                    + " values, which is not a multiple of its dimension " + dimension + ".");
+        }
+        for (int i = 0; i < ordinates.length; i += dimension) {
+            coordinates.add(createCoordinate(ordinates, i, dimension));
+        }
+    }
+
+    private double[] parseOrdinates(String text) {
+        String trimmed = StringUtils.trimToEmpty(text);
+        if (trimmed.isEmpty()) {
+            return new double[0];
+        }
+        String[] values = WHITESPACE.split(trimmed);
+        double[] ordinates = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ordinates[i] = parseDouble(values[i]);
+        }
+        return ordinates;
+    }
+
+    private Coordinate createCoordinate(double[] ordinates, int offset, int dimension) {
+        if (dimension < 2) {
+            throw new IllegalArgumentException("Coordinate has fewer than 2 values.");
+        }
+        return new Coordinate(ordinates[offset], ordinates[offset + 1],
+                (dimension > 2) ? ordinates[offset + 2] : Coordinate.NULL_ORDINATE);
+    }
+
+    private double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid coordinate value: " + value, e);
+        }
+    }
+
+    private int getDimension(HierarchicalStreamReader reader, int parentDimension) {
+        String dimension = reader.getAttribute("srsDimension");
+        if (dimension == null) {
+            dimension = reader.getAttribute("dimension");
+        }
+        if (StringUtils.isBlank(dimension)) {
+            return parentDimension;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(dimension.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid srsDimension: " + dimension, e);
+        }
+        if (value < DEFAULT_DIMENSION) {
+            throw new IllegalArgumentException("Invalid srsDimension: " + dimension);
+        }
+        return value;
+    }
+
+    private String getLocalName(HierarchicalStreamReader reader) {
+        String name = reader.getNodeName();
+        int colon = name.indexOf(':');
+        return (colon >= 0) ? name.substring(colon + 1) : name;
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.transport.http.AbstractHTTPDestination;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestBoundedAdmissionController {
+
+    private static final String GET_RECORDS = "GetRecords";
+
+    private BoundedAdmissionController controller;
+
+    @Before
+    public void setUp() {
+        controller = new BoundedAdmissionController();
+        Map<String, Integer> budgets = new HashMap<String, Integer>();
+        budgets.put(GET_RECORDS, 100);
+        controller.setOperationBudgets(budgets);
+        controller.setMaxWaitMillis(0);
+        controller.setMaxRequestsPerClient(2);
+    }
+
+    @Test
+    public void testUnlimitedOperationIsAlwaysAdmitted() throws Exception {
+        controller.admit(GET_RECORDS, "client", 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(controller.admit("GetCapabilities", "client", 1), notNullValue());
+        }
+    }
+
+    @Test
+    public void testRejectedOverBudget() throws Exception {
+        AdmissionController.Permit permit = controller.admit(GET_RECORDS, "a", 60);
+        assertRejected(GET_RECORDS, "b", 60);
+
+        permit.release();
+        assertThat(controller.admit(GET_RECORDS, "b", 60), notNullValue());
+    }
+
+    @Test
+    public void testCostIsLimitedToBudget() throws Exception {
+        AdmissionController.Permit permit = controller.admit(GET_RECORDS, "a", 1000);
+        assertRejected(GET_RECORDS, "b", 0);
+
+        permit.release();
+        permit.release();
+        controller.admit(GET_RECORDS, "b", 100);
+        assertRejected(GET_RECORDS, "c", 1);
+    }
+
+    @Test
+    public void testRejectedOverClientLimit() throws Exception {
+        controller.admit(GET_RECORDS, "a", 1);
+        AdmissionController.Permit permit = controller.admit(GET_RECORDS, "a", 1);
+        assertRejected(GET_RECORDS, "a", 1);
+
+        assertThat(controller.admit(GET_RECORDS, "b", 1), notNullValue());
+        permit.release();
+        assertThat(controller.admit(GET_RECORDS, "a", 1), notNullValue());
+    }
+
+    @Test
+    public void testUnknownClientIsNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            controller.admit(GET_RECORDS, null, 1);
+        }
+    }
+
+    @Test
+    public void testRejectedClientDoesNotHoldItsSlot() throws Exception {
+        AdmissionController.Permit permit = controller.admit(GET_RECORDS, "a", 100);
+        assertRejected(GET_RECORDS, "b", 1);
+        assertRejected(GET_RECORDS, "b", 1);
+
+        permit.release();
+        controller.admit(GET_RECORDS, "b", 1);
+        controller.admit(GET_RECORDS, "b", 1);
+    }
+
+    @Test
+    public void testWaitsForBudget() throws Exception {
+        controller.setMaxWaitMillis(5000);
+        final AdmissionController.Permit permit = controller.admit(GET_RECORDS, "a", 100);
+
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                permit.release();
+            }
+        });
+        releaser.start();
+
+        assertThat(controller.admit(GET_RECORDS, "b", 50), notNullValue());
+        releaser.join();
+    }
+
+    @Test
+    public void testInterruptedWhileWaiting() throws Exception {
+        controller.setMaxWaitMillis(5000);
+        controller.admit(GET_RECORDS, "a", 100);
+
+        Thread.currentThread().interrupt();
+        try {
+            assertRejected(GET_RECORDS, "b", 1);
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testDisabledAdmitsEverything() throws Exception {
+        controller.setEnabled(false);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(controller.admit(GET_RECORDS, "a", 100), notNullValue());
+        }
+    }
+
+    @Test
+    public void testBudgetsFromConfiguration() throws Exception {
+        controller.setBudgets(new String[] {"GetRecords = 10", "Transaction=", "=5",
+            "GetRecordById=x"});
+
+        AdmissionController.Permit permit = controller.admit(GET_RECORDS, "a", 10);
+        assertRejected(GET_RECORDS, "b", 1);
+        permit.release();
+
+        for (int i = 0; i < 5; i++) {
+            controller.admit("GetRecordById", null, 1000);
+            controller.admit("Transaction", null, 1000);
+        }
+    }
+
+    @Test
+    public void testClientIncludesRemoteAddress() {
+        ServletRequest request = mock(ServletRequest.class);
+        when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+        Message message = new MessageImpl();
+        message.put(AbstractHTTPDestination.HTTP_REQUEST, request);
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(new PhaseManagerImpl()
+                .getInPhases());
+
+        assertThat(BoundedAdmissionController.getCurrentClient(), nullValue());
+        PhaseInterceptorChain.setCurrentMessage(chain, message);
+        try {
+            assertThat(BoundedAdmissionController.getCurrentClient(),
+                    is(SubjectKeys.ANONYMOUS + "@10.0.0.1"));
+        } finally {
+            PhaseInterceptorChain.setCurrentMessage(chain, null);
+        }
+    }
+
+    private void assertRejected(String operation, String client, int cost) {
+        try {
+            controller.admit(operation, client, cost);
+            fail("Request should not have been admitted");
+        } catch (AdmissionException e) {
+            assertThat(e.getMessage().contains(operation), is(true));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class TestCapabilitiesCache {
+
+    private static class CountingBuilder implements CapabilitiesCache.Builder<StringBuilder> {
+        private int count = 0;
+
+        @Override
+        public StringBuilder build() {
+            count++;
+            return new StringBuilder("capabilities");
+        }
+    }
+
+    @Test
+    public void testDocumentIsBuiltOnce() {
+        CapabilitiesCache cache = new CapabilitiesCache();
+        CountingBuilder builder = new CountingBuilder();
+
+        CachedCapabilities<StringBuilder> first = cache.get("key", builder);
+        CachedCapabilities<StringBuilder> second = cache.get("key", builder);
+
+        assertThat(builder.count, is(1));
+        assertThat(second, sameInstance(first));
+        assertThat((Object) cache.getCached(first.getDocument()), sameInstance((Object) first));
+        assertThat(cache.isCachedType(StringBuilder.class), is(true));
+    }
+
+    @Test
+    public void testKeysAreCachedSeparately() {
+        CapabilitiesCache cache = new CapabilitiesCache();
+        CountingBuilder builder = new CountingBuilder();
+
+        CachedCapabilities<StringBuilder> first = cache.get("key1", builder);
+        CachedCapabilities<StringBuilder> second = cache.get("key2", builder);
+
+        assertThat(builder.count, is(2));
+        assertThat(second.getEntityTag(), not(first.getEntityTag()));
+    }
+
+    @Test
+    public void testInvalidate() {
+        CapabilitiesCache cache = new CapabilitiesCache();
+        CountingBuilder builder = new CountingBuilder();
+
+        CachedCapabilities<StringBuilder> first = cache.get("key", builder);
+        cache.bind(new Object());
+        CachedCapabilities<StringBuilder> second = cache.get("key", builder);
+
+        assertThat(builder.count, is(2));
+        assertThat(second.getEntityTag(), not(first.getEntityTag()));
+        assertThat((Object) cache.getCached(first.getDocument()), nullValue());
+    }
+
+    @Test
+    public void testMaxEntries() {
+        CapabilitiesCache cache = new CapabilitiesCache(2);
+        CountingBuilder builder = new CountingBuilder();
+
+        cache.get("key1", builder);
+        cache.get("key2", builder);
+        cache.get("key3", builder);
+        cache.get("key1", builder);
+
+        assertThat(builder.count, is(4));
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.cxf.bus.managers.PhaseManagerImpl;
+import org.apache.cxf.interceptor.Interceptor;
+import org.apache.cxf.interceptor.MessageSenderInterceptor;
+import org.apache.cxf.jaxrs.servlet.CXFNonSpringJaxrsServlet;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.Test;
+
+public class TestCompressionOutInterceptor {
+
+    private static final String LARGE_BODY = StringUtils.repeat("<csw:Record/>", 1000);
+
+    @Test
+    public void testSelectEncoding() {
+        assertThat(CompressionOutInterceptor.selectEncoding("gzip, deflate"), is("gzip"));
+        assertThat(CompressionOutInterceptor.selectEncoding("deflate"), is("deflate"));
+        assertThat(CompressionOutInterceptor.selectEncoding("gzip;q=0.5, deflate"),
+                is("deflate"));
+        assertThat(CompressionOutInterceptor.selectEncoding("gzip;q=0"), nullValue());
+        assertThat(CompressionOutInterceptor.selectEncoding("identity"), nullValue());
+        assertThat(CompressionOutInterceptor.selectEncoding(null), nullValue());
+    }
+
+    @Test
+    public void testLargeResponseIsGzipped() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        Message message = createMessage("gzip", wire);
+
+        write(message, LARGE_BODY);
+
+        assertThat(getHeaders(message).get("Content-Encoding"),
+                is(Collections.singletonList("gzip")));
+        assertThat(getHeaders(message).containsKey("Content-Length"), is(false));
+        assertThat(IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(wire
+                .toByteArray())), "UTF-8"), is(LARGE_BODY));
+    }
+
+    @Test
+    public void testLargeResponseIsDeflated() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        CompressionOutInterceptor interceptor = new CompressionOutInterceptor();
+        interceptor.setLevel(1);
+        Message message = createMessage("deflate", wire);
+
+        interceptor.handleMessage(message);
+        OutputStream os = message.getContent(OutputStream.class);
+        os.write(LARGE_BODY.getBytes("UTF-8"));
+        os.close();
+
+        assertThat(getHeaders(message).get("Content-Encoding"),
+                is(Collections.singletonList("deflate")));
+        assertThat(IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(wire
+                .toByteArray())), "UTF-8"), is(LARGE_BODY));
+    }
+
+    @Test
+    public void testSmallResponseIsNotCompressed() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        Message message = createMessage("gzip", wire);
+
+        write(message, "<small/>");
+
+        assertThat(getHeaders(message).containsKey("Content-Encoding"), is(false));
+        assertThat(getHeaders(message).get("Vary"),
+                is(Collections.singletonList("Accept-Encoding")));
+        assertThat(wire.toString("UTF-8"), is("<small/>"));
+    }
+
+    @Test
+    public void testNotCompressedWithoutAcceptEncoding() throws Exception {
+        ByteArrayOutputStream wire = new ByteArrayOutputStream();
+        Message message = createMessage(null, wire);
+
+        write(message, LARGE_BODY);
+
+        assertThat(getHeaders(message).containsKey("Content-Encoding"), is(false));
+        assertThat(wire.toString("UTF-8"), is(LARGE_BODY));
+    }
+
+    private void write(Message message, String body) throws Exception {
+        new CompressionOutInterceptor().handleMessage(message);
+        OutputStream os = message.getContent(OutputStream.class);
+        // Write in pieces so the threshold is crossed part way through the body
+        byte[] bytes = body.getBytes("UTF-8");
+        int half = bytes.length / 2;
+        os.write(bytes, 0, half);
+        os.flush();
+        os.write(bytes, half, bytes.length - half);
+        os.close();
+    }
+
+    @Test
+    public void testRunsAfterMessageSenderInterceptor() {
+        PhaseInterceptorChain chain = new PhaseInterceptorChain(new PhaseManagerImpl()
+                .getOutPhases());
+        chain.add(new CompressionOutInterceptor());
+        chain.add(new MessageSenderInterceptor());
+
+        Iterator<Interceptor<? extends Message>> iterator = chain.iterator();
+        assertThat(iterator.next() instanceof MessageSenderInterceptor, is(true));
+        assertThat(iterator.next() instanceof CompressionOutInterceptor, is(true));
+    }
+
+    @Test
+    public void testResponseIsCompressedByServerChain() throws Exception {
+        ServletHolder holder = new ServletHolder(new CXFNonSpringJaxrsServlet());
+        holder.setInitParameter("jaxrs.serviceClasses", LargeResource.class.getName());
+        holder.setInitParameter("jaxrs.outInterceptors",
+                CompressionOutInterceptor.class.getName());
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/");
+        context.addServlet(holder, "/*");
+
+        Server server = new Server(0);
+        server.setHandler(context);
+        server.start();
+        try {
+            URL url = new URL("http://localhost:" + server.getConnectors()[0].getLocalPort()
+                    + "/large");
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+
+            assertThat(connection.getResponseCode(), is(200));
+            assertThat(connection.getHeaderField("Content-Encoding"), is("gzip"));
+            assertThat(IOUtils.toString(new GZIPInputStream(connection.getInputStream()),
+                    "UTF-8"), is(LARGE_BODY));
+            connection.disconnect();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private Message createMessage(String acceptEncoding, OutputStream wire) {
+        Message inMessage = new MessageImpl();
+        Map<String, List<String>> requestHeaders = new TreeMap<String, List<String>>(
+                String.CASE_INSENSITIVE_ORDER);
+        if (acceptEncoding != null) {
+            requestHeaders.put("Accept-Encoding", Arrays.asList(acceptEncoding));
+        }
+        inMessage.put(Message.PROTOCOL_HEADERS, requestHeaders);
+
+        Message outMessage = new MessageImpl();
+        Map<String, List<String>> responseHeaders = new TreeMap<String, List<String>>(
+                String.CASE_INSENSITIVE_ORDER);
+        responseHeaders.put("Content-Length", Arrays.asList(String.valueOf(LARGE_BODY.length())));
+        outMessage.put(Message.PROTOCOL_HEADERS, responseHeaders);
+        outMessage.setContent(OutputStream.class, wire);
+
+        Exchange exchange = new ExchangeImpl();
+        exchange.setInMessage(inMessage);
+        exchange.setOutMessage(outMessage);
+        return outMessage;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<String>> getHeaders(Message message) {
+        return (Map<String, List<String>>) message.get(Message.PROTOCOL_HEADERS);
+    }
+
+    @Path("/large")
+    public static class LargeResource {
+
+        @GET
+        @Produces("text/xml")
+        public String get() {
+            return LARGE_BODY;
+        }
+    }
+}
@@ -18,8 +18,13 @@
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -176,6 +181,49 @@ public void testCompareUnknownOperationToUnMatchedOperation() {
         assertEquals(-1, comparator.compare(unknownOperation, getCapabilities, mockMessage));
     }
 
+    @Test
+    public void testComparePostUsesRootElement() throws Exception {
+        String payload = "<?xml version=\"1.0\"?>\n<!-- comment -->\n"
+                + "<DescribeFeatureType service=\"WFS\" version=\"1.0.0\"><TypeName>a</TypeName>"
+                + "</DescribeFeatureType>";
+        Message message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, EndpointOperationInfoResourceComparator.HTTP_POST);
+        message.setContent(InputStream.class, new ByteArrayInputStream(payload.getBytes("UTF-8")));
+        EndpointOperationInfoResourceComparator comparator = new EndpointOperationInfoResourceComparator(
+                "WFS");
+
+        assertEquals(1, comparator.compare(getCapabilities, describeFeatureType, message));
+        assertEquals(-1, comparator.compare(describeFeatureType, unknownService, message));
+        assertEquals(payload, IOUtils.toString(message.getContent(InputStream.class), "UTF-8"));
+    }
+
+    @Test
+    public void testComparePostWithUnexpectedService() throws Exception {
+        String payload = "<GetCapabilities service=\"CSW\"/>";
+        Message message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, EndpointOperationInfoResourceComparator.HTTP_POST);
+        message.setContent(InputStream.class, new ByteArrayInputStream(payload.getBytes("UTF-8")));
+        EndpointOperationInfoResourceComparator comparator = new EndpointOperationInfoResourceComparator(
+                "WFS");
+
+        assertEquals(-1, comparator.compare(unknownService, getCapabilities, message));
+        assertEquals(payload, IOUtils.toString(message.getContent(InputStream.class), "UTF-8"));
+    }
+
+    @Test
+    public void testCompareGetIsParsedOnce() {
+        Message message = new MessageImpl();
+        message.put(Message.HTTP_REQUEST_METHOD, EndpointOperationInfoResourceComparator.HTTP_GET);
+        message.put(Message.QUERY_STRING, EndpointOperationInfoResourceComparator.REQUEST_PARAM
+                + "=" + GET_CAPABILITIES);
+        EndpointOperationInfoResourceComparator comparator = new EndpointOperationInfoResourceComparator();
+        assertEquals(-1, comparator.compare(getCapabilities, describeFeatureType, message));
+
+        message.put(Message.QUERY_STRING, EndpointOperationInfoResourceComparator.REQUEST_PARAM
+                + "=" + DESCRIBE_FEATURES);
+        assertEquals(-1, comparator.compare(getCapabilities, describeFeatureType, message));
+    }
+
     // Allows us to create a "mockMethod" with the name of the method
     public void getCapabilities() {
     }
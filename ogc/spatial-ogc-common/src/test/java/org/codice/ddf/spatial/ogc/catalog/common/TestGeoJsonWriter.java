@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.BasicTypes;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class TestGeoJsonWriter {
+
+    @Test
+    public void testFeatureCollection() throws Exception {
+        String json = write(Arrays.<Metacard> asList(createMetacard("1", "POINT (10 20)"),
+                createMetacard("2", "POLYGON ((0 0, 1 0, 1 1, 0 0))")), 7L);
+
+        assertThat(json, containsString("{\"type\":\"FeatureCollection\",\"numberMatched\":7,"
+                + "\"features\":[{\"type\":\"Feature\",\"id\":\"1\","
+                + "\"geometry\":{\"type\":\"Point\",\"coordinates\":[10.0,20.0]}"));
+        assertThat(json, containsString("\"geometry\":{\"type\":\"Polygon\",\"coordinates\":"
+                + "[[[0.0,0.0],[1.0,0.0],[1.0,1.0],[0.0,0.0]]]}"));
+        assertThat(json, containsString("\"metacard-type\":\"" + BasicTypes.BASIC_METACARD
+                .getName() + "\""));
+        assertThat(json, containsString("\"created\":\"1970-01-01T00:00:00"));
+        assertThat(json, containsString("],\"numberReturned\":2}"));
+    }
+
+    @Test
+    public void testXmlAttributesAreNotWritten() throws Exception {
+        MetacardImpl metacard = createMetacard("1", null);
+        metacard.setMetadata("<metadata/>");
+
+        String json = write(Collections.<Metacard> singletonList(metacard), null);
+
+        assertThat(json, containsString("\"geometry\":null"));
+        assertThat(json, not(containsString("metadata")));
+        assertThat(json, not(containsString("numberMatched")));
+    }
+
+    @Test
+    public void testStringsAreEscaped() throws Exception {
+        MetacardImpl metacard = createMetacard("1", null);
+        metacard.setTitle("\"quoted\"\\\n\u0001");
+
+        String json = write(Collections.<Metacard> singletonList(metacard), null);
+
+        assertThat(json, containsString("\"title\":\"\\\"quoted\\\"\\\\\\n\\u0001\""));
+    }
+
+    @Test
+    public void testMultiGeometries() throws Exception {
+        String json = write(Arrays.<Metacard> asList(
+                createMetacard("1", "MULTIPOINT ((1 2), (3 4))"),
+                createMetacard("2", "GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))")),
+                null);
+
+        assertThat(json, containsString("{\"type\":\"MultiPoint\",\"coordinates\":"
+                + "[[1.0,2.0],[3.0,4.0]]}"));
+        assertThat(json, containsString("{\"type\":\"GeometryCollection\",\"geometries\":["
+                + "{\"type\":\"Point\",\"coordinates\":[1.0,2.0]},"
+                + "{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[1.0,1.0]]}]}"));
+    }
+
+    @Test
+    public void testInputStreamMatchesWriter() throws Exception {
+        List<Metacard> metacards = Arrays.<Metacard> asList(createMetacard("1", "POINT (1 2)"),
+                createMetacard("2", "POINT (3 4)"));
+
+        String streamed = IOUtils.toString(new GeoJsonInputStream(metacards.iterator(), 2L),
+                "UTF-8");
+
+        assertThat(streamed, is(write(metacards, 2L)));
+    }
+
+    @Test
+    public void testIsGeoJsonFormat() {
+        assertThat(GeoJsonWriter.isGeoJsonFormat("application/geo+json"), is(true));
+        assertThat(GeoJsonWriter.isGeoJsonFormat("application/json; charset=UTF-8"), is(true));
+        assertThat(GeoJsonWriter.isGeoJsonFormat("GeoJSON"), is(true));
+        assertThat(GeoJsonWriter.isGeoJsonFormat("GML2"), is(false));
+        assertThat(GeoJsonWriter.isGeoJsonFormat(null), is(false));
+    }
+
+    private String write(List<Metacard> metacards, Long numberMatched) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        GeoJsonWriter writer = new GeoJsonWriter(os);
+        writer.startFeatureCollection(numberMatched);
+        for (Metacard metacard : metacards) {
+            writer.writeFeature(metacard);
+        }
+        writer.endFeatureCollection();
+        return os.toString("UTF-8");
+    }
+
+    private MetacardImpl createMetacard(String id, String wkt) {
+        MetacardImpl metacard = new MetacardImpl();
+        metacard.setId(id);
+        metacard.setTitle("Title " + id);
+        metacard.setCreatedDate(new Date(0));
+        if (wkt != null) {
+            metacard.setLocation(wkt);
+        }
+        return metacard;
+    }
+}
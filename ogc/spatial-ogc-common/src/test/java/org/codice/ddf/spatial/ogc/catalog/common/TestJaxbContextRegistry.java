@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import org.junit.Test;
+
+public class TestJaxbContextRegistry {
+
+    @XmlRootElement(name = "sample")
+    public static class Sample {
+        public String value;
+    }
+
+    @Test
+    public void testContextIsShared() throws Exception {
+        JAXBContext first = JaxbContextRegistry.getContext(Sample.class);
+        JAXBContext second = JaxbContextRegistry.getContext(Sample.class);
+
+        assertThat(second, sameInstance(first));
+    }
+
+    @Test
+    public void testContextIsKeyedByClassLoader() throws Exception {
+        String contextPath = Sample.class.getPackage().getName();
+        ClassLoader classLoader = Sample.class.getClassLoader();
+        ClassLoader otherClassLoader = new ClassLoader(classLoader) {
+        };
+
+        JAXBContext first = JaxbContextRegistry.getContext(contextPath, classLoader);
+
+        assertThat(JaxbContextRegistry.getContext(contextPath, classLoader), sameInstance(first));
+        assertThat(JaxbContextRegistry.getContext(contextPath, otherClassLoader),
+                not(sameInstance(first)));
+    }
+
+    @Test
+    public void testConcurrentGetsShareOneContext() throws Exception {
+        final String contextPath = Sample.class.getPackage().getName();
+        final ClassLoader classLoader = new ClassLoader(Sample.class.getClassLoader()) {
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<JAXBContext>> futures = new ArrayList<Future<JAXBContext>>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<JAXBContext>() {
+                    @Override
+                    public JAXBContext call() throws Exception {
+                        return JaxbContextRegistry.getContext(contextPath, classLoader);
+                    }
+                }));
+            }
+            JAXBContext first = futures.get(0).get();
+            for (Future<JAXBContext> future : futures) {
+                assertThat(future.get(), sameInstance(first));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testReleasedMarshallerIsReset() throws Exception {
+        JAXBContext context = JaxbContextRegistry.getContext(Sample.class);
+        JaxbContextRegistry.warm(context);
+
+        Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(context);
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+        JaxbContextRegistry.releaseMarshaller(context, marshaller);
+
+        Marshaller reused = JaxbContextRegistry.acquireMarshaller(context);
+        try {
+            assertThat((Boolean) reused.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT),
+                    is(Boolean.FALSE));
+            assertThat((Boolean) reused.getProperty(Marshaller.JAXB_FRAGMENT), is(Boolean.FALSE));
+        } finally {
+            JaxbContextRegistry.releaseMarshaller(context, reused);
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        JAXBContext context = JaxbContextRegistry.getContext(Sample.class);
+        Sample sample = new Sample();
+        sample.value = "test";
+
+        StringWriter writer = new StringWriter();
+        Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(context);
+        try {
+            marshaller.marshal(sample, writer);
+        } finally {
+            JaxbContextRegistry.releaseMarshaller(context, marshaller);
+        }
+        assertThat(writer.toString(), containsString("<value>test</value>"));
+
+        Unmarshaller unmarshaller = JaxbContextRegistry.acquireUnmarshaller(context);
+        Object result;
+        try {
+            result = unmarshaller.unmarshal(new StringReader(writer.toString()));
+        } finally {
+            JaxbContextRegistry.releaseUnmarshaller(context, unmarshaller);
+        }
+        assertThat(((Sample) result).value, is("test"));
+        assertThat(result, not(sameInstance((Object) sample)));
+    }
+}
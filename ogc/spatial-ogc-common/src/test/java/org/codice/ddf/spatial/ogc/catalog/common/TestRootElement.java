@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class TestRootElement {
+
+    @Test
+    public void testReadRootElement() throws Exception {
+        StringBuilder document = new StringBuilder(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n"
+                        + "<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs/2.0\" "
+                        + "numberMatched=\"12\" numberReturned=\"2\">");
+        for (int i = 0; i < 10000; i++) {
+            document.append("<wfs:member>").append(i).append("</wfs:member>");
+        }
+        document.append("</wfs:FeatureCollection>");
+
+        RootElement rootElement = new RootElement(toStream(document.toString()));
+
+        assertThat(rootElement.read(), is("FeatureCollection"));
+        assertThat(rootElement.getNamespaceUri(), is("http://www.opengis.net/wfs/2.0"));
+        assertThat(rootElement.getAttribute("numberMatched"), is("12"));
+        assertThat(rootElement.getAttribute("numberReturned"), is("2"));
+        assertThat(rootElement.getAttribute("missing"), nullValue());
+        assertThat(IOUtils.toString(rootElement.getInputStream(), "UTF-8"),
+                is(document.toString()));
+    }
+
+    @Test
+    public void testInvalidDocumentIsStillReadable() throws Exception {
+        String document = "not xml";
+        RootElement rootElement = new RootElement(toStream(document));
+        try {
+            rootElement.read();
+        } catch (XMLStreamException e) {
+            // expected
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        assertThat(rootElement.getLocalName(), nullValue());
+        assertThat(IOUtils.toString(rootElement.getInputStream(), "UTF-8"), is(document));
+    }
+
+    private InputStream toStream(String document) throws Exception {
+        return new ByteArrayInputStream(document.getBytes("UTF-8"));
+    }
+}
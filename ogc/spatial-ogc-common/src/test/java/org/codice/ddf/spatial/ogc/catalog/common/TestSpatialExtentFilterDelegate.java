@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Envelope;
+
+import ddf.catalog.data.Metacard;
+
+public class TestSpatialExtentFilterDelegate {
+
+    private static final String POLYGON = "POLYGON ((10 20, 30 20, 30 40, 10 40, 10 20))";
+
+    private final SpatialExtentFilterDelegate delegate = new SpatialExtentFilterDelegate();
+
+    @Test
+    public void testIntersects() {
+        assertThat(delegate.intersects(Metacard.ANY_GEO, POLYGON), is(new Envelope(10, 30, 20,
+                40)));
+    }
+
+    @Test
+    public void testNonSpatialFilterIsUnbounded() {
+        assertThat(SpatialExtentFilterDelegate.isUnbounded(delegate.propertyIsLike(
+                Metacard.ANY_TEXT, "literal", false)), is(true));
+        assertThat(SpatialExtentFilterDelegate.isUnbounded(delegate.disjoint(Metacard.ANY_GEO,
+                POLYGON)), is(true));
+    }
+
+    @Test
+    public void testAndIntersectsExtents() {
+        Envelope extent = delegate.and(Arrays.asList(delegate.intersects(Metacard.ANY_GEO,
+                POLYGON), delegate.intersects(Metacard.ANY_GEO, "POINT (20 30)"),
+                delegate.include()));
+
+        assertThat(extent, is(new Envelope(20, 20, 30, 30)));
+    }
+
+    @Test
+    public void testOrCombinesExtents() {
+        Envelope extent = delegate.or(Arrays.asList(delegate.intersects(Metacard.ANY_GEO,
+                POLYGON), delegate.intersects(Metacard.ANY_GEO, "POINT (-50 -60)")));
+
+        assertThat(extent, is(new Envelope(-50, 30, -60, 40)));
+        assertThat(SpatialExtentFilterDelegate.isUnbounded(delegate.or(Arrays.asList(
+                extent, delegate.include()))), is(true));
+    }
+
+    @Test
+    public void testDWithinIsExpandedByDistance() {
+        Envelope extent = delegate.dwithin(Metacard.ANY_GEO, "POINT (0 0)", 111320);
+
+        assertThat(extent.getMinX(), closeTo(-1, 0.01));
+        assertThat(extent.getMaxX(), closeTo(1, 0.01));
+        assertThat(extent.getMinY(), closeTo(-1, 0.0001));
+        assertThat(extent.getMaxY(), closeTo(1, 0.0001));
+    }
+
+    @Test
+    public void testDWithinAcrossAntimeridian() {
+        Envelope extent = delegate.dwithin(Metacard.ANY_GEO, "POINT (179.5 0)", 111320);
+
+        assertThat(extent.getMinX(), is(-180.0));
+        assertThat(extent.getMaxX(), is(180.0));
+    }
+}
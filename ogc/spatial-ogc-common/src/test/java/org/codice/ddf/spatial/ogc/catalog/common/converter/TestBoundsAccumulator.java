@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common.converter;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.MetacardImpl;
+
+public class TestBoundsAccumulator {
+
+    @Test
+    public void testMetacardBounds() {
+        assertThat(BoundsAccumulator.getBounds(Arrays.<Metacard> asList(
+                createMetacard("POINT (1 2)"), createMetacard(null),
+                createMetacard("POLYGON ((-10 -5, 0 -5, 0 0, -10 -5))"))),
+                is(new Envelope(-10, 1, -5, 2)));
+    }
+
+    @Test
+    public void testNoLocations() {
+        assertThat(BoundsAccumulator.getBounds(Collections.singletonList(createMetacard(null))),
+                nullValue());
+        assertThat(BoundsAccumulator.getBounds(null), nullValue());
+    }
+
+    @Test
+    public void testEmptyGeometryIsIgnored() {
+        BoundsAccumulator bounds = new BoundsAccumulator();
+        bounds.add(new GeometryFactory().createPoint((Coordinate) null));
+
+        assertThat(bounds.isEmpty(), is(true));
+
+        bounds.add(new Envelope(0, 1, 0, 1));
+        bounds.add(createMetacard("POINT (3 4)"));
+
+        assertThat(bounds.getBounds(), is(new Envelope(0, 3, 0, 4)));
+    }
+
+    private Metacard createMetacard(String wkt) {
+        MetacardImpl metacard = new MetacardImpl();
+        if (wkt != null) {
+            metacard.setLocation(wkt);
+        }
+        return metacard;
+    }
+}
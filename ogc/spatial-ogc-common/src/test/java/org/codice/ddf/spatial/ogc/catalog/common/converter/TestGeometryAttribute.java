@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common.converter;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.junit.Test;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.impl.AttributeImpl;
+
+public class TestGeometryAttribute {
+
+    @Test
+    public void testGeometryIsKept() {
+        Geometry point = new GeometryFactory().createPoint(new Coordinate(1, 2));
+
+        GeometryAttribute attribute = new GeometryAttribute(Metacard.GEOGRAPHY, point);
+
+        assertThat((String) attribute.getValue(), is("POINT (1 2)"));
+        assertThat(attribute.getGeometry(), sameInstance(point));
+    }
+
+    @Test
+    public void testWktIsParsedOnce() {
+        GeometryAttribute attribute = new GeometryAttribute(Metacard.GEOGRAPHY, "POINT (1 2)");
+
+        Geometry geometry = attribute.getGeometry();
+
+        assertThat(geometry.getCoordinate(), is(new Coordinate(1, 2)));
+        assertThat(GeometryAttribute.getGeometry(attribute), sameInstance(geometry));
+        assertThat(GeometryAttribute.getGeometry(attribute, attribute.getValue()),
+                sameInstance(geometry));
+    }
+
+    @Test
+    public void testInvalidWkt() {
+        assertThat(new GeometryAttribute(Metacard.GEOGRAPHY, "POINT (1").getGeometry(),
+                nullValue());
+    }
+
+    @Test
+    public void testPlainAttribute() {
+        Attribute attribute = new AttributeImpl(Metacard.GEOGRAPHY, "POINT (1 2)");
+
+        assertThat(GeometryAttribute.getGeometry(attribute).getCoordinate(), is(new Coordinate(
+                1, 2)));
+        assertThat(GeometryAttribute.getGeometry(null), nullValue());
+    }
+
+    @Test
+    public void testWrap() {
+        Attribute wrapped = GeometryAttribute.wrap(new AttributeImpl(Metacard.GEOGRAPHY,
+                "POINT (1 2)"));
+
+        assertThat(wrapped, instanceOf(GeometryAttribute.class));
+        assertThat(wrapped.getName(), is(Metacard.GEOGRAPHY));
+        assertThat(GeometryAttribute.wrap(wrapped), sameInstance(wrapped));
+
+        AttributeImpl multiValued = new AttributeImpl("geometries", "POINT (1 2)");
+        multiValued.addValue("POINT (3 4)");
+        assertThat(GeometryAttribute.wrap(multiValued), sameInstance(multiValued));
+        assertThat(GeometryAttribute.getGeometry(multiValued, "POINT (3 4)").getCoordinate(),
+                is(new Coordinate(3, 4)));
+    }
+
+    @Test
+    public void testSerializedAttributeIsParsedAgain() {
+        Geometry point = new GeometryFactory().createPoint(new Coordinate(1, 2));
+        GeometryAttribute attribute = new GeometryAttribute(Metacard.GEOGRAPHY, point);
+
+        GeometryAttribute copy = (GeometryAttribute) SerializationUtils.clone(attribute);
+
+        assertThat(copy.getGeometry(), not(sameInstance(point)));
+        assertThat(copy.getGeometry().equalsExact(point), is(true));
+    }
+}
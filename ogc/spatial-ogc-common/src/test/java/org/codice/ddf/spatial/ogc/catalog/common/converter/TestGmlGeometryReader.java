@@ -0,0 +1,215 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.catalog.common.converter;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKTWriter;
+
+public class TestGmlGeometryReader {
+
+    private static final String GML_2 = "xmlns:gml=\"http://www.opengis.net/gml\"";
+
+    private static final String GML_3_2 = "xmlns:gml=\"http://www.opengis.net/gml/3.2\"";
+
+    private final GmlGeometryReader gmlGeometryReader = new GmlGeometryReader();
+
+    @Test
+    public void testGml2Point() {
+        assertThat(read("<gml:Point " + GML_2 + "><gml:coordinates>-123.26,49.41"
+                + "</gml:coordinates></gml:Point>"), is("POINT (-123.26 49.41)"));
+    }
+
+    @Test
+    public void testGml2CoordinatesWithSeparators() {
+        assertThat(read("<gml:LineString " + GML_2 + "><gml:coordinates decimal=\",\" cs=\";\" "
+                + "ts=\"|\">1,5;2|3;4,25</gml:coordinates></gml:LineString>"),
+                is("LINESTRING (1.5 2, 3 4.25)"));
+        assertThat(read("<gml:LineString " + GML_2 + "><gml:coordinates>1, 2  3, 4"
+                + "</gml:coordinates></gml:LineString>"), is("LINESTRING (1 2, 3 4)"));
+    }
+
+    @Test
+    public void testGml2Coord() {
+        assertThat(read("<gml:Point " + GML_2 + "><gml:coord><gml:X>1</gml:X><gml:Y>2</gml:Y>"
+                + "</gml:coord></gml:Point>"), is("POINT (1 2)"));
+    }
+
+    @Test
+    public void testGml2PolygonWithHole() {
+        assertThat(read("<gml:Polygon " + GML_2 + "><gml:outerBoundaryIs><gml:LinearRing>"
+                + "<gml:coordinates>0,0 10,0 10,10 0,10 0,0</gml:coordinates></gml:LinearRing>"
+                + "</gml:outerBoundaryIs><gml:innerBoundaryIs><gml:LinearRing><gml:coordinates>"
+                + "1,1 2,1 2,2 1,1</gml:coordinates></gml:LinearRing></gml:innerBoundaryIs>"
+                + "</gml:Polygon>"),
+                is("POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (1 1, 2 1, 2 2, 1 1))"));
+    }
+
+    @Test
+    public void testGml2MultiGeometries() {
+        assertThat(read("<gml:MultiPoint " + GML_2 + "><gml:pointMember><gml:Point>"
+                + "<gml:coordinates>1,2</gml:coordinates></gml:Point></gml:pointMember>"
+                + "<gml:pointMember><gml:Point><gml:coordinates>3,4</gml:coordinates></gml:Point>"
+                + "</gml:pointMember></gml:MultiPoint>"), is("MULTIPOINT ((1 2), (3 4))"));
+        assertThat(read("<gml:MultiGeometry " + GML_2 + "><gml:geometryMember><gml:Point>"
+                + "<gml:coordinates>1,2</gml:coordinates></gml:Point></gml:geometryMember>"
+                + "<gml:geometryMember><gml:LineString><gml:coordinates>0,0 1,1</gml:coordinates>"
+                + "</gml:LineString></gml:geometryMember></gml:MultiGeometry>"),
+                is("GEOMETRYCOLLECTION (POINT (1 2), LINESTRING (0 0, 1 1))"));
+    }
+
+    @Test
+    public void testGml2Box() {
+        assertThat(read("<gml:Box " + GML_2 + "><gml:coordinates>0,0 10,5</gml:coordinates>"
+                + "</gml:Box>"), is("POLYGON ((0 0, 0 5, 10 5, 10 0, 0 0))"));
+    }
+
+    @Test
+    public void testGml32Point() {
+        assertThat(read("<gml:Point " + GML_3_2 + " gml:id=\"p1\"><gml:pos>1 2</gml:pos>"
+                + "</gml:Point>"), is("POINT (1 2)"));
+    }
+
+    @Test
+    public void testGml32MultiSurface() {
+        assertThat(read("<gml:MultiSurface " + GML_3_2 + "><gml:surfaceMember><gml:Polygon>"
+                + "<gml:exterior><gml:LinearRing><gml:posList srsDimension=\"2\">0 0 1 0 1 1 0 0"
+                + "</gml:posList></gml:LinearRing></gml:exterior></gml:Polygon>"
+                + "</gml:surfaceMember></gml:MultiSurface>"),
+                is("MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)))"));
+    }
+
+    @Test
+    public void testGml32MultiCurveWithMembers() {
+        assertThat(read("<gml:MultiCurve " + GML_3_2 + "><gml:curveMembers><gml:LineString>"
+                + "<gml:posList>0 0 1 1</gml:posList></gml:LineString><gml:LineString>"
+                + "<gml:posList>2 2 3 3</gml:posList></gml:LineString></gml:curveMembers>"
+                + "</gml:MultiCurve>"), is("MULTILINESTRING ((0 0, 1 1), (2 2, 3 3))"));
+    }
+
+    @Test
+    public void testGml32ThreeDimensionalPosList() {
+        HierarchicalStreamReader reader = createReader("<gml:LineString " + GML_3_2
+                + " srsDimension=\"3\"><gml:posList>0 0 5 1 1 6</gml:posList></gml:LineString>");
+
+        Geometry geometry = gmlGeometryReader.readGeometry(reader);
+
+        assertThat(geometry.getNumPoints(), is(2));
+        assertThat(geometry.getCoordinates()[1].z, is(6.0));
+    }
+
+    @Test
+    public void testInvalidSrsDimensionProperty() {
+        HierarchicalStreamReader reader = createReader("<location><gml:LineString " + GML_3_2
+                + "><gml:posList srsDimension=\"0\">0 0 1 1</gml:posList></gml:LineString>"
+                + "</location>");
+
+        assertThat(gmlGeometryReader.readGeometryProperty(reader), nullValue());
+        assertThat(reader.getNodeName(), is("location"));
+    }
+
+    @Test
+    public void testGml32Curve() {
+        assertThat(read("<gml:Curve " + GML_3_2 + "><gml:segments><gml:LineStringSegment>"
+                + "<gml:posList>0 0 1 1</gml:posList></gml:LineStringSegment>"
+                + "<gml:LineStringSegment><gml:pos>1 1</gml:pos><gml:pos>2 0</gml:pos>"
+                + "</gml:LineStringSegment></gml:segments></gml:Curve>"),
+                is("LINESTRING (0 0, 1 1, 2 0)"));
+    }
+
+    @Test
+    public void testGml32MultiCurveOfCurves() {
+        assertThat(read("<gml:MultiCurve " + GML_3_2 + "><gml:curveMember><gml:Curve>"
+                + "<gml:segments><gml:LineStringSegment><gml:posList>0 0 1 1</gml:posList>"
+                + "</gml:LineStringSegment></gml:segments></gml:Curve></gml:curveMember>"
+                + "</gml:MultiCurve>"), is("MULTILINESTRING ((0 0, 1 1))"));
+    }
+
+    @Test
+    public void testGml32Surface() {
+        assertThat(read("<gml:Surface " + GML_3_2 + "><gml:patches><gml:PolygonPatch>"
+                + "<gml:exterior><gml:LinearRing><gml:posList>0 0 1 0 1 1 0 0</gml:posList>"
+                + "</gml:LinearRing></gml:exterior></gml:PolygonPatch></gml:patches>"
+                + "</gml:Surface>"), is("POLYGON ((0 0, 1 0, 1 1, 0 0))"));
+    }
+
+    @Test
+    public void testGeometryProperty() {
+        HierarchicalStreamReader reader = createReader("<location><gml:Point " + GML_3_2
+                + "><gml:pos>1 2</gml:pos></gml:Point></location>");
+
+        assertThat(new WKTWriter().write(gmlGeometryReader.readGeometryProperty(reader)),
+                is("POINT (1 2)"));
+        assertThat(reader.getNodeName(), is("location"));
+    }
+
+    @Test
+    public void testUnsupportedGeometryProperty() {
+        HierarchicalStreamReader reader = createReader("<location><gml:Solid " + GML_3_2
+                + "><gml:exterior/></gml:Solid></location>");
+
+        assertThat(gmlGeometryReader.readGeometryProperty(reader), nullValue());
+        assertThat(reader.getNodeName(), is("location"));
+    }
+
+    @Test
+    public void testInvalidCoordinatesProperty() {
+        HierarchicalStreamReader reader = createReader("<location><gml:Point " + GML_2
+                + "><gml:coordinates>a,b</gml:coordinates></gml:Point></location>");
+
+        assertThat(gmlGeometryReader.readGeometryProperty(reader), nullValue());
+    }
+
+    @Test
+    public void testEnvelope() {
+        Envelope envelope = gmlGeometryReader.readEnvelope(createReader("<gml:boundedBy "
+                + GML_3_2 + "><gml:Envelope><gml:lowerCorner>-10 -5</gml:lowerCorner>"
+                + "<gml:upperCorner>10 5</gml:upperCorner></gml:Envelope></gml:boundedBy>"));
+
+        assertThat(envelope, is(new Envelope(-10, 10, -5, 5)));
+    }
+
+    @Test
+    public void testBoxEnvelope() {
+        Envelope envelope = gmlGeometryReader.readEnvelope(createReader("<gml:Box " + GML_2
+                + "><gml:coordinates>-10,-5 10,5</gml:coordinates></gml:Box>"));
+
+        assertThat(envelope, is(new Envelope(-10, 10, -5, 5)));
+    }
+
+    @Test
+    public void testNullEnvelope() {
+        assertThat(gmlGeometryReader.readEnvelope(createReader("<gml:boundedBy " + GML_2
+                + "><gml:null>unknown</gml:null></gml:boundedBy>")), nullValue());
+    }
+
+    private String read(String xml) {
+        return new WKTWriter().write(gmlGeometryReader.readGeometry(createReader(xml)));
+    }
+
+    private HierarchicalStreamReader createReader(String xml) {
+        return new StaxDriver().createReader(new StringReader(xml));
+    }
+}
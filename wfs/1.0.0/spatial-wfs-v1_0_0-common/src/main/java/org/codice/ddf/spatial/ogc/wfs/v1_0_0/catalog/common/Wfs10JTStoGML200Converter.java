@@ -17,23 +17,45 @@
 import java.io.StringReader;
 
 import ogc.schema.opengis.gml.v_2_1_2.AbstractGeometryType;
+import ogc.schema.opengis.gml.v_2_1_2.CoordinatesType;
+import ogc.schema.opengis.gml.v_2_1_2.GeometryAssociationType;
 import ogc.schema.opengis.gml.v_2_1_2.GeometryCollectionType;
+import ogc.schema.opengis.gml.v_2_1_2.LineStringMemberType;
 import ogc.schema.opengis.gml.v_2_1_2.LineStringType;
+import ogc.schema.opengis.gml.v_2_1_2.LinearRingMemberType;
+import ogc.schema.opengis.gml.v_2_1_2.LinearRingType;
 import ogc.schema.opengis.gml.v_2_1_2.MultiLineStringType;
 import ogc.schema.opengis.gml.v_2_1_2.MultiPointType;
 import ogc.schema.opengis.gml.v_2_1_2.MultiPolygonType;
 import ogc.schema.opengis.gml.v_2_1_2.ObjectFactory;
+import ogc.schema.opengis.gml.v_2_1_2.PointMemberType;
 import ogc.schema.opengis.gml.v_2_1_2.PointType;
+import ogc.schema.opengis.gml.v_2_1_2.PolygonMemberType;
 import ogc.schema.opengis.gml.v_2_1_2.PolygonType;
 
-import javax.xml.bind.JAXB;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
 import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
 
+import com.vividsolutions.jts.geom.Coordinate;
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryCollection;
+import com.vividsolutions.jts.geom.LineString;
+import com.vividsolutions.jts.geom.MultiLineString;
+import com.vividsolutions.jts.geom.MultiPoint;
+import com.vividsolutions.jts.geom.MultiPolygon;
+import com.vividsolutions.jts.geom.Point;
+import com.vividsolutions.jts.geom.Polygon;
 import com.vividsolutions.jts.io.gml2.GMLWriter;
 
+/**
+ * Converts JTS geometries to GML 2.1.2 JAXB types. The convertTo methods build the JAXB types
+ * directly from the geometry coordinates and should be used when creating filter operands. The
+ * GML text methods are kept for callers that already hold GML; they share a single
+ * {@link JAXBContext} rather than resolving one on every call.
+ */
 public class Wfs10JTStoGML200Converter {
 
     private static final ObjectFactory gmlObjectFactory = new ObjectFactory();
@@ -42,11 +64,15 @@ public class Wfs10JTStoGML200Converter {
 
     private static final String GEOMETRYCOLLECTION_GML = "GeometryCollection";
 
+    private static final String COORDINATE_SEPARATOR = ",";
+
+    private static final String TUPLE_SEPARATOR = " ";
+
+    private static volatile JAXBContext gmlContext;
+
     public static String convertGeometryToGML(Geometry geometry) throws JAXBException {
         GMLWriter gmlWriter = new GMLWriter(true);
         return gmlWriter.write(geometry);
-//        String gml = gmlWriter.write(geometry);
-//        return gml.replaceAll("\n", "");
     }
 
     public static AbstractGeometryType convertGMLToGeometryType(String gml, QName qName)
@@ -57,25 +83,45 @@ public static AbstractGeometryType convertGMLToGeometryType(String gml, QName qN
         switch (type) {
 
         case "POLYGON":
-            return JAXB.unmarshal(new StringReader(gml), PolygonType.class);
+            return unmarshal(gml, PolygonType.class);
         case "POINT":
-            return JAXB.unmarshal(new StringReader(gml), PointType.class);
+            return unmarshal(gml, PointType.class);
         case "LINESTRING":
-            return JAXB.unmarshal(new StringReader(gml), LineStringType.class);
+            return unmarshal(gml, LineStringType.class);
         case "MULTIPOINT":
-            return JAXB.unmarshal(new StringReader(gml), MultiPointType.class);
+            return unmarshal(gml, MultiPointType.class);
         case "MULTILINESTRING":
-            return JAXB.unmarshal(new StringReader(gml), MultiLineStringType.class);
+            return unmarshal(gml, MultiLineStringType.class);
         case "MULTIPOLYGON":
-            return JAXB.unmarshal(new StringReader(gml), MultiPolygonType.class);
+            return unmarshal(gml, MultiPolygonType.class);
         case "GEOMETRYCOLLECTION":
-            return JAXB.unmarshal(new StringReader(gml), GeometryCollectionType.class);
+            return unmarshal(gml, GeometryCollectionType.class);
         default:
             break;
         }
         return null;
     }
 
+    private static <T extends AbstractGeometryType> T unmarshal(String gml, Class<T> type)
+            throws JAXBException {
+        return getGmlContext().createUnmarshaller()
+                .unmarshal(new StreamSource(new StringReader(gml)), type).getValue();
+    }
+
+    private static JAXBContext getGmlContext() throws JAXBException {
+        JAXBContext context = gmlContext;
+        if (context == null) {
+            synchronized (Wfs10JTStoGML200Converter.class) {
+                context = gmlContext;
+                if (context == null) {
+                    context = JAXBContext.newInstance(ObjectFactory.class);
+                    gmlContext = context;
+                }
+            }
+        }
+        return context;
+    }
+
     public static JAXBElement<? extends AbstractGeometryType> convertGeometryTypeToJAXB(
             AbstractGeometryType abstractGeometryType) {
 
@@ -108,4 +154,160 @@ public static String convertGeometryCollectionToGML(Geometry geometry) throws JA
         return gml;
     }
 
+    /**
+     * Writes the coordinates using the GML default separators, so the decimal, cs and ts
+     * attributes are left unset.
+     */
+    public static CoordinatesType convertToCoordinatesType(Coordinate[] coordinates) {
+        StringBuilder coordString = new StringBuilder();
+        for (int i = 0; i < coordinates.length; i++) {
+            Coordinate coordinate = coordinates[i];
+            if (i != 0) {
+                coordString.append(TUPLE_SEPARATOR);
+            }
+            coordString.append(coordinate.x).append(COORDINATE_SEPARATOR).append(coordinate.y);
+            if (!Double.isNaN(coordinate.z)) {
+                coordString.append(COORDINATE_SEPARATOR).append(coordinate.z);
+            }
+        }
+        CoordinatesType coordinatesType = gmlObjectFactory.createCoordinatesType();
+        coordinatesType.setValue(coordString.toString());
+        return coordinatesType;
+    }
+
+    public static PointType convertToPointType(Point point, String srsName) {
+        PointType pointType = gmlObjectFactory.createPointType();
+        pointType.setCoordinates(convertToCoordinatesType(point.getCoordinates()));
+        pointType.setSrsName(srsName);
+        return pointType;
+    }
+
+    public static LineStringType convertToLineStringType(LineString lineString, String srsName) {
+        LineStringType lineStringType = gmlObjectFactory.createLineStringType();
+        lineStringType.setCoordinates(convertToCoordinatesType(lineString.getCoordinates()));
+        lineStringType.setSrsName(srsName);
+        return lineStringType;
+    }
+
+    public static LinearRingType convertToLinearRingType(LineString ring, String srsName) {
+        LinearRingType linearRingType = gmlObjectFactory.createLinearRingType();
+        linearRingType.setCoordinates(convertToCoordinatesType(ring.getCoordinates()));
+        linearRingType.setSrsName(srsName);
+        return linearRingType;
+    }
+
+    public static PolygonType convertToPolygonType(Polygon polygon, String srsName) {
+        PolygonType polygonType = gmlObjectFactory.createPolygonType();
+        polygonType.setOuterBoundaryIs(createLinearRingMember(polygon.getExteriorRing()));
+        for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+            polygonType.getInnerBoundaryIs().add(
+                    createLinearRingMember(polygon.getInteriorRingN(i)));
+        }
+        polygonType.setSrsName(srsName);
+        return polygonType;
+    }
+
+    private static LinearRingMemberType createLinearRingMember(LineString ring) {
+        LinearRingMemberType member = gmlObjectFactory.createLinearRingMemberType();
+        member.setGeometry(gmlObjectFactory.createLinearRing(convertToLinearRingType(ring, null)));
+        return member;
+    }
+
+    public static MultiPointType convertToMultiPointType(MultiPoint multiPoint, String srsName) {
+        MultiPointType multiPointType = gmlObjectFactory.createMultiPointType();
+        for (int i = 0; i < multiPoint.getNumGeometries(); i++) {
+            PointMemberType member = gmlObjectFactory.createPointMemberType();
+            member.setGeometry(gmlObjectFactory.createPoint(convertToPointType(
+                    (Point) multiPoint.getGeometryN(i), null)));
+            multiPointType.getGeometryMember().add(gmlObjectFactory.createPointMember(member));
+        }
+        multiPointType.setSrsName(srsName);
+        return multiPointType;
+    }
+
+    public static MultiLineStringType convertToMultiLineStringType(
+            MultiLineString multiLineString, String srsName) {
+        MultiLineStringType multiLineStringType = gmlObjectFactory.createMultiLineStringType();
+        for (int i = 0; i < multiLineString.getNumGeometries(); i++) {
+            LineStringMemberType member = gmlObjectFactory.createLineStringMemberType();
+            member.setGeometry(gmlObjectFactory.createLineString(convertToLineStringType(
+                    (LineString) multiLineString.getGeometryN(i), null)));
+            multiLineStringType.getGeometryMember().add(
+                    gmlObjectFactory.createLineStringMember(member));
+        }
+        multiLineStringType.setSrsName(srsName);
+        return multiLineStringType;
+    }
+
+    public static MultiPolygonType convertToMultiPolygonType(MultiPolygon multiPolygon,
+            String srsName) {
+        MultiPolygonType multiPolygonType = gmlObjectFactory.createMultiPolygonType();
+        for (int i = 0; i < multiPolygon.getNumGeometries(); i++) {
+            PolygonMemberType member = gmlObjectFactory.createPolygonMemberType();
+            member.setGeometry(gmlObjectFactory.createPolygon(convertToPolygonType(
+                    (Polygon) multiPolygon.getGeometryN(i), null)));
+            multiPolygonType.getGeometryMember().add(gmlObjectFactory.createPolygonMember(member));
+        }
+        multiPolygonType.setSrsName(srsName);
+        return multiPolygonType;
+    }
+
+    /**
+     * Converts a {@link GeometryCollection} to a {@link GeometryCollectionType}. Each member is
+     * written as a geometryMember; use {@link #convertGeometryCollectionTypeToJAXB} to wrap the
+     * result in a MultiGeometry element.
+     */
+    public static GeometryCollectionType convertToGeometryCollectionType(
+            GeometryCollection geometryCollection, String srsName) {
+        GeometryCollectionType geometryCollectionType = gmlObjectFactory
+                .createGeometryCollectionType();
+        for (int i = 0; i < geometryCollection.getNumGeometries(); i++) {
+            GeometryAssociationType member = gmlObjectFactory.createGeometryAssociationType();
+            member.setGeometry(convertToJAXB(geometryCollection.getGeometryN(i), null));
+            geometryCollectionType.getGeometryMember().add(
+                    gmlObjectFactory.createGeometryMember(member));
+        }
+        geometryCollectionType.setSrsName(srsName);
+        return geometryCollectionType;
+    }
+
+    public static JAXBElement<GeometryCollectionType> convertGeometryCollectionTypeToJAXB(
+            GeometryCollectionType geometryCollectionType) {
+        return gmlObjectFactory.createMultiGeometry(geometryCollectionType);
+    }
+
+    /**
+     * Converts any supported geometry to its GML 2.1.2 JAXB element. Geometry collections are
+     * written as MultiGeometry elements.
+     *
+     * @throws IllegalArgumentException
+     *             if the geometry type has no GML 2.1.2 equivalent
+     */
+    public static JAXBElement<? extends AbstractGeometryType> convertToJAXB(Geometry geometry,
+            String srsName) {
+        if (geometry instanceof Point) {
+            return gmlObjectFactory.createPoint(convertToPointType((Point) geometry, srsName));
+        } else if (geometry instanceof LineString) {
+            return gmlObjectFactory.createLineString(convertToLineStringType(
+                    (LineString) geometry, srsName));
+        } else if (geometry instanceof Polygon) {
+            return gmlObjectFactory
+                    .createPolygon(convertToPolygonType((Polygon) geometry, srsName));
+        } else if (geometry instanceof MultiPoint) {
+            return gmlObjectFactory.createMultiPoint(convertToMultiPointType(
+                    (MultiPoint) geometry, srsName));
+        } else if (geometry instanceof MultiLineString) {
+            return gmlObjectFactory.createMultiLineString(convertToMultiLineStringType(
+                    (MultiLineString) geometry, srsName));
+        } else if (geometry instanceof MultiPolygon) {
+            return gmlObjectFactory.createMultiPolygon(convertToMultiPolygonType(
+                    (MultiPolygon) geometry, srsName));
+        } else if (geometry instanceof GeometryCollection) {
+            return convertGeometryCollectionTypeToJAXB(convertToGeometryCollectionType(
+                    (GeometryCollection) geometry, srsName));
+        }
+        throw new IllegalArgumentException("Unable to convert geometry [" + geometry
+                + "] to GML 2.1.2");
+    }
+
 }
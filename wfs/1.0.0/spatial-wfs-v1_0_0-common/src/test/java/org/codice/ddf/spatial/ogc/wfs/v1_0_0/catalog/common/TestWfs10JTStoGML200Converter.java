@@ -588,6 +588,54 @@ private String extractPolygonMemberCoordinates(PolygonMemberType polygonMemberTy
 
     }
 
+    @Test public void testConvertToPolygonJAXB() throws Exception {
+        assertDirectConversion(POLYGON, POLYGON_GML);
+    }
+
+    @Test public void testConvertToLineStringJAXB() throws Exception {
+        assertDirectConversion(LINESTRING, LINESTRING_GML);
+    }
+
+    @Test public void testConvertToPointJAXB() throws Exception {
+        assertDirectConversion(POINT, POINT_GML);
+    }
+
+    @Test public void testConvertToMultiPointJAXB() throws Exception {
+        assertDirectConversion(MULTIPOINT, MULTIPOINT_GML);
+    }
+
+    @Test public void testConvertToMultiLineStringJAXB() throws Exception {
+        assertDirectConversion(MULTILINESTRING, MULTILINESTRING_GML);
+    }
+
+    @Test public void testConvertToMultiPolygonJAXB() throws Exception {
+        assertDirectConversion(MULTIPOLYGON, MULTIPOLYGON_GML);
+    }
+
+    @Test public void testConvertToGeometryCollectionJAXB() throws Exception {
+        assertDirectConversion(GEOMETRYCOLLECTION, GEOMETRYCOLLECTION_GML);
+    }
+
+    @Test public void testConvertToJAXBSetsSrsNameOnOuterGeometry() throws Exception {
+        JAXBElement<? extends AbstractGeometryType> element = Wfs10JTStoGML200Converter
+                .convertToJAXB(getGeometryFromWkt(MULTIPOLYGON), "EPSG:4326");
+
+        MultiPolygonType multiPolygonType = (MultiPolygonType) element.getValue();
+        assertThat(multiPolygonType.getSrsName(), is("EPSG:4326"));
+        PolygonType polygonType = (PolygonType) ((PolygonMemberType) multiPolygonType
+                .getGeometryMember().get(0).getValue()).getGeometry().getValue();
+        assertThat(polygonType.getSrsName() == null, is(Boolean.TRUE));
+    }
+
+    private void assertDirectConversion(String wkt, String expectedGml) throws Exception {
+        JAXBElement<? extends AbstractGeometryType> element = Wfs10JTStoGML200Converter
+                .convertToJAXB(getGeometryFromWkt(wkt), null);
+
+        JAXB.marshal(element, writer);
+        Diff diff = XMLUnit.compareXML(writer.toString(), expectedGml);
+        assertTrue(XMLUNIT_SIMILAR, diff.similar());
+    }
+
     private Geometry getGeometryFromWkt(String wkt) throws ParseException {
         return new WKTReader().read(wkt);
     }
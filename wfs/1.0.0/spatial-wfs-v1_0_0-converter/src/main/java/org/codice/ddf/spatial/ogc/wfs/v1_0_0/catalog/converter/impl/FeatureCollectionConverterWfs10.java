@@ -15,7 +15,6 @@
 
 package org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.converter.impl;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +25,7 @@
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 
+import org.codice.ddf.spatial.ogc.catalog.common.converter.BoundsAccumulator;
 import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
@@ -40,9 +40,7 @@
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
-import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.geom.GeometryCollection;
-import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Envelope;
 
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.MetacardImpl;
@@ -93,10 +91,15 @@ public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingCo
         }
         writer.addAttribute(WfsConstants.ATTRIBUTE_SCHEMA_LOCATION, schemaLoc);
 
-        Geometry allGeometry = getBounds(wfc.getFeatureMembers());
-        if (!allGeometry.isEmpty()) {
+        // boundedBy precedes the members, so use the bounds accumulated when the members were
+        // read if there are any
+        Envelope bounds = wfc.getBounds();
+        if (bounds == null) {
+            bounds = BoundsAccumulator.getBounds(wfc.getFeatureMembers());
+        }
+        if (bounds != null && !bounds.isNull()) {
             XmlNode.writeEnvelope(WfsConstants.GML_PREFIX + ":" + "boundedBy", context, writer,
-                    allGeometry.getEnvelopeInternal());
+                    bounds);
         }
 
         for (Metacard mc : wfc.getFeatureMembers()) {
@@ -137,30 +140,10 @@ private String generateSchemaLocationFromMetacards(List<Metacard> metacards,
         return schemaLocation.toString();
     }
 
-    private Geometry getBounds(List<Metacard> metacards) {
-        if (metacards != null) {
-            List<Geometry> geometries = new ArrayList<Geometry>();
-            for (Metacard card : metacards) {
-                if (null != card.getLocation()) {
-                    Geometry geo = XmlNode.readGeometry(card.getLocation());
-                    if (null != geo) {
-                        geometries.add(geo);
-                    }
-                }
-            }
-    
-            Geometry allGeometry = new GeometryCollection(geometries.toArray(new Geometry[0]),
-                    new GeometryFactory());
-            return allGeometry;
-        } else {
-            LOGGER.error("List of metacards was null.");
-            return null;
-        }
-    }
-
     @Override
     public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
         WfsFeatureCollection featureCollection = new WfsFeatureCollection();
+        BoundsAccumulator bounds = new BoundsAccumulator();
         while (reader.hasMoreChildren()) {
             reader.moveDown();
             String nodeName = reader.getNodeName();
@@ -169,13 +152,15 @@ public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext co
             if (featureMember.equals(nodeName)) {
                 reader.moveDown();
                 // lookup the converter for this featuretype
-                featureCollection.getFeatureMembers().add(
-                        (Metacard) context.convertAnother(null, MetacardImpl.class,
-                                featureConverterMap.get(reader.getNodeName())));
+                Metacard metacard = (Metacard) context.convertAnother(null, MetacardImpl.class,
+                        featureConverterMap.get(reader.getNodeName()));
+                featureCollection.getFeatureMembers().add(metacard);
+                bounds.add(metacard);
                 reader.moveUp();
             }
             reader.moveUp();
         }
+        featureCollection.setBounds(bounds.getBounds());
         return featureCollection;
     }
 
@@ -16,6 +16,7 @@
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@
 import org.apache.ws.commons.schema.XmlSchemaElement;
 import org.apache.ws.commons.schema.XmlSchemaSimpleType;
 import org.apache.ws.commons.schema.constants.Constants;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureMetacardType;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
@@ -163,6 +165,11 @@ public void testUnmarshalFeatureCollectionXmlToObject() {
         assertEquals(4, wfc.getFeatureMembers().size());
         Metacard mc = wfc.getFeatureMembers().get(0);
         assertEquals(mc.getId(), "video_data_set.1");
+        assertNotNull(wfc.getBounds());
+        for (Metacard member : wfc.getFeatureMembers()) {
+            assertTrue(wfc.getBounds().contains(
+                    XmlNode.readGeometry(member.getLocation()).getEnvelopeInternal()));
+        }
 
     }
 
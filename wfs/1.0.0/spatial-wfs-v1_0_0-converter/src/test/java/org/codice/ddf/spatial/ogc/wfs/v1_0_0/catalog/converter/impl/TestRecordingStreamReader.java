@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.converter.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.RecordingStreamReader;
+import org.junit.Test;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.copy.HierarchicalStreamCopier;
+import com.thoughtworks.xstream.io.naming.NoNameCoder;
+import com.thoughtworks.xstream.io.xml.CompactWriter;
+import com.thoughtworks.xstream.io.xml.WstxDriver;
+
+public class TestRecordingStreamReader {
+
+    private static final String FEATURE = "/video_data_set.xml";
+
+    @Test
+    public void testSkippedNodesAreRecorded() {
+        StringWriter recorded = new StringWriter();
+        RecordingStreamReader reader = new RecordingStreamReader(createReader(),
+                new CompactWriter(recorded, new NoNameCoder()));
+
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            if ("width".equals(reader.getNodeName())) {
+                assertEquals("1280", reader.getValue());
+            } else if ("ground_geom".equals(reader.getNodeName())) {
+                // only part of the geometry is read
+                reader.moveDown();
+                assertEquals("MultiPolygon", reader.getNodeName());
+                reader.moveUp();
+            }
+            reader.moveUp();
+        }
+        reader.finish();
+
+        assertEquals(copy(), recorded.toString());
+    }
+
+    @Test
+    public void testUnreadNodeIsRecordedOnFinish() {
+        StringWriter recorded = new StringWriter();
+        RecordingStreamReader reader = new RecordingStreamReader(createReader(),
+                new CompactWriter(recorded, new NoNameCoder()));
+
+        reader.moveDown();
+        reader.finish();
+
+        assertEquals(copy(), recorded.toString());
+    }
+
+    private String copy() {
+        StringWriter copied = new StringWriter();
+        new HierarchicalStreamCopier().copy(createReader(), new CompactWriter(copied,
+                new NoNameCoder()));
+        return copied.toString();
+    }
+
+    private HierarchicalStreamReader createReader() {
+        return new WstxDriver().createReader(TestRecordingStreamReader.class
+                .getResourceAsStream(FEATURE));
+    }
+}
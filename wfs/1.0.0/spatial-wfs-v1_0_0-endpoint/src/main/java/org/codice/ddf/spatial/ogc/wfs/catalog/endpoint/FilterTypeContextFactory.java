@@ -19,15 +19,12 @@
 
 import ogc.schema.opengis.filter.v_1_0_0.FilterType;
 
-public final class FilterTypeContextFactory {
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
 
-    private static JAXBContext jaxbContext;
+public final class FilterTypeContextFactory {
 
-    public static synchronized JAXBContext getInstance() throws JAXBException {
-        if (jaxbContext == null) {
-            jaxbContext = JAXBContext.newInstance(FilterType.class);
-        }
-        return jaxbContext;
+    public static JAXBContext getInstance() throws JAXBException {
+        return JaxbContextRegistry.getContext(FilterType.class);
     }
 
     private FilterTypeContextFactory() {
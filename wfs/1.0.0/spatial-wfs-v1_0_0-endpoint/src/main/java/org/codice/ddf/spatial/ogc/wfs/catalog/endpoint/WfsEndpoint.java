@@ -20,9 +20,11 @@
 import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
@@ -32,10 +34,14 @@
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
+import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -90,6 +96,11 @@
 import org.apache.ws.commons.schema.XmlSchemaImport;
 import org.apache.ws.commons.schema.XmlSchemaSerializer;
 import org.apache.ws.commons.schema.utils.NamespaceMap;
+import org.codice.ddf.spatial.ogc.catalog.common.AdmissionController;
+import org.codice.ddf.spatial.ogc.catalog.common.AdmissionException;
+import org.codice.ddf.spatial.ogc.catalog.common.CachedCapabilities;
+import org.codice.ddf.spatial.ogc.catalog.common.CapabilitiesCache;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.common.DescribeFeatureTypeRequest;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.common.GetCapabilitiesRequest;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.common.Wfs;
@@ -138,13 +149,27 @@ public class WfsEndpoint implements Wfs {
 
     private FeatureTypeSchemaCache schemaCache;
 
+    private CapabilitiesCache capabilitiesCache = new CapabilitiesCache();
+
+    private AdmissionController admissionController;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(WfsEndpoint.class);
 
     private static final Configuration PARSER_CONFIG = new org.geotools.filter.v1_0.OGCConfiguration();
 
+    private static final Comparator<QName> QNAME_COMPARATOR = new Comparator<QName>() {
+        @Override
+        public int compare(QName o1, QName o2) {
+            return o1.toString().compareTo(o2.toString());
+        }
+    };
+
     @Context
     private UriInfo uri;
 
+    @Context
+    private Request httpRequest;
+
     /**
      * JAX-RS Server that represents a WFS v1.0.0 Server.
      */
@@ -164,6 +189,25 @@ public WfsEndpoint(CatalogFramework ddf, FilterBuilder filterBuilder, UriInfo ur
         this.schemaCache = cache;
     }
 
+    public void setCapabilitiesCache(CapabilitiesCache capabilitiesCache) {
+        this.capabilitiesCache = capabilitiesCache;
+    }
+
+    /**
+     * Sets the controller that admits GetFeature requests, or null to admit every request.
+     */
+    public void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    public void init() {
+        try {
+            JaxbContextRegistry.warm(FilterTypeContextFactory.getInstance());
+        } catch (JAXBException e) {
+            LOGGER.error("Failed to initialize JAXBContext", e);
+        }
+    }
+
     @Override
     @GET
     @Consumes({MediaType.TEXT_XML, MediaType.APPLICATION_XML})
@@ -178,7 +222,9 @@ public WFSCapabilitiesType getCapabilities(@QueryParam("")
         if (Wfs10Constants.GET_CAPABILITES.equalsIgnoreCase(request.getRequest())) {
             // Since we only support 1.0.0 we should return the capabilities
             // even if a different version was requested.
-            return buildWfsCapabilitiesType();
+            CachedCapabilities<WFSCapabilitiesType> capabilities = getCachedCapabilities();
+            capabilities.evaluatePreconditions(httpRequest);
+            return capabilities.getDocument();
         } else {
             throw createUnexpectedServiceException(request.getService(), request.getVersion(),
                     request.getRequest());
@@ -197,7 +243,7 @@ public WFSCapabilitiesType getCapabilities(
         }
         // Validate the request
         if (validateRequestParameters(request.getService(), request.getVersion())) {
-            return buildWfsCapabilitiesType();
+            return getCachedCapabilities().getDocument();
         } else {
             throw createUnexpectedServiceException(request.getService(), request.getVersion(),
                     Wfs10Constants.GET_CAPABILITES);
@@ -384,6 +430,9 @@ public WfsFeatureCollection getFeature(GetFeatureType request) throws WfsExcepti
                     .getMaxFeatures().intValue());
 
             WfsFeatureCollection featureCollection = new WfsFeatureCollection();
+            featureCollection.setOutputFormat(request.getOutputFormat());
+            AdmissionController.Permit permit = admit(Wfs10Constants.GET_FEATURE,
+                    query.getPageSize());
             try {
                 QueryResponse queryResponse = framework.query(new QueryRequestImpl(query, true));
 
@@ -400,6 +449,10 @@ public WfsFeatureCollection getFeature(GetFeatureType request) throws WfsExcepti
             } catch (FederationException e) {
                 LOGGER.warn("Unable to query", e);
                 throw new WfsException(e);
+            } finally {
+                if (permit != null) {
+                    permit.release();
+                }
             }
 
             return featureCollection;
@@ -410,11 +463,46 @@ public WfsFeatureCollection getFeature(GetFeatureType request) throws WfsExcepti
         }
     }
 
+    /**
+     * @return the permit for the request, or null if there is no admission controller
+     */
+    private AdmissionController.Permit admit(String operation, int cost) throws WfsException {
+        if (admissionController == null) {
+            return null;
+        }
+        try {
+            return admissionController.admit(operation, cost);
+        } catch (AdmissionException e) {
+            throw new WfsException(e.getMessage(),
+                    Response.Status.SERVICE_UNAVAILABLE.getStatusCode());
+        }
+    }
+
     private Boolean validateRequestParameters(final String service, final String version) {
         return (service != null && version != null && Wfs10Constants.WFS.equalsIgnoreCase(service) && Wfs10Constants.VERSION_1_0_0
                 .equalsIgnoreCase(version));
     }
 
+    /**
+     * Returns the cached capabilities for the current base URI and feature types, building them if
+     * either has changed or the cache has been invalidated.
+     */
+    private CachedCapabilities<WFSCapabilitiesType> getCachedCapabilities() {
+        StringBuilder key = new StringBuilder(uri.getBaseUri().toASCIIString());
+        for (QName typeName : new TreeSet<QName>(schemaCache.getFeatureTypeQnames(),
+                QNAME_COMPARATOR)) {
+            key.append("|").append(typeName);
+        }
+
+        return capabilitiesCache.get(key.toString(),
+                new CapabilitiesCache.Builder<WFSCapabilitiesType>() {
+                    @Override
+                    public WFSCapabilitiesType build() {
+                        return buildWfsCapabilitiesType();
+                    }
+                });
+    }
+
     private WFSCapabilitiesType buildWfsCapabilitiesType() {
         WFSCapabilitiesType wfsCapabilities = new WFSCapabilitiesType();
         wfsCapabilities.setVersion(Wfs10Constants.VERSION_1_0_0);
@@ -532,7 +620,13 @@ private List<FeatureTypeType> buildFeatureTypes() {
 
     private InputStream marshalFilter(JAXBElement<FilterType> filterElement) throws JAXBException {
         ByteArrayOutputStream os = new ByteArrayOutputStream();
-        FilterTypeContextFactory.getInstance().createMarshaller().marshal(filterElement, os);
+        JAXBContext context = FilterTypeContextFactory.getInstance();
+        Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(context);
+        try {
+            marshaller.marshal(filterElement, os);
+        } finally {
+            JaxbContextRegistry.releaseMarshaller(context, marshaller);
+        }
         ByteArrayInputStream input = new ByteArrayInputStream(os.toByteArray());
         IOUtils.closeQuietly(os);
 
@@ -23,6 +23,7 @@
 
 import javax.ws.rs.Produces;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
@@ -30,6 +31,7 @@
 
 import org.codice.ddf.configuration.ConfigurationManager;
 import org.codice.ddf.configuration.ConfigurationWatcher;
+import org.codice.ddf.spatial.ogc.catalog.common.GeoJsonWriter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.EnhancedStaxDriver;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GenericFeatureConverter;
@@ -40,6 +42,8 @@
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.naming.NoNameCoder;
 
+import ddf.catalog.data.Metacard;
+
 @Produces({MediaType.TEXT_XML, MediaType.APPLICATION_XML})
 @Provider
 public class FeatureCollectionMessageBodyWriter implements MessageBodyWriter<WfsFeatureCollection>,
@@ -80,7 +84,24 @@ public boolean isWriteable(Class<?> clazz, Type type, Annotation[] annotations,
     public void writeTo(WfsFeatureCollection featureCollection, Class<?> clazz, Type type,
             Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> headers,
             OutputStream outStream) throws IOException, WebApplicationException {
-        xstream.toXML(featureCollection, outStream);
+        if (GeoJsonWriter.isGeoJsonFormat(featureCollection.getOutputFormat())) {
+            writeGeoJson(featureCollection, headers, outStream);
+        } else {
+            xstream.toXML(featureCollection, outStream);
+        }
+    }
+
+    private void writeGeoJson(WfsFeatureCollection featureCollection,
+            MultivaluedMap<String, Object> headers, OutputStream outStream) throws IOException {
+        if (headers != null) {
+            headers.putSingle(HttpHeaders.CONTENT_TYPE, GeoJsonWriter.MIME_TYPE);
+        }
+        GeoJsonWriter writer = new GeoJsonWriter(outStream);
+        writer.startFeatureCollection(null);
+        for (Metacard metacard : featureCollection.getFeatureMembers()) {
+            writer.writeFeature(metacard);
+        }
+        writer.endFeatureCollection();
     }
 
     @Override
@@ -15,6 +15,11 @@
 package org.codice.ddf.spatial.ogc.wfs.catalog.endpoint.writer;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXMLEqual;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
@@ -30,6 +35,8 @@
 import java.util.Set;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -37,7 +44,9 @@
 import javax.xml.validation.SchemaFactory;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
 import org.apache.xerces.dom.DOMInputImpl;
+import org.codice.ddf.spatial.ogc.catalog.common.GeoJsonWriter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.junit.Test;
@@ -191,6 +200,25 @@ public void testWriteToGeneratesExpectedBasicMetacard() throws IOException,
         assertXMLEqual("Failed to generate correct GML", expected, actual);
     }
 
+    @Test
+    public void testWriteToGeoJson() throws IOException, WebApplicationException {
+        FeatureCollectionMessageBodyWriter wtr = new FeatureCollectionMessageBodyWriter();
+        WfsFeatureCollection collection = getBasicWfsFeatureCollection();
+        collection.setOutputFormat("application/json");
+        MultivaluedMap<String, Object> headers = new MetadataMap<String, Object>();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        wtr.writeTo(collection, null, null, null, null, headers, stream);
+
+        String actual = stream.toString("UTF-8");
+        assertThat((String) headers.getFirst(HttpHeaders.CONTENT_TYPE),
+                is(GeoJsonWriter.MIME_TYPE));
+        assertThat(actual, startsWith("{\"type\":\"FeatureCollection\""));
+        assertThat(actual, containsString("\"id\":\"" + BASIC_ID + "\""));
+        assertThat(actual, containsString("\"geometry\":{\"type\":\"Point\",\"coordinates\":[1.0,1.0]}"));
+        assertThat(actual, containsString("\"title\":\"" + BASIC_TITLE + "\""));
+        assertThat(actual, endsWith("\"numberReturned\":1}"));
+    }
+
     private WfsFeatureCollection getWfsFeatureCollection() {
         WfsFeatureCollection collection = new WfsFeatureCollection();
         List<Metacard> metacards = new ArrayList<Metacard>();
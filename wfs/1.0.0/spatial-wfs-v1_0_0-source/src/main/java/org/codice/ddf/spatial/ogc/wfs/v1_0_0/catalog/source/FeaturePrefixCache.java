@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.source;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+import ddf.catalog.data.Metacard;
+
+/**
+ * Holds the leading features returned for recent GetFeature requests. WFS 1.0 has no start index,
+ * so every page has to be read from the first feature. Keeping the converted features lets later
+ * pages of the same request be served without fetching and converting them again.
+ *
+ * The total number of features held is bounded and every entry expires a fixed time after it was
+ * fetched, so paging never returns features much older than the first page. A bound of zero
+ * disables the cache.
+ */
+class FeaturePrefixCache {
+
+    public static final int DEFAULT_MAX_FEATURES = 5000;
+
+    public static final int DEFAULT_EXPIRATION_SECONDS = 120;
+
+    private static final Weigher<String, FeaturePrefix> FEATURE_COUNT =
+            new Weigher<String, FeaturePrefix>() {
+        @Override
+        public int weigh(String key, FeaturePrefix prefix) {
+            return Math.max(1, prefix.features.size());
+        }
+    };
+
+    private final int maxFeatures;
+
+    private final int expirationSeconds;
+
+    private final Cache<String, FeaturePrefix> prefixes;
+
+    FeaturePrefixCache() {
+        this(DEFAULT_MAX_FEATURES, DEFAULT_EXPIRATION_SECONDS);
+    }
+
+    /**
+     * @param maxFeatures
+     *            - the most features held across all requests, zero or less to hold none
+     * @param expirationSeconds
+     *            - how long the features of a request are held after they were fetched
+     */
+    FeaturePrefixCache(int maxFeatures, int expirationSeconds) {
+        this.maxFeatures = Math.max(0, maxFeatures);
+        this.expirationSeconds = Math.max(0, expirationSeconds);
+        prefixes = CacheBuilder.newBuilder().maximumWeight(this.maxFeatures)
+                .weigher(FEATURE_COUNT)
+                .expireAfterWrite(this.expirationSeconds, TimeUnit.SECONDS).build();
+    }
+
+    int getMaxFeatures() {
+        return maxFeatures;
+    }
+
+    int getExpirationSeconds() {
+        return expirationSeconds;
+    }
+
+    /**
+     * @return the features held for the request, or null if there are none
+     */
+    FeaturePrefix get(String key) {
+        return prefixes.getIfPresent(key);
+    }
+
+    void put(String key, FeaturePrefix prefix) {
+        if (maxFeatures > 0 && expirationSeconds > 0) {
+            prefixes.put(key, prefix);
+        }
+    }
+
+    void invalidateAll() {
+        prefixes.invalidateAll();
+    }
+
+    /**
+     * The first features returned for a request.
+     */
+    static class FeaturePrefix {
+
+        private final List<Metacard> features;
+
+        private final boolean complete;
+
+        /**
+         * @param features
+         *            - the features in the order the server returned them
+         * @param complete
+         *            - true if the server will not return any more features for the request
+         */
+        FeaturePrefix(List<Metacard> features, boolean complete) {
+            this.features = Collections.unmodifiableList(new ArrayList<Metacard>(features));
+            this.complete = complete;
+        }
+
+        /**
+         * @return true if the first count features, or all there are, are held
+         */
+        boolean covers(int count) {
+            return complete || features.size() >= count;
+        }
+
+        /**
+         * @param startIndex
+         *            - zero based index of the first feature
+         * @return up to count features, empty if the start index is past the last feature. The
+         *         features are shared with every other request served from this prefix, so they
+         *         must be copied before they are handed out.
+         */
+        List<Metacard> getFeatures(int startIndex, int count) {
+            if (startIndex >= features.size()) {
+                return Collections.emptyList();
+            }
+            return new ArrayList<Metacard>(features.subList(startIndex,
+                    Math.min(features.size(), startIndex + count)));
+        }
+
+        /**
+         * WFS 1.0 does not report how many features match a request, so this is the number known
+         * to exist. It is exact when the prefix is complete.
+         */
+        long getHits() {
+            return features.size();
+        }
+    }
+}
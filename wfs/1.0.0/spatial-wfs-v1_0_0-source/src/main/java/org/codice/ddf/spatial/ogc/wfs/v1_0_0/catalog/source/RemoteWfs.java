@@ -14,6 +14,7 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.source;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +33,7 @@
 import ogc.schema.opengis.wfs.v_1_0_0.GetFeatureType;
 import ogc.schema.opengis.wfs_capabilities.v_1_0_0.WFSCapabilitiesType;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.cxf.jaxrs.client.Client;
 import org.apache.cxf.jaxrs.client.JAXRSClientFactory;
 import org.apache.cxf.jaxrs.client.WebClient;
@@ -57,13 +59,15 @@ public class RemoteWfs extends TrustedRemoteSource implements Wfs {
 
     private Wfs wfs;
 
+    private final MarkableStreamInterceptor markableStreamInterceptor = new MarkableStreamInterceptor();
+
     private FeatureCollectionMessageBodyReaderWfs10 featureCollectionReader;
 
     public RemoteWfs(String wfsServerUrl, String username, String password,
             boolean disableCnCheck) {
         wfs = createClientBean(Wfs.class, wfsServerUrl, username, password,
                 disableCnCheck, initProviders(), getClass().getClassLoader(),
-                new MarkableStreamInterceptor());
+                markableStreamInterceptor);
     }
 
     private List<? extends Object> initProviders() {
@@ -85,6 +89,14 @@ private List<? extends Object> initProviders() {
                 new XmlSchemaMessageBodyReaderWfs10(), featureCollectionReader);
     }
 
+    /**
+     * Feature types are described on several threads at once, which share this client.
+     */
+    @Override
+    protected boolean isThreadSafeClient() {
+        return true;
+    }
+
     /**
      * Sets the TLS Parameters on the current client
      */
@@ -105,6 +117,27 @@ public void setTimeouts(Integer connectionTimeout, Integer receiveTimeout) {
         this.configureTimeouts(WebClient.client(wfs), connectionTimeout, receiveTimeout);
     }
 
+    /**
+     * Sets how responses are buffered so they can be reset while they are read.
+     *
+     * @param enabled
+     *            false to read responses straight from the connection
+     * @param memoryThreshold
+     *            bytes of a response kept in memory before it is spilled to a file, or null for
+     *            the default
+     * @param spillDirectory
+     *            directory spilled responses are written to, or blank for the default temporary
+     *            directory
+     */
+    public void setResponseBuffering(boolean enabled, Integer memoryThreshold,
+            String spillDirectory) {
+        markableStreamInterceptor.setEnabled(enabled);
+        markableStreamInterceptor.setMemoryThreshold((memoryThreshold == null) ?
+                MarkableStreamInterceptor.DEFAULT_MEMORY_THRESHOLD : memoryThreshold);
+        markableStreamInterceptor.setSpillDirectory(StringUtils.isBlank(spillDirectory) ? null
+                : new File(spillDirectory));
+    }
+
     public FeatureCollectionMessageBodyReaderWfs10 getFeatureCollectionReader() {
         return featureCollectionReader;
     }
@@ -23,7 +23,6 @@
 import java.util.Set;
 
 import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
 import javax.xml.namespace.QName;
 
 import ogc.schema.opengis.filter.v_1_0_0.BBOXType;
@@ -1352,73 +1351,29 @@ private double metersToDegrees(double distance) {
     }
 
     private JAXBElement<LineStringType> createLineString(Geometry geometry) {
-        JAXBElement<LineStringType> jaxbElement = null;
-        try {
-            String gml = Wfs10JTStoGML200Converter.convertGeometryToGML(geometry);
-            LineStringType lineStringType = (LineStringType) Wfs10JTStoGML200Converter
-                    .convertGMLToGeometryType(gml, Wfs10Constants.LINESTRING);
-            jaxbElement = (JAXBElement<LineStringType>) Wfs10JTStoGML200Converter
-                    .convertGeometryTypeToJAXB(lineStringType);
-        } catch (JAXBException jbe) {
-            LOGGER.error("Unable to create LineString with geometry: [{}]", geometry);
-        }
-        return jaxbElement;
+        return gmlObjectFactory.createLineString(Wfs10JTStoGML200Converter
+                .convertToLineStringType((LineString) geometry, srsName));
     }
 
     private JAXBElement<MultiPointType> createMultiPoint(Geometry geometry) {
-        JAXBElement<MultiPointType> jaxbElement = null;
-        try {
-            String gml = Wfs10JTStoGML200Converter.convertGeometryToGML(geometry);
-            MultiPointType multiPointType = (MultiPointType) Wfs10JTStoGML200Converter
-                    .convertGMLToGeometryType(gml, Wfs10Constants.POINT);
-            jaxbElement = (JAXBElement<MultiPointType>) Wfs10JTStoGML200Converter
-                    .convertGeometryTypeToJAXB(multiPointType);
-        } catch (JAXBException jbe) {
-            LOGGER.error("Unable to create MultiPointType with geometry: [{}]", geometry);
-        }
-        return jaxbElement;
+        return gmlObjectFactory.createMultiPoint(Wfs10JTStoGML200Converter
+                .convertToMultiPointType((MultiPoint) geometry, srsName));
     }
 
     private JAXBElement<MultiLineStringType> createMultiLineString(Geometry geometry) {
-        JAXBElement<MultiLineStringType> jaxbElement = null;
-        try {
-            String gml = Wfs10JTStoGML200Converter.convertGeometryToGML(geometry);
-            MultiLineStringType multiLineStringType = (MultiLineStringType) Wfs10JTStoGML200Converter
-                    .convertGMLToGeometryType(gml, Wfs10Constants.MULTI_LINESTRING);
-            jaxbElement = (JAXBElement<MultiLineStringType>) Wfs10JTStoGML200Converter
-                    .convertGeometryTypeToJAXB(multiLineStringType);
-        } catch (JAXBException jbe) {
-            LOGGER.error("Unable to create MultiLineStringType with geometry: [{}]", geometry);
-        }
-        return jaxbElement;
+        return gmlObjectFactory.createMultiLineString(Wfs10JTStoGML200Converter
+                .convertToMultiLineStringType((MultiLineString) geometry, srsName));
     }
 
     private JAXBElement<MultiPolygonType> createMultiPolygon(Geometry geometry) {
-        JAXBElement<MultiPolygonType> jaxbElement = null;
-        try {
-            String gml = Wfs10JTStoGML200Converter.convertGeometryToGML(geometry);
-            MultiLineStringType multiLineStringType = (MultiLineStringType) Wfs10JTStoGML200Converter
-                    .convertGMLToGeometryType(gml, Wfs10Constants.MULTI_LINESTRING);
-            jaxbElement = (JAXBElement<MultiPolygonType>) Wfs10JTStoGML200Converter
-                    .convertGeometryTypeToJAXB(multiLineStringType);
-        } catch (JAXBException jbe) {
-            LOGGER.error("Unable to create MultiPolygonType with geometry: [{}]", geometry);
-        }
-        return jaxbElement;
+        return gmlObjectFactory.createMultiPolygon(Wfs10JTStoGML200Converter
+                .convertToMultiPolygonType((MultiPolygon) geometry, srsName));
     }
 
     private JAXBElement<GeometryCollectionType> createGeometryCollection(Geometry geometry) {
-        JAXBElement<GeometryCollectionType> jaxbElement = null;
-        try {
-            String gml = Wfs10JTStoGML200Converter.convertGeometryToGML(geometry);
-            GeometryCollectionType geometryCollectionType = (GeometryCollectionType) Wfs10JTStoGML200Converter
-                    .convertGMLToGeometryType(gml, Wfs10Constants.GEOMETRY_COLLECTION);
-            jaxbElement = (JAXBElement<GeometryCollectionType>) Wfs10JTStoGML200Converter
-                    .convertGeometryTypeToJAXB(geometryCollectionType);
-        } catch (JAXBException jbe) {
-            LOGGER.error("Unable to create MultiPolygonType with geometry: [{}]", geometry);
-        }
-        return jaxbElement;
+        return Wfs10JTStoGML200Converter.convertGeometryCollectionTypeToJAXB(
+                Wfs10JTStoGML200Converter.convertToGeometryCollectionType(
+                        (GeometryCollection) geometry, srsName));
     }
 
     private JAXBElement<? extends AbstractGeometryType> createGeometryOperand(String wkt) {
@@ -40,13 +40,18 @@ public WfsException fromResponse(Response response) {
         if (response != null) {
             if (response.getEntity() instanceof InputStream) {
                 String msg = null;
+                InputStream is = (InputStream) response.getEntity();
                 try {
-                    InputStream is = (InputStream) response.getEntity();
-                    is.reset();
+                    if (is.markSupported()) {
+                        is.reset();
+                    }
                     msg = IOUtils.toString(is);
                 } catch (IOException e) {
                     wfsEx = new WfsException("Error reading Response"
                             + (msg != null ? ": " + msg : ""), e);
+                } finally {
+                    // Closing the response releases any buffer it was spilled to
+                    closeQuietly(is);
                 }
                 if (msg != null) {
                     try {
@@ -73,6 +78,14 @@ public WfsException fromResponse(Response response) {
         return wfsEx;
     }
 
+    private void closeQuietly(InputStream is) {
+        try {
+            is.close();
+        } catch (IOException e) {
+            // The message has already been read, nothing more to do
+        }
+    }
+
     private WfsException convertToWfsException(ServiceExceptionReport report) {
 
         WfsException wfsException = null;
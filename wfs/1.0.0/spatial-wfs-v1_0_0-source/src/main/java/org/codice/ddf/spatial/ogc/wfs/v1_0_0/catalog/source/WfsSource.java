@@ -14,19 +14,20 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.source;
 
+import com.vividsolutions.jts.geom.Envelope;
 import ddf.catalog.Constants;
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.MetacardType;
 import ddf.catalog.data.Result;
 import ddf.catalog.data.impl.ContentTypeImpl;
+import ddf.catalog.data.impl.MetacardImpl;
 import ddf.catalog.data.impl.ResultImpl;
 import ddf.catalog.filter.FilterAdapter;
 import ddf.catalog.operation.Query;
 import ddf.catalog.operation.QueryRequest;
 import ddf.catalog.operation.ResourceResponse;
 import ddf.catalog.operation.SourceResponse;
-import ddf.catalog.operation.impl.QueryImpl;
 import ddf.catalog.operation.impl.ResourceResponseImpl;
 import ddf.catalog.operation.impl.SourceResponseImpl;
 import ddf.catalog.resource.Resource;
@@ -45,6 +46,7 @@
 import ogc.schema.opengis.wfs.v_1_0_0.ObjectFactory;
 import ogc.schema.opengis.wfs.v_1_0_0.QueryType;
 import ogc.schema.opengis.wfs_capabilities.v_1_0_0.FeatureTypeType;
+import ogc.schema.opengis.wfs_capabilities.v_1_0_0.LatLongBoundingBoxType;
 import ogc.schema.opengis.wfs_capabilities.v_1_0_0.WFSCapabilitiesType;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -54,8 +56,12 @@
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityCommand;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityTask;
 import org.codice.ddf.spatial.ogc.catalog.common.ContentTypeFilterDelegate;
+import org.codice.ddf.spatial.ogc.catalog.common.JaxbContextRegistry;
+import org.codice.ddf.spatial.ogc.catalog.common.SpatialExtentFilterDelegate;
 import org.codice.ddf.spatial.ogc.catalog.common.TrustedRemoteSource;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureMetacardType;
+import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureTypeDiscovery;
+import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureTypeExtents;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsException;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsFeatureCollection;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
@@ -64,6 +70,7 @@
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.common.GetCapabilitiesRequest;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.common.Wfs10Constants;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.converter.FeatureConverterFactory;
+import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.source.FeaturePrefixCache.FeaturePrefix;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
@@ -86,15 +93,19 @@
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -108,7 +119,9 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private String wfsUrl;
 
-    private Map<QName, WfsFilterDelegate> featureTypeFilters = new HashMap<QName, WfsFilterDelegate>();
+    private volatile Map<QName, WfsFilterDelegate> featureTypeFilters = new HashMap<QName, WfsFilterDelegate>();
+
+    private volatile FeatureTypeExtents featureTypeExtents = FeatureTypeExtents.empty();
 
     private String username;
 
@@ -154,6 +167,16 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private static final String RECEIVE_TIMEOUT_PROPERTY = "receiveTimeout";
 
+    private static final String BUFFER_RESPONSES_PROPERTY = "bufferResponses";
+
+    private static final String RESPONSE_MEMORY_THRESHOLD_PROPERTY = "responseMemoryThreshold";
+
+    private static final String RESPONSE_SPILL_DIRECTORY_PROPERTY = "responseSpillDirectory";
+
+    private static final String CACHED_FEATURES_PROPERTY = "cachedFeatures";
+
+    private static final String FEATURE_CACHE_EXPIRATION_PROPERTY = "featureCacheExpiration";
+
     private static final String WFS_ERROR_MESSAGE = "Error received from Wfs Server.";
 
     public static final int WFS_MAX_FEATURES_RETURNED = 1000;
@@ -185,6 +208,12 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private Integer receiveTimeout;
 
+    private boolean bufferResponses = true;
+
+    private Integer responseMemoryThreshold;
+
+    private String responseSpillDirectory;
+
     private String forceSpatialFilter = NO_FORCED_SPATIAL_FILTER;
 
     private List<String> supportedGeoFilters;
@@ -199,6 +228,10 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private SecuritySettingsService securitySettingsService;
 
+    private volatile FeaturePrefixCache featurePrefixCache = new FeaturePrefixCache();
+
+    private final FeatureTypeDiscovery featureTypeDiscovery = new FeatureTypeDiscovery();
+
     public WfsSource(RemoteWfs remoteWfs, FilterAdapter filterAdapter, BundleContext context,
             AvailabilityTask task) {
         this.remoteWfs = remoteWfs;
@@ -254,6 +287,16 @@ public void refresh(Map<String, Object> configuration) {
 
         updateTimeouts();
 
+        setBufferResponses(!Boolean.FALSE.equals(configuration.get(BUFFER_RESPONSES_PROPERTY)));
+        setResponseMemoryThreshold((Integer) configuration
+                .get(RESPONSE_MEMORY_THRESHOLD_PROPERTY));
+        setResponseSpillDirectory((String) configuration.get(RESPONSE_SPILL_DIRECTORY_PROPERTY));
+
+        updateResponseBuffering();
+
+        setCachedFeatures((Integer) configuration.get(CACHED_FEATURES_PROPERTY));
+        setFeatureCacheExpiration((Integer) configuration.get(FEATURE_CACHE_EXPIRATION_PROPERTY));
+
         String[] nonQueryableProperties = (String[]) configuration
                 .get(NON_QUERYABLE_PROPS_PROPERTY);
 
@@ -306,6 +349,13 @@ public void updateTimeouts() {
         }
     }
 
+    public void updateResponseBuffering() {
+        if (remoteWfs != null) {
+            remoteWfs.setResponseBuffering(bufferResponses, responseMemoryThreshold,
+                    responseSpillDirectory);
+        }
+    }
+
     private boolean hasWfsUrlChanged(String wfsUrl) {
         return !StringUtils.equals(this.wfsUrl, wfsUrl);
     }
@@ -356,6 +406,8 @@ private void connectToRemoteWfs() {
             remoteWfs.setSecuritySettings(securitySettingsService);
             remoteWfs.setTlsParameters();
             remoteWfs.setTimeouts(connectionTimeout, receiveTimeout);
+            remoteWfs.setResponseBuffering(bufferResponses, responseMemoryThreshold,
+                    responseSpillDirectory);
         } catch (IllegalArgumentException iae) {
             LOGGER.warn("Unable to create RemoteWfs.", iae);
             remoteWfs = null;
@@ -396,11 +448,14 @@ private WFSCapabilitiesType getCapabilities() {
     }
 
     private void configureWfsFeatures() {
+        // Features held from earlier requests were converted with the previous feature types
+        featurePrefixCache.invalidateAll();
         WFSCapabilitiesType capabilities = getCapabilities();
 
         if (capabilities != null) {
             List<FeatureTypeType> featureTypes = getFeatureTypes(capabilities);
             List<String> supportedGeo = getSupportedGeo(capabilities);
+            featureTypeExtents = buildFeatureTypeExtents(featureTypes);
             buildFeatureFilters(featureTypes, supportedGeo);
         } else {
             LOGGER.warn("WfsSource {}: WFS Server did not return any capabilities.", getId());
@@ -415,6 +470,45 @@ private List<FeatureTypeType> getFeatureTypes(WFSCapabilitiesType capabilities)
         return featureTypes;
     }
 
+    /**
+     * Indexes the LatLongBoundingBoxes each feature type advertises, so that queries are only
+     * sent to the feature types that may hold a feature within their spatial constraint.
+     */
+    private FeatureTypeExtents buildFeatureTypeExtents(List<FeatureTypeType> featureTypes) {
+        Map<QName, Envelope> extents = new HashMap<QName, Envelope>();
+        for (FeatureTypeType featureTypeType : featureTypes) {
+            Envelope extent = null;
+            try {
+                for (LatLongBoundingBoxType boundingBox : featureTypeType.getLatLongBoundingBox()) {
+                    Envelope box = FeatureTypeExtents.boundingBox(
+                            parseCoordinate(boundingBox.getMinx()),
+                            parseCoordinate(boundingBox.getMiny()),
+                            parseCoordinate(boundingBox.getMaxx()),
+                            parseCoordinate(boundingBox.getMaxy()));
+                    if (extent == null) {
+                        extent = box;
+                    } else {
+                        extent.expandToInclude(box);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Without a valid box the feature type could hold features anywhere
+                LOGGER.debug("WfsSource {}: Invalid LatLongBoundingBox for {}.", getId(),
+                        featureTypeType.getName(), e);
+                extent = null;
+            }
+            extents.put(featureTypeType.getName(), extent);
+        }
+        return new FeatureTypeExtents(extents);
+    }
+
+    private double parseCoordinate(String coordinate) {
+        if (coordinate == null) {
+            throw new NumberFormatException("Missing coordinate");
+        }
+        return Double.parseDouble(coordinate.trim());
+    }
+
     private List<String> getSupportedGeo(WFSCapabilitiesType capabilities) {
         supportedGeoFilters = new ArrayList<String>();
         List<Object> geoTypes = capabilities.getFilterCapabilities().getSpatialCapabilities()
@@ -429,117 +523,156 @@ private List<String> getSupportedGeo(WFSCapabilitiesType capabilities) {
         return supportedGeoFilters;
     }
 
-    private void buildFeatureFilters(List<FeatureTypeType> featureTypes, List<String> supportedGeo) {
+    private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
+            final List<String> supportedGeo) {
 
-        // Use local Map for metacardtype registrations and once they are populated with latest
-        // MetacardTypes, then do actual registration
-        Map<String, MetacardTypeRegistration> mcTypeRegs = new HashMap<String, MetacardTypeRegistration>();
+        Map<String, Callable<MetacardTypeRegistration>> describeRequests = new LinkedHashMap<String, Callable<MetacardTypeRegistration>>();
 
-        for (FeatureTypeType featureTypeType : featureTypes) {
+        for (final FeatureTypeType featureTypeType : featureTypes) {
             String ftName = featureTypeType.getName().getLocalPart();
 
-            if (mcTypeRegs.containsKey(ftName)) {
+            if (describeRequests.containsKey(ftName)) {
                 LOGGER.debug(
                         "WfsSource {}: MetacardType {} is already registered - skipping to next metacard type",
                         getId(), ftName);
                 continue;
             }
 
-            LOGGER.debug("ftName: {}", ftName);
-            try {
-                XmlSchema schema = remoteWfs.describeFeatureType(new DescribeFeatureTypeRequest(
-                        featureTypeType.getName()));
-
-                if ((schema != null)) {
-                    FeatureMetacardType ftMetacard = new FeatureMetacardType(schema,
-                            featureTypeType.getName(),
-                            nonQueryableProperties != null ? Arrays.asList(nonQueryableProperties)
-                                    : new ArrayList<String>(), Wfs10Constants.GML_NAMESPACE);
-
-                    Dictionary<String, Object> props = new Hashtable<String, Object>();
-                    props.put(Metacard.CONTENT_TYPE, new String[] {ftName});
-
-                    LOGGER.debug("WfsSource {}: Registering MetacardType: {}", getId(), ftName);
-
-                    // Update local map with enough info to create actual MetacardType registrations
-                    // later
-                    mcTypeRegs.put(ftName, new MetacardTypeRegistration(ftMetacard, props,
-                            featureTypeType.getSRS()));
-
-                    FeatureConverter featureConverter = null;
-
-                    if (!CollectionUtils.isEmpty(featureConverterFactories)) {
-                        for (FeatureConverterFactory factory : featureConverterFactories) {
-                            if (ftName.equalsIgnoreCase(factory.getFeatureType())) {
-                                featureConverter = factory.createConverter();
-                                LOGGER.debug(
-                                        "WFS Source {}: Features of type: {} will be converted using {}",
-                                        getId(), ftName, featureConverter.getClass().getSimpleName());
-                                break;
-                            }
-
-                        }
-
-                        if (featureConverter == null) {
-                            LOGGER.warn(
-                                    "WfsSource {}: Unable to find a feature specific converter; {} will be converted using the GenericFeatureConverter",
-                                    getId(), ftName);
-                            featureConverter = new GenericFeatureConverter();
-                        }
-                    } else {
-                        LOGGER.warn(
-                                "WfsSource {}: Unable to find a feature specific converter; {} will be converted using the GenericFeatureConverter",
-                                getId(), ftName);
-                        featureConverter = new GenericFeatureConverter();
+            describeRequests.put(ftName, new Callable<MetacardTypeRegistration>() {
+                @Override
+                public MetacardTypeRegistration call() {
+                    return describeFeatureType(featureTypeType);
+                }
+            });
+        }
 
+        // Each feature type replaces its previous MetacardType registration and filter delegate as
+        // soon as its schema has been described, so queries can be answered for it while slower
+        // schemas are still outstanding. Feature types that were not described this time are
+        // removed once all of the requests have completed.
+        final Set<String> describedTypes = new HashSet<String>();
+        featureTypeDiscovery.discover(describeRequests,
+                new FeatureTypeDiscovery.Callback<MetacardTypeRegistration>() {
+                    @Override
+                    public void discovered(String ftName, MetacardTypeRegistration mcTypeReg) {
+                        publishFeatureType(ftName, mcTypeReg, supportedGeo);
+                        describedTypes.add(ftName);
                     }
-                    featureConverter.setSourceId(getId());
-                    featureConverter.setMetacardType(ftMetacard);
-                    featureConverter.setWfsUrl(wfsUrl);
+                });
+        removeFeatureTypesNotIn(describedTypes);
 
-                    // Add the Feature Type name as an alias for xstream
-                    remoteWfs.getFeatureCollectionReader().registerConverter(featureConverter);
-                }
+        if (featureTypeFilters.isEmpty()) {
+            LOGGER.warn(
+                    "Wfs Source {}: No Feature Type schemas validated. Marking source as unavailable",
+                    getId());
+        }
+        LOGGER.debug("Wfs Source {}: Number of validated Features = {}", getId(),
+                featureTypeFilters.size());
+    }
 
-            } catch (WfsException wfse) {
-                LOGGER.warn(WFS_ERROR_MESSAGE, wfse);
-            } catch (WebApplicationException wae) {
-                handleWebApplicationException(wae);
-            } catch (IllegalArgumentException ie) {
-                LOGGER.warn(WFS_ERROR_MESSAGE, ie);
+    /**
+     * Called from the discovery threads.
+     * 
+     * @return the MetacardType registration of the feature type, or null if it could not be
+     *         described
+     */
+    private MetacardTypeRegistration describeFeatureType(FeatureTypeType featureTypeType) {
+        String ftName = featureTypeType.getName().getLocalPart();
+        LOGGER.debug("ftName: {}", ftName);
+        try {
+            XmlSchema schema = remoteWfs.describeFeatureType(new DescribeFeatureTypeRequest(
+                    featureTypeType.getName()));
+
+            if ((schema != null)) {
+                FeatureMetacardType ftMetacard = new FeatureMetacardType(schema,
+                        featureTypeType.getName(),
+                        nonQueryableProperties != null ? Arrays.asList(nonQueryableProperties)
+                                : new ArrayList<String>(), Wfs10Constants.GML_NAMESPACE);
+
+                Dictionary<String, Object> props = new Hashtable<String, Object>();
+                props.put(Metacard.CONTENT_TYPE, new String[] {ftName});
+
+                return new MetacardTypeRegistration(ftMetacard, props, featureTypeType.getSRS());
             }
 
+        } catch (WfsException wfse) {
+            LOGGER.warn(WFS_ERROR_MESSAGE, wfse);
+        } catch (WebApplicationException wae) {
+            handleWebApplicationException(wae);
+        } catch (IllegalArgumentException ie) {
+            LOGGER.warn(WFS_ERROR_MESSAGE, ie);
         }
+        return null;
+    }
+
+    private void publishFeatureType(String ftName, MetacardTypeRegistration mcTypeReg,
+            List<String> supportedGeo) {
+        FeatureMetacardType ftMetacard = mcTypeReg.getFtMetacard();
+
+        FeatureConverter featureConverter = null;
+
+        if (!CollectionUtils.isEmpty(featureConverterFactories)) {
+            for (FeatureConverterFactory factory : featureConverterFactories) {
+                if (ftName.equalsIgnoreCase(factory.getFeatureType())) {
+                    featureConverter = factory.createConverter();
+                    LOGGER.debug(
+                            "WFS Source {}: Features of type: {} will be converted using {}",
+                            getId(), ftName, featureConverter.getClass().getSimpleName());
+                    break;
+                }
 
-        // Unregister all MetacardType services - the DescribeFeatureTypeRequest should
-        // have returned all of the most current metacard types that will now be registered.
-        // As Source(s) are added/removed from this instance or to other Source(s)
-        // that this instance is federated to, the list of metacard types will change.
-        // This is done here vs. inside the above loop so that minimal time is spent clearing and
-        // registering the MetacardTypes - the concern is that if this registration is too lengthy
-        // a query could come in that is handled while the MetacardType registrations are
-        // in a state of flux.
-        unregisterAllMetacardTypes();
-        this.featureTypeFilters.clear();
-        if (!mcTypeRegs.isEmpty()) {
-            for (String ftName : mcTypeRegs.keySet()) {
-                MetacardTypeRegistration mcTypeReg = mcTypeRegs.get(ftName);
-                FeatureMetacardType ftMetacard = mcTypeReg.getFtMetacard();
-                ServiceRegistration serviceRegistration = context.registerService(
-                        MetacardType.class.getName(), ftMetacard, mcTypeReg.getProps());
-                this.metacardTypeServiceRegistrations.put(ftName, serviceRegistration);
-                this.featureTypeFilters.put(ftMetacard.getFeatureType(), new WfsFilterDelegate(
-                        ftMetacard, supportedGeo, mcTypeReg.getSrs()));
             }
-        }
 
-        if (featureTypeFilters.isEmpty()) {
+            if (featureConverter == null) {
+                LOGGER.warn(
+                        "WfsSource {}: Unable to find a feature specific converter; {} will be converted using the GenericFeatureConverter",
+                        getId(), ftName);
+                featureConverter = new GenericFeatureConverter();
+            }
+        } else {
             LOGGER.warn(
-                    "Wfs Source {}: No Feature Type schemas validated. Marking source as unavailable",
-                    getId());
+                    "WfsSource {}: Unable to find a feature specific converter; {} will be converted using the GenericFeatureConverter",
+                    getId(), ftName);
+            featureConverter = new GenericFeatureConverter();
+
         }
-        LOGGER.debug("Wfs Source {}: Number of validated Features = {}", getId(),
-                featureTypeFilters.size());
+        featureConverter.setSourceId(getId());
+        featureConverter.setMetacardType(ftMetacard);
+        featureConverter.setWfsUrl(wfsUrl);
+
+        // Add the Feature Type name as an alias for xstream
+        remoteWfs.getFeatureCollectionReader().registerConverter(featureConverter);
+
+        LOGGER.debug("WfsSource {}: Registering MetacardType: {}", getId(), ftName);
+        unregisterMetacardType(ftName);
+        ServiceRegistration serviceRegistration = context.registerService(
+                MetacardType.class.getName(), ftMetacard, mcTypeReg.getProps());
+        this.metacardTypeServiceRegistrations.put(ftName, serviceRegistration);
+
+        // Queries read the filter delegates without locking, so they are replaced rather than
+        // modified
+        Map<QName, WfsFilterDelegate> filters = new HashMap<QName, WfsFilterDelegate>(
+                featureTypeFilters);
+        filters.put(ftMetacard.getFeatureType(), new WfsFilterDelegate(ftMetacard, supportedGeo,
+                mcTypeReg.getSrs()));
+        this.featureTypeFilters = filters;
+    }
+
+    private void removeFeatureTypesNotIn(Set<String> ftNames) {
+        for (String ftName : new ArrayList<String>(metacardTypeServiceRegistrations.keySet())) {
+            if (!ftNames.contains(ftName)) {
+                unregisterMetacardType(ftName);
+            }
+        }
+        Map<QName, WfsFilterDelegate> filters = new HashMap<QName, WfsFilterDelegate>(
+                featureTypeFilters);
+        Iterator<QName> featureTypes = filters.keySet().iterator();
+        while (featureTypes.hasNext()) {
+            if (!ftNames.contains(featureTypes.next().getLocalPart())) {
+                featureTypes.remove();
+            }
+        }
+        this.featureTypeFilters = filters;
     }
 
     @Override
@@ -565,82 +698,72 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
                             + query.getStartIndex() + "]");
         }
 
-        SourceResponseImpl simpleResponse = null;
-
-        // WFS v1.0 specification does not support response indicating total
-        // number
-        // of features satisfying query constraints.
-        // Hence, we save off the original
-        // page size from the query request and create a copy of the query,
-        // changing
-        // the page size by a multiplier and the current page number of results
-        // so that
-        // more features are returned as the user pages through the results,
-        // getting
-        // a better sense of how many total features exist that satisfy the
-        // query.
-        int origPageSize = query.getPageSize();
-        if (origPageSize <= 0 || origPageSize > WFS_MAX_FEATURES_RETURNED) {
-            origPageSize = WFS_MAX_FEATURES_RETURNED;
+        // WFS v1.0 has no start index and does not report the total number of features
+        // satisfying the query, so every page is read from the first feature. The features
+        // read for a request are kept, so later pages are served from them until a page
+        // extends past the ones held. Each fetch reads a multiple of the requested window,
+        // so the features held grow geometrically as the user pages through the results.
+        int pageSize = query.getPageSize();
+        if (pageSize <= 0 || pageSize > WFS_MAX_FEATURES_RETURNED) {
+            pageSize = WFS_MAX_FEATURES_RETURNED;
+        }
+        int windowEnd = (int) Math.min((long) query.getStartIndex() - 1 + pageSize,
+                Integer.MAX_VALUE);
+
+        GetFeatureType getFeature = buildGetFeatureRequest(query);
+        if (getFeature == null) {
+            LOGGER.debug(
+                    "WFS Source {}: No feature type can hold a match for the query - skipping the request.",
+                    getId());
+            return new SourceResponseImpl(request, new ArrayList<Result>(), 0L);
         }
-        QueryImpl modifiedQuery = new QueryImpl(query);
-
-        // Determine current page number of results being requested.
-        // Example: startIndex = 21 and origPageSize=10, then requesting to go
-        // to page number 3.
-        // Note: Integer division will truncate remainders so 4 / 2 will return 0 and not .5.  Also,
-        // pages are numbered 1 - N so we add 1 to the result
-        int pageNumber = query.getStartIndex() / origPageSize + 1;
-
-        // Modified page size is based on current page number and a constant
-        // multiplier,
-        // but limited to a max value to prevent time consuming queries just to
-        // get an
-        // approximation of total number of features.
-        // So as page number increases the pageSize increases.
-        // Example:
-        // pageNumber=2, modifiedPageSize=60
-        // pageNumber=3, modifiedPageSize=90
-        int modifiedPageSize = Math.min(pageNumber * origPageSize * WFS_QUERY_PAGE_SIZE_MULTIPLIER,
-                WFS_MAX_FEATURES_RETURNED);
-        LOGGER.debug("WFS Source {}: modified page size = {}", getId(), modifiedPageSize);
-        modifiedQuery.setPageSize(modifiedPageSize);
-
-        GetFeatureType getFeature = buildGetFeatureRequest(modifiedQuery);
+        String requestKey = getRequestKey(getFeature);
 
         try {
-            LOGGER.debug("WFS Source {}: Sending query ...", getId());
-            WfsFeatureCollection featureCollection = remoteWfs.getFeature(getFeature);
+            FeaturePrefix prefix = requestKey != null ? featurePrefixCache.get(requestKey) : null;
+            if (prefix != null && prefix.covers(windowEnd)) {
+                LOGGER.debug("WFS Source {}: Serving features {} to {} from previous results.",
+                        getId(), query.getStartIndex(), windowEnd);
+            } else {
+                int maxFeatures = (int) Math.min((long) windowEnd
+                        * WFS_QUERY_PAGE_SIZE_MULTIPLIER, WFS_MAX_FEATURES_RETURNED);
+                LOGGER.debug("WFS Source {}: max features = {}", getId(), maxFeatures);
+                getFeature.setMaxFeatures(BigInteger.valueOf(maxFeatures));
+                logMessage(getFeature);
+
+                LOGGER.debug("WFS Source {}: Sending query ...", getId());
+                WfsFeatureCollection featureCollection = remoteWfs.getFeature(getFeature);
 
-            if (featureCollection == null) {
-                throw new UnsupportedQueryException("Invalid results returned from server");
+                if (featureCollection == null) {
+                    throw new UnsupportedQueryException("Invalid results returned from server");
+                }
+                availabilityTask.updateLastAvailableTimestamp(System.currentTimeMillis());
+                List<Metacard> featureMembers = featureCollection.getFeatureMembers();
+                LOGGER.debug("WFS Source {}: Received featureCollection with {} metacards.",
+                        getId(), featureMembers.size());
+
+                // Fewer features than asked for means there are no more, and no more than
+                // the maximum are ever asked for
+                prefix = new FeaturePrefix(featureMembers, featureMembers.size() < maxFeatures
+                        || maxFeatures >= WFS_MAX_FEATURES_RETURNED);
+                if (requestKey != null) {
+                    featurePrefixCache.put(requestKey, prefix);
+                }
             }
-            availabilityTask.updateLastAvailableTimestamp(System.currentTimeMillis());
-            LOGGER.debug("WFS Source {}: Received featureCollection with {} metacards.", getId(),
-                    featureCollection.getFeatureMembers().size());
-
-            // Only return the number of results originally asked for in the
-            // query, or the entire list of results if it is smaller than the
-            // original page size.
-            int numberOfResultsToReturn = Math.min(origPageSize, featureCollection
-                    .getFeatureMembers().size());
-            List<Result> results = new ArrayList<Result>(numberOfResultsToReturn);
-
-            int stopIndex = Math.min((origPageSize * pageNumber) + query.getStartIndex(),
-                    featureCollection.getFeatureMembers().size() + 1);
-
-            LOGGER.debug("WFS Source {}: startIndex = {}, stopIndex = {}, origPageSize = {}, pageNumber = {}"
-                    , getId(), query.getStartIndex(), stopIndex, origPageSize, pageNumber);
-
-            for (int i = query.getStartIndex(); i < stopIndex; i++) {
-                Metacard mc = featureCollection.getFeatureMembers().get(i - 1);
-                mc = transform(mc, DEFAULT_WFS_TRANSFORMER_ID);
-                Result result = new ResultImpl(mc);
+
+            // Only the features in the requested page are transformed. Each is copied first, as
+            // the held features are shared by later pages and other queries of the same request
+            List<Metacard> page = prefix.getFeatures(query.getStartIndex() - 1, pageSize);
+            LOGGER.debug("WFS Source {}: startIndex = {}, pageSize = {}, returning {} results",
+                    getId(), query.getStartIndex(), pageSize, page.size());
+            List<Result> results = new ArrayList<Result>(page.size());
+            for (Metacard mc : page) {
+                Result result = new ResultImpl(transform(new MetacardImpl(mc),
+                        DEFAULT_WFS_TRANSFORMER_ID));
                 results.add(result);
                 debugResult(result);
             }
-            Long totalHits = new Long(featureCollection.getFeatureMembers().size());
-            simpleResponse = new SourceResponseImpl(request, results, totalHits);
+            return new SourceResponseImpl(request, results, prefix.getHits());
         } catch (WfsException wfse) {
             LOGGER.warn(WFS_ERROR_MESSAGE, wfse);
             throw new UnsupportedQueryException("Error received from WFS Server", wfse);
@@ -648,18 +771,51 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
             String msg = handleClientException(ce);
             throw new UnsupportedQueryException(msg, ce);
         }
+    }
 
-        return simpleResponse;
+    /**
+     * @return the GetFeature request without its max features, identifying the features it
+     *         returns, or null if the request could not be marshalled
+     */
+    private String getRequestKey(GetFeatureType getFeature) {
+        try {
+            JAXBContext context = JaxbContextRegistry.getContext(GetFeatureType.class);
+            Marshaller marshaller = JaxbContextRegistry.acquireMarshaller(context);
+            try {
+                StringWriter writer = new StringWriter();
+                marshaller.marshal(new ObjectFactory().createGetFeature(getFeature), writer);
+                return writer.toString();
+            } finally {
+                JaxbContextRegistry.releaseMarshaller(context, marshaller);
+            }
+        } catch (JAXBException e) {
+            LOGGER.debug("WFS Source {}: Unable to identify GetFeature request, it will not be "
+                    + "reused for later pages.", getId(), e);
+            return null;
+        }
     }
 
+    /**
+     * @return the request, or null if the advertised extent of every feature type in the query is
+     *         outside of its spatial constraint
+     */
     private GetFeatureType buildGetFeatureRequest(Query query) throws UnsupportedQueryException {
         List<ContentType> contentTypes = getContentTypesFromQuery(query);
+        Set<QName> featureTypesOutside = getFeatureTypesOutside(query);
         List<QueryType> queries = new ArrayList<QueryType>();
+        boolean anyOutside = false;
 
         for (Entry<QName, WfsFilterDelegate> filterDelegateEntry : featureTypeFilters.entrySet()) {
             if (contentTypes.isEmpty()
                     || isFeatureTypeInQuery(contentTypes, filterDelegateEntry.getKey()
                             .getLocalPart())) {
+                if (featureTypesOutside.contains(filterDelegateEntry.getKey())) {
+                    LOGGER.debug(
+                            "WFS Source {}: The extent of {} is outside of the query - skipping it.",
+                            getId(), filterDelegateEntry.getKey());
+                    anyOutside = true;
+                    continue;
+                }
                 QueryType wfsQuery = new QueryType();
                 wfsQuery.setTypeName(filterDelegateEntry.getKey());
                 FilterType filter = filterAdapter.adapt(query, filterDelegateEntry.getValue());
@@ -677,18 +833,35 @@ private GetFeatureType buildGetFeatureRequest(Query query) throws UnsupportedQue
         if (queries != null && !queries.isEmpty()) {
 
             GetFeatureType getFeatureType = new GetFeatureType();
-            getFeatureType.setMaxFeatures(BigInteger.valueOf(query.getPageSize()));
             getFeatureType.getQuery().addAll(queries);
             getFeatureType.setService(Wfs10Constants.WFS);
             getFeatureType.setVersion(Wfs10Constants.VERSION_1_0_0);
-            logMessage(getFeatureType);
             return getFeatureType;
+        } else if (anyOutside) {
+            return null;
         } else {
             throw new UnsupportedQueryException(
                     "Unable to build query. No filters could be created from query criteria.");
         }
     }
 
+    private Set<QName> getFeatureTypesOutside(Query query) {
+        Envelope extent;
+        try {
+            extent = filterAdapter.adapt(query, new SpatialExtentFilterDelegate());
+        } catch (UnsupportedQueryException e) {
+            LOGGER.debug("WFS Source {}: Unable to find the extent of the query.", getId(), e);
+            return Collections.emptySet();
+        } catch (UnsupportedOperationException e) {
+            LOGGER.debug("WFS Source {}: Unable to find the extent of the query.", getId(), e);
+            return Collections.emptySet();
+        }
+        if (extent == null || SpatialExtentFilterDelegate.isUnbounded(extent)) {
+            return Collections.emptySet();
+        }
+        return featureTypeExtents.getFeatureTypesOutside(extent, featureTypeFilters.keySet());
+    }
+
     private boolean areAnyFiltersSet(FilterType filter) {
         if (filter != null) {
             return (filter.isSetComparisonOps() || filter.isSetFeatureId()
@@ -761,6 +934,14 @@ private void unregisterAllMetacardTypes() {
         metacardTypeServiceRegistrations.clear();
     }
 
+    private void unregisterMetacardType(String ftName) {
+        ServiceRegistration metacardTypeServiceRegistration = metacardTypeServiceRegistrations
+                .remove(ftName);
+        if (metacardTypeServiceRegistration != null) {
+            metacardTypeServiceRegistration.unregister();
+        }
+    }
+
     @Override
     public Set<ContentType> getContentTypes() {
         Set<QName> typeNames = featureTypeFilters.keySet();
@@ -872,6 +1053,41 @@ public void setReceiveTimeout(Integer timeout) {
         this.receiveTimeout = timeout;
     }
 
+    public void setBufferResponses(boolean bufferResponses) {
+        this.bufferResponses = bufferResponses;
+    }
+
+    public void setResponseMemoryThreshold(Integer responseMemoryThreshold) {
+        this.responseMemoryThreshold = responseMemoryThreshold;
+    }
+
+    public void setResponseSpillDirectory(String responseSpillDirectory) {
+        this.responseSpillDirectory = responseSpillDirectory;
+    }
+
+    /**
+     * @param cachedFeatures
+     *            - the most features held for paging across all requests, zero to hold none
+     */
+    public void setCachedFeatures(Integer cachedFeatures) {
+        if (cachedFeatures != null && cachedFeatures != featurePrefixCache.getMaxFeatures()) {
+            featurePrefixCache = new FeaturePrefixCache(cachedFeatures,
+                    featurePrefixCache.getExpirationSeconds());
+        }
+    }
+
+    /**
+     * @param expirationSeconds
+     *            - how long the features of a request are held for paging after they were fetched
+     */
+    public void setFeatureCacheExpiration(Integer expirationSeconds) {
+        if (expirationSeconds != null
+                && expirationSeconds != featurePrefixCache.getExpirationSeconds()) {
+            featurePrefixCache = new FeaturePrefixCache(featurePrefixCache.getMaxFeatures(),
+                    expirationSeconds);
+        }
+    }
+
     public void setFilterAdapter(FilterAdapter filterAdapter) {
         this.filterAdapter = filterAdapter;
     }
@@ -36,6 +36,7 @@
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlEnvelopeConverter;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.GmlGeometryConverter;
+import org.codice.ddf.spatial.ogc.wfs.catalog.source.SpillableInputStream;
 import org.codice.ddf.spatial.ogc.wfs.v1_0_0.catalog.converter.impl.FeatureCollectionConverterWfs10;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -84,6 +85,11 @@ public WfsFeatureCollection readFrom(Class<WfsFeatureCollection> clazz, Type typ
             Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> headers,
             InputStream inStream) throws IOException, WebApplicationException {
 
+        // The response is copied below and never reset, so it does not need to be buffered
+        if (inStream instanceof SpillableInputStream) {
+            ((SpillableInputStream) inStream).stopBuffering();
+        }
+
         // Save original input stream for any exception message that might need to be
         // created
         String originalInputStream = IOUtils.toString(inStream, "UTF-8");
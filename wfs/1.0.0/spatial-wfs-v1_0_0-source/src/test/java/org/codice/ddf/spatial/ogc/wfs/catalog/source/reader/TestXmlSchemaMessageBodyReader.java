@@ -18,6 +18,7 @@
 import static org.junit.Assert.assertNull;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import javax.ws.rs.WebApplicationException;
@@ -57,4 +58,12 @@ public void testReadFromServiceExceptionReport() throws WebApplicationException,
         XmlSchema schema = reader.readFrom(null, null, null, null, null, ser);
         assertNull(schema);
     }
+
+    @Test
+    public void testReadFromMalformedXml() throws WebApplicationException, IOException {
+        XmlSchemaMessageBodyReaderWfs10 reader = new XmlSchemaMessageBodyReaderWfs10();
+        XmlSchema schema = reader.readFrom(null, null, null, null, null,
+                new ByteArrayInputStream("<xsd:schema".getBytes()));
+        assertNull(schema);
+    }
 }
@@ -17,8 +17,11 @@
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
@@ -102,6 +105,24 @@ public void testWfsExceptionWithMultipleServiceExceptions() {
         assertThat(wfsException.getMessage(), containsString("Second exception text"));
     }
 
+    @Test
+    public void testResponseStreamIsClosed() {
+        final AtomicBoolean closed = new AtomicBoolean(false);
+        ByteArrayInputStream bis = new ByteArrayInputStream(("<ServiceExceptionReport "
+                + "xmlns='http://www.opengis.net/ogc'/>").getBytes()) {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+        Response response = Response.ok(bis).type("text/xml").build();
+
+        new WfsResponseExceptionMapper().fromResponse(response);
+
+        assertThat(closed.get(), is(true));
+    }
+
     // //////////////////////////////////////////////////////////////
 
     private WfsException createWfsException(String serviceExceptionReportXml) {
@@ -78,6 +78,7 @@
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -704,6 +705,92 @@ public void testPagingPageSizeExceedsFeatureCountStartIndexTwo() throws WfsExcep
         assertCorrectMetacardsReturned(results, startIndex, MAX_FEATURES - 1);
     }
 
+    /**
+     * Given 10 features exist and the first page of 4 asked for 12, the second page should be
+     * served from the features already returned without another GetFeature request.
+     *
+     * @throws WfsException
+     * @throws UnsupportedQueryException
+     */
+    @Test
+    public void testPagingLaterPageIsServedFromPreviousResults() throws WfsException,
+        UnsupportedQueryException {
+
+        int pageSize = 4;
+
+        setUp(ONE_TEXT_PROPERTY_SCHEMA, null, null, MAX_FEATURES, null);
+
+        executeQuery(1, pageSize);
+        SourceResponse response = executeQuery(5, pageSize);
+        List<Result> results = response.getResults();
+
+        verify(mockWfs, times(1)).getFeature(any(GetFeatureType.class));
+        assertThat(results.size(), is(pageSize));
+        assertThat(response.getHits(), equalTo(new Long(MAX_FEATURES)));
+        assertCorrectMetacardsReturned(results, 5, pageSize);
+    }
+
+    @Test
+    public void testChangesToReturnedMetacardsDoNotReachLaterQueries() throws WfsException,
+        UnsupportedQueryException {
+
+        int pageSize = 4;
+
+        setUp(ONE_TEXT_PROPERTY_SCHEMA, null, null, MAX_FEATURES, null);
+
+        List<Result> firstResults = executeQuery(1, pageSize).getResults();
+        ((MetacardImpl) firstResults.get(0).getMetacard()).setId("changed");
+        List<Result> secondResults = executeQuery(1, pageSize).getResults();
+
+        verify(mockWfs, times(1)).getFeature(any(GetFeatureType.class));
+        assertThat(secondResults.size(), is(pageSize));
+        assertCorrectMetacardsReturned(secondResults, 1, pageSize);
+    }
+
+    @Test
+    public void testPagingWithFeatureCacheDisabledFetchesEveryPage() throws WfsException,
+        UnsupportedQueryException {
+
+        int pageSize = 4;
+
+        setUp(ONE_TEXT_PROPERTY_SCHEMA, null, null, MAX_FEATURES, null);
+        source.setCachedFeatures(0);
+
+        executeQuery(1, pageSize);
+        SourceResponse response = executeQuery(5, pageSize);
+
+        verify(mockWfs, times(2)).getFeature(any(GetFeatureType.class));
+        assertCorrectMetacardsReturned(response.getResults(), 5, pageSize);
+    }
+
+    /**
+     * Given the first page of 10 asked for 30 features and got all 30, a page past them should
+     * ask for three times the features up to the end of that page.
+     *
+     * @throws WfsException
+     * @throws UnsupportedQueryException
+     */
+    @Test
+    public void testPagingPastPreviousResultsFetchesMoreFeatures() throws WfsException,
+        UnsupportedQueryException {
+
+        int pageSize = 10;
+        int numResults = 30;
+
+        setUp(ONE_TEXT_PROPERTY_SCHEMA, null, null, 1, numResults);
+
+        executeQuery(1, pageSize);
+        SourceResponse response = executeQuery(31, pageSize);
+
+        ArgumentCaptor<GetFeatureType> captor = ArgumentCaptor.forClass(GetFeatureType.class);
+        verify(mockWfs, times(2)).getFeature(captor.capture());
+        assertThat(captor.getAllValues().get(0).getMaxFeatures(), equalTo(BigInteger.valueOf(30)));
+        assertThat(captor.getAllValues().get(1).getMaxFeatures(),
+                equalTo(BigInteger.valueOf(120)));
+        assertThat(response.getResults().size(), is(0));
+        assertThat(response.getHits(), equalTo(new Long(numResults)));
+    }
+
     /**
      * Verify that, per DDF Query API Javadoc, if the startIndex is negative, the WfsSource throws
      * an UnsupportedQueryException.
@@ -830,6 +917,49 @@ public void testGetContentTypes() throws WfsException {
         }
     }
 
+    @Test
+    public void testResponseBufferingIsAppliedToRemoteWfs() throws WfsException {
+        setUp(NO_PROPERTY_SCHEMA, null, null, ONE_FEATURE, null);
+        source.setBufferResponses(false);
+        source.setResponseMemoryThreshold(4096);
+        source.setResponseSpillDirectory("/tmp/wfs");
+
+        source.updateResponseBuffering();
+
+        verify(mockWfs).setResponseBuffering(false, 4096, "/tmp/wfs");
+    }
+
+    @Test
+    public void testFeatureTypeThatFailsToDescribeIsSkipped() throws WfsException {
+        setUp(ONE_TEXT_PROPERTY_SCHEMA, null, null, 3, null);
+        final XmlSchema schema = mockWfs.describeFeatureType(new DescribeFeatureTypeRequest(
+                sampleFeatures.get(0)));
+        final String failingTypeName = sampleFeatures.get(1).getPrefix() + ":"
+                + sampleFeatures.get(1).getLocalPart();
+        when(mockWfs.describeFeatureType(any(DescribeFeatureTypeRequest.class))).thenAnswer(
+                new Answer<XmlSchema>() {
+                    @Override
+                    public XmlSchema answer(InvocationOnMock invocation) throws WfsException {
+                        DescribeFeatureTypeRequest request = (DescribeFeatureTypeRequest) invocation
+                                .getArguments()[0];
+                        if (failingTypeName.equals(request.getTypeName())) {
+                            throw new WfsException("Unable to describe feature type");
+                        }
+                        return schema;
+                    }
+                });
+
+        source = new WfsSource(mockWfs, new GeotoolsFilterAdapterImpl(), mockContext,
+                mockAvailabilityTask);
+
+        Set<ContentType> contentTypes = source.getContentTypes();
+        assertThat(contentTypes.size(), is(TWO_FEATURES));
+        for (ContentType contentType : contentTypes) {
+            assertTrue(sampleFeatures.get(0).getLocalPart().equals(contentType.getName())
+                    || sampleFeatures.get(2).getLocalPart().equals(contentType.getName()));
+        }
+    }
+
     @Test
     public void testQueryTwoFeaturesOneInvalid() throws UnsupportedQueryException, WfsException {
         setUp(TWO_TEXT_PROPERTY_SCHEMA, null, null, TWO_FEATURES, null);
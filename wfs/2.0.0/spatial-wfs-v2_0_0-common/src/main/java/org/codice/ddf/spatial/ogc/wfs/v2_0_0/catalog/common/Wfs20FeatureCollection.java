@@ -18,12 +18,16 @@
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
+
+import com.vividsolutions.jts.geom.Envelope;
+
 import ddf.catalog.data.Metacard;
 
 public class Wfs20FeatureCollection {
     private BigInteger numberReturned;
     private String numberMatched;
     private List<Metacard> members = new ArrayList<Metacard>();
+    private Envelope bounds;
     
     public BigInteger getNumberReturned() {
         return numberReturned;
@@ -43,5 +47,15 @@ public List<Metacard> getMembers() {
     public void setMembers(List<Metacard> members) {
         this.members = members;
     }
+    /**
+     * @return the bounds of the members when they are already known, e.g. accumulated while the
+     *         members were read, or null if they have to be computed from the members
+     */
+    public Envelope getBounds() {
+        return bounds;
+    }
+    public void setBounds(Envelope bounds) {
+        this.bounds = bounds;
+    }
     
 }
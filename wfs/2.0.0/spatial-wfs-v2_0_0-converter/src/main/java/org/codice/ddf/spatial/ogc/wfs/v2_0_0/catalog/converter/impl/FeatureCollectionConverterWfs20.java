@@ -15,7 +15,6 @@
 
 package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.converter.impl;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -26,6 +25,7 @@
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 
+import org.codice.ddf.spatial.ogc.catalog.common.converter.BoundsAccumulator;
 import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20Constants;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
@@ -40,9 +40,7 @@
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
 import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
-import com.vividsolutions.jts.geom.Geometry;
-import com.vividsolutions.jts.geom.GeometryCollection;
-import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.Envelope;
 
 import ddf.catalog.data.Metacard;
 import ddf.catalog.data.impl.MetacardImpl;
@@ -95,10 +93,15 @@ public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingCo
             }
             writer.addAttribute(Wfs20Constants.ATTRIBUTE_SCHEMA_LOCATION, schemaLoc);
     
-            Geometry allGeometry = getBounds(wfc.getMembers());
-            if (!allGeometry.isEmpty()) {
+            // boundedBy precedes the members, so use the bounds accumulated when the members
+            // were read if there are any
+            Envelope bounds = wfc.getBounds();
+            if (bounds == null) {
+                bounds = BoundsAccumulator.getBounds(wfc.getMembers());
+            }
+            if (bounds != null && !bounds.isNull()) {
                 XmlNode.writeEnvelope(Wfs20Constants.GML_PREFIX + ":" + "boundedBy", context, writer,
-                        allGeometry.getEnvelopeInternal());
+                        bounds);
             }
     
             for (Metacard mc : wfc.getMembers()) {
@@ -146,30 +149,10 @@ private String generateSchemaLocationFromMetacards(List<Metacard> metacards,
         }
     }
 
-    private Geometry getBounds(List<Metacard> metacards) {
-        if (metacards != null) {
-            List<Geometry> geometries = new ArrayList<Geometry>();
-            for (Metacard card : metacards) {
-                if (null != card.getLocation()) {
-                    Geometry geo = XmlNode.readGeometry(card.getLocation());
-                    if (null != geo) {
-                        geometries.add(geo);
-                    }
-                }
-            }
-    
-            Geometry allGeometry = new GeometryCollection(geometries.toArray(new Geometry[0]),
-                    new GeometryFactory());
-            return allGeometry;
-        } else {
-            LOGGER.warn("Metacard list is null");
-            return null;
-        }
-    }
-
     @Override
     public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
         Wfs20FeatureCollection featureCollection = new Wfs20FeatureCollection();
+        BoundsAccumulator bounds = new BoundsAccumulator();
         while (reader.hasMoreChildren()) {
             reader.moveDown();
             String nodeName = reader.getNodeName();
@@ -188,7 +171,7 @@ public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext co
                         if (featureMember.equals(subNodeName2)) {
                             reader.moveDown();
                             // lookup the converter for this featuretype
-                            featureCollection = addMetacardToFeatureCollection(featureCollection, context, reader); 
+                            featureCollection = addMetacardToFeatureCollection(featureCollection, bounds, context, reader); 
                             reader.moveUp();
                         }
                         reader.moveUp();
@@ -196,20 +179,22 @@ public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext co
                     
                 } else {
                     // lookup the converter for this featuretype
-                    featureCollection = addMetacardToFeatureCollection(featureCollection, context, reader); 
+                    featureCollection = addMetacardToFeatureCollection(featureCollection, bounds, context, reader); 
                 }
                 reader.moveUp();
             }
             reader.moveUp();
         }
+        featureCollection.setBounds(bounds.getBounds());
         return featureCollection;
     }
     
-    private Wfs20FeatureCollection addMetacardToFeatureCollection(Wfs20FeatureCollection featureCollection, UnmarshallingContext context, 
-            HierarchicalStreamReader reader) {
-        featureCollection.getMembers().add(
-                (Metacard) context.convertAnother(null, MetacardImpl.class,
-                        featureConverterMap.get(reader.getNodeName())));
+    private Wfs20FeatureCollection addMetacardToFeatureCollection(Wfs20FeatureCollection featureCollection,
+            BoundsAccumulator bounds, UnmarshallingContext context, HierarchicalStreamReader reader) {
+        Metacard metacard = (Metacard) context.convertAnother(null, MetacardImpl.class,
+                featureConverterMap.get(reader.getNodeName()));
+        featureCollection.getMembers().add(metacard);
+        bounds.add(metacard);
         return featureCollection;
     }
     
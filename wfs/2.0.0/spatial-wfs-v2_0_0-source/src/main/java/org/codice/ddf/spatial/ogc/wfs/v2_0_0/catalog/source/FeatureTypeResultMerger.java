@@ -0,0 +1,179 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.Attribute;
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+
+/**
+ * Merges the features returned by a separate GetFeature request for each feature type into a
+ * single page. Each request returns the features of its type up to the end of the page in the
+ * order the server sorted them, and the merger walks those lists together, taking the next feature
+ * from whichever list holds the first one in the order of the query's sort attribute. The lists are
+ * never sorted again here, so the merger must only be used when the server sorted every feature
+ * type.
+ */
+class FeatureTypeResultMerger {
+
+    private final Comparator<Metacard> comparator;
+
+    /**
+     * @param sortBy
+     *            the sort of the query, which must be one that {@link #canMerge(SortBy)} accepts
+     */
+    FeatureTypeResultMerger(SortBy sortBy) {
+        this.comparator = createComparator(sortBy);
+        if (comparator == null) {
+            throw new IllegalArgumentException("Unable to merge features sorted by " + sortBy);
+        }
+    }
+
+    /**
+     * @return true if features sorted by the server in the given sort can be merged
+     */
+    static boolean canMerge(SortBy sortBy) {
+        return createComparator(sortBy) != null;
+    }
+
+    /**
+     * @param featureTypeResults
+     *            the features of each feature type as sorted by the server, from the first one
+     *            up to the end of the page
+     * @param startIndex
+     *            0 based index of the first feature of the page
+     * @param count
+     *            maximum number of features in the page
+     * @return the features of the page
+     */
+    List<Metacard> merge(List<List<Metacard>> featureTypeResults, int startIndex, int count) {
+        PriorityQueue<Cursor> cursors = new PriorityQueue<Cursor>(Math.max(1,
+                featureTypeResults.size()), new CursorComparator());
+        for (int i = 0; i < featureTypeResults.size(); i++) {
+            Cursor cursor = new Cursor(i, featureTypeResults.get(i).iterator());
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+
+        List<Metacard> page = new ArrayList<Metacard>(count);
+        int index = 0;
+        while (!cursors.isEmpty() && page.size() < count) {
+            Cursor cursor = cursors.poll();
+            if (index++ >= startIndex) {
+                page.add(cursor.head);
+            }
+            if (cursor.next()) {
+                cursors.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    private static Comparator<Metacard> createComparator(SortBy sortBy) {
+        if (sortBy == null || sortBy.getPropertyName() == null) {
+            return null;
+        }
+        String propertyName = sortBy.getPropertyName().getPropertyName();
+        if (Result.TEMPORAL.equals(propertyName)) {
+            propertyName = Metacard.EFFECTIVE;
+        } else if (Result.RELEVANCE.equals(propertyName) || Result.DISTANCE.equals(propertyName)
+                || propertyName == null) {
+            // Features do not carry a relevance or distance to sort on
+            return null;
+        }
+        return new AttributeComparator(propertyName,
+                SortOrder.DESCENDING.equals(sortBy.getSortOrder()));
+    }
+
+    private static class Cursor {
+
+        private final int featureType;
+
+        private final Iterator<Metacard> features;
+
+        private Metacard head;
+
+        Cursor(int featureType, Iterator<Metacard> features) {
+            this.featureType = featureType;
+            this.features = features;
+        }
+
+        boolean next() {
+            if (features.hasNext()) {
+                head = features.next();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private class CursorComparator implements Comparator<Cursor> {
+
+        @Override
+        public int compare(Cursor cursor1, Cursor cursor2) {
+            int result = comparator.compare(cursor1.head, cursor2.head);
+            if (result != 0) {
+                return result;
+            }
+            return cursor1.featureType - cursor2.featureType;
+        }
+    }
+
+    /**
+     * Orders metacards by the value of an attribute, keeping those without one last.
+     */
+    private static class AttributeComparator implements Comparator<Metacard> {
+
+        private final String attributeName;
+
+        private final boolean descending;
+
+        AttributeComparator(String attributeName, boolean descending) {
+            this.attributeName = attributeName;
+            this.descending = descending;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public int compare(Metacard metacard1, Metacard metacard2) {
+            Serializable value1 = getValue(metacard1);
+            Serializable value2 = getValue(metacard2);
+            if (value1 == null || value2 == null) {
+                return value1 == null ? (value2 == null ? 0 : 1) : -1;
+            }
+            if (!(value1 instanceof Comparable) || !value1.getClass().isInstance(value2)) {
+                return 0;
+            }
+            int result = ((Comparable) value1).compareTo(value2);
+            return descending ? -result : result;
+        }
+
+        private Serializable getValue(Metacard metacard) {
+            Attribute attribute = metacard == null ? null : metacard.getAttribute(attributeName);
+            return attribute == null ? null : attribute.getValue();
+        }
+    }
+}
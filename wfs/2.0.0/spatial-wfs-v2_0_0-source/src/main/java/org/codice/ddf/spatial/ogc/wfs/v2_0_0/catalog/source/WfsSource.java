@@ -14,6 +14,7 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source;
 
+import com.vividsolutions.jts.geom.Envelope;
 import ddf.catalog.Constants;
 import ddf.catalog.data.ContentType;
 import ddf.catalog.data.Metacard;
@@ -46,6 +47,7 @@
 import net.opengis.filter.v_2_0_0.SortPropertyType;
 import net.opengis.filter.v_2_0_0.SpatialOperatorType;
 import net.opengis.filter.v_2_0_0.SpatialOperatorsType;
+import net.opengis.ows.v_1_1_0.WGS84BoundingBoxType;
 import net.opengis.wfs.v_2_0_0.FeatureTypeType;
 import net.opengis.wfs.v_2_0_0.GetFeatureType;
 import net.opengis.wfs.v_2_0_0.QueryType;
@@ -58,8 +60,11 @@
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityCommand;
 import org.codice.ddf.spatial.ogc.catalog.common.AvailabilityTask;
 import org.codice.ddf.spatial.ogc.catalog.common.ContentTypeFilterDelegate;
+import org.codice.ddf.spatial.ogc.catalog.common.SpatialExtentFilterDelegate;
 import org.codice.ddf.spatial.ogc.catalog.common.TrustedRemoteSource;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureMetacardType;
+import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureTypeDiscovery;
+import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureTypeExtents;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsException;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
@@ -100,12 +105,18 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -118,7 +129,9 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
     
     private String wfsUrl;
 
-    protected Map<QName, WfsFilterDelegate> featureTypeFilters = new HashMap<QName, WfsFilterDelegate>();
+    protected volatile Map<QName, WfsFilterDelegate> featureTypeFilters = new HashMap<QName, WfsFilterDelegate>();
+
+    private volatile FeatureTypeExtents featureTypeExtents = FeatureTypeExtents.empty();
 
     private String username;
 
@@ -164,12 +177,22 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
     
     private static final String DISABLE_SORTING = "disableSorting";
 
+    private static final String PARALLEL_FEATURE_TYPE_QUERIES = "parallelFeatureTypeQueries";
+
+    private static final int MAX_PARALLEL_FEATURE_TYPE_QUERIES = 8;
+
     private static final String NO_FORCED_SPATIAL_FILTER = "NO_FILTER";
 
     private static final String CONNECTION_TIMEOUT_PROPERTY = "connectionTimeout";
 
     private static final String RECEIVE_TIMEOUT_PROPERTY = "receiveTimeout";
 
+    private static final String BUFFER_RESPONSES_PROPERTY = "bufferResponses";
+
+    private static final String RESPONSE_MEMORY_THRESHOLD_PROPERTY = "responseMemoryThreshold";
+
+    private static final String RESPONSE_SPILL_DIRECTORY_PROPERTY = "responseSpillDirectory";
+
     private static final String WFS_ERROR_MESSAGE = "Error received from Wfs Server.";
     
     private static final String UNKNOWN = "unknown";
@@ -203,6 +226,12 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
 
     private Integer receiveTimeout;
 
+    private boolean bufferResponses = true;
+
+    private Integer responseMemoryThreshold;
+
+    private String responseSpillDirectory;
+
     private String forceSpatialFilter = NO_FORCED_SPATIAL_FILTER;
 
     private SpatialOperatorsType supportedSpatialOperators;
@@ -219,6 +248,13 @@ public class WfsSource extends MaskableImpl implements FederatedSource, Connecte
     
     private boolean disableSorting;
 
+    private boolean parallelFeatureTypeQueries;
+
+    private final ExecutorService featureTypeQueryExecutor = Executors
+            .newFixedThreadPool(MAX_PARALLEL_FEATURE_TYPE_QUERIES);
+
+    private final FeatureTypeDiscovery featureTypeDiscovery = new FeatureTypeDiscovery();
+
     private SecuritySettingsService securitySettingsService;
 
     public WfsSource(RemoteWfs remoteWfs, FilterAdapter filterAdapter, BundleContext context,
@@ -254,6 +290,7 @@ public void destroy() {
         unregisterAllMetacardTypes();
         availabilityPollFuture.cancel(true);
         scheduler.shutdownNow();
+        featureTypeQueryExecutor.shutdownNow();
     }
 
     /**
@@ -273,6 +310,8 @@ public void refresh(Map<String, Object> configuration) {
                 .get(TrustedRemoteSource.DISABLE_CN_CHECK_PROPERTY);
         String coordinateOrder = (String) configuration.get(COORDINATE_ORDER);
         boolean disableSorting = (Boolean) configuration.get(DISABLE_SORTING);
+        boolean parallelFeatureTypeQueries = Boolean.TRUE.equals(configuration
+                .get(PARALLEL_FEATURE_TYPE_QUERIES));
         String id = (String) configuration.get(ID_PROPERTY);
 
         setConnectionTimeout((Integer) configuration.get(CONNECTION_TIMEOUT_PROPERTY));
@@ -280,6 +319,13 @@ public void refresh(Map<String, Object> configuration) {
 
         updateTimeouts();
 
+        setBufferResponses(!Boolean.FALSE.equals(configuration.get(BUFFER_RESPONSES_PROPERTY)));
+        setResponseMemoryThreshold((Integer) configuration
+                .get(RESPONSE_MEMORY_THRESHOLD_PROPERTY));
+        setResponseSpillDirectory((String) configuration.get(RESPONSE_SPILL_DIRECTORY_PROPERTY));
+
+        updateResponseBuffering();
+
         String[] nonQueryableProperties = (String[]) configuration
                 .get(NON_QUERYABLE_PROPS_PROPERTY);
 
@@ -294,6 +340,7 @@ public void refresh(Map<String, Object> configuration) {
         this.disableCnCheck = disableCnCheckProp;
         this.coordinateOrder = coordinateOrder;
         this.disableSorting = disableSorting;
+        this.parallelFeatureTypeQueries = parallelFeatureTypeQueries;
         this.forceSpatialFilter = (String) configuration.get(SPATIAL_FILTER_PROPERTY);
 
         connectToRemoteWfs();
@@ -341,6 +388,8 @@ private void connectToRemoteWfs() {
             remoteWfs.setSecuritySettings(securitySettingsService);
             remoteWfs.setTlsParameters();
             remoteWfs.setTimeouts(connectionTimeout, receiveTimeout);
+            remoteWfs.setResponseBuffering(bufferResponses, responseMemoryThreshold,
+                    responseSpillDirectory);
         } catch (IllegalArgumentException iae) {
             LOGGER.warn("Unable to create RemoteWfs.", iae);
             remoteWfs = null;
@@ -385,6 +434,7 @@ private void configureWfsFeatures() {
 
         if (capabilities != null) {
             List<FeatureTypeType> featureTypes = getFeatureTypes(capabilities);
+            featureTypeExtents = buildFeatureTypeExtents(featureTypes);
             buildFeatureFilters(featureTypes, capabilities.getFilterCapabilities());
         } else {
             LOGGER.warn("WfsSource {}: WFS Server did not return any capabilities.", getId());
@@ -399,6 +449,35 @@ private List<FeatureTypeType> getFeatureTypes(WFSCapabilitiesType capabilities)
         return featureTypes;
     }
 
+    /**
+     * Indexes the WGS84BoundingBox each feature type advertises, so that queries are only sent to
+     * the feature types that may hold a feature within their spatial constraint.
+     */
+    private FeatureTypeExtents buildFeatureTypeExtents(List<FeatureTypeType> featureTypes) {
+        Map<QName, Envelope> extents = new HashMap<QName, Envelope>();
+        for (FeatureTypeType featureTypeType : featureTypes) {
+            Envelope extent = null;
+            for (WGS84BoundingBoxType boundingBox : featureTypeType.getWGS84BoundingBox()) {
+                List<Double> lowerCorner = boundingBox.getLowerCorner();
+                List<Double> upperCorner = boundingBox.getUpperCorner();
+                if (lowerCorner.size() < 2 || upperCorner.size() < 2) {
+                    // Without a complete box the feature type could hold features anywhere
+                    extent = null;
+                    break;
+                }
+                Envelope box = FeatureTypeExtents.boundingBox(lowerCorner.get(0),
+                        lowerCorner.get(1), upperCorner.get(0), upperCorner.get(1));
+                if (extent == null) {
+                    extent = box;
+                } else {
+                    extent.expandToInclude(box);
+                }
+            }
+            extents.put(featureTypeType.getName(), extent);
+        }
+        return new FeatureTypeExtents(extents);
+    }
+
     private void updateSupportedSpatialOperators(SpatialOperatorsType spatialOperatorsType) {
         if (spatialOperatorsType == null){
             return;
@@ -420,59 +499,47 @@ private void updateSupportedSpatialOperators(SpatialOperatorsType spatialOperato
     }
 
     private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
-            FilterCapabilities filterCapabilities) {
+            final FilterCapabilities filterCapabilities) {
 
         if (filterCapabilities == null) {
             return;
         }
 
-        // Use local Map for metacardtype registrations and once they are populated with latest
-        // MetacardTypes, then do actual registration
-        Map<String, MetacardTypeRegistration> mcTypeRegs = new HashMap<String, MetacardTypeRegistration>();
-        this.featureTypeFilters.clear();
+        Map<String, Callable<MetacardTypeRegistration>> describeRequests = new LinkedHashMap<String, Callable<MetacardTypeRegistration>>();
 
-        for (FeatureTypeType featureTypeType : featureTypes) {
+        for (final FeatureTypeType featureTypeType : featureTypes) {
             String ftSimpleName = featureTypeType.getName().getLocalPart();
 
-            if (mcTypeRegs.containsKey(ftSimpleName)) {
+            if (describeRequests.containsKey(ftSimpleName)) {
                 LOGGER.debug(
                         "WfsSource {}: MetacardType {} is already registered - skipping to next metacard type",
                         getId(), ftSimpleName);
                 continue;
             }
 
-            LOGGER.debug("ftName: {}", ftSimpleName);
-            try {
-                XmlSchema schema = remoteWfs.describeFeatureType(new DescribeFeatureTypeRequest(
-                        featureTypeType.getName()));
-
-                if ((schema != null)) {
-                    // Update local map with enough info to create actual MetacardType registrations
-                    // later
-                    MetacardTypeRegistration registration = createFeatureMetacardTypeRegistration(
-                            featureTypeType, ftSimpleName, schema);
-                    mcTypeRegs.put(ftSimpleName, registration);
-                    FeatureMetacardType featureMetacardType = registration.getFtMetacard();
-                    lookupFeatureConverter(ftSimpleName, featureMetacardType);
-                    
-                    MetacardMapper metacardAttributeToFeaturePropertyMapper = 
-                            lookupMetacardAttributeToFeaturePropertyMapper(featureMetacardType.getFeatureType());
-                    
-                    this.featureTypeFilters.put(featureMetacardType.getFeatureType(),
-                            new WfsFilterDelegate(featureMetacardType, filterCapabilities,
-                                    registration.getSrs(),
-                                    metacardAttributeToFeaturePropertyMapper, coordinateOrder));
+            describeRequests.put(ftSimpleName, new Callable<MetacardTypeRegistration>() {
+                @Override
+                public MetacardTypeRegistration call() {
+                    return describeFeatureType(featureTypeType);
                 }
-            } catch (WfsException wfse) {
-                LOGGER.warn(WFS_ERROR_MESSAGE, wfse);
-            } catch (WebApplicationException wae) {
-                handleWebApplicationException(wae);
-            } catch (IllegalArgumentException ie) {
-                LOGGER.warn(WFS_ERROR_MESSAGE, ie);
-            }
+            });
         }
 
-        registerFeatureMetacardTypes(mcTypeRegs);
+        // Each feature type replaces its previous MetacardType registration and filter delegate as
+        // soon as its schema has been described, so queries can be answered for it while slower
+        // schemas are still outstanding. Feature types that were not described this time are
+        // removed once all of the requests have completed.
+        final Set<String> describedTypes = new HashSet<String>();
+        featureTypeDiscovery.discover(describeRequests,
+                new FeatureTypeDiscovery.Callback<MetacardTypeRegistration>() {
+                    @Override
+                    public void discovered(String ftSimpleName,
+                            MetacardTypeRegistration registration) {
+                        publishFeatureType(ftSimpleName, registration, filterCapabilities);
+                        describedTypes.add(ftSimpleName);
+                    }
+                });
+        removeFeatureTypesNotIn(describedTypes);
 
         if (featureTypeFilters.isEmpty()) {
             LOGGER.warn(
@@ -485,25 +552,72 @@ private void buildFeatureFilters(List<FeatureTypeType> featureTypes,
                 .getSpatialOperators());
     }
 
-    private void registerFeatureMetacardTypes(Map<String, MetacardTypeRegistration> mcTypeRegs) {
-        // Unregister all MetacardType services - the DescribeFeatureTypeRequest should
-        // have returned all of the most current metacard types that will now be registered.
-        // As Source(s) are added/removed from this instance or to other Source(s)
-        // that this instance is federated to, the list of metacard types will change.
-        // This is done here vs. inside the above loop so that minimal time is spent clearing and
-        // registering the MetacardTypes - the concern is that if this registration is too lengthy
-        // a query could come in that is handled while the MetacardType registrations are
-        // in a state of flux.
-        unregisterAllMetacardTypes();
-        if (!mcTypeRegs.isEmpty()) {
-            for (MetacardTypeRegistration registration : mcTypeRegs.values()) {
-                FeatureMetacardType ftMetacard = registration.getFtMetacard();
-                String simpleName = ftMetacard.getFeatureType().getLocalPart();
-                ServiceRegistration serviceRegistration = context.registerService(
-                        MetacardType.class.getName(), ftMetacard, registration.getProps());
-                this.metacardTypeServiceRegistrations.put(simpleName, serviceRegistration);
+    /**
+     * Called from the discovery threads.
+     * 
+     * @return the MetacardType registration of the feature type, or null if it could not be
+     *         described
+     */
+    private MetacardTypeRegistration describeFeatureType(FeatureTypeType featureTypeType) {
+        String ftSimpleName = featureTypeType.getName().getLocalPart();
+        LOGGER.debug("ftName: {}", ftSimpleName);
+        try {
+            XmlSchema schema = remoteWfs.describeFeatureType(new DescribeFeatureTypeRequest(
+                    featureTypeType.getName()));
+
+            if ((schema != null)) {
+                return createFeatureMetacardTypeRegistration(featureTypeType, ftSimpleName,
+                        schema);
+            }
+        } catch (WfsException wfse) {
+            LOGGER.warn(WFS_ERROR_MESSAGE, wfse);
+        } catch (WebApplicationException wae) {
+            handleWebApplicationException(wae);
+        } catch (IllegalArgumentException ie) {
+            LOGGER.warn(WFS_ERROR_MESSAGE, ie);
+        }
+        return null;
+    }
+
+    private void publishFeatureType(String ftSimpleName, MetacardTypeRegistration registration,
+            FilterCapabilities filterCapabilities) {
+        FeatureMetacardType featureMetacardType = registration.getFtMetacard();
+        lookupFeatureConverter(ftSimpleName, featureMetacardType);
+
+        MetacardMapper metacardAttributeToFeaturePropertyMapper = 
+                lookupMetacardAttributeToFeaturePropertyMapper(featureMetacardType.getFeatureType());
+
+        unregisterMetacardType(ftSimpleName);
+        ServiceRegistration serviceRegistration = context.registerService(
+                MetacardType.class.getName(), featureMetacardType, registration.getProps());
+        this.metacardTypeServiceRegistrations.put(ftSimpleName, serviceRegistration);
+
+        // Queries read the filter delegates without locking, so they are replaced rather than
+        // modified
+        Map<QName, WfsFilterDelegate> filters = new HashMap<QName, WfsFilterDelegate>(
+                featureTypeFilters);
+        filters.put(featureMetacardType.getFeatureType(), new WfsFilterDelegate(
+                featureMetacardType, filterCapabilities, registration.getSrs(),
+                metacardAttributeToFeaturePropertyMapper, coordinateOrder));
+        this.featureTypeFilters = filters;
+    }
+
+    private void removeFeatureTypesNotIn(Set<String> ftSimpleNames) {
+        for (String ftSimpleName : new ArrayList<String>(metacardTypeServiceRegistrations
+                .keySet())) {
+            if (!ftSimpleNames.contains(ftSimpleName)) {
+                unregisterMetacardType(ftSimpleName);
             }
         }
+        Map<QName, WfsFilterDelegate> filters = new HashMap<QName, WfsFilterDelegate>(
+                featureTypeFilters);
+        Iterator<QName> featureTypes = filters.keySet().iterator();
+        while (featureTypes.hasNext()) {
+            if (!ftSimpleNames.contains(featureTypes.next().getLocalPart())) {
+                featureTypes.remove();
+            }
+        }
+        this.featureTypeFilters = filters;
     }
     
     private void lookupFeatureConverter(String ftSimpleName, FeatureMetacardType ftMetacard) {
@@ -621,6 +735,17 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         
         SourceResponseImpl simpleResponse = null;
         GetFeatureType getFeature = buildGetFeatureRequest(query);
+
+        if (getFeature == null) {
+            LOGGER.debug(
+                    "WFS Source {}: No feature type can hold a match for the query - skipping the request.",
+                    getId());
+            return new SourceResponseImpl(request, new ArrayList<Result>(), 0L);
+        }
+
+        if (parallelFeatureTypeQueries && isSortedByServer(query, getFeature)) {
+            return queryFeatureTypesInParallel(request, getFeature);
+        }
         
         try {
             LOGGER.debug("WFS Source {}: Sending query ...", getId());
@@ -657,14 +782,7 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
                 }
                 
                 //Fetch total results available
-                Long totalResults = new Long(0);
-                if(featureCollection.getNumberMatched() == null){
-                    totalResults = Long.valueOf(numResults);
-                } else if (featureCollection.getNumberMatched().equals(UNKNOWN)){
-                    totalResults = Long.valueOf(numResults);
-                } else if (StringUtils.isNumeric(featureCollection.getNumberMatched())){
-                    totalResults = Long.parseLong(featureCollection.getNumberMatched());
-                }
+                Long totalResults = getTotalResults(featureCollection, numResults);
                 
                 simpleResponse = new SourceResponseImpl(request, results, totalResults);
             } else {
@@ -681,14 +799,178 @@ public SourceResponse query(QueryRequest request) throws UnsupportedQueryExcepti
         return simpleResponse;
     }
 
+    /**
+     * @return true if the request spans several feature types and the server was asked to sort
+     *         each of them in an order the results can be merged in. Otherwise the page of each
+     *         feature type depends on the server's own order, and only a single GetFeature gives
+     *         the right page.
+     */
+    private boolean isSortedByServer(Query query, GetFeatureType getFeature) {
+        if (disableSorting || getFeature.getAbstractQueryExpression().size() < 2
+                || !FeatureTypeResultMerger.canMerge(query.getSortBy())) {
+            return false;
+        }
+        for (JAXBElement<?> queryExpression : getFeature.getAbstractQueryExpression()) {
+            QueryType wfsQuery = (QueryType) queryExpression.getValue();
+            if (wfsQuery.getAbstractSortingClause() == null) {
+                LOGGER.debug(
+                        "WFS Source {}: Feature type {} cannot be sorted - querying the feature types together.",
+                        getId(), wfsQuery.getHandle());
+                return false;
+            }
+            if (!isTemporalSortMappedToEffective(wfsQuery.getHandle())) {
+                LOGGER.debug(
+                        "WFS Source {}: Feature type {} is not sorted by the effective date of its metacards - querying the feature types together.",
+                        getId(), wfsQuery.getHandle());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The server sorts a feature type by the temporal sort property of its mapper, while the
+     * results are merged on {@link Metacard#EFFECTIVE}. The two orders only agree when the mapper
+     * maps that property back to the effective date.
+     *
+     * @param handle
+     *            the local name of the feature type, used as the handle of its query
+     */
+    private boolean isTemporalSortMappedToEffective(String handle) {
+        for (QName featureType : featureTypeFilters.keySet()) {
+            if (featureType.getLocalPart().equals(handle)) {
+                MetacardMapper mapper = lookupMetacardAttributeToFeaturePropertyMapper(featureType);
+                return mapper != null
+                        && Metacard.EFFECTIVE.equals(mapper.getMetacardAttribute(mapper
+                                .getSortByTemporalFeatureProperty()));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends a GetFeature request for each feature type of the query at the same time and merges
+     * the results into the requested page. Each request asks for the features of its type from the
+     * first one up to the end of the page, sorted by the server, since any of them may fall on the
+     * page once the feature types are merged. A feature type that fails is left out of the results
+     * unless all of them fail.
+     */
+    private SourceResponse queryFeatureTypesInParallel(QueryRequest request,
+            GetFeatureType getFeature) throws UnsupportedQueryException {
+        int startIndex = getFeature.getStartIndex().intValue();
+        int count = getFeature.getCount().intValue();
+
+        List<String> featureTypes = new ArrayList<String>();
+        List<Future<Wfs20FeatureCollection>> futures = new ArrayList<Future<Wfs20FeatureCollection>>();
+        for (JAXBElement<?> queryExpression : getFeature.getAbstractQueryExpression()) {
+            final GetFeatureType featureTypeRequest = new GetFeatureType();
+            featureTypeRequest.setStartIndex(BigInteger.ZERO);
+            featureTypeRequest.setCount(BigInteger.valueOf((long) startIndex + count));
+            featureTypeRequest.getAbstractQueryExpression().add(queryExpression);
+            featureTypes.add(((QueryType) queryExpression.getValue()).getHandle());
+            futures.add(featureTypeQueryExecutor.submit(new Callable<Wfs20FeatureCollection>() {
+                @Override
+                public Wfs20FeatureCollection call() throws WfsException {
+                    return remoteWfs.getFeature(featureTypeRequest);
+                }
+            }));
+        }
+        LOGGER.debug("WFS Source {}: Sending query to {} feature types ...", getId(),
+                futures.size());
+
+        List<List<Metacard>> featureTypeResults = new ArrayList<List<Metacard>>(futures.size());
+        long totalResults = 0;
+        Throwable failure = null;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    Wfs20FeatureCollection featureCollection = futures.get(i).get();
+                    if (featureCollection == null) {
+                        failure = new UnsupportedQueryException(
+                                "Invalid results returned from server");
+                        LOGGER.warn("WFS Source {}: Invalid results returned for feature type {}.",
+                                getId(), featureTypes.get(i));
+                        continue;
+                    }
+                    List<Metacard> members = featureCollection.getMembers();
+                    LOGGER.debug("WFS Source {}: Received {} metacards for feature type {}.",
+                            getId(), members.size(), featureTypes.get(i));
+                    featureTypeResults.add(members);
+                    totalResults += getTotalResults(featureCollection, members.size());
+                } catch (ExecutionException e) {
+                    failure = e.getCause();
+                    LOGGER.warn("WFS Source {}: Unable to query feature type {}.", getId(),
+                            featureTypes.get(i), failure);
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<Wfs20FeatureCollection> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new UnsupportedQueryException("Interrupted while querying the WFS Server", e);
+        }
+
+        if (featureTypeResults.isEmpty() && failure != null) {
+            if (failure instanceof UnsupportedQueryException) {
+                throw (UnsupportedQueryException) failure;
+            } else if (failure instanceof WfsException) {
+                LOGGER.warn(WFS_ERROR_MESSAGE, failure);
+                throw new UnsupportedQueryException("Error received from WFS Server", failure);
+            } else if (failure instanceof Exception) {
+                String msg = handleClientException((Exception) failure);
+                throw new UnsupportedQueryException(msg, failure);
+            }
+            throw new UnsupportedQueryException("Error received from WFS Server " + getId(),
+                    failure);
+        }
+        availabilityTask.updateLastAvailableTimestamp(System.currentTimeMillis());
+
+        List<Metacard> page = new FeatureTypeResultMerger(request.getQuery().getSortBy()).merge(
+                featureTypeResults, startIndex, count);
+        List<Result> results = new ArrayList<Result>(page.size());
+        for (Metacard mc : page) {
+            Result result = new ResultImpl(transform(mc, DEFAULT_WFS_TRANSFORMER_ID));
+            results.add(result);
+            debugResult(result);
+        }
+
+        return new SourceResponseImpl(request, results, totalResults);
+    }
+
+    private Long getTotalResults(Wfs20FeatureCollection featureCollection, int numResults) {
+        Long totalResults = new Long(0);
+        if(featureCollection.getNumberMatched() == null){
+            totalResults = Long.valueOf(numResults);
+        } else if (featureCollection.getNumberMatched().equals(UNKNOWN)){
+            totalResults = Long.valueOf(numResults);
+        } else if (StringUtils.isNumeric(featureCollection.getNumberMatched())){
+            totalResults = Long.parseLong(featureCollection.getNumberMatched());
+        }
+        return totalResults;
+    }
+
+    /**
+     * @return the request, or null if the advertised extent of every feature type in the query is
+     *         outside of its spatial constraint
+     */
     protected GetFeatureType buildGetFeatureRequest(Query query) throws UnsupportedQueryException {
         List<ContentType> contentTypes = getContentTypesFromQuery(query);
+        Set<QName> featureTypesOutside = getFeatureTypesOutside(query);
         
         List<QueryType> queries = new ArrayList<QueryType>();
+        boolean anyOutside = false;
         for (Entry<QName, WfsFilterDelegate> filterDelegateEntry : featureTypeFilters.entrySet()) {
             if (contentTypes.isEmpty()
                     || isFeatureTypeInQuery(contentTypes, filterDelegateEntry.getKey()
                             .getLocalPart())) {
+                if (featureTypesOutside.contains(filterDelegateEntry.getKey())) {
+                    LOGGER.debug(
+                            "WFS Source {}: The extent of {} is outside of the query - skipping it.",
+                            getId(), filterDelegateEntry.getKey());
+                    anyOutside = true;
+                    continue;
+                }
                 QueryType wfsQuery = new QueryType();
                 
                 String typeName = null;
@@ -791,12 +1073,31 @@ protected GetFeatureType buildGetFeatureRequest(Query query) throws UnsupportedQ
             logMessage(getFeatureType);
             
             return getFeatureType;
+        } else if (anyOutside) {
+            return null;
         } else {
             throw new UnsupportedQueryException(
                     "Unable to build query. No filters could be created from query criteria.");
         }
     }
     
+    private Set<QName> getFeatureTypesOutside(Query query) {
+        Envelope extent;
+        try {
+            extent = filterAdapter.adapt(query, new SpatialExtentFilterDelegate());
+        } catch (UnsupportedQueryException e) {
+            LOGGER.debug("WFS Source {}: Unable to find the extent of the query.", getId(), e);
+            return Collections.emptySet();
+        } catch (UnsupportedOperationException e) {
+            LOGGER.debug("WFS Source {}: Unable to find the extent of the query.", getId(), e);
+            return Collections.emptySet();
+        }
+        if (extent == null || SpatialExtentFilterDelegate.isUnbounded(extent)) {
+            return Collections.emptySet();
+        }
+        return featureTypeExtents.getFeatureTypesOutside(extent, featureTypeFilters.keySet());
+    }
+
     private JAXBElement<SortByType> buildSortBy(QName featureType, SortBy incomingSortBy)
         throws UnsupportedQueryException {
         net.opengis.filter.v_2_0_0.ObjectFactory filterObjectFactory = new net.opengis.filter.v_2_0_0.ObjectFactory();
@@ -934,6 +1235,14 @@ private void unregisterAllMetacardTypes() {
         metacardTypeServiceRegistrations.clear();
     }
 
+    private void unregisterMetacardType(String ftSimpleName) {
+        ServiceRegistration metacardTypeServiceRegistration = metacardTypeServiceRegistrations
+                .remove(ftSimpleName);
+        if (metacardTypeServiceRegistration != null) {
+            metacardTypeServiceRegistration.unregister();
+        }
+    }
+
     @Override
     public Set<ContentType> getContentTypes() {
         Set<QName> typeNames = featureTypeFilters.keySet();
@@ -1045,6 +1354,18 @@ public void setReceiveTimeout(Integer timeout) {
         this.receiveTimeout = timeout;
     }
 
+    public void setBufferResponses(boolean bufferResponses) {
+        this.bufferResponses = bufferResponses;
+    }
+
+    public void setResponseMemoryThreshold(Integer responseMemoryThreshold) {
+        this.responseMemoryThreshold = responseMemoryThreshold;
+    }
+
+    public void setResponseSpillDirectory(String responseSpillDirectory) {
+        this.responseSpillDirectory = responseSpillDirectory;
+    }
+
     public void setFilterAdapter(FilterAdapter filterAdapter) {
         this.filterAdapter = filterAdapter;
     }
@@ -1097,6 +1418,10 @@ public void setDisableSorting(boolean disableSorting) {
         this.disableSorting = disableSorting;
     }
 
+    public void setParallelFeatureTypeQueries(boolean parallelFeatureTypeQueries) {
+        this.parallelFeatureTypeQueries = parallelFeatureTypeQueries;
+    }
+
     private String handleWebApplicationException(WebApplicationException wae) {
         Response response = wae.getResponse();
         WfsException wfsException = new WfsResponseExceptionMapper().fromResponse(response);
@@ -1165,6 +1490,13 @@ public void updateTimeouts() {
         }
     }
 
+    public void updateResponseBuffering() {
+        if (remoteWfs != null) {
+            remoteWfs.setResponseBuffering(bufferResponses, responseMemoryThreshold,
+                    responseSpillDirectory);
+        }
+    }
+
     public void setSecuritySettings(SecuritySettingsService securitySettings) {
         this.securitySettingsService = securitySettings;
     }
@@ -17,8 +17,6 @@
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.Reader;
-import java.io.StringReader;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.math.BigInteger;
@@ -33,16 +31,12 @@
 import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBElement;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
-
-import net.opengis.wfs.v_2_0_0.FeatureCollectionType;
+import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
-import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20Constants;
+import org.codice.ddf.spatial.ogc.catalog.common.RootElement;
+import org.codice.ddf.spatial.ogc.wfs.catalog.source.SpillableInputStream;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
 import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.converter.impl.FeatureCollectionConverterWfs20;
@@ -67,10 +61,14 @@ public class FeatureCollectionMessageBodyReaderWfs20 implements MessageBodyReade
 
     protected Map<String, FeatureConverter> featureConverterMap = new HashMap<String, FeatureConverter>();
     
-    private static final JAXBContext JAXB_CONTEXT = initJaxbContext();
-
     private static final Logger LOGGER = LoggerFactory.getLogger(FeatureCollectionMessageBodyReaderWfs20.class);
 
+    private static final String FEATURE_COLLECTION = "FeatureCollection";
+
+    private static final String NUMBER_MATCHED = "numberMatched";
+
+    private static final String NUMBER_RETURNED = "numberReturned";
+
     public FeatureCollectionMessageBodyReaderWfs20() {
         xstream = new XStream(new WstxDriver());
         xstream.setClassLoader(this.getClass().getClassLoader());
@@ -79,7 +77,7 @@ public FeatureCollectionMessageBodyReaderWfs20() {
         featureCollectionConverter = new FeatureCollectionConverterWfs20();
         featureCollectionConverter.setFeatureConverterMap(featureConverterMap);
         xstream.registerConverter(featureCollectionConverter);
-        xstream.alias("FeatureCollection", Wfs20FeatureCollection.class);
+        xstream.alias(FEATURE_COLLECTION, Wfs20FeatureCollection.class);
     }
 
     @Override
@@ -91,90 +89,64 @@ public boolean isReadable(Class<?> clazz, Type type, Annotation[] annotations,
         return Wfs20FeatureCollection.class.isAssignableFrom(clazz);
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Wfs20FeatureCollection readFrom(Class<Wfs20FeatureCollection> clazz, Type type,
             Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> headers,
             InputStream inStream) throws IOException, WebApplicationException {
 
-        // Save original input stream for any exception message that might need to be
-        // created and additional attributes
-        String originalInputStream = IOUtils.toString(inStream, "UTF-8");
-        LOGGER.debug("{}", originalInputStream);
-        //Fetch FeatureCollection attributes
-        Unmarshaller unmarshaller = null;
-        JAXBElement<FeatureCollectionType> wfsFeatureCollectionType = null;
+        // The response is never reset, so it does not need to be buffered any further
+        if (inStream instanceof SpillableInputStream) {
+            ((SpillableInputStream) inStream).stopBuffering();
+        }
+
+        // Only the root element is read up front, for the FeatureCollection attributes. The
+        // members are then converted as XStream reads them from the rest of the stream.
+        RootElement rootElement = new RootElement(inStream);
         try {
-            unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-            Reader reader = new StringReader(originalInputStream);
-            wfsFeatureCollectionType = (JAXBElement<FeatureCollectionType>) unmarshaller
-                    .unmarshal(reader);
-        } catch (ClassCastException e1) {
-            LOGGER.warn("Exception unmarshalling {}, could be an OWS Exception Report from server.", e1.getMessage());
-            
+            rootElement.read();
+        } catch (XMLStreamException e) {
+            LOGGER.error("Error in retrieving feature collection.", e);
+            return null;
+        }
+
+        if (!FEATURE_COLLECTION.equals(rootElement.getLocalName())) {
             // If an ExceptionReport is sent from the remote WFS site it will be sent with an
             // JAX-RS "OK" status, hence the ErrorResponse exception mapper will not fire.
-            // Instead the ServiceExceptionReport will come here and be treated like a GetFeature
-            // response, resulting in an XStreamException since ExceptionReport cannot be
-            // unmarshalled. So this catch clause is responsible for catching that XStream
-            // exception and creating a JAX-RS response containing the original stream
-            // (with the ExceptionReport) and rethrowing it as a WebApplicationException,
-            // which CXF will wrap as a ClientException that the WfsSource catches, converts
-            // to a WfsException, and logs.
-
-            ByteArrayInputStream bis = new ByteArrayInputStream(originalInputStream.getBytes());
-            ResponseBuilder responseBuilder = Response.ok(bis);
+            // Instead the ExceptionReport will come here and be treated like a GetFeature
+            // response. So a JAX-RS response containing the original stream (with the
+            // ExceptionReport) is created and rethrown as a WebApplicationException, which CXF
+            // will wrap as a ClientException that the WfsSource catches, converts to a
+            // WfsException, and logs.
+            LOGGER.warn("Unexpected root element {}, could be an OWS Exception Report from server.",
+                    rootElement.getLocalName());
+            String originalInputStream = IOUtils.toString(rootElement.getInputStream(), "UTF-8");
+            LOGGER.debug("{}", originalInputStream);
+            ResponseBuilder responseBuilder = Response.ok(new ByteArrayInputStream(
+                    originalInputStream.getBytes("UTF-8")));
             responseBuilder.type("text/xml");
-            Response response = responseBuilder.build();
-            throw new WebApplicationException(e1, response);
-        }
-        catch (JAXBException e1) {
-            LOGGER.error("Error in retrieving feature collection.", e1);
+            throw new WebApplicationException(responseBuilder.build());
         }
 
         Wfs20FeatureCollection featureCollection = null;
-
-        if(null != wfsFeatureCollectionType && null != wfsFeatureCollectionType.getValue()) {
-            BigInteger numberReturned = wfsFeatureCollectionType.getValue().getNumberReturned();
-            String numberMatched = wfsFeatureCollectionType.getValue().getNumberMatched();
-
-            // Re-create the input stream (since it has already been read for potential
-            // exception message creation)
-            inStream = new ByteArrayInputStream(originalInputStream.getBytes("UTF-8"));
-
-            try {
-                featureCollection = (Wfs20FeatureCollection) xstream.fromXML(inStream);
-                featureCollection.setNumberMatched(numberMatched);
-                featureCollection.setNumberReturned(numberReturned);
-
-            } catch (XStreamException e) {
-                LOGGER.error("Exception unmarshalling {}", e);
-            } finally {
-                IOUtils.closeQuietly(inStream);
+        InputStream featureStream = rootElement.getInputStream();
+        try {
+            featureCollection = (Wfs20FeatureCollection) xstream.fromXML(featureStream);
+            featureCollection.setNumberMatched(rootElement.getAttribute(NUMBER_MATCHED));
+            String numberReturned = rootElement.getAttribute(NUMBER_RETURNED);
+            if (StringUtils.isNotBlank(numberReturned)) {
+                featureCollection.setNumberReturned(new BigInteger(numberReturned.trim()));
             }
+        } catch (XStreamException e) {
+            LOGGER.error("Exception unmarshalling {}", e);
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Invalid {} attribute on feature collection", NUMBER_RETURNED, e);
+        } finally {
+            IOUtils.closeQuietly(featureStream);
         }
 
         return featureCollection;
     }
 
-    private static JAXBContext initJaxbContext() {
-        JAXBContext jaxbContext = null;
-
-        // JAXB context path
-        String contextPath = StringUtils.join(new String[] {Wfs20Constants.OGC_WFS_PACKAGE,
-                Wfs20Constants.OGC_FILTER_PACKAGE, Wfs20Constants.OGC_GML_PACKAGE,
-                Wfs20Constants.OGC_OWS_PACKAGE}, ":");
-
-        try {
-            jaxbContext = JAXBContext.newInstance(contextPath,
-                    FeatureCollectionMessageBodyReaderWfs20.class.getClassLoader());
-        } catch (JAXBException e) {
-            LOGGER.error("Unable to create JAXB context using contextPath: {}.", contextPath, e);
-        }
-
-        return jaxbContext;
-    }
-    
     public void registerConverter(FeatureConverter converter) {
         featureConverterMap.put(converter.getMetacardType().getName(), converter);
         xstream.registerConverter(converter);
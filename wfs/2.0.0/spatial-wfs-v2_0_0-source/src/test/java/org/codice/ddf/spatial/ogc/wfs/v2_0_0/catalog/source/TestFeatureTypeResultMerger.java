@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.opengis.filter.sort.SortOrder;
+
+import ddf.catalog.data.Metacard;
+import ddf.catalog.data.Result;
+import ddf.catalog.data.impl.MetacardImpl;
+import ddf.catalog.filter.impl.SortByImpl;
+
+public class TestFeatureTypeResultMerger {
+
+    @Test
+    public void testMergeAscending() {
+        List<List<Metacard>> results = Arrays.asList(features("a", 1, 4, 5), features("b", 2, 3, 6));
+
+        List<Metacard> page = new FeatureTypeResultMerger(new SortByImpl(Result.TEMPORAL,
+                SortOrder.ASCENDING)).merge(results, 0, 10);
+
+        assertThat(ids(page), contains("a1", "b2", "b3", "a4", "a5", "b6"));
+    }
+
+    @Test
+    public void testMergeDescendingPage() {
+        List<List<Metacard>> results = Arrays.asList(features("a", 5, 4, 1), features("b", 6, 3, 2));
+
+        List<Metacard> page = new FeatureTypeResultMerger(new SortByImpl(Result.TEMPORAL,
+                SortOrder.DESCENDING)).merge(results, 2, 3);
+
+        assertThat(ids(page), contains("a4", "b3", "b2"));
+    }
+
+    @Test
+    public void testMergeKeepsServerOrder() {
+        List<List<Metacard>> results = Arrays.asList(features("a", 1, 3), features("b", 2, 1));
+
+        List<Metacard> page = new FeatureTypeResultMerger(new SortByImpl(Result.TEMPORAL,
+                SortOrder.ASCENDING)).merge(results, 0, 10);
+
+        assertThat(ids(page), contains("a1", "b2", "b1", "a3"));
+    }
+
+    @Test
+    public void testCanMerge() {
+        assertThat(FeatureTypeResultMerger.canMerge(new SortByImpl(Result.TEMPORAL,
+                SortOrder.ASCENDING)), is(true));
+        assertThat(FeatureTypeResultMerger.canMerge(new SortByImpl(Result.RELEVANCE,
+                SortOrder.DESCENDING)), is(false));
+        assertThat(FeatureTypeResultMerger.canMerge(null), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeWithoutSort() {
+        new FeatureTypeResultMerger(null);
+    }
+
+    private List<Metacard> features(String featureType, int... days) {
+        List<Metacard> features = new ArrayList<Metacard>();
+        for (int day : days) {
+            MetacardImpl metacard = new MetacardImpl();
+            metacard.setId(featureType + day);
+            metacard.setEffectiveDate(new Date(day * 86400000L));
+            features.add(metacard);
+        }
+        return features;
+    }
+
+    private List<String> ids(List<Metacard> metacards) {
+        List<String> ids = new ArrayList<String>();
+        for (Metacard metacard : metacards) {
+            ids.add(metacard.getId());
+        }
+        return ids;
+    }
+}
@@ -26,6 +26,8 @@
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,6 +35,7 @@
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +53,7 @@
 import net.opengis.filter.v_2_0_0.SortOrderType;
 import net.opengis.ows.v_1_1_0.DomainType;
 import net.opengis.ows.v_1_1_0.ValueType;
+import net.opengis.ows.v_1_1_0.WGS84BoundingBoxType;
 import net.opengis.wfs.v_2_0_0.FeatureTypeListType;
 import net.opengis.wfs.v_2_0_0.FeatureTypeType;
 import net.opengis.wfs.v_2_0_0.GetFeatureType;
@@ -940,4 +944,140 @@ public void testSearchByMultipleTypes() throws Exception {
         assertEquals(2, numTypes);
     }
     
+    @Test
+    public void testParallelFeatureTypeQueries() throws Exception {
+        //Setup
+        int startIndex = 2;
+        int pageSize = 2;
+        WfsSource source = getWfsSource(ONE_TEXT_PROPERTY_SCHEMA,
+                MockWfsServer.getFilterCapabilities(),
+                Wfs20Constants.EPSG_4326_URN, 2, false);
+        source.setParallelFeatureTypeQueries(true);
+        source.setMetacardToFeatureMapper(Arrays.asList(
+                getTemporalSortMapper(SAMPLE_FEATURE_NAME + 0),
+                getTemporalSortMapper("{http://example.com}" + SAMPLE_FEATURE_NAME + 1)));
+        Filter filter = builder.attribute(Metacard.ANY_TEXT).is().like().text(LITERAL);
+        Query query = new QueryImpl(filter, startIndex, pageSize, new SortByImpl(Result.TEMPORAL,
+                SortOrder.ASCENDING), false, 0);
+
+        //Execute
+        SourceResponse response = source.query(new QueryRequestImpl(query));
+
+        //Verify
+        ArgumentCaptor<GetFeatureType> captor = ArgumentCaptor.forClass(GetFeatureType.class);
+        verify(mockWfs, times(2)).getFeature(captor.capture());
+        for (GetFeatureType getFeature : captor.getAllValues()) {
+            assertThat(getFeature.getAbstractQueryExpression().size(), is(1));
+            assertThat(getFeature.getStartIndex().intValue(), is(0));
+            assertThat(getFeature.getCount().intValue(), is(startIndex - 1 + pageSize));
+        }
+        assertThat(response.getResults().size(), is(pageSize));
+        assertThat(response.getHits(), is(4L));
+    }
+
+    @Test
+    public void testParallelFeatureTypeQueriesWithoutSort() throws Exception {
+        //Setup
+        WfsSource source = getWfsSource(ONE_TEXT_PROPERTY_SCHEMA,
+                MockWfsServer.getFilterCapabilities(),
+                Wfs20Constants.EPSG_4326_URN, 2, false);
+        source.setParallelFeatureTypeQueries(true);
+        Filter filter = builder.attribute(Metacard.ANY_TEXT).is().like().text(LITERAL);
+        Query query = new QueryImpl(filter, 2, 2, null, false, 0);
+
+        //Execute
+        source.query(new QueryRequestImpl(query));
+
+        //Verify
+        ArgumentCaptor<GetFeatureType> captor = ArgumentCaptor.forClass(GetFeatureType.class);
+        verify(mockWfs).getFeature(captor.capture());
+        assertThat(captor.getValue().getAbstractQueryExpression().size(), is(2));
+    }
+
+    @Test
+    public void testParallelFeatureTypeQueriesWithUnsortedFeatureType() throws Exception {
+        //Setup
+        WfsSource source = getWfsSource(ONE_TEXT_PROPERTY_SCHEMA,
+                MockWfsServer.getFilterCapabilities(),
+                Wfs20Constants.EPSG_4326_URN, 2, false);
+        source.setParallelFeatureTypeQueries(true);
+        source.setMetacardToFeatureMapper(Arrays
+                .asList(getTemporalSortMapper(SAMPLE_FEATURE_NAME + 0)));
+        Filter filter = builder.attribute(Metacard.ANY_TEXT).is().like().text(LITERAL);
+        Query query = new QueryImpl(filter, 2, 2, new SortByImpl(Result.TEMPORAL,
+                SortOrder.ASCENDING), false, 0);
+
+        //Execute
+        source.query(new QueryRequestImpl(query));
+
+        //Verify
+        ArgumentCaptor<GetFeatureType> captor = ArgumentCaptor.forClass(GetFeatureType.class);
+        verify(mockWfs).getFeature(captor.capture());
+        assertThat(captor.getValue().getAbstractQueryExpression().size(), is(2));
+    }
+
+    @Test
+    public void testParallelFeatureTypeQueriesWithTemporalSortNotMappedToEffective()
+        throws Exception {
+        //Setup
+        WfsSource source = getWfsSource(ONE_TEXT_PROPERTY_SCHEMA,
+                MockWfsServer.getFilterCapabilities(),
+                Wfs20Constants.EPSG_4326_URN, 2, false);
+        source.setParallelFeatureTypeQueries(true);
+        source.setMetacardToFeatureMapper(Arrays.asList(
+                getTemporalSortMapper(SAMPLE_FEATURE_NAME + 0),
+                getTemporalSortMapper("{http://example.com}" + SAMPLE_FEATURE_NAME + 1,
+                        Metacard.CREATED)));
+        Filter filter = builder.attribute(Metacard.ANY_TEXT).is().like().text(LITERAL);
+        Query query = new QueryImpl(filter, 2, 2, new SortByImpl(Result.TEMPORAL,
+                SortOrder.ASCENDING), false, 0);
+
+        //Execute
+        source.query(new QueryRequestImpl(query));
+
+        //Verify
+        ArgumentCaptor<GetFeatureType> captor = ArgumentCaptor.forClass(GetFeatureType.class);
+        verify(mockWfs).getFeature(captor.capture());
+        assertThat(captor.getValue().getAbstractQueryExpression().size(), is(2));
+    }
+
+    private MetacardMapper getTemporalSortMapper(String featureType) {
+        return getTemporalSortMapper(featureType, Metacard.EFFECTIVE);
+    }
+
+    private MetacardMapper getTemporalSortMapper(String featureType, String metacardAttribute) {
+        MetacardMapper mapper = mock(MetacardMapper.class);
+        when(mapper.getFeatureType()).thenReturn(featureType);
+        when(mapper.getSortByTemporalFeatureProperty()).thenReturn("myTemporalFeatureProperty");
+        when(mapper.getMetacardAttribute("myTemporalFeatureProperty")).thenReturn(
+                metacardAttribute);
+        return mapper;
+    }
+
+    @Test
+    public void testQueryOutsideOfFeatureTypeExtentsIsNotSent() throws Exception {
+        //Setup
+        getWfsSource(ONE_TEXT_PROPERTY_SCHEMA, MockWfsServer.getFilterCapabilities(),
+                Wfs20Constants.EPSG_4326_URN, 2);
+        for (FeatureTypeType featureType : mockCapabilites.getFeatureTypeList().getFeatureType()) {
+            WGS84BoundingBoxType boundingBox = new WGS84BoundingBoxType();
+            boundingBox.getLowerCorner().addAll(Arrays.asList(100.0, -10.0));
+            boundingBox.getUpperCorner().addAll(Arrays.asList(120.0, 10.0));
+            featureType.getWGS84BoundingBox().add(boundingBox);
+        }
+        WfsSource source = new WfsSource(mockWfs, new GeotoolsFilterAdapterImpl(), mockContext,
+                mockAvailabilityTask);
+        Filter filter = builder.attribute(Metacard.ANY_GEO).intersecting()
+                .wkt("POLYGON ((-80 30, -70 30, -70 40, -80 40, -80 30))");
+        Query query = new QueryImpl(filter, 1, MAX_FEATURES, null, false, 0);
+
+        //Execute
+        SourceResponse response = source.query(new QueryRequestImpl(query));
+
+        //Verify
+        verify(mockWfs, never()).getFeature(any(GetFeatureType.class));
+        assertThat(response.getResults().isEmpty(), is(true));
+        assertThat(response.getHits(), is(0L));
+    }
+
 }
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.source.reader;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.commons.io.IOUtils;
+import org.codice.ddf.spatial.ogc.wfs.v2_0_0.catalog.common.Wfs20FeatureCollection;
+import org.junit.Test;
+
+public class TestFeatureCollectionMessageBodyReaderWfs20 {
+
+    @Test
+    public void testReadFeatureCollectionAttributes() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<wfs:FeatureCollection xmlns:wfs=\"http://www.opengis.net/wfs/2.0\" "
+                + "numberMatched=\"12\" numberReturned=\"0\" timeStamp=\"2015-01-01T00:00:00Z\"/>";
+
+        Wfs20FeatureCollection featureCollection = read(xml);
+
+        assertThat(featureCollection.getNumberMatched(), is("12"));
+        assertThat(featureCollection.getNumberReturned(), is(BigInteger.ZERO));
+        assertThat(featureCollection.getMembers().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testExceptionReportIsReturnedInError() throws Exception {
+        String xml = "<ows:ExceptionReport xmlns:ows=\"http://www.opengis.net/ows/1.1\" "
+                + "version=\"2.0.0\"><ows:Exception exceptionCode=\"InvalidParameterValue\">"
+                + "<ows:ExceptionText>Unknown type</ows:ExceptionText></ows:Exception>"
+                + "</ows:ExceptionReport>";
+
+        try {
+            read(xml);
+            fail("An ExceptionReport should not be read as a feature collection");
+        } catch (WebApplicationException e) {
+            String entity = IOUtils.toString((InputStream) e.getResponse().getEntity(), "UTF-8");
+            assertThat(entity, is(xml));
+            assertThat(entity, containsString("Unknown type"));
+        }
+    }
+
+    private Wfs20FeatureCollection read(String xml) throws Exception {
+        return new FeatureCollectionMessageBodyReaderWfs20().readFrom(
+                Wfs20FeatureCollection.class, null, null, null, null,
+                new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.common;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Describes the feature types of a WFS source on a bounded pool of threads. Each result is handed
+ * to the {@link Callback} on the calling thread as soon as it is available, so a source can
+ * publish a feature type without waiting for the slowest one. A feature type that fails is
+ * skipped, and one whose request runs longer than the timeout is cancelled and skipped.
+ */
+public class FeatureTypeDiscovery {
+
+    public static final int DEFAULT_MAX_THREADS = 8;
+
+    public static final long DEFAULT_TIMEOUT_SECONDS = 60;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeatureTypeDiscovery.class);
+
+    private final int maxThreads;
+
+    private final long timeoutNanos;
+
+    public FeatureTypeDiscovery() {
+        this(DEFAULT_MAX_THREADS, DEFAULT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param maxThreads
+     *            maximum number of feature types described at the same time
+     * @param timeout
+     *            how long a single feature type may take once its request has started
+     * @param unit
+     *            unit of the timeout
+     */
+    public FeatureTypeDiscovery(int maxThreads, long timeout, TimeUnit unit) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is required.");
+        }
+        this.maxThreads = maxThreads;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * Runs the requests and returns once each one has completed, failed or timed out.
+     * 
+     * @param requests
+     *            the request for each feature type keyed by name; a request returns null if the
+     *            feature type could not be described
+     * @param callback
+     *            called on this thread with each feature type that was described
+     * @return the number of feature types that were described
+     */
+    public <T> int discover(Map<String, Callable<T>> requests, Callback<T> callback) {
+        if (requests.isEmpty()) {
+            return 0;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxThreads,
+                requests.size()));
+        CompletionService<T> completionService = new ExecutorCompletionService<T>(executor);
+        Map<Future<T>, Request<T>> pending = new HashMap<Future<T>, Request<T>>();
+        int described = 0;
+        try {
+            for (Entry<String, Callable<T>> entry : requests.entrySet()) {
+                Request<T> request = new Request<T>(entry.getKey(), entry.getValue());
+                pending.put(completionService.submit(request), request);
+            }
+
+            while (!pending.isEmpty()) {
+                long wait = cancelExpired(pending);
+                Future<T> future = completionService.poll(wait, TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    continue;
+                }
+                // Requests that were cancelled have already been removed
+                Request<T> request = pending.remove(future);
+                if (request != null) {
+                    T result = getResult(request, future);
+                    if (result != null) {
+                        callback.discovered(request.name, result);
+                        described++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while describing feature types; {} were not described.",
+                    pending.size());
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return described;
+    }
+
+    /**
+     * Cancels the requests that have been running for longer than the timeout.
+     * 
+     * @return how long to wait for the next request to complete before checking again
+     */
+    private <T> long cancelExpired(Map<Future<T>, Request<T>> pending) {
+        long now = System.nanoTime();
+        long wait = timeoutNanos;
+        Iterator<Entry<Future<T>, Request<T>>> iterator = pending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<Future<T>, Request<T>> entry = iterator.next();
+            Request<T> request = entry.getValue();
+            if (!request.started) {
+                continue;
+            }
+            long remaining = timeoutNanos - (now - request.startTime);
+            if (remaining <= 0 && !entry.getKey().isDone()) {
+                LOGGER.warn("Describing feature type {} took longer than {} ms; skipping it.",
+                        request.name, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+                entry.getKey().cancel(true);
+                iterator.remove();
+            } else if (remaining > 0) {
+                wait = Math.min(wait, remaining);
+            }
+        }
+        return Math.max(wait, 1);
+    }
+
+    private <T> T getResult(Request<T> request, Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOGGER.warn("Unable to describe feature type {}.", request.name, e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Receives the feature types as they are described.
+     */
+    public interface Callback<T> {
+
+        void discovered(String name, T result);
+    }
+
+    private static class Request<T> implements Callable<T> {
+
+        private final String name;
+
+        private final Callable<T> callable;
+
+        private volatile long startTime;
+
+        private volatile boolean started = false;
+
+        Request(String name, Callable<T> callable) {
+            this.name = name;
+            this.callable = callable;
+        }
+
+        @Override
+        public T call() throws Exception {
+            startTime = System.nanoTime();
+            started = true;
+            return callable.call();
+        }
+    }
+}
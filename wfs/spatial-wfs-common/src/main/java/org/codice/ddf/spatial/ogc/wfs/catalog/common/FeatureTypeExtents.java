@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.common;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import javax.xml.namespace.QName;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.index.strtree.STRtree;
+
+/**
+ * Index of the WGS84 extents that a WFS server advertises for its feature types in its
+ * capabilities. It is used to leave out of a query the feature types that cannot hold a feature
+ * within the query's spatial constraint. Feature types without an advertised extent are never
+ * left out.
+ */
+public class FeatureTypeExtents {
+
+    private static final double MIN_LONGITUDE = -180;
+
+    private static final double MAX_LONGITUDE = 180;
+
+    private final STRtree index = new STRtree();
+
+    private final Set<QName> indexedFeatureTypes = new HashSet<QName>();
+
+    /**
+     * @param extents
+     *            the extent of each feature type in longitude/latitude, or null if the feature type
+     *            does not advertise one
+     */
+    public FeatureTypeExtents(Map<QName, Envelope> extents) {
+        for (Entry<QName, Envelope> entry : extents.entrySet()) {
+            Envelope extent = entry.getValue();
+            if (extent != null && !extent.isNull()) {
+                index.insert(extent, entry.getKey());
+                indexedFeatureTypes.add(entry.getKey());
+            }
+        }
+        index.build();
+    }
+
+    /**
+     * @return the extent of a longitude/latitude bounding box, widened to every longitude if the
+     *         box crosses the antimeridian
+     */
+    public static Envelope boundingBox(double minLongitude, double minLatitude,
+            double maxLongitude, double maxLatitude) {
+        if (minLongitude > maxLongitude) {
+            return new Envelope(MIN_LONGITUDE, MAX_LONGITUDE, minLatitude, maxLatitude);
+        }
+        return new Envelope(minLongitude, maxLongitude, minLatitude, maxLatitude);
+    }
+
+    /**
+     * @return an index without any extents, which leaves out no feature types
+     */
+    public static FeatureTypeExtents empty() {
+        return new FeatureTypeExtents(Collections.<QName, Envelope> emptyMap());
+    }
+
+    /**
+     * @param extent
+     *            the extent, in longitude/latitude, that a matching feature must intersect
+     * @param featureTypes
+     *            the feature types to check
+     * @return those of the feature types whose advertised extent does not intersect the extent
+     */
+    @SuppressWarnings("unchecked")
+    public Set<QName> getFeatureTypesOutside(Envelope extent, Set<QName> featureTypes) {
+        Set<QName> outside = new HashSet<QName>(featureTypes);
+        outside.retainAll(indexedFeatureTypes);
+        if (!extent.isNull()) {
+            outside.removeAll((List<QName>) index.query(extent));
+        }
+        return outside;
+    }
+}
@@ -18,13 +18,14 @@
 import java.util.ArrayList;
 import java.util.List;
 
+import com.vividsolutions.jts.geom.Envelope;
+
 import ddf.catalog.data.Metacard;
 
 public class WfsFeatureCollection {
     // Should reconstruct the FeatureCollection as defined in the schema
 
     // TODO namespaces? schemalocations?
-    // TODO boundedBy?
 
     // XXX - IDEAS for methods to add to this object
     // Method to retrieve a set of namespaces
@@ -33,6 +34,10 @@ public class WfsFeatureCollection {
 
     private List<Metacard> featureMembers = new ArrayList<Metacard>();
 
+    private String outputFormat;
+
+    private Envelope bounds;
+
     public List<Metacard> getFeatureMembers() {
         return featureMembers;
     }
@@ -41,4 +46,27 @@ public void setFeatureMembers(List<Metacard> featureMembers) {
         this.featureMembers = featureMembers;
     }
 
+    /**
+     * @return the outputFormat requested for this collection, or null for the default GML
+     */
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    public void setOutputFormat(String outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * @return the bounds of the feature members when they are already known, e.g. accumulated
+     *         while the members were read, or null if they have to be computed from the members
+     */
+    public Envelope getBounds() {
+        return bounds;
+    }
+
+    public void setBounds(Envelope bounds) {
+        this.bounds = bounds;
+    }
+
 }
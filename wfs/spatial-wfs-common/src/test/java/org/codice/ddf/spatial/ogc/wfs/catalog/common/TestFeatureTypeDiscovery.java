@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.common;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestFeatureTypeDiscovery {
+
+    private final Map<String, String> discovered = new ConcurrentHashMap<String, String>();
+
+    private final FeatureTypeDiscovery.Callback<String> callback = new FeatureTypeDiscovery.Callback<String>() {
+        @Override
+        public void discovered(String name, String result) {
+            discovered.put(name, result);
+        }
+    };
+
+    @Test
+    public void testEachResultIsHandedToCallback() {
+        Map<String, Callable<String>> requests = new LinkedHashMap<String, Callable<String>>();
+        requests.put("a", returning("schema a"));
+        requests.put("b", returning("schema b"));
+        requests.put("c", returning(null));
+
+        int described = new FeatureTypeDiscovery(2, 5, TimeUnit.SECONDS).discover(requests,
+                callback);
+
+        assertThat(described, is(2));
+        assertThat(discovered.size(), is(2));
+        assertThat(discovered.get("a"), is("schema a"));
+        assertThat(discovered.get("b"), is("schema b"));
+    }
+
+    @Test
+    public void testFailingRequestIsSkipped() {
+        Map<String, Callable<String>> requests = new LinkedHashMap<String, Callable<String>>();
+        requests.put("failing", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new WfsException("Unable to describe feature type");
+            }
+        });
+        requests.put("good", returning("schema"));
+
+        int described = new FeatureTypeDiscovery(2, 5, TimeUnit.SECONDS).discover(requests,
+                callback);
+
+        assertThat(described, is(1));
+        assertThat(discovered.size(), is(1));
+        assertThat(discovered.get("good"), is("schema"));
+    }
+
+    @Test(timeout = 10000)
+    public void testBlockingRequestIsCancelledAfterTimeout() throws Exception {
+        final CountDownLatch neverReleased = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        Map<String, Callable<String>> requests = new LinkedHashMap<String, Callable<String>>();
+        requests.put("blocking", new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                try {
+                    neverReleased.await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return "schema";
+            }
+        });
+        requests.put("good", returning("schema"));
+
+        int described = new FeatureTypeDiscovery(2, 200, TimeUnit.MILLISECONDS).discover(
+                requests, callback);
+
+        assertThat(described, is(1));
+        assertThat(discovered.containsKey("blocking"), is(false));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test(timeout = 10000)
+    public void testQueuedRequestIsNotTimedOutWhileWaiting() {
+        Map<String, Callable<String>> requests = new LinkedHashMap<String, Callable<String>>();
+        for (int i = 0; i < 3; i++) {
+            requests.put("slow" + i, new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    Thread.sleep(150);
+                    return "schema";
+                }
+            });
+        }
+
+        // Each request fits in the timeout, but all of them together on one thread do not
+        int described = new FeatureTypeDiscovery(1, 300, TimeUnit.MILLISECONDS).discover(
+                requests, callback);
+
+        assertThat(described, is(3));
+    }
+
+    private Callable<String> returning(final String result) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                return result;
+            }
+        };
+    }
+}
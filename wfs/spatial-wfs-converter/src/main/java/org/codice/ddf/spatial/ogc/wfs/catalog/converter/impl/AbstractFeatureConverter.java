@@ -26,8 +26,6 @@
 import static org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants.PB;
 import static org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants.TB;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.Serializable;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
@@ -39,26 +37,22 @@
 import java.util.Set;
 
 import javax.xml.bind.DatatypeConverter;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.lang.StringUtils;
-import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GeometryAttribute;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GmlGeometryReader;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.FeatureMetacardType;
 import org.codice.ddf.spatial.ogc.wfs.catalog.converter.FeatureConverter;
+import org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl.FeatureConversionPlan.FeatureProperty;
 import org.codice.ddf.spatial.ogc.wfs.catalog.mapper.MetacardMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
 
 import com.thoughtworks.xstream.io.HierarchicalStreamReader;
-import com.thoughtworks.xstream.io.copy.HierarchicalStreamCopier;
 import com.thoughtworks.xstream.io.naming.NoNameCoder;
 import com.thoughtworks.xstream.io.xml.CompactWriter;
-import com.thoughtworks.xstream.io.xml.StaxDriver;
-import com.thoughtworks.xstream.io.xml.WstxDriver;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.WKTWriter;
-import com.vividsolutions.jts.io.gml2.GMLReader;
 
 import ddf.catalog.data.AttributeDescriptor;
 import ddf.catalog.data.AttributeType.AttributeFormat;
@@ -69,9 +63,9 @@
 
 public abstract class AbstractFeatureConverter implements FeatureConverter {
 
-    private HierarchicalStreamCopier copier = new HierarchicalStreamCopier();
-
     private NoNameCoder noNameCoder = new NoNameCoder();
+
+    protected final GmlGeometryReader gmlGeometryReader = new GmlGeometryReader();
     
     private MetacardMapper metacardMapper = null;
 
@@ -89,6 +83,8 @@ public abstract class AbstractFeatureConverter implements FeatureConverter {
 
     private final Set<String> basicAttributeNames = getBasicAttributeNames();
 
+    private volatile FeatureConversionPlan conversionPlan;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractFeatureConverter.class);
 
     protected static final String ERROR_PARSING_MESSAGE = "Error parsing Geometry from feature xml.";
@@ -129,90 +125,27 @@ public void setCoordinateOrder(String coordinateOrder) {
         this.coordinateOrder = coordinateOrder;
     }
 
-    protected HierarchicalStreamReader copyXml(HierarchicalStreamReader hreader, StringWriter writer) {
-        copier.copy(hreader, new CompactWriter(writer, noNameCoder));
-
-        StaxDriver driver = new WstxDriver();
-        return driver.createReader(new ByteArrayInputStream(writer.toString().getBytes()));
-    }
-
     protected Metacard createMetacardFromFeature(HierarchicalStreamReader hreader,
             MetacardType metacardType) {
-        String propertyPrefix = metacardType.getName() + ".";
+        FeatureConversionPlan plan = getConversionPlan(metacardType);
         StringWriter metadataWriter = new StringWriter();
-        HierarchicalStreamReader reader = copyXml(hreader, metadataWriter);
+        RecordingStreamReader reader = new RecordingStreamReader(hreader, new CompactWriter(
+                metadataWriter, noNameCoder));
         MetacardImpl mc = new MetacardImpl(metacardType);
         mc.setContentTypeName(metacardType.getName());
-        
+
         while (reader.hasMoreChildren()) {
             reader.moveDown();
 
-            String featureProperty = propertyPrefix + reader.getNodeName();
-            AttributeDescriptor attributeDescriptor = metacardType.getAttributeDescriptor(featureProperty);                      
-           
-            //Check MetacardMapper for mappings of incoming values
-            String mappedMetacardAttribute = null;
-            if (metacardMapper != null) {
-                LOGGER.debug("Looking up metacard attribute for feature property {} using metacard mapper", featureProperty);
-                mappedMetacardAttribute = metacardMapper.getMetacardAttribute(featureProperty);
-                LOGGER.debug("Found metacard attribute {} for feature property {}", mappedMetacardAttribute, featureProperty);
-            }
-            
-            Serializable value = null;
-            if (attributeDescriptor != null
-                    && (StringUtils.isNotBlank(reader.getValue())
-                            || BasicTypes.GEO_TYPE.getAttributeFormat().equals(
-                                    attributeDescriptor.getType().getAttributeFormat()) || BasicTypes.DATE_TYPE
-                            .getAttributeFormat().equals(
-                                    attributeDescriptor.getType().getAttributeFormat()))) {
-                if (StringUtils.isNotBlank(mappedMetacardAttribute)) {
-                    if (StringUtils.equals(mappedMetacardAttribute, Metacard.RESOURCE_SIZE)) {
-                        String sizeBeforeConversion = reader.getValue();
-                        String bytes = convertToBytes(reader, metacardMapper.getDataUnit());
-                        if (StringUtils.isNotBlank(bytes)) {
-                            LOGGER.debug("Setting mapped metacard attribute {} with value {}", mappedMetacardAttribute, bytes);
-                            mc.setAttribute(mappedMetacardAttribute, bytes);
-                        }
-                        if(StringUtils.isNotBlank(sizeBeforeConversion)) {
-                            LOGGER.debug("Setting metacard attribute {} with value {}", featureProperty, sizeBeforeConversion);
-                            mc.setAttribute(featureProperty, sizeBeforeConversion);
-                        }
-                    } else {
-                        value = getValueForMetacardAttribute(attributeDescriptor.getType()
-                                .getAttributeFormat(), reader);
-                        if (value != null) {
-                            LOGGER.debug("Setting mapped metacard attribute {} with value {}", mappedMetacardAttribute, value);
-                            mc.setAttribute(mappedMetacardAttribute, value);
-                            mc.setAttribute(featureProperty, value);
-                        }
-                    }
-                } else {
-                    value = getValueForMetacardAttribute(attributeDescriptor.getType()
-                            .getAttributeFormat(), reader);
-
-                    if (value != null) {
-                        LOGGER.debug("Setting metacard attribute {} with value {}",
-                                featureProperty, value);
-                        mc.setAttribute(featureProperty, value);
-                    }
-                }
-                    if (BasicTypes.GEO_TYPE.getAttributeFormat().equals(
-                            attributeDescriptor.getType().getAttributeFormat())) {
-                        mc.setLocation((String) value);
-                    }
-                    // if this node matches a basic metacard attribute name,
-                    // populate that field as well
-                    if (isBasicMetacardAttribute(reader.getNodeName())) {
-                        LOGGER.debug("Setting metacard basic attribute: {} = {}",
-                                reader.getNodeName(), value);
-
-                        mc.setAttribute(reader.getNodeName(), value);
-                    }
-                
+            FeatureProperty property = plan.getProperty(reader.getNodeName());
+            if (property != null
+                    && (property.isReadWhenBlank() || StringUtils.isNotBlank(reader.getValue()))) {
+                setAttributes(mc, property, reader);
             }
-            
+
             reader.moveUp();
         }
+        reader.finish();
 
         mc.setMetadata(metadataWriter.toString());
 
@@ -228,6 +161,72 @@ protected Metacard createMetacardFromFeature(HierarchicalStreamReader hreader,
         return mc;
     }
 
+    private void setAttributes(MetacardImpl mc, FeatureProperty property,
+            HierarchicalStreamReader reader) {
+        String featureProperty = property.getName();
+
+        //Check MetacardMapper for mappings of incoming values
+        String mappedMetacardAttribute = null;
+        if (metacardMapper != null) {
+            LOGGER.debug("Looking up metacard attribute for feature property {} using metacard mapper", featureProperty);
+            mappedMetacardAttribute = metacardMapper.getMetacardAttribute(featureProperty);
+            LOGGER.debug("Found metacard attribute {} for feature property {}", mappedMetacardAttribute, featureProperty);
+        }
+
+        // Geometries are kept on the metacard along with their WKT so they are not
+        // parsed again when the metacard is written
+        Serializable value = null;
+        Geometry geometry = null;
+        if (property.isGeometry()) {
+            geometry = readGeometry(reader);
+            if (geometry != null) {
+                value = new WKTWriter().write(geometry);
+            }
+        }
+        if (StringUtils.equals(mappedMetacardAttribute, Metacard.RESOURCE_SIZE)) {
+            String sizeBeforeConversion = reader.getValue();
+            String bytes = convertToBytes(reader, metacardMapper.getDataUnit());
+            if (StringUtils.isNotBlank(bytes)) {
+                LOGGER.debug("Setting mapped metacard attribute {} with value {}", mappedMetacardAttribute, bytes);
+                mc.setAttribute(mappedMetacardAttribute, bytes);
+            }
+            if (StringUtils.isNotBlank(sizeBeforeConversion)) {
+                LOGGER.debug("Setting metacard attribute {} with value {}", featureProperty, sizeBeforeConversion);
+                mc.setAttribute(featureProperty, sizeBeforeConversion);
+            }
+        } else {
+            if (!property.isGeometry()) {
+                value = getValueForMetacardAttribute(property.getFormat(), reader);
+            }
+            if (value != null) {
+                if (StringUtils.isNotBlank(mappedMetacardAttribute)) {
+                    LOGGER.debug("Setting mapped metacard attribute {} with value {}", mappedMetacardAttribute, value);
+                    setAttribute(mc, mappedMetacardAttribute, value, geometry);
+                }
+                LOGGER.debug("Setting metacard attribute {} with value {}", featureProperty, value);
+                setAttribute(mc, featureProperty, value, geometry);
+            }
+        }
+        if (property.isGeometry()) {
+            setAttribute(mc, Metacard.GEOGRAPHY, value, geometry);
+        }
+        // if this node matches a basic metacard attribute name,
+        // populate that field as well
+        if (property.isBasicAttribute()) {
+            LOGGER.debug("Setting metacard basic attribute: {} = {}", reader.getNodeName(), value);
+            setAttribute(mc, reader.getNodeName(), value, geometry);
+        }
+    }
+
+    private FeatureConversionPlan getConversionPlan(MetacardType metacardType) {
+        FeatureConversionPlan plan = conversionPlan;
+        if (plan == null || plan.getMetacardType() != metacardType) {
+            plan = new FeatureConversionPlan(metacardType, basicAttributeNames);
+            conversionPlan = plan;
+        }
+        return plan;
+    }
+
     protected Serializable getValueForMetacardAttribute(AttributeFormat attributeFormat,
             HierarchicalStreamReader reader) {
 
@@ -256,19 +255,7 @@ protected Serializable getValueForMetacardAttribute(AttributeFormat attributeFor
             ser = reader.getValue();
             break;
         case GEOMETRY:
-            XmlNode node = new XmlNode(reader);
-            String xml = node.toString();
-            GMLReader gmlReader = new GMLReader();
-            Geometry geo = null;
-            try {
-                geo = gmlReader.read(xml, null);
-            } catch (SAXException e) {
-                LOGGER.warn(ERROR_PARSING_MESSAGE, e);
-            } catch (IOException e) {
-                LOGGER.warn(ERROR_PARSING_MESSAGE, e);
-            } catch (ParserConfigurationException e) {
-                LOGGER.warn(ERROR_PARSING_MESSAGE, e);
-            }
+            Geometry geo = readGeometry(reader);
             if (geo != null) {
                 WKTWriter wktWriter = new WKTWriter();
                 ser = wktWriter.write(geo);
@@ -291,6 +278,23 @@ protected Serializable getValueForMetacardAttribute(AttributeFormat attributeFor
 
     }
 
+    /**
+     * Reads the geometry of the feature property the reader is positioned on.
+     *
+     * @return the geometry, or null if the property does not hold a supported GML geometry
+     */
+    protected Geometry readGeometry(HierarchicalStreamReader reader) {
+        return gmlGeometryReader.readGeometryProperty(reader);
+    }
+
+    private void setAttribute(MetacardImpl mc, String name, Serializable value, Geometry geometry) {
+        if (geometry != null) {
+            mc.setAttribute(new GeometryAttribute(name, (String) value, geometry));
+        } else {
+            mc.setAttribute(name, value);
+        }
+    }
+
     private String convertToBytes(HierarchicalStreamReader reader, String unit) {
 
         BigDecimal resourceSize = new BigDecimal(reader.getValue());
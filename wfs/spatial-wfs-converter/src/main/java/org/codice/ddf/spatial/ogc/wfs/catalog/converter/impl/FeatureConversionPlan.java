@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import ddf.catalog.data.AttributeDescriptor;
+import ddf.catalog.data.AttributeType.AttributeFormat;
+import ddf.catalog.data.MetacardType;
+
+/**
+ * Maps the element names of a feature type to what is needed to set them on a metacard. The plan
+ * is built once for each {@link MetacardType}, so converting a feature only has to look up each
+ * element by name.
+ */
+class FeatureConversionPlan {
+
+    private final MetacardType metacardType;
+
+    private final Map<String, FeatureProperty> properties = new HashMap<String, FeatureProperty>();
+
+    FeatureConversionPlan(MetacardType metacardType, Set<String> basicAttributeNames) {
+        this.metacardType = metacardType;
+        String propertyPrefix = metacardType.getName() + ".";
+        for (AttributeDescriptor descriptor : metacardType.getAttributeDescriptors()) {
+            if (descriptor.getType() != null && descriptor.getName().startsWith(propertyPrefix)) {
+                String nodeName = descriptor.getName().substring(propertyPrefix.length());
+                properties.put(nodeName, new FeatureProperty(descriptor.getName(), descriptor
+                        .getType().getAttributeFormat(), basicAttributeNames.contains(nodeName)));
+            }
+        }
+    }
+
+    MetacardType getMetacardType() {
+        return metacardType;
+    }
+
+    /**
+     * @return the property for the element name, or null if the element is not an attribute of
+     *         the metacard type
+     */
+    FeatureProperty getProperty(String nodeName) {
+        return properties.get(nodeName);
+    }
+
+    static class FeatureProperty {
+
+        private final String name;
+
+        private final AttributeFormat format;
+
+        private final boolean basicAttribute;
+
+        FeatureProperty(String name, AttributeFormat format, boolean basicAttribute) {
+            this.name = name;
+            this.format = format;
+            this.basicAttribute = basicAttribute;
+        }
+
+        /**
+         * @return the metacard attribute name, the element name with the metacard type prefix
+         */
+        String getName() {
+            return name;
+        }
+
+        AttributeFormat getFormat() {
+            return format;
+        }
+
+        boolean isGeometry() {
+            return AttributeFormat.GEOMETRY.equals(format);
+        }
+
+        /**
+         * Geometries and dates are read from child elements, so they are read even if the
+         * element has no text of its own.
+         */
+        boolean isReadWhenBlank() {
+            return AttributeFormat.GEOMETRY.equals(format) || AttributeFormat.DATE.equals(format);
+        }
+
+        /**
+         * @return true if the element name is also a basic metacard attribute name
+         */
+        boolean isBasicAttribute() {
+            return basicAttribute;
+        }
+    }
+}
@@ -27,6 +27,7 @@
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GeometryAttribute;
 import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.AttributeDescriptorComparator;
 import org.codice.ddf.spatial.ogc.wfs.catalog.common.WfsConstants;
@@ -109,8 +110,10 @@ public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingCo
             writer.addAttribute(FID, fid);
         }
 
-        if (null != metacard.getLocation()) {
-            Geometry geo = XmlNode.readGeometry(metacard.getLocation());
+        // The location is written as the bounds and as an attribute, so parse it only once
+        Attribute location = GeometryAttribute.wrap(metacard.getAttribute(Metacard.GEOGRAPHY));
+        if (null != location) {
+            Geometry geo = GeometryAttribute.getGeometry(location);
             if (geo != null && !geo.isEmpty()) {
                 XmlNode.writeEnvelope(WfsConstants.GML_PREFIX + ":" + "boundedBy", context, writer, geo.getEnvelopeInternal());
             }
@@ -121,7 +124,8 @@ public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingCo
         descriptors.addAll(metacard.getMetacardType().getAttributeDescriptors());
 
         for (AttributeDescriptor attributeDescriptor : descriptors) {
-            Attribute attribute = metacard.getAttribute(attributeDescriptor.getName());
+            Attribute attribute = Metacard.GEOGRAPHY.equals(attributeDescriptor.getName()) ? location
+                    : metacard.getAttribute(attributeDescriptor.getName());
             if (attribute != null) {
                 writeAttributeToXml(attribute, qname, attributeDescriptor.getType()
                         .getAttributeFormat(), context, writer);
@@ -150,7 +154,8 @@ private void writeAttributeToXml(Attribute attribute, QName qname, AttributeForm
                 }
                 break;
             case GEOMETRY:
-                XmlNode.writeGeometry(name, context, writer, XmlNode.readGeometry((String) value));
+                XmlNode.writeGeometry(name, context, writer,
+                        GeometryAttribute.getGeometry(attribute, value));
                 break;
             case BINARY:
                 xmlValue = Base64.encodeBase64String((byte[]) value);
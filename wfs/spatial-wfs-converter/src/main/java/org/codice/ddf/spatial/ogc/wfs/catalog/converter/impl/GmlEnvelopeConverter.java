@@ -15,6 +15,8 @@
 
 package org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl;
 
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GmlGeometryReader;
+
 import com.thoughtworks.xstream.converters.Converter;
 import com.thoughtworks.xstream.converters.MarshallingContext;
 import com.thoughtworks.xstream.converters.UnmarshallingContext;
@@ -32,6 +34,8 @@ public class GmlEnvelopeConverter implements Converter {
 
     private static String SRS_VALUE = "EPSG:4326";
 
+    private final GmlGeometryReader gmlGeometryReader = new GmlGeometryReader();
+
     @Override
     public boolean canConvert(Class clazz) {
         return Envelope.class.isAssignableFrom(clazz);
@@ -55,7 +59,7 @@ public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingCo
 
     @Override
     public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
-        return null;
+        return gmlGeometryReader.readEnvelope(reader);
     }
 
 }
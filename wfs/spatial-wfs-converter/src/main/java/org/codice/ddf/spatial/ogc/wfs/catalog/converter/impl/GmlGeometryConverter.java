@@ -15,15 +15,11 @@
 
 package org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl;
 
-import java.io.IOException;
 import java.io.StringReader;
 
-import javax.xml.parsers.ParserConfigurationException;
-
-import org.codice.ddf.spatial.ogc.catalog.common.converter.XmlNode;
+import org.codice.ddf.spatial.ogc.catalog.common.converter.GmlGeometryReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.SAXException;
 import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
 
@@ -37,7 +33,6 @@
 import com.thoughtworks.xstream.io.xml.xppdom.XppFactory;
 import com.vividsolutions.jts.geom.Geometry;
 import com.vividsolutions.jts.io.WKTWriter;
-import com.vividsolutions.jts.io.gml2.GMLReader;
 import com.vividsolutions.jts.io.gml2.GMLWriter;
 
 public class GmlGeometryConverter implements Converter {
@@ -46,7 +41,7 @@ public class GmlGeometryConverter implements Converter {
 
     private static String ERROR_SERIALIZING_MSG = "Failed to serialize GML from Geometry.";
 
-    private static String ERROR_PARSING_MSG = "Error parsing Geometry from feature xml.";
+    private final GmlGeometryReader gmlGeometryReader = new GmlGeometryReader();
 
     @Override
     public boolean canConvert(Class clazz) {
@@ -71,18 +66,7 @@ public void marshal(Object value, HierarchicalStreamWriter writer, MarshallingCo
 
     @Override
     public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
-        XmlNode gmlNode = new XmlNode(reader);
-        GMLReader gmlReader = new GMLReader();
-        Geometry geo = null;
-        try {
-            geo = gmlReader.read(gmlNode.toString(), null);
-        } catch (SAXException e) {
-            LOGGER.warn(ERROR_PARSING_MSG, e);
-        } catch (IOException e) {
-            LOGGER.warn(ERROR_PARSING_MSG, e);
-        } catch (ParserConfigurationException e) {
-            LOGGER.warn(ERROR_PARSING_MSG, e);
-        }
+        Geometry geo = gmlGeometryReader.readGeometryProperty(reader);
         if (geo != null) {
             WKTWriter wktWriter = new WKTWriter();
             return wktWriter.write(geo);
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.converter.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.io.ReaderWrapper;
+import com.thoughtworks.xstream.io.copy.HierarchicalStreamCopier;
+
+/**
+ * Reads a node while writing it to a {@link HierarchicalStreamWriter}, so a feature can be
+ * converted and kept as metadata in the same pass over the stream. Children that are skipped by
+ * the caller are copied when the reader moves up past them, so the written XML is the same as a
+ * {@link HierarchicalStreamCopier} copy of the node.
+ *
+ * The reader is created on the node to record and {@link #finish()} must be called once the caller
+ * is done with it. The wrapped reader is left on the recorded node.
+ */
+public class RecordingStreamReader extends ReaderWrapper {
+
+    private final HierarchicalStreamWriter writer;
+
+    private final HierarchicalStreamCopier copier = new HierarchicalStreamCopier();
+
+    private final Deque<Node> nodes = new ArrayDeque<Node>();
+
+    public RecordingStreamReader(HierarchicalStreamReader reader, HierarchicalStreamWriter writer) {
+        super(reader);
+        this.writer = writer;
+        startNode();
+    }
+
+    @Override
+    public boolean hasMoreChildren() {
+        readValue();
+        return wrapped.hasMoreChildren();
+    }
+
+    @Override
+    public void moveDown() {
+        readValue();
+        wrapped.moveDown();
+        startNode();
+    }
+
+    @Override
+    public void moveUp() {
+        endNode();
+        wrapped.moveUp();
+    }
+
+    @Override
+    public String getValue() {
+        return readValue();
+    }
+
+    /**
+     * Copies the rest of the recorded node to the writer and closes it.
+     */
+    public void finish() {
+        while (nodes.size() > 1) {
+            moveUp();
+        }
+        if (!nodes.isEmpty()) {
+            endNode();
+        }
+        writer.flush();
+    }
+
+    private void startNode() {
+        writer.startNode(wrapped.getNodeName());
+        for (int i = 0; i < wrapped.getAttributeCount(); i++) {
+            writer.addAttribute(wrapped.getAttributeName(i), wrapped.getAttribute(i));
+        }
+        nodes.push(new Node());
+    }
+
+    /**
+     * The value is read, and written, before any children, in the same order as the copier.
+     */
+    private String readValue() {
+        Node node = nodes.peek();
+        if (!node.valueRead) {
+            node.value = wrapped.getValue();
+            node.valueRead = true;
+            if (node.value != null && node.value.length() > 0) {
+                writer.setValue(node.value);
+            }
+        }
+        return node.value;
+    }
+
+    private void endNode() {
+        readValue();
+        while (wrapped.hasMoreChildren()) {
+            wrapped.moveDown();
+            copier.copy(wrapped, writer);
+            wrapped.moveUp();
+        }
+        writer.endNode();
+        nodes.pop();
+    }
+
+    private static class Node {
+
+        private String value;
+
+        private boolean valueRead;
+    }
+}
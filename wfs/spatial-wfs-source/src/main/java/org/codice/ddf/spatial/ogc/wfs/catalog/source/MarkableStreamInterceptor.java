@@ -14,7 +14,9 @@
  **/
 package org.codice.ddf.spatial.ogc.wfs.catalog.source;
 
-import org.apache.commons.io.IOUtils;
+import java.io.File;
+import java.io.InputStream;
+
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
@@ -22,29 +24,62 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-
+/**
+ * Makes WFS responses markable so readers and exception mappers can reset them. Responses are
+ * buffered with a {@link SpillableInputStream}, which keeps up to {@code memoryThreshold} bytes in
+ * memory and spills the rest to a temporary file.
+ */
 public class MarkableStreamInterceptor extends AbstractPhaseInterceptor<Message> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MarkableStreamInterceptor.class);
 
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private volatile int memoryThreshold = DEFAULT_MEMORY_THRESHOLD;
+
+    private volatile File spillDirectory;
+
+    private volatile boolean enabled = true;
+
     public MarkableStreamInterceptor() {
         super(Phase.PRE_STREAM);
     }
 
+    /**
+     * Sets the number of bytes of a response kept in memory before it is spilled to a file.
+     */
+    public void setMemoryThreshold(int memoryThreshold) {
+        this.memoryThreshold = Math.max(memoryThreshold, 0);
+    }
+
+    /**
+     * Sets the directory spilled responses are written to, or null for the default temporary
+     * directory.
+     */
+    public void setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * When disabled, responses are passed through unbuffered and can not be reset.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
     @Override
     public void handleMessage(Message message) throws Fault {
-        LOGGER.debug("Converting message input stream to a buffered stream");
+        if (!enabled) {
+            return;
+        }
         InputStream is = message.getContent(InputStream.class);
-
-        try {
-            message.setContent(InputStream.class, new ByteArrayInputStream(IOUtils.toByteArray(is)));
-        } catch (IOException e) {
-            LOGGER.warn("Failed to convert buffered stream");
-        } catch (NullPointerException e) {
+        if (is == null) {
             LOGGER.warn("InputStream was null");
+            return;
         }
+
+        LOGGER.debug("Converting message input stream to a buffered stream");
+        message.setContent(InputStream.class, new SpillableInputStream(is, memoryThreshold,
+                spillDirectory));
     }
 }
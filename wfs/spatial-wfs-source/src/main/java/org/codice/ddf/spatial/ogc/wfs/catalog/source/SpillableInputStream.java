@@ -0,0 +1,276 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers what is read from a stream so it can be reset and read again. Up to
+ * {@code memoryThreshold} bytes are kept in memory, after which the buffer is spilled to a
+ * temporary file that is deleted when the stream is closed, or when the JVM shuts down if it never
+ * is.
+ *
+ * As with a {@link java.io.ByteArrayInputStream}, {@link #reset()} returns to the start of the
+ * stream if {@link #mark(int)} has not been called. The read limit passed to mark is ignored since
+ * the whole stream is kept. Readers that will not reset the stream can call
+ * {@link #stopBuffering()} so the rest of it is read straight from the source.
+ *
+ * The stream is not thread safe; like the response it buffers, it is read by one thread.
+ */
+public class SpillableInputStream extends InputStream {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillableInputStream.class);
+
+    private static final String SPILL_FILE_PREFIX = "wfs-response-";
+
+    /** Spill files of streams that are still open, deleted on shutdown if they are never closed */
+    private static final Set<File> OPEN_SPILL_FILES = Collections
+            .newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("wfs-response-spill-cleanup") {
+            @Override
+            public void run() {
+                deleteOpenSpillFiles();
+            }
+        });
+    }
+
+    private final InputStream source;
+
+    private final int memoryThreshold;
+
+    private final File spillDirectory;
+
+    private byte[] memory = new byte[0];
+
+    private File spillFile;
+
+    private RandomAccessFile spill;
+
+    /** Number of bytes read from the source and buffered */
+    private long buffered = 0;
+
+    private long position = 0;
+
+    private long mark = 0;
+
+    private boolean buffering = true;
+
+    private boolean closed = false;
+
+    /**
+     * @param source
+     *            stream to buffer
+     * @param memoryThreshold
+     *            number of bytes to keep in memory before spilling to a file
+     * @param spillDirectory
+     *            directory of the spill file, or null for the default temporary directory
+     */
+    public SpillableInputStream(InputStream source, int memoryThreshold, File spillDirectory) {
+        this.source = source;
+        this.memoryThreshold = Math.max(memoryThreshold, 0);
+        this.spillDirectory = spillDirectory;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int count;
+        do {
+            count = read(b, 0, 1);
+        } while (count == 0);
+        return (count == -1) ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (position < buffered) {
+            return readBuffered(b, off, len);
+        }
+
+        int count = source.read(b, off, len);
+        if (count > 0) {
+            if (buffering) {
+                append(b, off, count);
+                buffered += count;
+            }
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        byte[] skipped = new byte[(int) Math.min(n, 8192)];
+        int count = read(skipped, 0, skipped.length);
+        return Math.max(count, 0);
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        if (position < buffered) {
+            return (int) Math.min(buffered - position, Integer.MAX_VALUE);
+        }
+        return source.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return buffering;
+    }
+
+    @Override
+    public void mark(int readlimit) {
+        mark = position;
+    }
+
+    @Override
+    public void reset() throws IOException {
+        ensureOpen();
+        if (!buffering) {
+            throw new IOException("Stream is no longer buffered and can not be reset.");
+        }
+        position = mark;
+    }
+
+    /**
+     * Stops buffering the stream. Bytes that were already buffered and not yet read are still
+     * returned, after which the stream is read straight from the source and can no longer be
+     * reset.
+     */
+    public void stopBuffering() {
+        buffering = false;
+        if (position >= buffered) {
+            releaseBuffer();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            source.close();
+        } finally {
+            releaseBuffer();
+        }
+    }
+
+    /**
+     * Deletes the spill files of streams that were never closed.
+     */
+    static void deleteOpenSpillFiles() {
+        for (File file : OPEN_SPILL_FILES) {
+            OPEN_SPILL_FILES.remove(file);
+            if (file.exists() && !file.delete()) {
+                LOGGER.debug("Unable to delete spill file {}", file);
+            }
+        }
+    }
+
+    private int readBuffered(byte[] b, int off, int len) throws IOException {
+        int count = (int) Math.min(len, buffered - position);
+        if (spill == null) {
+            System.arraycopy(memory, (int) position, b, off, count);
+        } else {
+            spill.seek(position);
+            count = spill.read(b, off, count);
+            if (count < 0) {
+                throw new IOException("Spilled response is shorter than expected.");
+            }
+        }
+        position += count;
+        if (!buffering && position >= buffered) {
+            releaseBuffer();
+        }
+        return count;
+    }
+
+    private void append(byte[] b, int off, int len) throws IOException {
+        if (spill == null && buffered + len <= memoryThreshold) {
+            int size = (int) buffered;
+            if (size + len > memory.length) {
+                memory = Arrays.copyOf(memory,
+                        Math.min(Math.max(memory.length * 2, size + len), memoryThreshold));
+            }
+            System.arraycopy(b, off, memory, size, len);
+            return;
+        }
+
+        if (spill == null) {
+            spillFile = File.createTempFile(SPILL_FILE_PREFIX, ".tmp", spillDirectory);
+            OPEN_SPILL_FILES.add(spillFile);
+            LOGGER.debug("Response is larger than {} bytes, buffering it in {}",
+                    memoryThreshold, spillFile);
+            spill = new RandomAccessFile(spillFile, "rw");
+            spill.write(memory, 0, (int) buffered);
+            memory = null;
+        }
+        spill.seek(buffered);
+        spill.write(b, off, len);
+    }
+
+    /**
+     * Drops the buffer once it is no longer needed, deleting the spill file.
+     */
+    private void releaseBuffer() {
+        memory = new byte[0];
+        buffered = 0;
+        position = 0;
+        mark = 0;
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException e) {
+                LOGGER.debug("Unable to close spill file {}", spillFile, e);
+            }
+            spill = null;
+        }
+        if (spillFile != null) {
+            if (!spillFile.delete()) {
+                LOGGER.warn("Unable to delete spill file {}", spillFile);
+            }
+            OPEN_SPILL_FILES.remove(spillFile);
+            spillFile = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed.");
+        }
+    }
+}
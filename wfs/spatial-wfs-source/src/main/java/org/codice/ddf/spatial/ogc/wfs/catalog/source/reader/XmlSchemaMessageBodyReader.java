@@ -25,30 +25,47 @@
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.Provider;
 import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
 
-import org.apache.camel.builder.xml.XPathBuilder;
-import org.apache.camel.impl.DefaultCamelContext;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.ws.commons.schema.XmlSchema;
 import org.apache.ws.commons.schema.XmlSchemaCollection;
 import org.codice.ddf.spatial.ogc.wfs.catalog.source.WfsUriResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xml.sax.InputSource;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
 
+/**
+ * Reads a DescribeFeatureType response. The response is parsed once and handed to the
+ * {@link XmlSchemaCollection} as a DOM document if its root element is an xsd:schema; anything
+ * else, such as a ServiceExceptionReport, is logged and read as null.
+ */
 @Provider
 public class XmlSchemaMessageBodyReader implements MessageBodyReader<XmlSchema> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(XmlSchemaMessageBodyReader.class);
 
-    private static final String XSD_PREFIX = "xsd";
-
-    private static final String COUNT_XPATH = "count(/" + XSD_PREFIX + ":schema)";
+    private static final String SCHEMA_ELEMENT = "schema";
 
-    private static final XPathBuilder countXPathBuilder = new XPathBuilder(COUNT_XPATH).namespace(
-            XSD_PREFIX, XMLConstants.W3C_XML_SCHEMA_NS_URI).numberResult();
+    private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory
+            .newInstance();
 
-    private DefaultCamelContext camelContext = new DefaultCamelContext();
+    static {
+        DOCUMENT_BUILDER_FACTORY.setNamespaceAware(true);
+        // Responses come from remote servers, so they may not declare a DTD or refer to
+        // external entities
+        DOCUMENT_BUILDER_FACTORY.setXIncludeAware(false);
+        DOCUMENT_BUILDER_FACTORY.setExpandEntityReferences(false);
+        setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        setFeature("http://xml.org/sax/features/external-general-entities", false);
+        setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    }
 
     protected WfsUriResolver wfsUriResolver = new WfsUriResolver();
 
@@ -62,20 +79,43 @@ public boolean isReadable(Class<?> clazz, Type type, Annotation[] annotations,
     public XmlSchema readFrom(Class<XmlSchema> clazz, Type type, Annotation[] annotations,
             MediaType mediaType, MultivaluedMap<String, String> headers, InputStream inStream)
         throws IOException, WebApplicationException {
-        // Determine if this is an XMLSchema
-        String input = IOUtils.toString(inStream);
-        inStream.reset();
-        String count = countXPathBuilder.evaluate(camelContext, input);
-        // See if there exactly one instance of "xsd:schema" in this doc
-        if (Integer.valueOf(count) == 1) {
-            XmlSchema schema = null;
+        Document document;
+        try {
+            document = newDocumentBuilder().parse(inStream);
+        } catch (ParserConfigurationException e) {
+            LOGGER.warn("Unable to create a parser for the XML Schema.", e);
+            return null;
+        } catch (SAXException e) {
+            LOGGER.warn("Did not receive valid XML Schema.", e);
+            return null;
+        }
+
+        // A well formed document has a single root element, so this is the only xsd:schema
+        Element root = document.getDocumentElement();
+        if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(root.getNamespaceURI())
+                && SCHEMA_ELEMENT.equals(root.getLocalName())) {
             XmlSchemaCollection schemaCollection = new XmlSchemaCollection();
             schemaCollection.init();
             schemaCollection.setSchemaResolver(wfsUriResolver);
-            schema = schemaCollection.read(new InputSource(inStream));
-            return schema;
+            return schemaCollection.read(document);
         }
-        LOGGER.warn("Did not receive valid XML Schema, instead got: \n{}", input);
+        LOGGER.warn("Did not receive valid XML Schema, instead got {}: \n{}", root.getNodeName(),
+                StringUtils.trim(root.getTextContent()));
         return null;
     }
+
+    private static void setFeature(String feature, boolean value) {
+        try {
+            DOCUMENT_BUILDER_FACTORY.setFeature(feature, value);
+        } catch (ParserConfigurationException e) {
+            LOGGER.warn("XML parser does not support feature {}.", feature, e);
+        }
+    }
+
+    private static DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        // Responses are read on several threads at once
+        synchronized (DOCUMENT_BUILDER_FACTORY) {
+            return DOCUMENT_BUILDER_FACTORY.newDocumentBuilder();
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.source;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestSpillableInputStream {
+
+    @Rule
+    public TemporaryFolder spillDirectory = new TemporaryFolder();
+
+    @Test
+    public void testResetInMemory() throws Exception {
+        byte[] data = createData(100);
+        SpillableInputStream stream = createStream(data, 1000);
+
+        assertThat(stream.markSupported(), is(true));
+        assertThat(IOUtils.toByteArray(stream), is(data));
+        stream.reset();
+        assertThat(IOUtils.toByteArray(stream), is(data));
+        assertThat(spillDirectory.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void testResetThroughSpill() throws Exception {
+        byte[] data = createData(10000);
+        SpillableInputStream stream = createStream(data, 1000);
+
+        byte[] start = new byte[500];
+        IOUtils.readFully(stream, start);
+        stream.mark(0);
+        assertThat(IOUtils.toByteArray(stream), is(Arrays.copyOfRange(data, 500, data.length)));
+        assertThat(spillDirectory.getRoot().list().length, is(1));
+
+        stream.reset();
+        assertThat(stream.read(), is(data[500] & 0xff));
+        assertThat(IOUtils.toByteArray(stream), is(Arrays.copyOfRange(data, 501, data.length)));
+
+        stream.close();
+        assertThat(spillDirectory.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void testAbandonedStreamSpillFileIsDeletedOnShutdown() throws Exception {
+        SpillableInputStream stream = createStream(createData(10000), 1000);
+        IOUtils.toByteArray(stream);
+        assertThat(spillDirectory.getRoot().list().length, is(1));
+
+        SpillableInputStream.deleteOpenSpillFiles();
+        assertThat(spillDirectory.getRoot().list().length, is(0));
+    }
+
+    @Test
+    public void testStopBuffering() throws Exception {
+        byte[] data = createData(10000);
+        SpillableInputStream stream = createStream(data, 1000);
+
+        byte[] start = new byte[2000];
+        IOUtils.readFully(stream, start);
+        stream.reset();
+        stream.stopBuffering();
+
+        assertThat(stream.markSupported(), is(false));
+        assertThat(IOUtils.toByteArray(stream), is(data));
+        assertThat(spillDirectory.getRoot().list().length, is(0));
+        try {
+            stream.reset();
+            fail("An unbuffered stream should not reset");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private SpillableInputStream createStream(byte[] data, int memoryThreshold) {
+        File directory = spillDirectory.getRoot();
+        return new SpillableInputStream(new ByteArrayInputStream(data), memoryThreshold,
+                directory);
+    }
+
+    private byte[] createData(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+}
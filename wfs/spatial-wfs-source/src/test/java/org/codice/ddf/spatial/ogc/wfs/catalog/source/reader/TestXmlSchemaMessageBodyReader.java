@@ -0,0 +1,70 @@
+/**
+ * Copyright (c) Codice Foundation
+ *
+ * This is free software: you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details. A copy of the GNU Lesser General Public License
+ * is distributed along with this program and can be found at
+ * <http://www.gnu.org/licenses/lgpl.html>.
+ *
+ **/
+package org.codice.ddf.spatial.ogc.wfs.catalog.source.reader;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestXmlSchemaMessageBodyReader {
+
+    private static final String SCHEMA = "<xsd:schema "
+            + "xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"urn:test\">"
+            + "<xsd:element name=\"feature\" type=\"xsd:string\"/>%s</xsd:schema>";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadSchema() throws IOException {
+        XmlSchema schema = read(String.format(SCHEMA, ""));
+
+        assertThat(schema, notNullValue());
+        assertThat(schema.getTargetNamespace(), is("urn:test"));
+    }
+
+    @Test
+    public void testExceptionReportIsReadAsNull() throws IOException {
+        assertThat(read("<ServiceExceptionReport><ServiceException>Unknown type"
+                + "</ServiceException></ServiceExceptionReport>"), nullValue());
+    }
+
+    @Test
+    public void testExternalEntityIsNotResolved() throws IOException {
+        File secret = folder.newFile("secret.txt");
+        FileUtils.writeStringToFile(secret, "secret");
+        String xml = "<!DOCTYPE xsd:schema [<!ENTITY secret SYSTEM \"" + secret.toURI()
+                + "\">]>" + String.format(SCHEMA, "<xsd:annotation><xsd:documentation>"
+                + "&secret;</xsd:documentation></xsd:annotation>");
+
+        assertThat(read(xml), nullValue());
+    }
+
+    private XmlSchema read(String xml) throws IOException {
+        return new XmlSchemaMessageBodyReader().readFrom(XmlSchema.class, null, null, null,
+                null, new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+}